@@ -43,6 +43,9 @@ dependencies {
     }
     // Use ASM to read Java class files
     implementation("org.ow2.asm:asm:9.4")
+    implementation("org.ow2.asm:asm-tree:9.4")
+    implementation("org.ow2.asm:asm-analysis:9.4")
+    implementation("org.ow2.asm:asm-commons:9.4")
     // Eliminate SLF4J warning
     implementation("org.slf4j:slf4j-nop:2.0.7")
     // JSR305, for javax.annotation
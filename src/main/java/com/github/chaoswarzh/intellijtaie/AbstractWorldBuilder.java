@@ -22,6 +22,9 @@
 
 package com.github.chaoswarzh.intellijtaie;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.github.chaoswarzh.intellijtaie.config.Options;
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
 import com.github.chaoswarzh.intellijtaie.language.natives.DefaultNativeModel;
@@ -35,6 +38,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -51,6 +55,12 @@ public abstract class AbstractWorldBuilder implements WorldBuilder {
 
     protected static final String JREs = "java-benchmarks/JREs";
 
+    /**
+     * Path to the file which specifies the basic classes that should be
+     * loaded in advance.
+     */
+    private static final String BASIC_CLASSES = "basic-classes.yml";
+
     protected static final List<String> implicitEntries = List.of(
             "<java.lang.System: void initializeSystemClass()>",
             "<java.lang.Thread: void <init>(java.lang.ThreadGroup,java.lang.Runnable)>",
@@ -96,6 +106,19 @@ public abstract class AbstractWorldBuilder implements WorldBuilder {
         }
     }
 
+    /**
+     * Reads basic classes specified by file {@link #BASIC_CLASSES}.
+     */
+    protected static List<String> getBasicClasses() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        JavaType type = mapper.getTypeFactory()
+                .constructCollectionType(List.class, String.class);
+        InputStream content = AbstractWorldBuilder.class
+                .getClassLoader()
+                .getResourceAsStream(BASIC_CLASSES);
+        return mapper.readValue(content, type);
+    }
+
     protected static NativeModel getNativeModel(
             TypeSystem typeSystem, ClassHierarchy hierarchy, Options options) {
         return options.enableNativeModel() ?
@@ -23,7 +23,6 @@
 package com.github.chaoswarzh.intellijtaie;
 
 import com.github.chaoswarzh.intellijtaie.config.Options;
-import com.github.chaoswarzh.intellijtaie.frontend.cache.CachedIRBuilder;
 import com.github.chaoswarzh.intellijtaie.ir.IRBuilder;
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
@@ -31,10 +30,6 @@ import com.github.chaoswarzh.intellijtaie.language.natives.NativeModel;
 import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
 import com.github.chaoswarzh.intellijtaie.util.AbstractResultHolder;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serial;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -71,11 +66,11 @@ public final class World extends AbstractResultHolder
     private ClassHierarchy classHierarchy;
 
     /**
-     * Notes: add {@code transient} to wrap this {@link IRBuilder} using
-     * {@link com.github.chaoswarzh.intellijtaie.frontend.cache.CachedIRBuilder} in serialization.
+     * Notes: This field is {@code transient} because the IRs are cached
+     * separately from the world, and the {@link IRBuilder} for the cached
+     * IRs is set after deserialization.
      *
-     * @see #writeObject(ObjectOutputStream)
-     * @see #readObject(ObjectInputStream)
+     * @see com.github.chaoswarzh.intellijtaie.frontend.cache.CachedWorldBuilder
      */
     private transient IRBuilder irBuilder;
 
@@ -180,17 +175,4 @@ public final class World extends AbstractResultHolder
             throw new RuntimeException("Failed to set World." + fieldName);
         }
     }
-
-    @Serial
-    private void writeObject(ObjectOutputStream s) throws IOException {
-        s.defaultWriteObject();
-        s.writeObject(new CachedIRBuilder(irBuilder, classHierarchy));
-    }
-
-    @Serial
-    private void readObject(ObjectInputStream s) throws IOException,
-            ClassNotFoundException {
-        s.defaultReadObject();
-        setIRBuilder((IRBuilder) s.readObject());
-    }
 }
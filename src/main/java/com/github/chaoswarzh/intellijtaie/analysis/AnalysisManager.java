@@ -36,7 +36,10 @@ import com.github.chaoswarzh.intellijtaie.ir.IR;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
 import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
+import com.github.chaoswarzh.intellijtaie.util.ResultRecomputers;
 import com.github.chaoswarzh.intellijtaie.util.Timer;
+import com.github.chaoswarzh.intellijtaie.util.collection.CollectionUtils;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.graph.SimpleGraph;
 
 import java.lang.reflect.Constructor;
@@ -44,6 +47,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Creates and executes analyses based on given analysis plan.
@@ -52,6 +60,10 @@ public class AnalysisManager {
 
     private static final Logger logger = LogManager.getLogger(AnalysisManager.class);
 
+    static {
+        World.registerResetCallback(ResultRecomputers::clear);
+    }
+
     private final Plan plan;
 
     /**
@@ -73,6 +85,12 @@ public class AnalysisManager {
      */
     private List<Analysis> executedAnalyses;
 
+    /**
+     * Number of analyses that are running. It is maintained only when
+     * this manager clears unused results.
+     */
+    private int runningAnalyses;
+
     private List<JClass> classScope;
 
     private List<JMethod> methodScope;
@@ -99,14 +117,88 @@ public class AnalysisManager {
         classScope = null;
         methodScope = null;
         // execute analyses
-        plan.analyses().forEach(config -> {
-            Analysis analysis = Timer.runAndCount(
-                    () -> runAnalysis(config), config.getId(), Level.INFO);
-            if (!keepAllResults) {
+        int threads = World.get().getOptions().getAnalysisThreads();
+        if (threads > 1 && plan.analyses().size() > 1) {
+            executeConcurrently(threads);
+        } else {
+            plan.analyses().forEach(this::executeAnalysis);
+        }
+    }
+
+    /**
+     * Executes the analyses in the plan by a pool of {@code threads}
+     * threads. Each analysis starts once all analyses it depends on
+     * have finished, so independent analyses run concurrently.
+     */
+    private void executeConcurrently(int threads) {
+        Timer timer = new Timer("Execute analyses by " + threads + " threads");
+        timer.start();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Map<AnalysisConfig, CompletableFuture<Void>> tasks = Maps.newLinkedHashMap();
+        try {
+            // the plan is in topological order of the dependencies,
+            // thus the tasks of the prerequisites are created first
+            for (AnalysisConfig config : plan.analyses()) {
+                CompletableFuture<?>[] prerequisites = getPrerequisites(config)
+                        .stream()
+                        .map(tasks::get)
+                        .toArray(CompletableFuture[]::new);
+                tasks.put(config, CompletableFuture.allOf(prerequisites)
+                        .thenRunAsync(() -> executeAnalysis(config), pool));
+            }
+            CompletableFuture.allOf(tasks.values()
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new AnalysisException("Failed to execute analyses", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        timer.stop();
+        logger.info(timer);
+    }
+
+    /**
+     * @return the analyses in the plan that must finish before
+     * {@code config} starts.
+     */
+    private List<AnalysisConfig> getPrerequisites(AnalysisConfig config) {
+        List<AnalysisConfig> analyses = plan.analyses();
+        List<AnalysisConfig> prerequisites = new ArrayList<>(
+                plan.dependenceGraph().getPredsOf(config));
+        if (World.get().getOptions().getScope() == Scope.REACHABLE) {
+            // class and method analyses in reachable scope require
+            // the call graph, which the dependence graph does not record
+            AnalysisConfig cg = CollectionUtils.findFirst(analyses,
+                    c -> c.getId().equals(CallGraphBuilder.ID));
+            if (cg != null && analyses.indexOf(cg) < analyses.indexOf(config)
+                    && !prerequisites.contains(cg)) {
+                prerequisites.add(cg);
+            }
+        }
+        prerequisites.removeIf(c -> !analyses.contains(c));
+        return prerequisites;
+    }
+
+    private void executeAnalysis(AnalysisConfig config) {
+        if (!keepAllResults) {
+            synchronized (this) {
+                ++runningAnalyses;
+            }
+        }
+        Analysis analysis = Timer.runAndCount(
+                () -> runAnalysis(config), config.getId(), Level.INFO);
+        if (!keepAllResults) {
+            synchronized (this) {
+                --runningAnalyses;
                 executedAnalyses.add(analysis);
                 clearUnusedResults(analysis);
             }
-        });
+        }
     }
 
     private Analysis runAnalysis(AnalysisConfig config) {
@@ -130,6 +222,20 @@ public class AnalysisManager {
             throw new ConfigException(
                     config.getAnalysisClass() + " is not an analysis class");
         }
+        // Register the recomputation of evictable results
+        if (World.get().getOptions().getRecomputableResults()
+                .contains(analysis.getId())) {
+            if (analysis instanceof ClassAnalysis<?> ca) {
+                ResultRecomputers.register(ca.getId(),
+                        h -> ca.analyze((JClass) h));
+            } else if (analysis instanceof MethodAnalysis<?> ma) {
+                ResultRecomputers.register(ma.getId(),
+                        h -> ma.analyze((IR) h));
+            } else {
+                logger.warn("Results of {} are not recomputable," +
+                        " as it is not a class or method analysis", analysis.getId());
+            }
+        }
         // Run the analysis
         if (analysis instanceof ProgramAnalysis<?> pa) {
             runProgramAnalysis(pa);
@@ -161,7 +267,7 @@ public class AnalysisManager {
                 });
     }
 
-    private List<JClass> getClassScope() {
+    private synchronized List<JClass> getClassScope() {
         if (classScope == null) {
             Scope scope = World.get().getOptions().getScope();
             classScope = switch (scope) {
@@ -188,18 +294,23 @@ public class AnalysisManager {
     }
 
     private void runMethodAnalysis(MethodAnalysis<?> analysis) {
+        MethodResultCache<?> cache = MethodResultCache.of(analysis, plan);
         getMethodScope()
                 .parallelStream()
                 .forEach(m -> {
                     IR ir = m.getIR();
-                    Object result = analysis.analyze(ir);
+                    Object result = cache != null
+                            ? cache.analyze(ir) : analysis.analyze(ir);
                     if (result != null) {
                         ir.storeResult(analysis.getId(), result);
                     }
                 });
+        if (cache != null) {
+            cache.logStatistics();
+        }
     }
 
-    private List<JMethod> getMethodScope() {
+    private synchronized List<JMethod> getMethodScope() {
         if (methodScope == null) {
             Scope scope = World.get().getOptions().getScope();
             methodScope = switch (scope) {
@@ -221,6 +332,10 @@ public class AnalysisManager {
     }
 
     /**
+     * Clears the results that are not used by the analyses that have not
+     * finished. When analyses are executed concurrently, this method
+     * is invoked as soon as each analysis finishes.
+     *
      * @param analysis the analysis that just finished.
      */
     private void clearUnusedResults(Analysis analysis) {
@@ -248,13 +363,37 @@ public class AnalysisManager {
                         } else if (a instanceof ClassAnalysis) {
                             getClassScope().forEach(c -> c.clearResult(id));
                         } else if (a instanceof MethodAnalysis) {
-                            getMethodScope().forEach(m -> m.getIR().clearResult(id));
+                            getMethodScope().forEach(m -> m.clearIRResult(id));
                         }
                         break;
                     }
                 }
                 executedAnalyses.remove(i);
             }
+            releaseIRs();
+        }
+    }
+
+    /**
+     * Unpins the IRs that carry no results (see {@link JMethod#releaseIR()}),
+     * so that the IR cache can reclaim them, e.g., the IRs of the library
+     * methods that were only used by pointer analysis. As the results of
+     * program and class analyses may keep the elements of any IR, this is
+     * done only when no such result is alive and no other analysis is
+     * running. The IRs are never reclaimed if the IR cache is not bounded,
+     * and then they are not released.
+     */
+    private void releaseIRs() {
+        if (World.get().getOptions().getIRCacheSize() > 0
+                && runningAnalyses == 0
+                && World.get().getKeys().isEmpty()
+                && executedAnalyses.stream()
+                .noneMatch(a -> a instanceof ClassAnalysis)) {
+            World.get().getClassHierarchy()
+                    .allClasses()
+                    .map(JClass::getDeclaredMethods)
+                    .flatMap(Collection::stream)
+                    .forEach(JMethod::releaseIR);
         }
     }
 }
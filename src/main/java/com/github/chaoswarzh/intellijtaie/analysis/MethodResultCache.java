@@ -0,0 +1,212 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.AnalysisConfig;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.config.Plan;
+import com.github.chaoswarzh.intellijtaie.frontend.cache.CachedWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
+import com.github.chaoswarzh.intellijtaie.util.RuntimeInfoLogger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On-disk cache for the results of a method analysis.
+ * <p>
+ * Each result is stored in its own file, keyed by the hash of the world
+ * (see {@link CachedWorldBuilder#getWorldCacheHash(Options)}), the ID and
+ * options of the analyses in the plan, the Tai-e version, and the shape
+ * of the IR of the method, so that the results are reused by the later
+ * runs on the same program. The world hash is required, as the result
+ * of a method may depend on other classes, e.g., the types of the fields
+ * it accesses. The results are encoded by the {@link ResultCodec}
+ * registered for the analysis.
+ */
+final class MethodResultCache<R> {
+
+    private static final Logger logger = LogManager.getLogger(MethodResultCache.class);
+
+    private static final String CACHE_DIR = "cache/method-results";
+
+    /**
+     * Version of the cache format, which should be increased when
+     * the format or the encoding of IR for hashing changes.
+     */
+    private static final int VERSION = 2;
+
+    private final MethodAnalysis<R> analysis;
+
+    private final ResultCodec<R> codec;
+
+    /**
+     * Hash of the world, the analyses in the plan and the Tai-e version,
+     * which is shared by all methods.
+     */
+    private final byte[] planHash;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private MethodResultCache(MethodAnalysis<R> analysis, ResultCodec<R> codec,
+                              byte[] planHash) {
+        this.analysis = analysis;
+        this.codec = codec;
+        this.planHash = planHash;
+    }
+
+    /**
+     * @return the cache for the results of {@code analysis}, or {@code null}
+     * if the cache is disabled or the results cannot be encoded.
+     */
+    @Nullable
+    static <R> MethodResultCache<R> of(MethodAnalysis<R> analysis, Plan plan) {
+        if (!World.get().getOptions().isMethodResultCache()) {
+            return null;
+        }
+        ResultCodec<R> codec = ResultCodecs.get(analysis.getId());
+        if (codec == null) {
+            return null;
+        }
+        // the result of an analysis may depend on the options of the
+        // analyses it requires, so we include all analyses in the plan
+        StringBuilder key = new StringBuilder();
+        key.append(VERSION).append('\n')
+                .append(RuntimeInfoLogger.getTaieVersion()).append('\n')
+                .append(CachedWorldBuilder.getWorldCacheHash(
+                        World.get().getOptions())).append('\n')
+                .append(analysis.getId()).append('\n');
+        for (AnalysisConfig config : plan.analyses()) {
+            key.append(config.getId()).append(' ')
+                    .append(config.getOptions()).append('\n');
+        }
+        MessageDigest digest = newDigest();
+        byte[] planHash = digest.digest(
+                key.toString().getBytes(StandardCharsets.UTF_8));
+        return new MethodResultCache<>(analysis, codec, planHash);
+    }
+
+    /**
+     * @return the result of {@link #analysis} on {@code ir}, which is read
+     * from the cache if available, otherwise computed and written to
+     * the cache.
+     */
+    R analyze(IR ir) {
+        File file = getCacheFile(ir);
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)))) {
+                R result = codec.decode(ir, in);
+                hits.incrementAndGet();
+                return result;
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Failed to read cached result from {}, recompute it",
+                        file, e);
+            }
+        }
+        misses.incrementAndGet();
+        R result = analysis.analyze(ir);
+        if (result != null) {
+            write(ir, result, file);
+        }
+        return result;
+    }
+
+    private void write(IR ir, R result, File file) {
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        try {
+            // write to a temporary file first, so that the readers
+            // never see partially written files
+            File temp = File.createTempFile(file.getName(), ".tmp", dir);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                codec.encode(ir, result, out);
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write cached result to {}", file, e);
+        }
+    }
+
+    private File getCacheFile(IR ir) {
+        MessageDigest digest = newDigest();
+        digest.update(planHash);
+        digest.update(getShape(ir).getBytes(StandardCharsets.UTF_8));
+        String hash = HexFormat.of().formatHex(digest.digest());
+        return new File(new File(CACHE_DIR, hash.substring(0, 2)),
+                hash + ".bin");
+    }
+
+    /**
+     * @return the shape of {@code ir}, i.e., the signature of its method,
+     * the names of its variables and the kinds of its statements.
+     * Since the world hash fixes the input program, the shape only guards
+     * the indexes of variables and statements used by the codecs, which is
+     * much cheaper than printing the whole IR.
+     */
+    private static String getShape(IR ir) {
+        StringBuilder shape = new StringBuilder(ir.getMethod().getSignature());
+        shape.append('\n');
+        ir.getVars().forEach(v -> shape.append(v.getName()).append(' '));
+        shape.append('\n');
+        ir.forEach(s -> shape.append(s.getClass().getSimpleName())
+                .append(s.getLineNumber()).append(' '));
+        return shape.toString();
+    }
+
+    void logStatistics() {
+        logger.info("Method result cache of {}: {} hits, {} misses",
+                analysis.getId(), hits.get(), misses.get());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException("SHA-256 is not supported", e);
+        }
+    }
+}
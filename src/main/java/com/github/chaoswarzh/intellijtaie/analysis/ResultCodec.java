@@ -0,0 +1,45 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis;
+
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes the results of a method analysis in a compact binary form,
+ * so that they can be stored in the on-disk method result cache.
+ * The program elements in a result (e.g., statements and variables)
+ * should be encoded relative to the IR, e.g., by their indexes.
+ *
+ * @param <R> type of the analysis results
+ * @see ResultCodecs
+ */
+public interface ResultCodec<R> {
+
+    void encode(IR ir, R result, DataOutput out) throws IOException;
+
+    R decode(IR ir, DataInput in) throws IOException;
+}
@@ -0,0 +1,67 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis;
+
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.LiveVariable;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.ReachingDefinition;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact.DataflowResultCodec;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Registry of {@link ResultCodec}s, keyed by analysis ID. Only the
+ * results of the method analyses that have codecs are stored in
+ * the method result cache.
+ */
+public final class ResultCodecs {
+
+    private static final Map<String, ResultCodec<?>> codecs = Maps.newConcurrentMap();
+
+    static {
+        register(LiveVariable.ID, DataflowResultCodec.forVarSets());
+        register(ReachingDefinition.ID, DataflowResultCodec.forStmtSets());
+        register(ConstantPropagation.ID, DataflowResultCodec.forCPFacts());
+    }
+
+    private ResultCodecs() {
+    }
+
+    /**
+     * Registers {@code codec} for the results of analysis {@code id}.
+     */
+    public static void register(String id, ResultCodec<?> codec) {
+        codecs.put(id, codec);
+    }
+
+    /**
+     * @return the codec for the results of analysis {@code id},
+     * or {@code null} if the results cannot be encoded.
+     */
+    @Nullable
+    public static <R> ResultCodec<R> get(String id) {
+        return (ResultCodec<R>) codecs.get(id);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact;
+
+import com.github.chaoswarzh.intellijtaie.analysis.ResultCodec;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.CPFact;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.Value;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.cfg.CFG;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.cfg.CFGBuilder;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.cfg.CFGNodeIndexer;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.util.Indexer;
+import com.github.chaoswarzh.intellijtaie.util.collection.IndexMap;
+import com.github.chaoswarzh.intellijtaie.util.collection.IndexerBitSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec for the results of data-flow analyses on the CFGs of IR
+ * (i.e., {@link CFGBuilder}'s results). The nodes are encoded by their
+ * indexes in the CFG, which is built again for the same IR when
+ * a result is decoded.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public abstract class DataflowResultCodec<Fact>
+        implements ResultCodec<DataflowResult<Stmt, Fact>> {
+
+    /**
+     * @return a codec for the results whose facts are sets of variables,
+     * e.g., the results of live variable analysis.
+     */
+    public static DataflowResultCodec<SetFact<Var>> forVarSets() {
+        return new SetFactCodec<>() {
+            @Override
+            Indexer<Var> getIndexer(IR ir, CFG<Stmt> cfg) {
+                return ir.getVarIndexer();
+            }
+        };
+    }
+
+    /**
+     * @return a codec for the results whose facts are sets of statements,
+     * e.g., the results of reaching definition analysis.
+     */
+    public static DataflowResultCodec<SetFact<Stmt>> forStmtSets() {
+        return new SetFactCodec<>() {
+            @Override
+            Indexer<Stmt> getIndexer(IR ir, CFG<Stmt> cfg) {
+                return new CFGNodeIndexer<>(cfg);
+            }
+        };
+    }
+
+    /**
+     * @return a codec for the results of constant propagation.
+     */
+    public static DataflowResultCodec<CPFact> forCPFacts() {
+        return new DataflowResultCodec<>() {
+            @Override
+            void writeFact(IR ir, CFG<Stmt> cfg, CPFact fact, DataOutput out)
+                    throws IOException {
+                out.writeInt(fact.keySet().size());
+                for (Var var : fact.keySet()) {
+                    Value value = fact.get(var);
+                    out.writeInt(var.getIndex());
+                    if (value.isConstant()) {
+                        out.writeByte(0);
+                        out.writeInt(value.getConstant());
+                    } else {
+                        out.writeByte(value.isNAC() ? 1 : 2);
+                    }
+                }
+            }
+
+            @Override
+            CPFact readFact(IR ir, CFG<Stmt> cfg, DataInput in) throws IOException {
+                CPFact fact = new CPFact();
+                int size = in.readInt();
+                for (int i = 0; i < size; ++i) {
+                    Var var = ir.getVar(in.readInt());
+                    Value value = switch (in.readByte()) {
+                        case 0 -> Value.makeConstant(in.readInt());
+                        case 1 -> Value.getNAC();
+                        default -> Value.getUndef();
+                    };
+                    fact.update(var, value);
+                }
+                return fact;
+            }
+        };
+    }
+
+    @Override
+    public void encode(IR ir, DataflowResult<Stmt, Fact> result, DataOutput out)
+            throws IOException {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        int n = cfg.getNumberOfNodes();
+        out.writeInt(n);
+        for (int i = 0; i < n; ++i) {
+            Stmt node = cfg.getNode(i);
+            writeNullableFact(ir, cfg, result.getInFact(node), out);
+            writeNullableFact(ir, cfg, result.getOutFact(node), out);
+        }
+    }
+
+    @Override
+    public DataflowResult<Stmt, Fact> decode(IR ir, DataInput in) throws IOException {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        int n = cfg.getNumberOfNodes();
+        if (in.readInt() != n) {
+            throw new IOException("Mismatched number of CFG nodes");
+        }
+        var indexer = new CFGNodeIndexer<>(cfg);
+        DataflowResult<Stmt, Fact> result = new DataflowResult<>(
+                new IndexMap<>(indexer, n), new IndexMap<>(indexer, n));
+        for (int i = 0; i < n; ++i) {
+            Stmt node = cfg.getNode(i);
+            if (in.readBoolean()) {
+                result.setInFact(node, readFact(ir, cfg, in));
+            }
+            if (in.readBoolean()) {
+                result.setOutFact(node, readFact(ir, cfg, in));
+            }
+        }
+        return result;
+    }
+
+    private void writeNullableFact(IR ir, CFG<Stmt> cfg, Fact fact, DataOutput out)
+            throws IOException {
+        out.writeBoolean(fact != null);
+        if (fact != null) {
+            writeFact(ir, cfg, fact, out);
+        }
+    }
+
+    abstract void writeFact(IR ir, CFG<Stmt> cfg, Fact fact, DataOutput out)
+            throws IOException;
+
+    abstract Fact readFact(IR ir, CFG<Stmt> cfg, DataInput in) throws IOException;
+
+    /**
+     * Codec for set facts, whose elements are encoded by an indexer.
+     */
+    private abstract static class SetFactCodec<E>
+            extends DataflowResultCodec<SetFact<E>> {
+
+        abstract Indexer<E> getIndexer(IR ir, CFG<Stmt> cfg);
+
+        @Override
+        void writeFact(IR ir, CFG<Stmt> cfg, SetFact<E> fact, DataOutput out)
+                throws IOException {
+            Indexer<E> indexer = getIndexer(ir, cfg);
+            out.writeInt(fact.size());
+            for (E e : fact) {
+                out.writeInt(indexer.getIndex(e));
+            }
+        }
+
+        @Override
+        SetFact<E> readFact(IR ir, CFG<Stmt> cfg, DataInput in) throws IOException {
+            Indexer<E> indexer = getIndexer(ir, cfg);
+            SetFact<E> fact = new SetFact<>(new IndexerBitSet<>(indexer, false));
+            int size = in.readInt();
+            for (int i = 0; i < size; ++i) {
+                fact.add(indexer.getObject(in.readInt()));
+            }
+            return fact;
+        }
+    }
+}
@@ -39,6 +39,8 @@ import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.collection.TwoKeyMap;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
@@ -48,7 +50,7 @@ import java.util.stream.Collectors;
 /**
  * Builds call graph via class hierarchy analysis.
  */
-class CHABuilder implements CGBuilder<Invoke, JMethod> {
+public class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private static final Logger logger = LogManager.getLogger(CHABuilder.class);
 
@@ -76,7 +78,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private final int calleeLimit;
 
-    CHABuilder(String algorithm) {
+    public CHABuilder(String algorithm) {
         switch (algorithm) {
             case "cha" -> { // default setting, ignore Object's methods
                 ignoreObjectMethods = true;
@@ -99,10 +101,13 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     @Override
     public CallGraph<Invoke, JMethod> build() {
-        return buildCallGraph(World.get().getMainMethod());
+        return build(List.of(World.get().getMainMethod()));
     }
 
-    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+    /**
+     * Builds call graph from given entry methods.
+     */
+    public CallGraph<Invoke, JMethod> build(Collection<JMethod> entries) {
         logger.info("Building call graph by CHA");
         if (ignoreObjectMethods) {
             logger.info("Ignore methods of java.lang.Object");
@@ -119,9 +124,11 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 .collect(Collectors.toUnmodifiableSet());
         resolveTable = Maps.newTwoKeyMap();
         DefaultCallGraph callGraph = new DefaultCallGraph();
-        callGraph.addEntryMethod(entry);
         Queue<JMethod> workList = new ArrayDeque<>();
-        workList.add(entry);
+        for (JMethod entry : entries) {
+            callGraph.addEntryMethod(entry);
+            workList.add(entry);
+        }
         while (!workList.isEmpty()) {
             JMethod method = workList.poll();
             if (callGraph.addReachableMethod(method)) {
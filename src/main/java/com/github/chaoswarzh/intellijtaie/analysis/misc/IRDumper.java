@@ -174,7 +174,7 @@ public class IRDumper extends ClassAnalysis<Void> {
             dumpMethodDeclaration(method);
             if (hasIR(method)) {
                 out.println(" {");
-                IR ir = method.getIR();
+                IR ir = method.getTransientIR();
                 // dump variables
                 dumpVariables(ir);
                 // dump statements
@@ -209,7 +209,7 @@ public class IRDumper extends ClassAnalysis<Void> {
                 if (paramName != null) {
                     joiner.add(paramName);
                 } else if (hasIR(method)) {
-                    joiner.add(method.getIR().getParam(i).getName());
+                    joiner.add(method.getTransientIR().getParam(i).getName());
                 }
                 paramsJoiner.add(joiner.toString());
             }
@@ -35,6 +35,7 @@ import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.Solver;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.AnalysisTimer;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.ClassInitializer;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.CompositePlugin;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.ContextBudgetGovernor;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.EntryPointHandler;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.Plugin;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.ReferenceHandler;
@@ -60,6 +61,7 @@ import com.github.chaoswarzh.intellijtaie.util.Timer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.function.Function;
 
 public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
 
@@ -80,47 +82,73 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
             if (advanced.equals("collection")) {
                 selector = ContextSelectorFactory.makeSelectiveSelector(cs,
                         new CollectionMethods(World.get().getClassHierarchy()).get());
+            } else if (advanced.startsWith("scaler")) {
+                selector = ContextSelectorFactory.makeGuidedSelector(
+                        runPreAnalysis(heapModel, "Scaler", PreAnalysisCache.METHOD_MAP,
+                                preResult -> Scaler.run(preResult, advanced)));
+            } else if (advanced.startsWith("zipper")) {
+                selector = ContextSelectorFactory.makeSelectiveSelector(cs,
+                        runPreAnalysis(heapModel, "Zipper", PreAnalysisCache.METHODS,
+                                preResult -> Zipper.run(preResult, advanced)));
+            } else if (advanced.equals("mahjong")) {
+                heapModel = Mahjong.makeHeapModel(options,
+                        runPreAnalysis(heapModel, "Mahjong", PreAnalysisCache.ALLOC_GROUPS,
+                                Mahjong::merge));
             } else {
-                // run context-insensitive analysis as pre-analysis
-                PointerAnalysisResult preResult = runAnalysis(heapModel,
-                        ContextSelectorFactory.makeCISelector());
-                if (advanced.startsWith("scaler")) {
-                    selector = Timer.runAndCount(() -> ContextSelectorFactory
-                                    .makeGuidedSelector(Scaler.run(preResult, advanced)),
-                            "Scaler", Level.INFO);
-                } else if (advanced.startsWith("zipper")) {
-                    selector = Timer.runAndCount(() -> ContextSelectorFactory
-                                    .makeSelectiveSelector(cs, Zipper.run(preResult, advanced)),
-                            "Zipper", Level.INFO);
-                } else if (advanced.equals("mahjong")) {
-                    heapModel = Timer.runAndCount(() -> Mahjong.run(preResult, options),
-                            "Mahjong", Level.INFO);
-                } else {
-                    throw new IllegalArgumentException(
-                            "Illegal advanced analysis argument: " + advanced);
-                }
+                throw new IllegalArgumentException(
+                        "Illegal advanced analysis argument: " + advanced);
             }
         }
         if (selector == null) {
             selector = ContextSelectorFactory.makePlainSelector(cs);
         }
+        String csBudget = options.getString("cs-budget");
+        if (csBudget != null) {
+            ContextBudgetGovernor governor = new ContextBudgetGovernor(csBudget);
+            selector = ContextSelectorFactory.makeAdaptiveSelector(selector,
+                    governor.getFallbackCS(), governor::isAdmitted);
+            return runAnalysis(heapModel, selector, governor);
+        }
         return runAnalysis(heapModel, selector);
     }
 
+    /**
+     * Runs context-insensitive analysis as pre-analysis, and computes
+     * the result of an advanced analysis from the pre-analysis result.
+     * If option {@code pre-analysis-cache} is enabled, the result is
+     * reused across runs, in which case the pre-analysis is skipped.
+     */
+    private <T> T runPreAnalysis(HeapModel heapModel, String name,
+                                 PreAnalysisCache.Codec<T> codec,
+                                 Function<PointerAnalysisResult, T> advanced) {
+        return PreAnalysisCache.getOrCompute(getOptions(), codec, () -> {
+            PointerAnalysisResult preResult = runAnalysis(heapModel,
+                    ContextSelectorFactory.makeCISelector());
+            return Timer.runAndCount(() -> advanced.apply(preResult),
+                    name, Level.INFO);
+        });
+    }
+
+    /**
+     * @param plugins the plugins for this analysis in addition to
+     *                the ones specified by options.
+     */
     private PointerAnalysisResult runAnalysis(HeapModel heapModel,
-                                              ContextSelector selector) {
+                                              ContextSelector selector,
+                                              Plugin... plugins) {
         AnalysisOptions options = getOptions();
         Solver solver = new DefaultSolver(options,
                 heapModel, selector, new MapBasedCSManager());
         // The initialization of some Plugins may read the fields in solver,
         // e.g., contextSelector or csManager, thus we initialize Plugins
         // after setting all other fields of solver.
-        setPlugin(solver, options);
+        setPlugin(solver, options, plugins);
         solver.solve();
         return solver.getResult();
     }
 
-    private static void setPlugin(Solver solver, AnalysisOptions options) {
+    private static void setPlugin(Solver solver, AnalysisOptions options,
+                                  Plugin... plugins) {
         CompositePlugin plugin = new CompositePlugin();
         // add builtin plugins
         // To record elapsed time precisely, AnalysisTimer should be added at first.
@@ -154,6 +182,7 @@ public class PointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
         if (options.getString("taint-config") != null) {
             plugin.addPlugin(new TaintAnalysis());
         }
+        plugin.addPlugin(plugins);
         plugin.addPlugin(new ResultProcessor());
         // add plugins specified in options
         // noinspection unchecked
@@ -0,0 +1,326 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.github.chaoswarzh.intellijtaie.analysis.pta;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.AnalysisOptions;
+import com.github.chaoswarzh.intellijtaie.frontend.cache.CachedWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
+import com.github.chaoswarzh.intellijtaie.util.RuntimeInfoLogger;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache for the results computed from the context-insensitive
+ * pre-analysis, i.e., the outputs of Scaler, Zipper and Mahjong.
+ * <p>
+ * The results are keyed by the hash of the world, the options that
+ * affect the pre-analysis and the advanced analysis, and the Tai-e
+ * version. Option {@code cs} is excluded from the key, so that the
+ * variants which differ only in context sensitivity share the
+ * pre-analysis. The program elements in the results are stored by
+ * their signatures, and a result that refers to missing elements
+ * is treated as stale and recomputed.
+ */
+final class PreAnalysisCache {
+
+    private static final Logger logger = LogManager.getLogger(PreAnalysisCache.class);
+
+    private static final String CACHE_DIR = "cache/pre-analysis";
+
+    /**
+     * Version of the cache format, which should be increased when
+     * the format or the semantics of the cached results change.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Options that affect the results of pre-analysis and advanced analysis.
+     */
+    private static final List<String> KEY_OPTIONS = List.of(
+            "advanced", "only-app", "implicit-entries",
+            "distinguish-string-constants", "merge-string-objects",
+            "merge-string-builders", "merge-exception-objects",
+            "merge-types", "merge-type-threshold",
+            "handle-invokedynamic", "propagate-types",
+            "reflection-inference", "reflection-log", "taint-config",
+            "plugins", "time-limit");
+
+    /**
+     * Options whose values are paths, and the contents of the files
+     * in the paths are also part of the key.
+     */
+    private static final List<String> PATH_OPTIONS = List.of(
+            "reflection-log", "taint-config");
+
+    /**
+     * Codec for the method-to-variant maps computed by Scaler.
+     */
+    static final Codec<Map<JMethod, String>> METHOD_MAP = new Codec<>() {
+        @Override
+        public void encode(Map<JMethod, String> csMap, DataOutput out)
+                throws IOException {
+            out.writeInt(csMap.size());
+            for (var entry : csMap.entrySet()) {
+                out.writeUTF(entry.getKey().getSignature());
+                out.writeUTF(entry.getValue());
+            }
+        }
+
+        @Override
+        public Map<JMethod, String> decode(DataInput in) throws IOException {
+            int size = in.readInt();
+            Map<JMethod, String> csMap = Maps.newMap(size);
+            for (int i = 0; i < size; ++i) {
+                csMap.put(readMethod(in), in.readUTF());
+            }
+            return csMap;
+        }
+    };
+
+    /**
+     * Codec for the method sets computed by Zipper.
+     */
+    static final Codec<Set<JMethod>> METHODS = new Codec<>() {
+        @Override
+        public void encode(Set<JMethod> methods, DataOutput out)
+                throws IOException {
+            out.writeInt(methods.size());
+            for (JMethod method : methods) {
+                out.writeUTF(method.getSignature());
+            }
+        }
+
+        @Override
+        public Set<JMethod> decode(DataInput in) throws IOException {
+            int size = in.readInt();
+            Set<JMethod> methods = Sets.newSet(size);
+            for (int i = 0; i < size; ++i) {
+                methods.add(readMethod(in));
+            }
+            return methods;
+        }
+    };
+
+    /**
+     * Codec for the groups of allocation sites computed by Mahjong.
+     * Each allocation site is stored as the signature of its container
+     * method and its index in the IR of the method.
+     */
+    static final Codec<List<List<New>>> ALLOC_GROUPS = new Codec<>() {
+        @Override
+        public void encode(List<List<New>> allocGroups, DataOutput out)
+                throws IOException {
+            out.writeInt(allocGroups.size());
+            for (List<New> allocSites : allocGroups) {
+                out.writeInt(allocSites.size());
+                for (New allocSite : allocSites) {
+                    out.writeUTF(allocSite.getContainer().getSignature());
+                    out.writeInt(allocSite.getIndex());
+                }
+            }
+        }
+
+        @Override
+        public List<List<New>> decode(DataInput in) throws IOException {
+            int size = in.readInt();
+            List<List<New>> allocGroups = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                int groupSize = in.readInt();
+                List<New> allocSites = new ArrayList<>(groupSize);
+                for (int j = 0; j < groupSize; ++j) {
+                    JMethod method = readMethod(in);
+                    int index = in.readInt();
+                    // native methods may contain allocation sites,
+                    // which are in the IRs built by the native model
+                    if (method.isAbstract() ||
+                            index >= method.getIR().getStmts().size() ||
+                            !(method.getIR().getStmt(index) instanceof New allocSite)) {
+                        throw new IOException("Stale allocation site: " +
+                                method + "[" + index + "]");
+                    }
+                    allocSites.add(allocSite);
+                }
+                allocGroups.add(allocSites);
+            }
+            return allocGroups;
+        }
+    };
+
+    private PreAnalysisCache() {
+    }
+
+    /**
+     * @return the result read from the cache if option
+     * {@code pre-analysis-cache} is enabled and the result is available,
+     * otherwise, the result computed by {@code compute}, which is also
+     * written to the cache if the cache is enabled.
+     */
+    static <T> T getOrCompute(AnalysisOptions options, Codec<T> codec,
+                              Supplier<T> compute) {
+        if (!options.getBoolean("pre-analysis-cache")) {
+            return compute.get();
+        }
+        File file = getCacheFile(options);
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != VERSION) {
+                    throw new IOException("Mismatched cache version");
+                }
+                T result = codec.decode(in);
+                logger.info("Loaded pre-analysis results from {}", file);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                logger.info("Failed to load pre-analysis results from {}" +
+                        " ({}), recompute them", file, e.getMessage());
+            }
+        }
+        T result = compute.get();
+        write(result, codec, file);
+        return result;
+    }
+
+    private static <T> void write(T result, Codec<T> codec, File file) {
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        try {
+            // write to a temporary file first, so that the readers
+            // never see partially written files
+            File temp = File.createTempFile(file.getName(), ".tmp", dir);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(VERSION);
+                codec.encode(result, out);
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved pre-analysis results to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to save pre-analysis results to {}", file, e);
+        }
+    }
+
+    private static File getCacheFile(AnalysisOptions options) {
+        MessageDigest digest = newDigest();
+        StringBuilder key = new StringBuilder();
+        key.append(VERSION).append('\n')
+                .append(RuntimeInfoLogger.getTaieVersion()).append('\n')
+                .append(CachedWorldBuilder.getWorldCacheHash(
+                        World.get().getOptions())).append('\n');
+        for (String option : KEY_OPTIONS) {
+            key.append(option).append('=')
+                    .append(options.get(option)).append('\n');
+        }
+        digest.update(key.toString().getBytes(StandardCharsets.UTF_8));
+        for (String option : PATH_OPTIONS) {
+            String path = options.getString(option);
+            if (path != null) {
+                hashFiles(new File(path), digest);
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest(), 0, 16);
+        return new File(CACHE_DIR, hash + ".bin");
+    }
+
+    /**
+     * Updates {@code digest} with the contents of the file(s) in given path.
+     */
+    private static void hashFiles(File path, MessageDigest digest) {
+        if (!path.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path.toPath())) {
+            List<Path> files = paths.filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+            for (Path p : files) {
+                digest.update(path.toPath().relativize(p).toString()
+                        .getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(p));
+            }
+        } catch (IOException e) {
+            // the file is read (and its errors are reported) by the
+            // analysis, here we just make the key unique to this run
+            digest.update(Long.toString(System.nanoTime())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static JMethod readMethod(DataInput in) throws IOException {
+        String signature = in.readUTF();
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JMethod method = hierarchy.getMethod(signature);
+        if (method == null) {
+            throw new IOException("Stale method: " + signature);
+        }
+        return method;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Encodes and decodes the results of an advanced analysis.
+     */
+    interface Codec<T> {
+
+        void encode(T result, DataOutput out) throws IOException;
+
+        T decode(DataInput in) throws IOException;
+    }
+}
@@ -29,6 +29,11 @@ import java.util.Map;
 
 /**
  * An implementation of {@link Context}, which organizes contexts as Trie.
+ * <p>
+ * The contexts produced by a {@link Factory} are canonical, and each of
+ * them is assigned a dense integer id, which is used as its hash code,
+ * so that the maps keyed by contexts hash them cheaply and iterate them
+ * in a deterministic order.
  */
 public class TrieContext implements Context {
 
@@ -38,18 +43,32 @@ public class TrieContext implements Context {
 
     private final int length;
 
+    private final int id;
+
+    private final Factory<?> factory;
+
     private Map<Object, TrieContext> children;
 
-    private TrieContext() {
+    /**
+     * The context without the first element of this context,
+     * which is created lazily.
+     */
+    private TrieContext tail;
+
+    private TrieContext(Factory<?> factory) {
         parent = null;
         elem = null;
         length = 0;
+        this.factory = factory;
+        this.id = factory.counter++;
     }
 
     private TrieContext(TrieContext parent, Object elem) {
         this.parent = parent;
         this.elem = elem;
         this.length = parent.getLength() + 1;
+        this.factory = parent.factory;
+        this.id = factory.counter++;
     }
 
     @Override
@@ -67,6 +86,14 @@ public class TrieContext implements Context {
         }
     }
 
+    /**
+     * @return the id of this context, which is unique among the contexts
+     * produced by the same factory.
+     */
+    public int getId() {
+        return id;
+    }
+
     TrieContext getParent() {
         return parent;
     }
@@ -79,10 +106,27 @@ public class TrieContext implements Context {
                 e -> new TrieContext(this, e));
     }
 
+    /**
+     * @return the context without the first element of this context.
+     * For a context [e1, ..., en], its tail is [e2, ..., en].
+     */
+    TrieContext getTail() {
+        assert length > 0;
+        if (tail == null) {
+            tail = length == 1 ? parent : parent.getTail().getChild(elem);
+        }
+        return tail;
+    }
+
     Object getElem() {
         return elem;
     }
 
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
     @Override
     public String toString() {
         Object[] elems = new Object[length];
@@ -96,11 +140,16 @@ public class TrieContext implements Context {
 
     public static class Factory<T> implements ContextFactory<T> {
 
+        /**
+         * Counter for assigning ids to the contexts produced by this factory.
+         */
+        private int counter = 0;
+
         /**
          * Root context of all tree contexts produced by this factory.
          * It also acts as the default context.
          */
-        private final TrieContext rootContext = new TrieContext();
+        private final TrieContext rootContext = new TrieContext(this);
 
         @Override
         public TrieContext getEmptyContext() {
@@ -130,12 +179,25 @@ public class TrieContext implements Context {
             if (c.getLength() <= k) {
                 return c;
             }
+            if (c.factory != this) {
+                // context of another factory, rebuild it in this factory
+                return make((T[]) lastK(c, k));
+            }
+            // drop the leading elements via the cached tails, which
+            // avoids rebuilding the context from the root
+            while (c.getLength() > k) {
+                c = c.getTail();
+            }
+            return c;
+        }
+
+        private static Object[] lastK(TrieContext c, int k) {
             Object[] elems = new Object[k];
             for (int i = k; i > 0; --i) {
                 elems[i - 1] = c.getElem();
                 c = c.getParent();
             }
-            return make((T[]) elems);
+            return elems;
         }
 
         @Override
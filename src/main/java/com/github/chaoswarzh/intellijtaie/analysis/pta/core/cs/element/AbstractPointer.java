@@ -79,6 +79,13 @@ abstract class AbstractPointer implements Pointer {
         return filters;
     }
 
+    @Override
+    public void removeFiltersIf(Predicate<Predicate<CSObj>> predicate) {
+        if (!filters.isEmpty()) {
+            filters.removeIf(predicate);
+        }
+    }
+
     @Override
     public Set<CSObj> getObjects() {
         PointsToSet pts = getPointsToSet();
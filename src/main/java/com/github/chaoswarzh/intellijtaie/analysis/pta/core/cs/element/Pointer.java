@@ -67,6 +67,16 @@ public interface Pointer extends Indexable {
      */
     Set<Predicate<CSObj>> getFilters();
 
+    /**
+     * Removes filters of this pointer if they satisfy the given predicate.
+     * <p>
+     * <strong>Note:</strong> This method should not be called outside of
+     * {@link com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.Plugin#onPhaseFinish()},
+     * otherwise it may break the monotonicity of pointer analysis.
+     * </p>
+     */
+    void removeFiltersIf(Predicate<Predicate<CSObj>> predicate);
+
     /**
      * Safely retrieves context-sensitive objects pointed to by this pointer.
      *
@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.selector;
+
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.context.Context;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSCallSite;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSMethod;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSObj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.util.function.BiPredicate;
+
+/**
+ * Adaptive context selector which switches part of methods to a cheaper
+ * context sensitivity variant during the analysis. Each context selected
+ * by the delegate selector is checked by isAdmitted, and the callee is
+ * analyzed in the context of the fallback selector if it is rejected,
+ * so the set of switched methods may grow as the analysis proceeds.
+ */
+class AdaptiveSelector implements ContextSelector {
+
+    /**
+     * Delegate context selector.
+     */
+    private final ContextSelector delegate;
+
+    /**
+     * Context selector for the switched methods.
+     */
+    private final ContextSelector fallback;
+
+    /**
+     * Predicate for whether a method can be analyzed in a context
+     * selected by {@link #delegate}.
+     */
+    private final BiPredicate<JMethod, Context> isAdmitted;
+
+    AdaptiveSelector(ContextSelector delegate, ContextSelector fallback,
+                     BiPredicate<JMethod, Context> isAdmitted) {
+        this.delegate = delegate;
+        this.fallback = fallback;
+        this.isAdmitted = isAdmitted;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return delegate.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        Context context = delegate.selectContext(callSite, callee);
+        return isAdmitted.test(callee, context) ? context :
+                normalize(fallback.selectContext(callSite, callee));
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        Context context = delegate.selectContext(callSite, recv, callee);
+        return isAdmitted.test(callee, context) ? context :
+                normalize(fallback.selectContext(callSite, recv, callee));
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return delegate.selectHeapContext(method, obj);
+    }
+
+    /**
+     * Replaces the empty context of {@link #fallback} by the one of
+     * {@link #delegate}, so that the methods analyzed without contexts
+     * are not analyzed twice.
+     */
+    private Context normalize(Context context) {
+        return context.getLength() == 0 ? delegate.getEmptyContext() : context;
+    }
+}
@@ -22,6 +22,7 @@
 
 package com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.selector;
 
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.context.Context;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
 import com.github.chaoswarzh.intellijtaie.config.ConfigException;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
@@ -31,6 +32,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 
 /**
@@ -109,4 +111,17 @@ public class ContextSelectorFactory {
     public static ContextSelector makeGuidedSelector(Map<JMethod, String> csMap) {
         return new GuidedSelector(csMap);
     }
+
+    /**
+     * @return an adaptive context selector which applies given selector
+     * to the methods, except when the selected contexts are rejected by
+     * isAdmitted, in which case the context sensitivity variant specified
+     * by fallbackCS is applied.
+     */
+    public static ContextSelector makeAdaptiveSelector(
+            ContextSelector selector, String fallbackCS,
+            BiPredicate<JMethod, Context> isAdmitted) {
+        return new AdaptiveSelector(selector,
+                makePlainSelector(fallbackCS), isAdmitted);
+    }
 }
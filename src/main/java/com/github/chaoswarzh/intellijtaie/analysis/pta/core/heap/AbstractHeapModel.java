@@ -25,16 +25,22 @@ package com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap;
 import com.github.chaoswarzh.intellijtaie.World;
 import com.github.chaoswarzh.intellijtaie.config.AnalysisOptions;
 import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
 import com.github.chaoswarzh.intellijtaie.ir.exp.ReferenceLiteral;
 import com.github.chaoswarzh.intellijtaie.ir.exp.StringLiteral;
 import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
 import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
 import com.github.chaoswarzh.intellijtaie.util.Predicates;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 import com.github.chaoswarzh.intellijtaie.util.collection.TwoKeyMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -43,7 +49,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.github.chaoswarzh.intellijtaie.language.classes.ClassNames.STRING;
 import static com.github.chaoswarzh.intellijtaie.language.classes.ClassNames.STRING_BUFFER;
@@ -56,6 +65,8 @@ import static com.github.chaoswarzh.intellijtaie.language.classes.ClassNames.THR
  */
 public abstract class AbstractHeapModel implements HeapModel {
 
+    private static final Logger logger = LogManager.getLogger(AbstractHeapModel.class);
+
     /**
      * Predicate used to check whether a given string constant
      * in the program should be distinguished.
@@ -68,6 +79,13 @@ public abstract class AbstractHeapModel implements HeapModel {
 
     private final boolean isMergeExceptionObjects;
 
+    /**
+     * The types whose objects are always merged, including the types
+     * given by option {@code merge-types}, and the types that have more
+     * allocation sites than option {@code merge-type-threshold}.
+     */
+    private final Set<Type> mergedTypes;
+
     private final TypeSystem typeSystem;
 
     private final ClassType string;
@@ -110,6 +128,21 @@ public abstract class AbstractHeapModel implements HeapModel {
         stringBuilder = typeSystem.getClassType(STRING_BUILDER);
         stringBuffer = typeSystem.getClassType(STRING_BUFFER);
         throwable = typeSystem.getClassType(THROWABLE);
+        // noinspection unchecked
+        Set<Type> types = ((List<String>) options.get("merge-types"))
+                .stream()
+                .map(typeSystem::getType)
+                .collect(Collectors.toCollection(Sets::newHybridSet));
+        int mergeTypeThreshold = options.getInt("merge-type-threshold");
+        if (mergeTypeThreshold < -1) {
+            throw new ConfigException("Invalid merge-type-threshold: "
+                    + mergeTypeThreshold + ", expected -1 (no threshold)"
+                    + " or a non-negative number");
+        }
+        if (mergeTypeThreshold != -1) {
+            types.addAll(getOverThresholdTypes(mergeTypeThreshold));
+        }
+        mergedTypes = Collections.unmodifiableSet(types);
         mergedSC = add(new MergedObj(string, "<Merged string constants>"));
     }
 
@@ -139,6 +172,57 @@ public abstract class AbstractHeapModel implements HeapModel {
         }
     }
 
+    /**
+     * Counts the allocation sites of each type in the methods of the world
+     * beforehand, so that all allocation sites of a type are either merged
+     * or distinguished, regardless of the order in which they are analyzed.
+     *
+     * @return the types that have more than {@code threshold}
+     * allocation sites.
+     */
+    private static Set<Type> getOverThresholdTypes(int threshold) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        Map<Type, Long> counts = Maps.newConcurrentMap();
+        // building IRs may load new classes (by the frontends which load
+        // classes on demand), thus repeat until no new class is loaded
+        long nCountedClasses = 0;
+        List<JClass> newClasses;
+        while (!(newClasses = hierarchy.allClasses()
+                .skip(nCountedClasses).toList()).isEmpty()) {
+            nCountedClasses += newClasses.size();
+            newClasses.stream()
+                    .map(JClass::getDeclaredMethods)
+                    .flatMap(Collection::stream)
+                    .filter(m -> !m.isAbstract())
+                    .toList()
+                    .parallelStream()
+                    .flatMap(AbstractHeapModel::getAllocSites)
+                    .forEach(allocSite -> counts.merge(
+                            allocSite.getRValue().getType(), 1L, Long::sum));
+        }
+        return counts.entrySet()
+                .stream()
+                .filter(e -> e.getValue() > threshold)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private static Stream<New> getAllocSites(JMethod method) {
+        IR ir;
+        try {
+            // the IRs are not pinned, as most of them are not analyzed
+            ir = method.getTransientIR();
+        } catch (RuntimeException e) {
+            // the method cannot be analyzed, thus it has no allocation site
+            logger.warn("Failed to count allocation sites of {} due to {}",
+                    method, e);
+            return Stream.empty();
+        }
+        return ir.stmts()
+                .filter(s -> s instanceof New)
+                .map(s -> (New) s);
+    }
+
     @Override
     public Obj getObj(New allocSite) {
         Type type = allocSite.getRValue().getType();
@@ -152,6 +236,9 @@ public abstract class AbstractHeapModel implements HeapModel {
         if (isMergeExceptionObjects && typeSystem.isSubtype(throwable, type)) {
             return getMergedObj(allocSite);
         }
+        if (mergedTypes.contains(type)) {
+            return getMergedObj(allocSite);
+        }
         return doGetObj(allocSite);
     }
 
@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.demand;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.ProgramAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CHABuilder;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.PropagateTypes;
+import com.github.chaoswarzh.intellijtaie.config.AnalysisConfig;
+import com.github.chaoswarzh.intellijtaie.config.AnalysisOptions;
+import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Invoke;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Demand-driven pointer analysis. Different from
+ * {@link com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis},
+ * this analysis does not solve the whole program; instead, it returns
+ * a {@link PointerAnalysisResult} which computes points-to sets
+ * when they are queried, and explores only the part of the program
+ * relevant to each query. Calls are resolved by a CHA-based call graph
+ * rooted at the main method and, if option {@code implicit-entries}
+ * is enabled, the implicit entries of the JVM.
+ *
+ * @see DemandPointerAnalysisResult
+ */
+public class DemandPointerAnalysis extends ProgramAnalysis<PointerAnalysisResult> {
+
+    public static final String ID = "demand-pta";
+
+    public DemandPointerAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public PointerAnalysisResult analyze() {
+        AnalysisOptions options = getOptions();
+        int budget = options.getInt("budget");
+        if (budget <= 0) {
+            throw new ConfigException("Invalid budget for " + ID + ": " + budget);
+        }
+        List<JMethod> entries = new ArrayList<>();
+        World world = World.get();
+        if (world.getMainMethod() != null) {
+            entries.add(world.getMainMethod());
+        }
+        if (options.getBoolean("implicit-entries")) {
+            entries.addAll(world.getImplicitEntries());
+        }
+        CallGraph<Invoke, JMethod> callGraph =
+                new CHABuilder(options.getString("cg-algorithm")).build(entries);
+        // noinspection unchecked
+        PropagateTypes propTypes = new PropagateTypes(
+                (List<String>) options.get("propagate-types"),
+                world.getTypeSystem());
+        return new DemandPointerAnalysisResult(
+                new DemandPointerFlowGraph(callGraph, world.getClassHierarchy()),
+                new AllocationSiteBasedModel(options),
+                propTypes, world.getTypeSystem(), budget);
+    }
+}
@@ -0,0 +1,638 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.demand;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.ObjectFlowGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.ArrayIndex;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSCallSite;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSMethod;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSObj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSVar;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.InstanceField;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.StaticField;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.HeapModel;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.PropagateTypes;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.ArrayAccess;
+import com.github.chaoswarzh.intellijtaie.ir.exp.InstanceFieldAccess;
+import com.github.chaoswarzh.intellijtaie.ir.exp.InvokeExp;
+import com.github.chaoswarzh.intellijtaie.ir.exp.InvokeInstanceExp;
+import com.github.chaoswarzh.intellijtaie.ir.exp.ReferenceLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.exp.StaticFieldAccess;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.AssignLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Cast;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Copy;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Invoke;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.LoadArray;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.LoadField;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.StoreArray;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.StoreField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.ArrayType;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
+import com.github.chaoswarzh.intellijtaie.util.AbstractResultHolder;
+import com.github.chaoswarzh.intellijtaie.util.Indexer;
+import com.github.chaoswarzh.intellijtaie.util.collection.HybridBitSet;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Answers points-to queries on demand by traversing the pointer flow graph
+ * backwards from the queried pointers.
+ * <p>
+ * Each query is first answered with field-sensitivity, i.e., a load
+ * {@code x = b.f} is matched only with the stores {@code p.f = q} whose
+ * base {@code p} may alias {@code b}. The alias checks of bases use
+ * field-based points-to sets, which treat each field as a global variable.
+ * If a query exhausts its step budget, the refinement is abandoned and
+ * the query is re-run field-based with a fresh budget. If that also runs
+ * out of budget, the query is answered with all objects allocated in
+ * reachable methods whose types conform to the declared type of the
+ * queried pointer. Thus, every query visits a bounded number of pointers,
+ * apart from a one-off linear scan of the allocation sites.
+ * <p>
+ * The results are context-insensitive, and are over-approximations only
+ * with respect to the CHA-based call graph and the flows modeled here:
+ * exceptional flows via {@code catch}, reflection, native code, and the
+ * objects created by the JVM (e.g., for {@code main}'s arguments) are not
+ * tracked, and the call graph contains no edges to static initializers.
+ * Query methods are thread-safe, but calls are serialized.
+ */
+class DemandPointerAnalysisResult extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    private static final Logger logger = LogManager.getLogger(DemandPointerAnalysisResult.class);
+
+    private final DemandPointerFlowGraph pfg;
+
+    private final HeapModel heapModel;
+
+    private final PropagateTypes propTypes;
+
+    private final TypeSystem typeSystem;
+
+    /**
+     * Maximum number of pointers visited by a single query.
+     */
+    private final int budget;
+
+    /**
+     * Field-sensitive (refined) points-to sets of queried variables.
+     */
+    private final Map<Var, Set<Obj>> varPointsTo = Maps.newMap(1024);
+
+    /**
+     * Field-based points-to sets, used for alias checks of bases
+     * and as fallback results of queries that run out of budget.
+     */
+    private final Map<Var, Set<Obj>> fieldBasedPointsTo = Maps.newMap(1024);
+
+    /**
+     * Array stores whose stored values are propagated.
+     * Built lazily, see {@link #getArrayStores()}.
+     */
+    private List<StoreArray> arrayStores;
+
+    /**
+     * Objects whose types conform to the given type, used as results
+     * of queries that run out of budget even field-based.
+     */
+    private final Map<Type, Set<Obj>> typeFilteredObjects = Maps.newMap();
+
+    /**
+     * Objects allocated in reachable methods.
+     * Built lazily, see {@link #getObjectsOf(Type)}.
+     */
+    private List<Obj> allocatedObjects;
+
+    /**
+     * Number of queries that ran out of budget.
+     */
+    private int exhaustedQueries = 0;
+
+    /**
+     * Number of queries that ran out of budget even field-based.
+     */
+    private int typeFilteredQueries = 0;
+
+    DemandPointerAnalysisResult(DemandPointerFlowGraph pfg, HeapModel heapModel,
+                                PropagateTypes propTypes, TypeSystem typeSystem,
+                                int budget) {
+        this.pfg = pfg;
+        this.heapModel = heapModel;
+        this.propTypes = propTypes;
+        this.typeSystem = typeSystem;
+        this.budget = budget;
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        throw unsupported("context-sensitive variables");
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return pfg.getCallGraph()
+                .reachableMethods()
+                .filter(m -> !m.isAbstract())
+                .map(JMethod::getIR)
+                .flatMap(ir -> ir.getVars().stream())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        throw unsupported("instance fields");
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        throw unsupported("array indexes");
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        throw unsupported("static fields");
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        throw unsupported("context-sensitive objects");
+    }
+
+    /**
+     * @return the objects that have been discovered by the queries so far.
+     */
+    @Override
+    public Collection<Obj> getObjects() {
+        return heapModel.getObjects();
+    }
+
+    @Override
+    public Indexer<Obj> getObjectIndexer() {
+        return heapModel;
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(Var var) {
+        if (!propTypes.isAllowed(var)) {
+            return Set.of();
+        }
+        Set<Obj> result = varPointsTo.get(var);
+        if (result == null) {
+            result = query((refine, budget) ->
+                    traverse(List.of(var), refine, budget), var.getType());
+            varPointsTo.put(var, result);
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(InstanceFieldAccess access) {
+        if (!propTypes.isAllowed(access)) {
+            return Set.of();
+        }
+        JField field = access.getFieldRef().resolveNullable();
+        return field != null ? getPointsToSet(access.getBase(), field) : Set.of();
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(Var base, JField field) {
+        if (!propTypes.isAllowed(field.getType())) {
+            return Set.of();
+        }
+        if (field.isStatic()) {
+            logger.warn("{} is not an instance field", field);
+            return Set.of();
+        }
+        return query((refine, budget) -> {
+            List<Var> stored = new ArrayList<>();
+            for (StoreField store : pfg.getStoresOf(field)) {
+                Var storeBase = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                if (mayAlias(base, storeBase, refine, budget)) {
+                    stored.add(store.getRValue());
+                }
+            }
+            return traverse(stored, refine, budget);
+        }, field.getType());
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(Obj base, JField field) {
+        if (!propTypes.isAllowed(field.getType())) {
+            return Set.of();
+        }
+        if (field.isStatic()) {
+            logger.warn("{} is not an instance field", field);
+            return Set.of();
+        }
+        return query((refine, budget) -> {
+            List<Var> stored = new ArrayList<>();
+            for (StoreField store : pfg.getStoresOf(field)) {
+                Var storeBase = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                if (getFieldBasedPointsToSet(storeBase, budget).contains(base)) {
+                    stored.add(store.getRValue());
+                }
+            }
+            return traverse(stored, refine, budget);
+        }, field.getType());
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(StaticFieldAccess access) {
+        if (!propTypes.isAllowed(access)) {
+            return Set.of();
+        }
+        JField field = access.getFieldRef().resolveNullable();
+        return field != null ? getPointsToSet(field) : Set.of();
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(JField field) {
+        if (!propTypes.isAllowed(field.getType())) {
+            return Set.of();
+        }
+        if (!field.isStatic()) {
+            logger.warn("{} is not a static field", field);
+            return Set.of();
+        }
+        return query((refine, budget) -> traverse(
+                pfg.getStoresOf(field)
+                        .stream()
+                        .map(StoreField::getRValue)
+                        .toList(),
+                refine, budget), field.getType());
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(ArrayAccess access) {
+        if (!propTypes.isAllowed(access)) {
+            return Set.of();
+        }
+        return getPointsToSet(access.getBase(), access.getIndex());
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(Var base, Var index) {
+        if (base.getType() instanceof ArrayType baseType) {
+            if (!propTypes.isAllowed(baseType.elementType())) {
+                return Set.of();
+            }
+        } else {
+            logger.warn("{} is not an array", base);
+            return Set.of();
+        }
+        return query((refine, budget) -> {
+            List<Var> stored = new ArrayList<>();
+            for (StoreArray store : getArrayStores()) {
+                Var storeBase = store.getArrayAccess().getBase();
+                if (mayAlias(base, storeBase, refine, budget)) {
+                    stored.add(store.getRValue());
+                }
+            }
+            return traverse(stored, refine, budget);
+        }, baseType.elementType());
+    }
+
+    @Override
+    public synchronized Set<Obj> getPointsToSet(Obj array) {
+        if (array.getType() instanceof ArrayType baseType) {
+            if (!propTypes.isAllowed(baseType.elementType())) {
+                return Set.of();
+            }
+        } else {
+            logger.warn("{} is not an array", array);
+            return Set.of();
+        }
+        return query((refine, budget) -> {
+            List<Var> stored = new ArrayList<>();
+            for (StoreArray store : getArrayStores()) {
+                Var storeBase = store.getArrayAccess().getBase();
+                if (getFieldBasedPointsToSet(storeBase, budget).contains(array)) {
+                    stored.add(store.getRValue());
+                }
+            }
+            return traverse(stored, refine, budget);
+        }, baseType.elementType());
+    }
+
+    @Override
+    public boolean mayAlias(Var v1, Var v2) {
+        Set<Obj> s1 = getPointsToSet(v1);
+        Set<Obj> s2 = getPointsToSet(v2);
+        return !Collections.disjoint(s1, s2);
+    }
+
+    @Override
+    public boolean mayAlias(InstanceFieldAccess if1, InstanceFieldAccess if2) {
+        return Objects.equals(
+                if1.getFieldRef().resolveNullable(),
+                if2.getFieldRef().resolveNullable())
+                && mayAlias(if1.getBase(), if2.getBase());
+    }
+
+    @Override
+    public boolean mayAlias(ArrayAccess a1, ArrayAccess a2) {
+        return mayAlias(a1.getBase(), a2.getBase());
+    }
+
+    /**
+     * @return the CHA-based call graph used to resolve calls.
+     */
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return pfg.getCallGraph();
+    }
+
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        throw unsupported("context-sensitive call graph");
+    }
+
+    @Override
+    public ObjectFlowGraph getObjectFlowGraph() {
+        throw unsupported("object flow graph");
+    }
+
+    /**
+     * @return number of queries that ran out of budget so far.
+     */
+    synchronized int getExhaustedQueries() {
+        return exhaustedQueries;
+    }
+
+    private static UnsupportedOperationException unsupported(String elements) {
+        return new UnsupportedOperationException("Demand-driven pointer analysis" +
+                " does not compute whole-program " + elements);
+    }
+
+    /**
+     * @return number of queries that ran out of budget even field-based,
+     * and were answered with type-filtered objects.
+     */
+    synchronized int getTypeFilteredQueries() {
+        return typeFilteredQueries;
+    }
+
+    /**
+     * Runs given query with field-sensitivity within the budget.
+     * If the budget is exhausted, re-runs the query field-based within
+     * a fresh budget, and if that is exhausted too, returns the objects
+     * whose types conform to {@code type}.
+     */
+    private Set<Obj> query(Query query, Type type) {
+        try {
+            return query.run(true, new Budget(budget));
+        } catch (BudgetExhaustedException e) {
+            ++exhaustedQueries;
+            logger.debug("Query ran out of budget ({} steps)," +
+                    " fall back to field-based result", budget);
+        }
+        try {
+            return query.run(false, new Budget(budget));
+        } catch (BudgetExhaustedException e) {
+            ++typeFilteredQueries;
+            logger.debug("Field-based query ran out of budget ({} steps)," +
+                    " fall back to objects of type {}", budget, type);
+            return getObjectsOf(type);
+        }
+    }
+
+    /**
+     * @return the objects allocated in reachable methods whose types
+     * are subtypes of {@code type}.
+     */
+    private Set<Obj> getObjectsOf(Type type) {
+        if (allocatedObjects == null) {
+            allocatedObjects = pfg.getAllocations()
+                    .stream()
+                    .map(stmt -> stmt instanceof New newStmt ?
+                            heapModel.getObj(newStmt) :
+                            heapModel.getConstantObj((ReferenceLiteral)
+                                    ((AssignLiteral) stmt).getRValue()))
+                    .distinct()
+                    .toList();
+        }
+        return typeFilteredObjects.computeIfAbsent(type, t -> {
+            Set<Obj> result = new HybridBitSet<>(heapModel, true);
+            boolean isRefType = t instanceof ClassType || t instanceof ArrayType;
+            allocatedObjects.forEach(obj -> {
+                if (!isRefType || typeSystem.isSubtype(t, obj.getType())) {
+                    result.add(obj);
+                }
+            });
+            return Collections.unmodifiableSet(result);
+        });
+    }
+
+    /**
+     * @return the array stores whose stored values are propagated.
+     */
+    private List<StoreArray> getArrayStores() {
+        if (arrayStores == null) {
+            arrayStores = pfg.getArrayStores()
+                    .stream()
+                    .filter(store -> propTypes.isAllowed(store.getRValue()))
+                    .toList();
+        }
+        return arrayStores;
+    }
+
+    private boolean mayAlias(Var v1, Var v2, boolean refine, Budget budget) {
+        if (!refine) {
+            // field-based analysis matches all loads and stores of a field
+            return true;
+        }
+        return !Collections.disjoint(
+                getFieldBasedPointsToSet(v1, budget),
+                getFieldBasedPointsToSet(v2, budget));
+    }
+
+    private Set<Obj> getFieldBasedPointsToSet(Var var, Budget budget) {
+        Set<Obj> result = fieldBasedPointsTo.get(var);
+        if (result == null) {
+            result = traverse(List.of(var), false, budget);
+            fieldBasedPointsTo.put(var, result);
+        }
+        return result;
+    }
+
+    /**
+     * Traverses the pointer flow graph backwards from {@code roots}
+     * and collects the objects that flow to them.
+     *
+     * @param refine if {@code true}, loads are matched only with the stores
+     *               whose bases may alias; otherwise, loads are matched
+     *               with all stores of the same field (or array).
+     */
+    private Set<Obj> traverse(Collection<Var> roots, boolean refine, Budget budget) {
+        Set<Obj> result = new HybridBitSet<>(heapModel, true);
+        Set<Var> visited = Sets.newHybridSet();
+        Queue<Var> workList = new ArrayDeque<>();
+        for (Var root : roots) {
+            if (visited.add(root)) {
+                workList.add(root);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Var var = workList.poll();
+            budget.step();
+            for (Var pred : getPredecessors(var, result, refine, budget)) {
+                if (propTypes.isAllowed(pred) && visited.add(pred)) {
+                    workList.add(pred);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Collects the pointers which may flow to {@code var},
+     * and adds objects allocated to {@code var} to {@code objs}.
+     */
+    private List<Var> getPredecessors(
+            Var var, Set<Obj> objs, boolean refine, Budget budget) {
+        List<Var> preds = new ArrayList<>();
+        JMethod method = var.getMethod();
+        IR ir = method.getIR();
+        // inter-procedural flows to parameters and this variable
+        if (ir.isThisOrParam(var)) {
+            int index = ir.getParams().indexOf(var);
+            for (Invoke callSite : pfg.getCallersOf(method)) {
+                InvokeExp invokeExp = callSite.getInvokeExp();
+                if (index >= 0) {
+                    preds.add(invokeExp.getArg(index));
+                } else if (invokeExp instanceof InvokeInstanceExp instanceExp) {
+                    preds.add(instanceExp.getBase());
+                }
+            }
+        }
+        // flows via definitions of var
+        for (Stmt stmt : pfg.getDefsOf(var)) {
+            if (stmt instanceof New newStmt) {
+                objs.add(heapModel.getObj(newStmt));
+            } else if (stmt instanceof AssignLiteral assign) {
+                if (assign.getRValue().getType() instanceof ClassType) {
+                    objs.add(heapModel.getConstantObj(
+                            (ReferenceLiteral) assign.getRValue()));
+                }
+            } else if (stmt instanceof Copy copy) {
+                preds.add(copy.getRValue());
+            } else if (stmt instanceof Cast cast) {
+                preds.add(cast.getRValue().getValue());
+            } else if (stmt instanceof LoadField load) {
+                JField field = load.getFieldRef().resolveNullable();
+                if (field == null) {
+                    continue;
+                }
+                Var base = load.isStatic() ? null :
+                        ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                for (StoreField store : pfg.getStoresOf(field)) {
+                    if (base == null || mayAlias(base,
+                            ((InstanceFieldAccess) store.getFieldAccess()).getBase(),
+                            refine, budget)) {
+                        preds.add(store.getRValue());
+                    }
+                }
+            } else if (stmt instanceof LoadArray load) {
+                Var base = load.getArrayAccess().getBase();
+                for (StoreArray store : getArrayStores()) {
+                    if (mayAlias(base, store.getArrayAccess().getBase(),
+                            refine, budget)) {
+                        preds.add(store.getRValue());
+                    }
+                }
+            } else if (stmt instanceof Invoke callSite) {
+                for (JMethod callee : pfg.getCalleesOf(callSite)) {
+                    if (!callee.isAbstract()) {
+                        preds.addAll(callee.getIR().getReturnVars());
+                    }
+                }
+            }
+        }
+        return preds;
+    }
+
+    /**
+     * A points-to query which can be run field-sensitively or field-based.
+     */
+    @FunctionalInterface
+    private interface Query {
+        Set<Obj> run(boolean refine, Budget budget);
+    }
+
+    /**
+     * Counts steps taken by a query.
+     */
+    private static class Budget {
+
+        private int remaining;
+
+        private Budget(int limit) {
+            this.remaining = limit;
+        }
+
+        private void step() {
+            if (--remaining < 0) {
+                throw BudgetExhaustedException.INSTANCE;
+            }
+        }
+    }
+
+    /**
+     * Signals that a query ran out of budget. As it is only used
+     * for control flow, it carries no stack trace.
+     */
+    private static class BudgetExhaustedException extends RuntimeException {
+
+        private static final BudgetExhaustedException INSTANCE =
+                new BudgetExhaustedException();
+
+        private BudgetExhaustedException() {
+            super(null, null, false, false);
+        }
+    }
+}
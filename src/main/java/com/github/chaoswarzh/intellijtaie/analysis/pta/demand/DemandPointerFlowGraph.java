@@ -0,0 +1,235 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.demand;
+
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.AssignLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Invoke;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.StoreArray;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.StoreField;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pointer flow graph for demand-driven pointer analysis.
+ * <p>
+ * Different from {@link com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.PointerFlowGraph},
+ * this graph is not materialized up front. The definitions of variables
+ * are indexed per method when a variable of the method is first queried.
+ * The stores of a field are indexed when the field is first loaded, and only
+ * the reachable methods which are allowed to access the field are scanned.
+ * Array stores, which may occur in any method, are indexed over all
+ * reachable methods on first use.
+ */
+class DemandPointerFlowGraph {
+
+    private final CallGraph<Invoke, JMethod> callGraph;
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Map from each indexed method to the definitions of its variables.
+     */
+    private final Map<JMethod, Map<Var, List<Stmt>>> defs = Maps.newConcurrentMap(1024);
+
+    /**
+     * Map from each indexed method to its field and array stores.
+     */
+    private final Map<JMethod, List<Stmt>> stores = Maps.newConcurrentMap(1024);
+
+    /**
+     * Map from each loaded field to the statements that store to it.
+     */
+    private final Map<JField, Set<StoreField>> fieldStores = Maps.newConcurrentMap();
+
+    /**
+     * All array stores in reachable methods.
+     * Built lazily, see {@link #getArrayStores()}.
+     */
+    private List<StoreArray> arrayStores;
+
+    /**
+     * Allocation sites and reference literals in reachable methods.
+     * Built lazily, see {@link #getAllocations()}.
+     */
+    private List<Stmt> allocations;
+
+    DemandPointerFlowGraph(CallGraph<Invoke, JMethod> callGraph,
+                           ClassHierarchy hierarchy) {
+        this.callGraph = callGraph;
+        this.hierarchy = hierarchy;
+    }
+
+    CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * @return the statements in the container method of {@code var}
+     * that define {@code var}.
+     */
+    List<Stmt> getDefsOf(Var var) {
+        return defs.computeIfAbsent(var.getMethod(), this::indexDefs)
+                .getOrDefault(var, List.of());
+    }
+
+    private Map<Var, List<Stmt>> indexDefs(JMethod method) {
+        Map<Var, List<Stmt>> varDefs = Maps.newMap();
+        for (Stmt stmt : method.getIR()) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var) {
+                    varDefs.computeIfAbsent(var, __ -> new ArrayList<>(2))
+                            .add(stmt);
+                }
+            });
+        }
+        return varDefs;
+    }
+
+    /**
+     * @return the call sites that may invoke {@code method}.
+     */
+    Set<Invoke> getCallersOf(JMethod method) {
+        return callGraph.getCallersOf(method);
+    }
+
+    /**
+     * @return the methods that may be invoked by {@code callSite}.
+     */
+    Set<JMethod> getCalleesOf(Invoke callSite) {
+        return callGraph.getCalleesOf(callSite);
+    }
+
+    /**
+     * @return the statements that store to {@code field}.
+     */
+    Set<StoreField> getStoresOf(JField field) {
+        return fieldStores.computeIfAbsent(field, this::indexStoresOf);
+    }
+
+    private Set<StoreField> indexStoresOf(JField field) {
+        Set<StoreField> result = Sets.newHybridSet();
+        callGraph.reachableMethods()
+                .filter(m -> !m.isAbstract() &&
+                        mayAccess(m.getDeclaringClass(), field))
+                .map(this::getStoresIn)
+                .flatMap(List::stream)
+                .forEach(stmt -> {
+                    if (stmt instanceof StoreField storeField &&
+                            field.equals(storeField.getFieldRef().resolveNullable())) {
+                        result.add(storeField);
+                    }
+                });
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * @return {@code true} if the code of {@code jclass} may access
+     * {@code field} according to the access modifiers of the field.
+     */
+    private boolean mayAccess(JClass jclass, JField field) {
+        if (field.isPublic()) {
+            return true;
+        }
+        JClass declaringClass = field.getDeclaringClass();
+        if (field.isPrivate()) {
+            // private fields are accessible to the nestmates
+            return getTopLevelClass(jclass).equals(getTopLevelClass(declaringClass));
+        }
+        if (getPackageName(jclass).equals(getPackageName(declaringClass))) {
+            return true;
+        }
+        return field.isProtected() && hierarchy.isSubclass(declaringClass, jclass);
+    }
+
+    private static JClass getTopLevelClass(JClass jclass) {
+        while (jclass.hasOuterClass()) {
+            jclass = jclass.getOuterClass();
+        }
+        return jclass;
+    }
+
+    private static String getPackageName(JClass jclass) {
+        String name = jclass.getName();
+        int index = name.lastIndexOf('.');
+        return index == -1 ? "" : name.substring(0, index);
+    }
+
+    /**
+     * @return all array stores in reachable methods.
+     */
+    synchronized Collection<StoreArray> getArrayStores() {
+        if (arrayStores == null) {
+            arrayStores = callGraph.reachableMethods()
+                    .filter(m -> !m.isAbstract())
+                    .map(this::getStoresIn)
+                    .flatMap(List::stream)
+                    .filter(stmt -> stmt instanceof StoreArray)
+                    .map(stmt -> (StoreArray) stmt)
+                    .toList();
+        }
+        return arrayStores;
+    }
+
+    private List<Stmt> getStoresIn(JMethod method) {
+        return stores.computeIfAbsent(method, m -> m.getIR()
+                .stmts()
+                .filter(s -> s instanceof StoreField || s instanceof StoreArray)
+                .toList());
+    }
+
+    /**
+     * @return the {@link New} statements and the assignments of
+     * reference literals in reachable methods.
+     */
+    synchronized List<Stmt> getAllocations() {
+        if (allocations == null) {
+            allocations = callGraph.reachableMethods()
+                    .filter(m -> !m.isAbstract())
+                    .map(JMethod::getIR)
+                    .flatMap(IR::stmts)
+                    .filter(s -> s instanceof New ||
+                            (s instanceof AssignLiteral assign &&
+                                    assign.getRValue().getType() instanceof ClassType))
+                    .toList();
+        }
+        return allocations;
+    }
+}
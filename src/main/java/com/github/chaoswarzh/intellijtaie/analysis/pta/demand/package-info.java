@@ -0,0 +1,34 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+/**
+ * This package contains a demand-driven pointer analysis, which answers
+ * points-to and alias queries for individual variables without solving
+ * the whole program first.
+ * <p>
+ * The analysis follows the refinement-based approach presented in paper:
+ * Manu Sridharan and Rastislav Bodík.
+ * Refinement-Based Context-Sensitive Points-To Analysis for Java.
+ * In PLDI 2006.
+ */
+package com.github.chaoswarzh.intellijtaie.analysis.pta.demand;
@@ -0,0 +1,206 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin;
+
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.context.Context;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSVar;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.pts.PointsToSet;
+import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.MutableInt;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Monitors the contexts and the points-to growth of each method during
+ * pointer analysis, and switches the methods that exceed the budgets to
+ * a cheaper context sensitivity variant. The contexts are checked by
+ * {@link #isAdmitted(JMethod, Context)} when they are selected, which is
+ * expected to guide an adaptive context selector (see
+ * {@link com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.selector.ContextSelectorFactory#makeAdaptiveSelector}).
+ * <p>
+ * The budgets are given in form of "contexts=N,pts=N,time=S,fallback=CS",
+ * and all of them are optional:
+ * <ul>
+ *     <li>contexts: maximum number of contexts of each method.</li>
+ *     <li>pts: maximum number of points-to facts propagated to
+ *     the variables of each method (in all contexts).</li>
+ *     <li>time: elapsed seconds after which the methods that are
+ *     reached in a second context are switched.</li>
+ *     <li>fallback: the cheaper variant, {@code ci} by default.</li>
+ * </ul>
+ * The contexts created before a method is switched are kept, thus the
+ * result is still sound, and it is as precise as the original variant
+ * for the methods that stay within the budgets.
+ */
+public class ContextBudgetGovernor implements Plugin {
+
+    private static final Logger logger = LogManager.getLogger(ContextBudgetGovernor.class);
+
+    private static final int NO_LIMIT = -1;
+
+    private int contextLimit = NO_LIMIT;
+
+    private int ptsLimit = NO_LIMIT;
+
+    private long timeLimit = NO_LIMIT;
+
+    private String fallbackCS = "ci";
+
+    /**
+     * Contexts admitted for each method that has not been switched.
+     */
+    private final Map<JMethod, Set<Context>> contexts = Maps.newMap();
+
+    private final Map<JMethod, MutableInt> ptsCounts = Maps.newMap();
+
+    private final Set<JMethod> demoted = Sets.newSet();
+
+    /**
+     * Deadline (in nanoseconds) of {@link #timeLimit}.
+     */
+    private long deadline;
+
+    private boolean isOverTime = false;
+
+    public ContextBudgetGovernor(String budget) {
+        for (String entry : budget.split(",")) {
+            String[] splits = entry.split("=");
+            if (splits.length != 2) {
+                throw new ConfigException("Illegal context budget: " + budget);
+            }
+            try {
+                switch (splits[0].trim()) {
+                    case "contexts" -> contextLimit = Integer.parseInt(splits[1].trim());
+                    case "pts" -> ptsLimit = Integer.parseInt(splits[1].trim());
+                    case "time" -> timeLimit = Long.parseLong(splits[1].trim());
+                    case "fallback" -> fallbackCS = splits[1].trim();
+                    default -> throw new ConfigException(
+                            "Unknown context budget: " + splits[0]);
+                }
+            } catch (NumberFormatException e) {
+                throw new ConfigException("Illegal context budget: " + budget, e);
+            }
+        }
+    }
+
+    /**
+     * @return the context sensitivity variant for the switched methods.
+     */
+    public String getFallbackCS() {
+        return fallbackCS;
+    }
+
+    /**
+     * @return {@code true} if given method has been switched to
+     * the fallback context sensitivity variant.
+     */
+    public boolean isDemoted(JMethod method) {
+        return demoted.contains(method);
+    }
+
+    @Override
+    public void onStart() {
+        if (timeLimit != NO_LIMIT) {
+            deadline = System.nanoTime() + timeLimit * 1_000_000_000L;
+        }
+    }
+
+    /**
+     * Checks the context selected for {@code method} by the original
+     * context sensitivity variant. The method is switched if the context
+     * is a new one that exceeds the budgets. Checking the contexts on
+     * selection (rather than on reaching the context-sensitive methods)
+     * bounds the contexts of each method even if many contexts are
+     * selected at once, e.g., for a call site with many receiver objects.
+     *
+     * @return {@code true} if {@code method} can be analyzed
+     * in {@code context}.
+     */
+    public boolean isAdmitted(JMethod method, Context context) {
+        if (demoted.contains(method)) {
+            return false;
+        }
+        if (contextLimit == NO_LIMIT && timeLimit == NO_LIMIT) {
+            return true;
+        }
+        Set<Context> admitted = contexts.computeIfAbsent(method,
+                __ -> Sets.newHybridSet());
+        if (admitted.contains(context)) {
+            return true;
+        }
+        if (!isOverTime && timeLimit != NO_LIMIT
+                && System.nanoTime() > deadline) {
+            isOverTime = true;
+            logger.info("Context budget governor: time budget ({}s) is exceeded," +
+                    " switching methods with multiple contexts to {}",
+                    timeLimit, fallbackCS);
+        }
+        if ((contextLimit != NO_LIMIT && admitted.size() >= contextLimit)
+                || (isOverTime && !admitted.isEmpty())) {
+            demote(method);
+            return false;
+        }
+        admitted.add(context);
+        return true;
+    }
+
+    @Override
+    public void onNewPointsToSet(CSVar csVar, PointsToSet pts) {
+        if (ptsLimit == NO_LIMIT) {
+            return;
+        }
+        JMethod method = csVar.getVar().getMethod();
+        if (demoted.contains(method)) {
+            return;
+        }
+        if (increase(ptsCounts, method, pts.size()) > ptsLimit) {
+            demote(method);
+        }
+    }
+
+    private static int increase(Map<JMethod, MutableInt> counts,
+                                JMethod method, int delta) {
+        MutableInt count = counts.computeIfAbsent(method, __ -> new MutableInt(0));
+        count.add(delta);
+        return count.intValue();
+    }
+
+    private void demote(JMethod method) {
+        demoted.add(method);
+        // the contexts and counts are no longer needed
+        contexts.remove(method);
+        ptsCounts.remove(method);
+        logger.debug("Switched {} to {}", method, fallbackCS);
+    }
+
+    @Override
+    public void onFinish() {
+        logger.info("Context budget governor switched {} methods to {}",
+                demoted.size(), fallbackCS);
+    }
+}
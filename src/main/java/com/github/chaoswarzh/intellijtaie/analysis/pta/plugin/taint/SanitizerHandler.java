@@ -43,14 +43,8 @@ class SanitizerHandler extends OnFlyHandler {
 
     private final MultiMap<JMethod, ParamSanitizer> paramSanitizers = Maps.newMultiMap();
 
-    /**
-     * Used to filter out taint objects from points-to set.
-     */
-    private final Predicate<CSObj> taintFilter;
-
     SanitizerHandler(HandlerContext context) {
         super(context);
-        taintFilter = o -> !context.manager().isTaint(o.getObject());
         context.config().paramSanitizers()
                 .forEach(s -> this.paramSanitizers.put(s.method(), s));
     }
@@ -68,15 +62,31 @@ class SanitizerHandler extends OnFlyHandler {
             paramSanitizers.get(method).forEach(sanitizer -> {
                 Var param = getParam(ir, sanitizer.index());
                 CSVar csParam = csManager.getCSVar(context, param);
-                solver.addPointerFilter(csParam, taintFilter);
+                solver.addPointerFilter(csParam, new Filter(sanitizer, manager));
             });
         }
     }
 
-    private static Var getParam(IR ir, int index) {
+    static Var getParam(IR ir, int index) {
         return switch (index) {
             case BASE -> ir.getThis();
             default -> ir.getParam(index);
         };
     }
+
+    /**
+     * Filters out taint objects from points-to set of the parameter
+     * of a sanitizer. As a record, the filters added for the same
+     * sanitizer are equal, so that re-adding a filter (e.g., when taint
+     * config is reloaded) has no effect, and the filters of a removed
+     * sanitizer can be identified.
+     */
+    record Filter(ParamSanitizer sanitizer, TaintManager manager)
+            implements Predicate<CSObj> {
+
+        @Override
+        public boolean test(CSObj csObj) {
+            return !manager.isTaint(csObj.getObject());
+        }
+    }
 }
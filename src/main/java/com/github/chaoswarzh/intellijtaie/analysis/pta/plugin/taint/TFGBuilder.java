@@ -37,22 +37,28 @@ import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.util.InvokeUtils;
 import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
 import com.github.chaoswarzh.intellijtaie.language.classes.JField;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.collection.IndexerBitSet;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
-import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
-import com.github.chaoswarzh.intellijtaie.util.graph.Reachability;
+import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
+import com.github.chaoswarzh.intellijtaie.util.collection.SetEx;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
  * Taint flow graph builder.
+ * <p>
+ * The builder computes the nodes reachable from the source nodes and
+ * the nodes that can reach the sink nodes, and keeps only the edges
+ * among nodes in both sets. Both traversals are level-synchronous:
+ * each frontier is expanded in parallel, and visited nodes are recorded
+ * in bit sets indexed by {@link ObjectFlowGraph#getIndex(Node)}.
  */
 class TFGBuilder {
 
@@ -78,8 +84,10 @@ class TFGBuilder {
 
     /**
      * Map from a node to set of taint objects pointed to by the node.
+     * The sets are bit sets over {@link PointerAnalysisResult#getObjectIndexer()}.
+     * This map is filled concurrently during traversal.
      */
-    private Map<Node, Set<Obj>> node2TaintSet;
+    private Map<Node, SetEx<Obj>> node2TaintSet;
 
     TFGBuilder(PointerAnalysisResult pta,
                Set<TaintFlow> taintFlows,
@@ -90,37 +98,72 @@ class TFGBuilder {
         this.taintManager = taintManager;
     }
 
-    /**
-     * Builds a complete taint flow graph.
-     */
-    private TaintFlowGraph buildComplete() {
-        // builds taint flow graph
-        node2TaintSet = Maps.newMap();
-        TaintFlowGraph tfg = new TaintFlowGraph(
-                collectSourceNodes(), collectSinkNode());
-        Set<Node> visitedNodes = Sets.newSet();
-        Deque<Node> workList = new ArrayDeque<>(
-                tfg.getSourceNodes());
-        while (!workList.isEmpty()) {
-            Node node = workList.poll();
-            if (visitedNodes.add(node)) {
-                getOutEdges(node).forEach(edge -> {
-                    Node target = edge.target();
-                    if (!onlyApp || isApp(target)) {
-                        tfg.addEdge(edge);
-                        if (!visitedNodes.contains(target)) {
-                            workList.add(target);
-                        }
-                    }
-                });
-            }
+    TaintFlowGraph build() {
+        node2TaintSet = Maps.newConcurrentMap(4096);
+        MultiMap<Node, SourcePoint> sourceNodes = collectSourceNodes();
+        MultiMap<Node, SinkPoint> sinkNodes = collectSinkNode();
+        // forward reachability from sources
+        BitSet reachable = traverse(sourceNodes.keySet(),
+                node -> getOutEdges(node).stream().map(FlowEdge::target));
+        BitSet relevant = reachable;
+        if (onlyReachSink) {
+            // backward reachability from sinks, restricted to the nodes
+            // reachable from sources, so that the result is the intersection
+            List<Node> reachedSinks = sinkNodes.keySet()
+                    .stream()
+                    .filter(node -> reachable.get(ofg.getIndex(node)))
+                    .toList();
+            relevant = traverse(reachedSinks,
+                    node -> getInEdges(node, reachable).stream().map(FlowEdge::source));
         }
+        TaintFlowGraph tfg = new TaintFlowGraph(sourceNodes, sinkNodes);
+        BitSet nodes = relevant;
+        nodes.stream().parallel()
+                .mapToObj(ofg::getObject)
+                .flatMap(node -> getOutEdges(node).stream())
+                .filter(edge -> nodes.get(ofg.getIndex(edge.target())))
+                .toList()
+                .forEach(tfg::addEdge);
         node2TaintSet = null;
         return tfg;
     }
 
-    private Map<Node, SourcePoint> collectSourceNodes() {
-        Map<Node, SourcePoint> sourceNode2SourcePoint = Maps.newMap();
+    /**
+     * Traverses the object flow graph from {@code roots} one level at
+     * a time, expanding each level in parallel.
+     *
+     * @param roots the nodes to start from
+     * @param next  gives the successors (or predecessors) to follow
+     * @return indexes of all visited nodes.
+     */
+    private BitSet traverse(Collection<Node> roots,
+                            Function<Node, Stream<Node>> next) {
+        BitSet visited = new BitSet();
+        List<Node> frontier = roots.stream()
+                .filter(node -> markVisited(visited, node))
+                .toList();
+        while (!frontier.isEmpty()) {
+            frontier = frontier.parallelStream()
+                    .flatMap(next)
+                    .toList() // collected first, as BitSet is not thread-safe
+                    .stream()
+                    .filter(node -> markVisited(visited, node))
+                    .toList();
+        }
+        return visited;
+    }
+
+    private boolean markVisited(BitSet visited, Node node) {
+        int index = ofg.getIndex(node);
+        if (visited.get(index)) {
+            return false;
+        }
+        visited.set(index);
+        return true;
+    }
+
+    private MultiMap<Node, SourcePoint> collectSourceNodes() {
+        MultiMap<Node, SourcePoint> sourceNode2SourcePoint = Maps.newMultiMap();
         for (Obj taintObj : taintManager.getTaintObjs()) {
             SourcePoint p = taintManager.getSourcePoint(taintObj);
             if (p instanceof CallSourcePoint csp) {
@@ -146,8 +189,8 @@ class TFGBuilder {
         return sourceNode2SourcePoint;
     }
 
-    private Map<Node, SinkPoint> collectSinkNode() {
-        Map<Node, SinkPoint> sinkNode2SinkPoint = Maps.newMap();
+    private MultiMap<Node, SinkPoint> collectSinkNode() {
+        MultiMap<Node, SinkPoint> sinkNode2SinkPoint = Maps.newMultiMap();
         taintFlows.forEach(taintFlow -> {
             SinkPoint sinkPoint = taintFlow.sinkPoint();
             IndexRef indexRef = sinkPoint.indexRef();
@@ -181,41 +224,54 @@ class TFGBuilder {
     }
 
     private List<FlowEdge> getOutEdges(Node source) {
-        Set<Obj> sourceTaintSet = getTaintSet(source);
-        List<FlowEdge> edges = new ArrayList<>();
-        // collect OFG edges
-        ofg.getOutEdgesOf(source).forEach(edge -> {
-            switch (edge.kind()) {
-                case LOCAL_ASSIGN, INSTANCE_STORE, ARRAY_STORE,
-                        THIS_PASSING, PARAMETER_PASSING, OTHER -> {
-                    edges.add(edge);
-                }
-                case CAST, INSTANCE_LOAD, ARRAY_LOAD, RETURN -> {
-                    // check whether target node also contains the same
-                    // taint objects as source node to filter spurious edges
-                    Set<Obj> targetTaintSet = getTaintSet(edge.target());
-                    if (!Collections.disjoint(sourceTaintSet, targetTaintSet)) {
-                        edges.add(edge);
-                    }
-                }
-            }
-        });
-        return edges;
+        return ofg.getOutEdgesOf(source)
+                .stream()
+                .filter(this::isTaintEdge)
+                .toList();
     }
 
-    private Set<Obj> getTaintSet(Node node) {
-        Set<Obj> taintSet = node2TaintSet.get(node);
-        if (taintSet == null) {
-            taintSet = getPointsToSet(node)
-                    .stream()
-                    .filter(taintManager::isTaint)
-                    .collect(Sets::newHybridSet, Set::add, Set::addAll);
-            if (taintSet.isEmpty()) {
-                taintSet = Set.of();
-            }
-            node2TaintSet.put(node, taintSet);
+    /**
+     * @return in edges of {@code target} whose source nodes are
+     * in {@code sources}.
+     */
+    private List<FlowEdge> getInEdges(Node target, BitSet sources) {
+        return ofg.getInEdgesOf(target)
+                .stream()
+                .filter(edge -> sources.get(ofg.getIndex(edge.source())))
+                .filter(this::isTaintEdge)
+                .toList();
+    }
+
+    /**
+     * @return {@code true} if taint objects may flow along {@code edge}.
+     */
+    private boolean isTaintEdge(FlowEdge edge) {
+        if (onlyApp && !isApp(edge.target())) {
+            return false;
         }
-        return taintSet;
+        return switch (edge.kind()) {
+            case LOCAL_ASSIGN, INSTANCE_STORE, ARRAY_STORE,
+                    THIS_PASSING, PARAMETER_PASSING, OTHER -> true;
+            // check whether target node also contains the same
+            // taint objects as source node to filter spurious edges
+            case CAST, INSTANCE_LOAD, ARRAY_LOAD, RETURN ->
+                    getTaintSet(edge.source())
+                            .hasOverlapWith(getTaintSet(edge.target()));
+            case STATIC_LOAD, STATIC_STORE -> false;
+        };
+    }
+
+    private SetEx<Obj> getTaintSet(Node node) {
+        return node2TaintSet.computeIfAbsent(node, n -> {
+            SetEx<Obj> taintSet = new IndexerBitSet<>(
+                    pta.getObjectIndexer(), true);
+            getPointsToSet(n).forEach(obj -> {
+                if (taintManager.isTaint(obj)) {
+                    taintSet.add(obj);
+                }
+            });
+            return taintSet;
+        });
     }
 
     private Set<Obj> getPointsToSet(Node node) {
@@ -230,38 +286,6 @@ class TFGBuilder {
         }
     }
 
-    TaintFlowGraph build() {
-        TaintFlowGraph complete = buildComplete();
-        TaintFlowGraph tfg = new TaintFlowGraph(
-                complete.getSourceNode2SourcePoint(),
-                complete.getSinkNode2SinkPoint());
-        Set<Node> nodesReachSink = null;
-        if (onlyReachSink) {
-            nodesReachSink = Sets.newHybridSet();
-            Reachability<Node> reachability = new Reachability<>(complete);
-            for (Node sink : complete.getSinkNodes()) {
-                nodesReachSink.addAll(reachability.nodesCanReach(sink));
-            }
-        }
-        Set<Node> visitedNodes = Sets.newSet();
-        Deque<Node> workList = new ArrayDeque<>(complete.getSourceNodes());
-        while (!workList.isEmpty()) {
-            Node node = workList.poll();
-            if (visitedNodes.add(node)) {
-                for (FlowEdge edge : complete.getOutEdgesOf(node)) {
-                    Node target = edge.target();
-                    if (!onlyReachSink || nodesReachSink.contains(target)) {
-                        tfg.addEdge(edge);
-                        if (!visitedNodes.contains(target)) {
-                            workList.add(target);
-                        }
-                    }
-                }
-            }
-        }
-        return tfg;
-    }
-
     private static boolean isApp(Node node) {
         if (node instanceof VarNode varNode) {
             return varNode.getVar().getMethod().isApplication();
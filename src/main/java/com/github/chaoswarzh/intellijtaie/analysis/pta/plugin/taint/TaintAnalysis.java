@@ -22,25 +22,35 @@
 
 package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.github.chaoswarzh.intellijtaie.World;
 import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallKind;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.context.Context;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSCallSite;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSManager;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSMethod;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSObj;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSVar;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.Pointer;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.PointerFlowEdge;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.Solver;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.CompositePlugin;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.util.InvokeUtils;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.pts.PointsToSet;
 import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
 import com.github.chaoswarzh.intellijtaie.util.Timer;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Taint Analysis composites plugins {@link SourceHandler}, {@link TransferHandler}
@@ -55,6 +65,8 @@ public class TaintAnalysis extends CompositePlugin {
 
     private static final String TAINT_FLOW_GRAPH_FILE = "taint-flow-graph.dot";
 
+    private static final String TAINT_FLOWS_FILE = "taint-flows";
+
     private Solver solver;
 
     private boolean isInteractive;
@@ -75,32 +87,52 @@ public class TaintAnalysis extends CompositePlugin {
         initialize();
     }
 
-    private void initialize() {
-        // clean composited plugins, taint objects and taint transfer edges
+    /**
+     * Loads the taint config and (re-)initializes the handlers.
+     * If the taint config has been loaded before, i.e., in interactive mode,
+     * only the taint objects and edges affected by the changes of the config
+     * are retracted, and the rest of the results are kept.
+     *
+     * @return {@code true} if the points-to sets may be changed,
+     * otherwise (e.g., only sinks were changed) {@code false}.
+     */
+    private boolean initialize() {
         isReported = false;
-        clearPlugins();
-        if (context != null) {
-            TaintManager manager = context.manager();
-            solver.getCSManager().pointers().forEach(p -> {
-                PointsToSet pts = p.getPointsToSet();
-                if (pts != null) {
-                    pts.removeIf(csObj -> manager.isTaint(csObj.getObject()));
-                }
-                p.removeEdgesIf(TaintTransferEdge.class::isInstance);
-            });
-        }
-        // load taint configuration and create new handlers
+        // load taint configuration
         TaintConfig config = TaintConfig.loadConfig(
                 solver.getOptions().getString("taint-config"),
                 solver.getHierarchy(),
                 solver.getTypeSystem());
         logger.info(config);
-        context = new HandlerContext(solver, new TaintManager(
-                solver.getHeapModel()), config);
+        TaintManager manager;
+        if (context == null) {
+            manager = new TaintManager(solver.getHeapModel());
+        } else {
+            TaintConfigDiff diff = TaintConfigDiff.of(context.config(), config);
+            logger.info(diff);
+            if (!diff.affectsPointsTo()) {
+                // sinks are handled when reporting taint flows,
+                // so the results of pointer analysis are still valid
+                context = new HandlerContext(solver, context.manager(), config);
+                return false;
+            }
+            if (diff.callSiteModeChanged()) {
+                retractAll(context.manager());
+                manager = new TaintManager(solver.getHeapModel());
+            } else {
+                manager = context.manager();
+                retract(diff, manager);
+            }
+        }
+        // create new handlers
+        clearPlugins();
+        context = new HandlerContext(solver, manager, config);
         addPlugin(new SourceHandler(context),
                 new TransferHandler(context),
                 new SanitizerHandler(context));
-        // trigger the creation of taint objects
+        // Trigger the creation of taint objects and taint transfer edges.
+        // For unchanged sources and transfers, the resulting taint objects
+        // and edges already exist, and thus are not propagated again.
         CallGraph<CSCallSite, CSMethod> cg = solver.getCallGraph();
         if (cg != null) {
             CSManager csManager = solver.getCSManager();
@@ -121,6 +153,131 @@ public class TaintAnalysis extends CompositePlugin {
                 });
             });
         }
+        return true;
+    }
+
+    /**
+     * Removes all taint objects, taint transfer edges and sanitizer filters.
+     */
+    private void retractAll(TaintManager manager) {
+        solver.getCSManager().pointers().forEach(p -> {
+            PointsToSet pts = p.getPointsToSet();
+            if (pts != null) {
+                pts.removeIf(csObj -> manager.isTaint(csObj.getObject()));
+            }
+            p.removeEdgesIf(TaintTransferEdge.class::isInstance);
+            p.removeFiltersIf(SanitizerHandler.Filter.class::isInstance);
+        });
+    }
+
+    /**
+     * Retracts the taint objects and edges affected by {@code diff}.
+     * Taint objects are retracted per source point, i.e., if any taint object
+     * of a source point is affected, then all taint objects of the source point
+     * are removed. If the source still exists, the source point is
+     * re-generated by new handlers and its taint objects are propagated again.
+     */
+    private void retract(TaintConfigDiff diff, TaintManager manager) {
+        CSManager csManager = solver.getCSManager();
+        Set<SourcePoint> retracted = Sets.newSet();
+        // taint objects generated by removed sources
+        manager.getTaintObjs().forEach(taint -> {
+            SourcePoint sourcePoint = manager.getSourcePoint(taint);
+            if (diff.removedSources().contains(sourcePoint.source())) {
+                retracted.add(sourcePoint);
+            }
+        });
+        // taint objects that may flow via removed transfers
+        Set<TaintTransfer> removedTransfers = diff.removedTransfers();
+        if (!removedTransfers.isEmpty()) {
+            Predicate<PointerFlowEdge> isRemoved = edge ->
+                    edge instanceof TaintTransferEdge transferEdge &&
+                            removedTransfers.contains(transferEdge.getTransfer());
+            csManager.pointers().forEach(p -> {
+                p.getOutEdges()
+                        .stream()
+                        .filter(isRemoved)
+                        .forEach(edge -> addSourcePoints(
+                                edge.target(), manager, retracted));
+                p.removeEdgesIf(isRemoved);
+            });
+        }
+        // taint objects that have passed newly added sanitizers
+        diff.addedSanitizers().forEach(sanitizer -> {
+            Var param = getParam(sanitizer);
+            if (param != null) {
+                csManager.getCSVarsOf(param).forEach(csParam ->
+                        addSourcePoints(csParam, manager, retracted));
+            }
+        });
+        if (!retracted.isEmpty()) {
+            csManager.pointers().forEach(p -> {
+                PointsToSet pts = p.getPointsToSet();
+                if (pts != null) {
+                    pts.removeIf(csObj -> manager.isTaint(csObj.getObject()) &&
+                            retracted.contains(manager.getSourcePoint(csObj.getObject())));
+                }
+            });
+            manager.removeTaintObjs(retracted);
+        }
+        logger.info("Retracted taint objects of {} source point(s)", retracted.size());
+        diff.removedSanitizers().forEach(this::removeSanitizer);
+    }
+
+    private static void addSourcePoints(
+            Pointer pointer, TaintManager manager, Set<SourcePoint> sourcePoints) {
+        pointer.objects()
+                .map(CSObj::getObject)
+                .filter(manager::isTaint)
+                .map(manager::getSourcePoint)
+                .forEach(sourcePoints::add);
+    }
+
+    /**
+     * Removes the filters of a removed sanitizer, and passes the taint objects
+     * pointed to by the arguments at the call sites to the sanitized parameter,
+     * as these objects were blocked by the filters.
+     */
+    private void removeSanitizer(ParamSanitizer sanitizer) {
+        Var param = getParam(sanitizer);
+        CallGraph<CSCallSite, CSMethod> cg = solver.getCallGraph();
+        if (param == null || cg == null) {
+            return;
+        }
+        CSManager csManager = solver.getCSManager();
+        TaintManager manager = context.manager();
+        TypeSystem typeSystem = solver.getTypeSystem();
+        csManager.getCSVarsOf(param).forEach(csParam -> {
+            csParam.removeFiltersIf(filter ->
+                    filter instanceof SanitizerHandler.Filter f &&
+                            f.sanitizer().equals(sanitizer));
+            CSMethod csMethod = csManager.getCSMethod(
+                    csParam.getContext(), sanitizer.method());
+            cg.edgesInTo(csMethod)
+                    .filter(edge -> edge.getKind() != CallKind.OTHER)
+                    .forEach(edge -> {
+                        CSCallSite csCallSite = edge.getCallSite();
+                        Var arg = InvokeUtils.getVar(
+                                csCallSite.getCallSite(), sanitizer.index());
+                        PointsToSet taints = solver.makePointsToSet();
+                        csManager.getCSVar(csCallSite.getContext(), arg)
+                                .objects()
+                                .filter(o -> manager.isTaint(o.getObject()))
+                                .filter(o -> typeSystem.isSubtype(
+                                        param.getType(), o.getObject().getType()))
+                                .forEach(taints::addObject);
+                        if (!taints.isEmpty()) {
+                            solver.addPointsTo(csParam, taints);
+                        }
+                    });
+        });
+    }
+
+    @Nullable
+    private static Var getParam(ParamSanitizer sanitizer) {
+        JMethod method = sanitizer.method();
+        return method.isAbstract() ? null :
+                SanitizerHandler.getParam(method.getIR(), sanitizer.index());
     }
 
     @Override
@@ -138,8 +295,7 @@ public class TaintAnalysis extends CompositePlugin {
                 input = input.strip();
                 System.out.println("You have entered: '" + input + "'");
                 if ("r".equals(input)) {
-                    initialize();
-                    if (!context.manager().getTaintObjs().isEmpty()) {
+                    if (initialize() && !context.manager().getTaintObjs().isEmpty()) {
                         break;
                     }
                 } else if ("e".equals(input)) {
@@ -190,9 +346,22 @@ public class TaintAnalysis extends CompositePlugin {
         taintFlows.forEach(logger::info);
         solver.getResult().storeResult(getClass().getName(), taintFlows);
         TaintManager manager = context.manager();
-        Timer.runAndCount(() -> new TFGDumper().dump(
-                        new TFGBuilder(solver.getResult(), taintFlows, manager).build(),
-                        new File(World.get().getOptions().getOutputDir(), TAINT_FLOW_GRAPH_FILE)),
+        File outputDir = World.get().getOptions().getOutputDir();
+        TaintFlowGraph tfg = Timer.runAndCount(
+                () -> new TFGBuilder(solver.getResult(), taintFlows, manager).build(),
+                "TFGBuilder", Level.INFO);
+        Timer.runAndCount(() -> new TFGDumper().dump(tfg,
+                        new File(outputDir, TAINT_FLOW_GRAPH_FILE)),
                 "TFGDumper");
+        String format = solver.getOptions().getString("taint-report");
+        if (format != null) {
+            Timer.runAndCount(() -> {
+                File output = new File(outputDir, TAINT_FLOWS_FILE + "." + format);
+                try (TaintFlowReporter reporter =
+                             new TaintFlowReporter(format, tfg, output)) {
+                    taintFlows.stream().sorted().forEach(reporter::report);
+                }
+            }, "TaintFlowReporter");
+        }
     }
 }
@@ -39,7 +39,6 @@ import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JField;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
-import com.github.chaoswarzh.intellijtaie.language.classes.SignatureMatcher;
 import com.github.chaoswarzh.intellijtaie.language.type.ArrayType;
 import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
@@ -88,13 +87,20 @@ record TaintConfig(List<Source> sources,
      */
     static TaintConfig loadConfig(
             String path, ClassHierarchy hierarchy, TypeSystem typeSystem) {
+        File file = new File(path);
+        TaintConfigCache cache = TaintConfigCache.load(file, hierarchy);
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
         SimpleModule module = new SimpleModule();
         module.addDeserializer(TaintConfig.class,
-                new Deserializer(hierarchy, typeSystem));
+                new Deserializer(cache, typeSystem));
         mapper.registerModule(module);
-        File file = new File(path);
         logger.info("Loading taint config from {}", file.getAbsolutePath());
+        TaintConfig config = load(mapper, file);
+        cache.save();
+        return config;
+    }
+
+    private static TaintConfig load(ObjectMapper mapper, File file) {
         if (file.isFile()) {
             return loadSingle(mapper, file);
         } else if (file.isDirectory()) {
@@ -110,7 +116,7 @@ record TaintConfig(List<Source> sources,
                 throw new ConfigException("Failed to load taint config from " + file, e);
             }
         } else {
-            throw new ConfigException(path + " is neither a file nor a directory");
+            throw new ConfigException(file + " is neither a file nor a directory");
         }
     }
 
@@ -125,7 +131,7 @@ record TaintConfig(List<Source> sources,
         }
     }
 
-    private static boolean isYAML(Path path) {
+    static boolean isYAML(Path path) {
         String pathStr = path.toString();
         return pathStr.endsWith(".yml") || pathStr.endsWith(".yaml");
     }
@@ -174,12 +180,15 @@ record TaintConfig(List<Source> sources,
      */
     private static class Deserializer extends JsonDeserializer<TaintConfig> {
 
-        private final SignatureMatcher matcher;
+        /**
+         * Resolves method and field patterns.
+         */
+        private final TaintConfigCache matcher;
 
         private final TypeSystem typeSystem;
 
-        private Deserializer(ClassHierarchy hierarchy, TypeSystem typeSystem) {
-            this.matcher = new SignatureMatcher(hierarchy);
+        private Deserializer(TaintConfigCache matcher, TypeSystem typeSystem) {
+            this.matcher = matcher;
             this.typeSystem = typeSystem;
         }
 
@@ -0,0 +1,277 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.frontend.cache.CachedWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassMember;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.SignatureMatcher;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves the method and field patterns in taint config, and caches
+ * the signatures of the matched members on disk.
+ * <p>
+ * The cache is enabled in world cache mode, and is keyed by the path of
+ * the config and the hash of the world, so that reloading a config for an
+ * unchanged program only resolves exact signatures instead of matching
+ * patterns against the hierarchy. As the matched members depend only on
+ * the patterns and the world, editing the config updates the same cache
+ * file, which keeps only the patterns of the latest config. At most
+ * {@link #MAX_CACHE_FILES} cache files are kept, the least recently
+ * written ones are removed.
+ */
+class TaintConfigCache {
+
+    private static final Logger logger = LogManager.getLogger(TaintConfigCache.class);
+
+    private static final String CACHE_DIR = "cache";
+
+    private static final String CACHE_FILE_PREFIX = "taint-config-";
+
+    private static final int MAX_CACHE_FILES = 16;
+
+    private final ClassHierarchy hierarchy;
+
+    private final SignatureMatcher matcher;
+
+    /**
+     * The cache file, or {@code null} if the cache is disabled.
+     */
+    @Nullable
+    private final File cacheFile;
+
+    /**
+     * Map from method pattern to the signatures of matched methods.
+     */
+    private final Map<String, List<String>> methods = Maps.newLinkedHashMap();
+
+    /**
+     * Map from field pattern to the signatures of matched fields.
+     */
+    private final Map<String, List<String>> fields = Maps.newLinkedHashMap();
+
+    /**
+     * Patterns queried since this cache was loaded.
+     */
+    private final Set<String> queried = Sets.newSet();
+
+    /**
+     * Whether this cache has been changed since it was loaded.
+     */
+    private boolean isDirty = false;
+
+    private TaintConfigCache(ClassHierarchy hierarchy, @Nullable File cacheFile) {
+        this.hierarchy = hierarchy;
+        this.matcher = new SignatureMatcher(hierarchy);
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache for the taint config in given path.
+     */
+    static TaintConfigCache load(File path, ClassHierarchy hierarchy) {
+        Options options = World.get().getOptions();
+        if (!options.isWorldCacheMode()) {
+            return new TaintConfigCache(hierarchy, null);
+        }
+        File cacheFile = new File(CACHE_DIR, CACHE_FILE_PREFIX + hashPath(path) + "-"
+                + CachedWorldBuilder.getWorldCacheHash(options) + ".bin");
+        TaintConfigCache cache = new TaintConfigCache(hierarchy, cacheFile);
+        if (cacheFile.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(cacheFile)))) {
+                readEntries(in, cache.methods);
+                readEntries(in, cache.fields);
+                logger.info("Loaded taint config cache from {}", cacheFile);
+            } catch (IOException e) {
+                logger.warn("Failed to load taint config cache from {}", cacheFile, e);
+                cache.methods.clear();
+                cache.fields.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return the methods that match given pattern.
+     */
+    Set<JMethod> getMethods(String pattern) {
+        return get(pattern, methods, hierarchy::getMethod, matcher::getMethods);
+    }
+
+    /**
+     * @return the fields that match given pattern.
+     */
+    Set<JField> getFields(String pattern) {
+        return get(pattern, fields, hierarchy::getField, matcher::getFields);
+    }
+
+    private <M extends ClassMember> Set<M> get(
+            String pattern, Map<String, List<String>> entries,
+            Function<String, M> resolver, Function<String, Set<M>> matcher) {
+        queried.add(pattern);
+        List<String> signatures = entries.get(pattern);
+        if (signatures != null) {
+            Set<M> result = new LinkedHashSet<>();
+            for (String signature : signatures) {
+                M member = resolver.apply(signature);
+                if (member == null) { // stale entry, match the pattern again
+                    result = null;
+                    break;
+                }
+                result.add(member);
+            }
+            if (result != null) {
+                return result;
+            }
+        }
+        Set<M> result = matcher.apply(pattern);
+        entries.put(pattern, result.stream()
+                .map(ClassMember::getSignature)
+                .toList());
+        isDirty = true;
+        return result;
+    }
+
+    /**
+     * Saves this cache to disk if it has been changed. The patterns which
+     * are no longer in the config are dropped.
+     */
+    void save() {
+        if (cacheFile == null) {
+            return;
+        }
+        isDirty |= methods.keySet().retainAll(queried);
+        isDirty |= fields.keySet().retainAll(queried);
+        if (!isDirty) {
+            return;
+        }
+        File cacheDir = cacheFile.getParentFile();
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+            writeEntries(out, methods);
+            writeEntries(out, fields);
+            isDirty = false;
+            logger.info("Saved taint config cache to {}", cacheFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save taint config cache to {}", cacheFile, e);
+        }
+        prune(cacheDir);
+    }
+
+    /**
+     * Removes the least recently written cache files,
+     * so that at most {@link #MAX_CACHE_FILES} files are kept.
+     */
+    private static void prune(File cacheDir) {
+        File[] files = cacheDir.listFiles((dir, name) ->
+                name.startsWith(CACHE_FILE_PREFIX) && name.endsWith(".bin"));
+        if (files == null || files.length <= MAX_CACHE_FILES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAX_CACHE_FILES; i < files.length; ++i) {
+            if (files[i].delete()) {
+                logger.info("Removed stale taint config cache {}", files[i]);
+            }
+        }
+    }
+
+    private static void readEntries(DataInputStream in, Map<String, List<String>> entries)
+            throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; ++i) {
+            String pattern = in.readUTF();
+            String[] signatures = new String[in.readInt()];
+            for (int j = 0; j < signatures.length; ++j) {
+                signatures[j] = in.readUTF();
+            }
+            entries.put(pattern, List.of(signatures));
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, Map<String, List<String>> entries)
+            throws IOException {
+        out.writeInt(entries.size());
+        for (var entry : entries.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String signature : entry.getValue()) {
+                out.writeUTF(signature);
+            }
+        }
+    }
+
+    /**
+     * @return the hash of the canonical path of the config.
+     */
+    private static String hashPath(File path) {
+        String canonicalPath;
+        try {
+            canonicalPath = path.getCanonicalPath();
+        } catch (IOException e) {
+            canonicalPath = path.getAbsolutePath();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(
+                    canonicalPath.getBytes(StandardCharsets.UTF_8)), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            // every implementation of the Java platform supports SHA-256
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
+
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Differences between two taint configs, used to incrementally
+ * update taint analysis results when the config is reloaded
+ * in interactive mode.
+ */
+record TaintConfigDiff(Set<Source> addedSources,
+                       Set<Source> removedSources,
+                       Set<TaintTransfer> addedTransfers,
+                       Set<TaintTransfer> removedTransfers,
+                       Set<ParamSanitizer> addedSanitizers,
+                       Set<ParamSanitizer> removedSanitizers,
+                       boolean sinksChanged,
+                       boolean callSiteModeChanged) {
+
+    /**
+     * @return the differences from {@code oldConfig} to {@code newConfig}.
+     */
+    static TaintConfigDiff of(TaintConfig oldConfig, TaintConfig newConfig) {
+        return new TaintConfigDiff(
+                minus(newConfig.sources(), oldConfig.sources()),
+                minus(oldConfig.sources(), newConfig.sources()),
+                minus(newConfig.transfers(), oldConfig.transfers()),
+                minus(oldConfig.transfers(), newConfig.transfers()),
+                minus(newConfig.paramSanitizers(), oldConfig.paramSanitizers()),
+                minus(oldConfig.paramSanitizers(), newConfig.paramSanitizers()),
+                !Sets.newSet(oldConfig.sinks()).equals(Sets.newSet(newConfig.sinks())),
+                oldConfig.callSiteMode() != newConfig.callSiteMode());
+    }
+
+    private static <E> Set<E> minus(Collection<E> c1, Collection<E> c2) {
+        Set<E> result = Sets.newSet(c1);
+        result.removeAll(Sets.newSet(c2));
+        return result.isEmpty() ? Set.of() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * @return {@code true} if the differences may change the points-to
+     * sets of the pointer analysis, i.e., anything other than sinks changed.
+     */
+    boolean affectsPointsTo() {
+        return !addedSources.isEmpty() || !removedSources.isEmpty()
+                || !addedTransfers.isEmpty() || !removedTransfers.isEmpty()
+                || !addedSanitizers.isEmpty() || !removedSanitizers.isEmpty()
+                || callSiteModeChanged;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TaintConfigDiff{sources: +%d/-%d, transfers: +%d/-%d," +
+                        " sanitizers: +%d/-%d, sinks changed: %b, call-site mode changed: %b}",
+                addedSources.size(), removedSources.size(),
+                addedTransfers.size(), removedTransfers.size(),
+                addedSanitizers.size(), removedSanitizers.size(),
+                sinksChanged, callSiteModeChanged);
+    }
+}
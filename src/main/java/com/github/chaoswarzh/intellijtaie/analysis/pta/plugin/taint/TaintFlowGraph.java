@@ -30,14 +30,20 @@ import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 import com.github.chaoswarzh.intellijtaie.util.collection.Views;
 import com.github.chaoswarzh.intellijtaie.util.graph.Graph;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 class TaintFlowGraph implements Graph<Node> {
 
-    private final Map<Node, SourcePoint> sourceNode2SourcePoint;
+    private final MultiMap<Node, SourcePoint> sourceNode2SourcePoint;
 
-    private final Map<Node, SinkPoint> sinkNode2SinkPoint;
+    private final MultiMap<Node, SinkPoint> sinkNode2SinkPoint;
 
     private final Set<Node> nodes = Sets.newHybridSet();
 
@@ -45,19 +51,19 @@ class TaintFlowGraph implements Graph<Node> {
 
     private final MultiMap<Node, FlowEdge> outEdges = Maps.newMultiMap();
 
-    TaintFlowGraph(Map<Node, SourcePoint> sourceNode2SourcePoint,
-                   Map<Node, SinkPoint> sinkNode2SinkPoint) {
+    TaintFlowGraph(MultiMap<Node, SourcePoint> sourceNode2SourcePoint,
+                   MultiMap<Node, SinkPoint> sinkNode2SinkPoint) {
         this.sourceNode2SourcePoint = sourceNode2SourcePoint;
         this.sinkNode2SinkPoint = sinkNode2SinkPoint;
         nodes.addAll(getSourceNodes());
         nodes.addAll(getSinkNodes());
     }
 
-    Map<Node, SourcePoint> getSourceNode2SourcePoint() {
+    MultiMap<Node, SourcePoint> getSourceNode2SourcePoint() {
         return sourceNode2SourcePoint;
     }
 
-    Map<Node, SinkPoint> getSinkNode2SinkPoint() {
+    MultiMap<Node, SinkPoint> getSinkNode2SinkPoint() {
         return sinkNode2SinkPoint;
     }
 
@@ -76,6 +82,48 @@ class TaintFlowGraph implements Graph<Node> {
         outEdges.put(edge.source(), edge);
     }
 
+    /**
+     * Finds a shortest path on this graph that witnesses {@code taintFlow}.
+     * Paths are computed on demand, so that callers can stream over
+     * the taint flows without keeping all paths in memory.
+     *
+     * @return edges from a source node of the source point of
+     * {@code taintFlow} to a sink node of its sink point (empty if
+     * such a node is both the source and the sink),
+     * or {@code null} if no such path exists.
+     */
+    @Nullable
+    List<FlowEdge> getWitnessPath(TaintFlow taintFlow) {
+        Map<Node, FlowEdge> parents = Maps.newMap();
+        Set<Node> visited = Sets.newSet();
+        Deque<Node> workList = new ArrayDeque<>();
+        sourceNode2SourcePoint.forEach((node, sourcePoint) -> {
+            if (sourcePoint.equals(taintFlow.sourcePoint())) {
+                visited.add(node);
+                workList.add(node);
+            }
+        });
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (sinkNode2SinkPoint.contains(node, taintFlow.sinkPoint())) {
+                List<FlowEdge> path = new ArrayList<>();
+                for (FlowEdge edge = parents.get(node); edge != null;
+                     edge = parents.get(edge.source())) {
+                    path.add(edge);
+                }
+                Collections.reverse(path);
+                return path;
+            }
+            for (FlowEdge edge : getOutEdgesOf(node)) {
+                if (visited.add(edge.target())) {
+                    parents.put(edge.target(), edge);
+                    workList.add(edge.target());
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public Set<Node> getPredsOf(Node node) {
         return Views.toMappedSet(getInEdgesOf(node), FlowEdge::source);
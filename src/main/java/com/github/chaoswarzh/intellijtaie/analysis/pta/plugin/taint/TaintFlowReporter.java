@@ -0,0 +1,318 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.FlowEdge;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.Node;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.VarNode;
+import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes taint flows in a machine-readable format.
+ * Each flow is written together with its shortest witness path on the
+ * taint flow graph as soon as it is reported. The paths are computed
+ * per flow and are not retained, so that the memory used by the reporter
+ * does not grow with the lengths of the paths. Note that the flows
+ * themselves are not streamed: they are collected before reporting,
+ * as the taint flow graph is built from all flows.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *     <li>{@code sarif}: a SARIF 2.1.0 log with one result per flow,
+ *     and the witness path as the code flow of the result.</li>
+ *     <li>{@code ndjson}: one JSON object per line for each flow.</li>
+ * </ul>
+ */
+class TaintFlowReporter implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(TaintFlowReporter.class);
+
+    private static final String SARIF_SCHEMA =
+            "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private static final String RULE_ID = "taint-flow";
+
+    private final boolean isSarif;
+
+    private final TaintFlowGraph tfg;
+
+    private final JsonGenerator gen;
+
+    /**
+     * @param format the format of the report, i.e., sarif or ndjson
+     * @param tfg    the taint flow graph for extracting witness paths
+     * @param output the output file
+     */
+    TaintFlowReporter(String format, TaintFlowGraph tfg, File output) {
+        isSarif = switch (format) {
+            case "sarif" -> true;
+            case "ndjson" -> false;
+            default -> throw new ConfigException(
+                    "Unknown taint report format: " + format);
+        };
+        this.tfg = tfg;
+        logger.info("Dumping {}", output.getAbsolutePath());
+        try {
+            gen = new JsonFactory().createGenerator(output, JsonEncoding.UTF8);
+            if (isSarif) {
+                gen.useDefaultPrettyPrinter();
+                startSarif();
+            } else {
+                gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes {@code taintFlow} and its witness path.
+     */
+    void report(TaintFlow taintFlow) {
+        List<Step> steps = getSteps(taintFlow);
+        try {
+            if (isSarif) {
+                writeSarifResult(taintFlow, steps);
+            } else {
+                writeJsonLine(taintFlow, steps);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (isSarif) {
+                endSarif();
+            }
+            gen.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A location on the witness path of a taint flow.
+     *
+     * @param kind    kind of the step, e.g., source, sink, or the kind of
+     *                the flow edge that reaches this step
+     * @param method  the method containing this step, or {@code null}
+     *                if the step is not in a method (e.g., a field)
+     * @param line    line number of this step, or -1 if unavailable
+     * @param message description of this step
+     */
+    private record Step(String kind, @Nullable JMethod method,
+                        int line, String message) {
+    }
+
+    private List<Step> getSteps(TaintFlow taintFlow) {
+        List<Step> steps = new ArrayList<>();
+        steps.add(getSourceStep(taintFlow.sourcePoint()));
+        List<FlowEdge> path = tfg.getWitnessPath(taintFlow);
+        if (path != null) {
+            for (FlowEdge edge : path) {
+                steps.add(getNodeStep(edge.info(), edge.target()));
+            }
+        }
+        SinkPoint sinkPoint = taintFlow.sinkPoint();
+        steps.add(new Step("sink", sinkPoint.sinkCall().getContainer(),
+                sinkPoint.sinkCall().getLineNumber(), sinkPoint.toString()));
+        return steps;
+    }
+
+    private static Step getSourceStep(SourcePoint p) {
+        int line = -1;
+        if (p instanceof CallSourcePoint csp) {
+            line = csp.sourceCall().getLineNumber();
+        } else if (p instanceof FieldSourcePoint fsp) {
+            line = fsp.loadField().getLineNumber();
+        }
+        return new Step("source", p.getContainer(), line, p.toString());
+    }
+
+    private static Step getNodeStep(String kind, Node node) {
+        if (node instanceof VarNode varNode) {
+            Var var = varNode.getVar();
+            JMethod method = var.getMethod();
+            // use the first definition of the variable as its location
+            int line = method.getIR()
+                    .stmts()
+                    .filter(s -> s.getDef().filter(var::equals).isPresent())
+                    .mapToInt(Stmt::getLineNumber)
+                    .findFirst()
+                    .orElse(-1);
+            return new Step(kind, method, line, node.toString());
+        }
+        return new Step(kind, null, -1, node.toString());
+    }
+
+    private void writeJsonLine(TaintFlow taintFlow, List<Step> steps)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("source", taintFlow.sourcePoint().toString());
+        gen.writeStringField("sink", taintFlow.sinkPoint().toString());
+        gen.writeArrayFieldStart("path");
+        for (Step step : steps) {
+            gen.writeStartObject();
+            gen.writeStringField("kind", step.kind());
+            if (step.method() != null) {
+                gen.writeStringField("method", step.method().getSignature());
+            }
+            if (step.line() >= 0) {
+                gen.writeNumberField("line", step.line());
+            }
+            gen.writeStringField("message", step.message());
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    private void startSarif() throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("$schema", SARIF_SCHEMA);
+        gen.writeStringField("version", "2.1.0");
+        gen.writeArrayFieldStart("runs");
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("tool");
+        gen.writeObjectFieldStart("driver");
+        gen.writeStringField("name", "Tai-e");
+        gen.writeArrayFieldStart("rules");
+        gen.writeStartObject();
+        gen.writeStringField("id", RULE_ID);
+        writeMessage("shortDescription", "Taint flow from source to sink");
+        gen.writeEndObject();
+        gen.writeEndArray(); // rules
+        gen.writeEndObject(); // driver
+        gen.writeEndObject(); // tool
+        gen.writeArrayFieldStart("results");
+    }
+
+    private void endSarif() throws IOException {
+        gen.writeEndArray(); // results
+        gen.writeEndObject(); // run
+        gen.writeEndArray(); // runs
+        gen.writeEndObject();
+    }
+
+    private void writeSarifResult(TaintFlow taintFlow, List<Step> steps)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("ruleId", RULE_ID);
+        gen.writeStringField("level", "error");
+        writeMessage("message", taintFlow.toString());
+        gen.writeArrayFieldStart("locations");
+        writeSarifLocation(steps.get(steps.size() - 1));
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("codeFlows");
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("threadFlows");
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("locations");
+        for (Step step : steps) {
+            gen.writeStartObject();
+            gen.writeFieldName("location");
+            writeSarifLocation(step);
+            gen.writeArrayFieldStart("kinds");
+            gen.writeString(step.kind());
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray(); // locations
+        gen.writeEndObject(); // threadFlow
+        gen.writeEndArray(); // threadFlows
+        gen.writeEndObject(); // codeFlow
+        gen.writeEndArray(); // codeFlows
+        gen.writeEndObject();
+        gen.flush();
+    }
+
+    private void writeSarifLocation(Step step) throws IOException {
+        gen.writeStartObject();
+        JMethod method = step.method();
+        if (method != null) {
+            gen.writeObjectFieldStart("physicalLocation");
+            gen.writeObjectFieldStart("artifactLocation");
+            gen.writeStringField("uri", getSourceFile(method.getDeclaringClass()));
+            gen.writeEndObject();
+            if (step.line() >= 0) {
+                gen.writeObjectFieldStart("region");
+                gen.writeNumberField("startLine", step.line());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject(); // physicalLocation
+            gen.writeArrayFieldStart("logicalLocations");
+            gen.writeStartObject();
+            gen.writeStringField("fullyQualifiedName", method.getSignature());
+            gen.writeStringField("kind", "function");
+            gen.writeEndObject();
+            gen.writeEndArray();
+        }
+        writeMessage("message", step.message());
+        gen.writeEndObject();
+    }
+
+    private void writeMessage(String fieldName, String text) throws IOException {
+        gen.writeObjectFieldStart(fieldName);
+        gen.writeStringField("text", text);
+        gen.writeEndObject();
+    }
+
+    /**
+     * @return the relative path of the source file declaring {@code jclass},
+     * derived from the name of its outermost class.
+     */
+    private static String getSourceFile(JClass jclass) {
+        while (jclass.getOuterClass() != null) {
+            jclass = jclass.getOuterClass();
+        }
+        String name = jclass.getName();
+        int dollar = name.indexOf('$');
+        if (dollar > 0) {
+            name = name.substring(0, dollar);
+        }
+        return name.replace('.', '/') + ".java";
+    }
+}
@@ -80,6 +80,14 @@ class TaintManager {
         throw new AnalysisException(obj + " is not a taint object");
     }
 
+    /**
+     * Removes the taint objects generated at given source points
+     * from this manager.
+     */
+    void removeTaintObjs(Set<SourcePoint> sourcePoints) {
+        taintObjs.removeIf(taint -> sourcePoints.contains(getSourcePoint(taint)));
+    }
+
     /**
      * @return all taint objects generated via this manager.
      */
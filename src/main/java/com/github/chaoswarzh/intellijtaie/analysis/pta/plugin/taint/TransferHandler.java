@@ -31,6 +31,8 @@ import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSCallSit
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSMethod;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSObj;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSVar;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.PointerFlowEdge;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.Solver;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.solver.Transfer;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.util.InvokeUtils;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.pts.PointsToSet;
@@ -211,18 +213,32 @@ class TransferHandler extends OnFlyHandler {
     }
 
     private Transfer getTransferFunction(Type toType) {
-        return transferFunctions.computeIfAbsent(toType,
-                type -> ((edge, input) -> {
-                    PointsToSet newTaints = solver.makePointsToSet();
-                    input.objects()
-                            .map(CSObj::getObject)
-                            .filter(manager::isTaint)
-                            .map(manager::getSourcePoint)
-                            .map(source -> manager.makeTaint(source, type))
-                            .map(taint -> csManager.getCSObj(emptyContext, taint))
-                            .forEach(newTaints::addObject);
-                    return newTaints;
-                }));
+        return transferFunctions.computeIfAbsent(toType, type ->
+                new TransferFunction(type, solver, manager, emptyContext));
+    }
+
+    /**
+     * Transfer function which converts taint objects to the given type.
+     * As a record, the functions for the same type are equal, so that
+     * adding them again to an existing {@link TaintTransferEdge}
+     * (e.g., when taint config is reloaded) has no effect.
+     */
+    private record TransferFunction(Type type, Solver solver,
+                                    TaintManager manager, Context emptyContext)
+            implements Transfer {
+
+        @Override
+        public PointsToSet apply(PointerFlowEdge edge, PointsToSet input) {
+            PointsToSet newTaints = solver.makePointsToSet();
+            input.objects()
+                    .map(CSObj::getObject)
+                    .filter(manager::isTaint)
+                    .map(manager::getSourcePoint)
+                    .map(source -> manager.makeTaint(source, type))
+                    .map(taint -> solver.getCSManager().getCSObj(emptyContext, taint))
+                    .forEach(newTaints::addObject);
+            return newTaints;
+        }
     }
 
     private void backPropagateTaint(Var to, Context ctx) {
@@ -23,12 +23,16 @@
 package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.mahjong;
 
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.collection.Pair;
 import com.github.chaoswarzh.intellijtaie.util.collection.UnionFindSet;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -70,6 +74,107 @@ class DFAEquivChecker {
         return validate(dfa, mergedStateSets);
     }
 
+    /**
+     * Computes a fingerprint of the language of given automaton, such that
+     * equivalent automata (in the sense of {@link #isEquivalent(DFA, DFA)})
+     * have the same fingerprint. Automata with the same fingerprint are
+     * very likely, but not necessarily, equivalent.
+     * <p>
+     * The fingerprint is obtained by iteratively hashing each state with
+     * its output and the hashes of its successors. The number of rounds
+     * is the number of states of the minimal automaton, which is computed
+     * by partition refinement, so that equivalent automata of different
+     * sizes take the same number of rounds, and the hash of the start
+     * state reflects the whole minimal automaton.
+     */
+    long fingerprint(DFA dfa) {
+        List<DFAState> states = new ArrayList<>(dfa.getAllStates());
+        int n = states.size();
+        Map<DFAState, Integer> ids = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            ids.put(states.get(i), i);
+        }
+        int[][] succs = new int[n][];
+        Field[][] fields = new Field[n][];
+        for (int i = 0; i < n; ++i) {
+            // transitions to the states without output (i.e., without
+            // objects) are equivalent to missing transitions, which lead
+            // to the dead state, thus they are ignored
+            List<Map.Entry<Field, DFAState>> transitions = states.get(i)
+                    .getNextMap()
+                    .entrySet()
+                    .stream()
+                    .filter(e -> !dfa.outputOf(e.getValue()).isEmpty())
+                    .toList();
+            succs[i] = new int[transitions.size()];
+            fields[i] = new Field[transitions.size()];
+            int k = 0;
+            for (var e : transitions) {
+                fields[i][k] = e.getKey();
+                succs[i][k] = ids.get(e.getValue());
+                ++k;
+            }
+        }
+        int rounds = countMinimalStates(dfa, states, fields, succs);
+        long[] hashes = new long[n];
+        for (int i = 0; i < n; ++i) {
+            hashes[i] = dfa.outputOf(states.get(i)).hashCode();
+        }
+        long[] next = new long[n];
+        for (int r = 0; r < rounds; ++r) {
+            for (int i = 0; i < n; ++i) {
+                long sum = 0; // order-insensitive combination of successors
+                for (int k = 0; k < succs[i].length; ++k) {
+                    sum += mix(fields[i][k].hashCode(), hashes[succs[i][k]]);
+                }
+                next[i] = mix(hashes[i], sum);
+            }
+            long[] tmp = hashes;
+            hashes = next;
+            next = tmp;
+        }
+        return hashes[ids.get(dfa.getStartState())];
+    }
+
+    /**
+     * Computes the number of states of the minimal automaton
+     * by Moore's partition refinement.
+     */
+    private static int countMinimalStates(
+            DFA dfa, List<DFAState> states, Field[][] fields, int[][] succs) {
+        int n = states.size();
+        int[] blocks = new int[n];
+        Map<Object, Integer> blockIds = Maps.newMap();
+        for (int i = 0; i < n; ++i) {
+            Set<Type> output = dfa.outputOf(states.get(i));
+            blocks[i] = blockIds.computeIfAbsent(output, __ -> blockIds.size());
+        }
+        int nBlocks = blockIds.size();
+        while (true) {
+            // split the blocks by the blocks of the successors
+            blockIds.clear();
+            int[] newBlocks = new int[n];
+            for (int i = 0; i < n; ++i) {
+                Map<Field, Integer> signature = Maps.newHybridMap();
+                for (int k = 0; k < succs[i].length; ++k) {
+                    signature.put(fields[i][k], blocks[succs[i][k]]);
+                }
+                newBlocks[i] = blockIds.computeIfAbsent(
+                        new Pair<>(blocks[i], signature), __ -> blockIds.size());
+            }
+            blocks = newBlocks;
+            if (blockIds.size() == nBlocks) {
+                return nBlocks;
+            }
+            nBlocks = blockIds.size();
+        }
+    }
+
+    private static long mix(long h, long x) {
+        h = h * 0x9E3779B97F4A7C15L + x;
+        return h ^ (h >>> 29);
+    }
+
     /**
      * @return {@code true} if every state set contains no different output
      * (i.e., types)
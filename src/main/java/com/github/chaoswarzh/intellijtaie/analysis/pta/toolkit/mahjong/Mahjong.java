@@ -25,13 +25,19 @@ package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.mahjong;
 import org.apache.logging.log4j.Level;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.HeapModel;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.NewObj;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
 import com.github.chaoswarzh.intellijtaie.config.AnalysisOptions;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.Timer;
+import com.github.chaoswarzh.intellijtaie.util.collection.CollectionUtils;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.collection.UnionFindSet;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -50,11 +56,27 @@ public class Mahjong {
 
     public static HeapModel run(PointerAnalysisResult pta,
                                 AnalysisOptions options) {
-        return new Mahjong().buildHeapModel(pta, options);
+        return makeHeapModel(options, merge(pta));
     }
 
-    HeapModel buildHeapModel(PointerAnalysisResult pta,
-                             AnalysisOptions options) {
+    /**
+     * @return groups of allocation sites whose objects can be merged.
+     * Each group contains at least two allocation sites.
+     */
+    public static List<List<New>> merge(PointerAnalysisResult pta) {
+        return new Mahjong().computeMergeGroups(pta);
+    }
+
+    /**
+     * @return the heap model which merges the objects allocated at
+     * each group of {@code allocGroups}.
+     */
+    public static HeapModel makeHeapModel(
+            AnalysisOptions options, Collection<? extends Collection<New>> allocGroups) {
+        return new MahjongHeapModel(options, allocGroups);
+    }
+
+    private List<List<New>> computeMergeGroups(PointerAnalysisResult pta) {
         FieldPointsToGraph fpg = Timer.runAndCount(
                 () -> new FieldPointsToGraph(pta),
                 "Building field points-to graph", Level.INFO);
@@ -63,8 +85,20 @@ public class Mahjong {
         UnionFindSet<Obj> uf = Timer.runAndCount(
                 () -> mergeTypeConsistentObjects(fpg),
                 "Merging type-consistent objects", Level.INFO);
-        // build resulting heap model based on merge map
-        return new MahjongHeapModel(options, uf.getDisjointSets());
+        // currently, perform merging for only NewObj
+        List<List<New>> allocGroups = new ArrayList<>();
+        for (Set<Obj> objs : uf.getDisjointSets()) {
+            List<New> allocSites = new ArrayList<>();
+            for (Obj obj : objs) {
+                if (obj instanceof NewObj newObj) {
+                    allocSites.add(newObj.getAllocation());
+                }
+            }
+            if (allocSites.size() > 1) {
+                allocGroups.add(allocSites);
+            }
+        }
+        return allocGroups;
     }
 
     private UnionFindSet<Obj> mergeTypeConsistentObjects(FieldPointsToGraph fpg) {
@@ -81,16 +115,28 @@ public class Mahjong {
                 .forEach(entry -> {
                     Set<Obj> objs = entry.getValue();
                     DFAMap dfaMap = new DFAMap();
-                    for (Obj o1 : objs) {
-                        if (canBeMerged(o1, dfaMap)) {
-                            for (Obj o2 : objs) {
-                                if (canBeMerged(o2, dfaMap)) {
-                                    if (o1.getIndex() < o2.getIndex()
-                                            && !uf.isConnected(o1, o2)
-                                            && canBeMerged(o1, o2, dfaMap)) {
-                                        uf.union(o1, o2);
-                                    }
-                                }
+                    // bucket the objects by the fingerprints of their DFAs,
+                    // as only the objects in the same bucket can be equivalent
+                    Map<Long, List<Obj>> buckets = Maps.newMap();
+                    for (Obj o : objs) {
+                        if (canBeMerged(o, dfaMap)) {
+                            long fingerprint = dfaEqChecker.fingerprint(dfaMap.getDFA(o));
+                            buckets.computeIfAbsent(fingerprint, __ -> new ArrayList<>())
+                                    .add(o);
+                        }
+                    }
+                    for (List<Obj> bucket : buckets.values()) {
+                        // an object is checked against one representative of
+                        // each equivalence class in the bucket, and there is
+                        // more than one class only on fingerprint collisions
+                        List<Obj> representatives = new ArrayList<>();
+                        for (Obj o : bucket) {
+                            Obj rep = CollectionUtils.findFirst(representatives,
+                                    r -> canBeMerged(r, o, dfaMap));
+                            if (rep != null) {
+                                uf.union(rep, o);
+                            } else {
+                                representatives.add(o);
                             }
                         }
                     }
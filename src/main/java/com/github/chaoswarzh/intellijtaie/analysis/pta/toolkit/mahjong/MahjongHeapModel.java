@@ -24,7 +24,6 @@ package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.mahjong;
 
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.AbstractHeapModel;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.MergedObj;
-import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.NewObj;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
 import com.github.chaoswarzh.intellijtaie.config.AnalysisOptions;
 import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
@@ -35,32 +34,34 @@ import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 class MahjongHeapModel extends AbstractHeapModel {
 
     // currently, perform merging for only NewObj
     private final Map<New, MergedObj> mergeMap;
 
-    MahjongHeapModel(AnalysisOptions options, Collection<Set<Obj>> objGroups) {
+    /**
+     * @param allocGroups groups of allocation sites whose objects are merged.
+     */
+    MahjongHeapModel(AnalysisOptions options,
+                     Collection<? extends Collection<New>> allocGroups) {
         super(options);
-        mergeMap = buildMergeMap(objGroups);
+        mergeMap = buildMergeMap(allocGroups);
     }
 
-    private Map<New, MergedObj> buildMergeMap(Collection<Set<Obj>> objGroups) {
+    private Map<New, MergedObj> buildMergeMap(
+            Collection<? extends Collection<New>> allocGroups) {
         Map<New, MergedObj> mergeMap = Maps.newMap();
-        objGroups.stream()
-                .filter(objs -> objs.size() > 1)
-                .forEach(objs -> {
-                    Type type = CollectionUtils.getOne(objs).getType();
+        allocGroups.stream()
+                .filter(allocSites -> allocSites.size() > 1)
+                .forEach(allocSites -> {
+                    Type type = CollectionUtils.getOne(allocSites)
+                            .getRValue().getType();
                     MergedObj mergedObj = add(new MergedObj(type,
                             "<Mahjong-merged " + type + ">"));
-                    objs.forEach(obj -> {
-                        if (obj instanceof NewObj newObj) {
-                            New allocSite = newObj.getAllocation();
-                            mergeMap.put(allocSite, mergedObj);
-                            mergedObj.addRepresentedObj(getNewObj(allocSite));
-                        }
+                    allocSites.forEach(allocSite -> {
+                        mergeMap.put(allocSite, mergedObj);
+                        mergedObj.addRepresentedObj(getNewObj(allocSite));
                     });
                 });
         return mergeMap;
@@ -37,10 +37,12 @@ import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.graph.Graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Given a TST (Total Scalability Threshold), select the ST (Scalability Threshold),
@@ -67,12 +69,6 @@ public class Scaler {
 
     private final List<ContextComputer> ctxComputers;
 
-    /**
-     * Map from a method to total size of points-to sets of all (concerned)
-     * variables in the method.
-     */
-    private final Map<JMethod, Integer> ptsSize = Maps.newMap();
-
     /**
      * Parses Scaler argument and runs Scaler.
      */
@@ -110,91 +106,22 @@ public class Scaler {
      */
     public Map<JMethod, String> selectContext() {
         logger.info("Scaler TST: {}", tst);
-        Set<JMethod> instanceMethods = pta.getBase()
+        List<JMethod> instanceMethods = pta.getBase()
                 .getCallGraph()
                 .reachableMethods()
                 .filter(m -> !m.isStatic())
-                .collect(Collectors.toUnmodifiableSet());
-        long st = binarySearch(instanceMethods, tst);
-        Map<JMethod, String> csMap = instanceMethods.stream()
-                .collect(Collectors.toMap(m -> m, m -> selectVariantFor(m, st)));
+                .distinct()
+                .toList();
+        WeightTable table = new WeightTable(instanceMethods);
+        long st = table.binarySearch(tst);
+        Map<JMethod, String> csMap = Maps.newMap(instanceMethods.size());
+        for (int i = 0; i < instanceMethods.size(); ++i) {
+            csMap.put(instanceMethods.get(i), table.selectVariantFor(i, st));
+        }
         logCSMap(csMap);
         return csMap;
     }
 
-    /**
-     * Search the suitable st such that the accumulative size of
-     * context-sensitive points to sets of given methods is less than given tst.
-     *
-     * @return the st for every method
-     */
-    private long binarySearch(Set<JMethod> methods, long tst) {
-        // Select the max value and make it as end
-        @SuppressWarnings("OptionalGetWithoutIsPresent")
-        long end = methods.stream()
-                .mapToLong(m -> getWeight(m, ctxComputers.get(0)))
-                .max()
-                .getAsLong();
-        long start = 0;
-        long mid, ret = 0;
-        while (start <= end) {
-            mid = (start + end) / 2;
-            long totalSize = getTotalAccumulativePTS(methods, mid);
-            if (totalSize < tst) {
-                ret = mid;
-                start = mid + 1;
-            } else if (totalSize > tst) {
-                end = mid - 1;
-            } else {
-                ret = mid;
-                break;
-            }
-        }
-        return ret;
-    }
-
-    /**
-     * Given a set of methods and a st (scalability threshold),
-     * computes the total size of all (concerned) variables in the program.
-     */
-    private long getTotalAccumulativePTS(Set<JMethod> methods, long st) {
-        long total = 0;
-        for (JMethod method : methods) {
-            if (!isSpecialMethod(method)) {
-                // special methods are excluded from this computation
-                ContextComputer cc = selectContextComputer(method, st);
-                total += getWeight(method, cc);
-            }
-        }
-        return total;
-    }
-
-    /**
-     * Selects a suitable context computer for given method and st.
-     * If there are any ContextComputers which can satisfy that the weight
-     * of given method can be less than or equal to given st, then the
-     * most expensive (and precise) ContextComputer is returned;
-     * otherwise, bottom line is returned.
-     *
-     * @return the selected context computer for method according to tst
-     */
-    private ContextComputer selectContextComputer(JMethod method, long st) {
-        ContextComputer ctxComp;
-        if (isSpecialMethod(method)) {
-            // special methods will be analyzed with the most precise variant
-            ctxComp = ctxComputers.get(0);
-        } else {
-            ctxComp = bottomLine;
-            for (ContextComputer cc : ctxComputers) {
-                if (getWeight(method, cc) <= st) {
-                    ctxComp = cc;
-                    break;
-                }
-            }
-        }
-        return ctxComp;
-    }
-
     /**
      * @return the special methods that should be analyzed with
      * the most precise context sensitivity variant.
@@ -205,30 +132,17 @@ public class Scaler {
                 .startsWith("java.util.");
     }
 
-    /**
-     * @return the weight of given method when analyzed using the
-     * context sensitivity variant that corresponds to given ContextComputer.
-     */
-    private long getWeight(JMethod method, ContextComputer cc) {
-        return ((long) cc.contextNumberOf(method))
-                * ((long) getCIPTSSizeOf(method));
-    }
-
     /**
      * @return total size of points-to sets of all (concerned) variables
      * in given method when analyzed using context insensitivity.
      */
     private int getCIPTSSizeOf(JMethod method) {
-        if (!ptsSize.containsKey(method)) {
-            int size = method.getIR()
-                    .getVars()
-                    .stream()
-                    .filter(Scaler::isConcerned)
-                    .mapToInt(v -> pta.getBase().getPointsToSet(v).size())
-                    .sum();
-            ptsSize.put(method, size);
-        }
-        return ptsSize.get(method);
+        return method.getIR()
+                .getVars()
+                .stream()
+                .filter(Scaler::isConcerned)
+                .mapToInt(v -> pta.getBase().getPointsToSet(v).size())
+                .sum();
     }
 
     /**
@@ -239,16 +153,6 @@ public class Scaler {
         return type instanceof ReferenceType && !(type instanceof NullType);
     }
 
-    /**
-     * Given st, selects suitable context sensitivity variant for given method.
-     */
-    private String selectVariantFor(JMethod method, long st) {
-        ContextComputer ctxComp = selectContextComputer(method, st);
-        logger.debug("{}, {}, {}", method,
-                ctxComp.getVariantName(), ctxComp.contextNumberOf(method));
-        return ctxComp.getVariantName();
-    }
-
     private static void logCSMap(Map<JMethod, String> csMap) {
         if (logger.isDebugEnabled()) {
             csMap.entrySet()
@@ -265,4 +169,195 @@ public class Scaler {
                     .forEach(logger::debug);
         }
     }
+
+    /**
+     * Weights of the methods for all context sensitivity variants, which
+     * are computed once (in parallel) before searching the st.
+     * The weight of a method under a variant is the number of its contexts
+     * times the size of its context-insensitive points-to sets.
+     * <p>
+     * For each (non-special) method, the weight of the selected variant
+     * is a step function of st, thus the total weight of all methods
+     * for a given st is a prefix sum over the sorted steps of all methods.
+     */
+    private final class WeightTable {
+
+        private final List<JMethod> methods;
+
+        /**
+         * Context numbers of the methods, indexed by the variants
+         * ({@link #ctxComputers} followed by {@link #bottomLine}) and
+         * the indexes of the methods in {@link #methods}.
+         */
+        private final int[][] ctxNumbers;
+
+        /**
+         * Context-insensitive points-to set sizes of the methods.
+         */
+        private final int[] ptsSizes;
+
+        private final boolean[] isSpecial;
+
+        /**
+         * Total weight when all non-special methods select bottom line.
+         */
+        private long baseTotal;
+
+        /**
+         * Sorted st values at which the total weight changes.
+         */
+        private long[] steps;
+
+        /**
+         * {@code deltaSums[i]} is the change of the total weight
+         * from st below {@code steps[0]} to st at {@code steps[i]}.
+         */
+        private long[] deltaSums;
+
+        private WeightTable(List<JMethod> methods) {
+            this.methods = methods;
+            int n = methods.size();
+            int nVariants = ctxComputers.size() + 1;
+            ctxNumbers = new int[nVariants][n];
+            ptsSizes = new int[n];
+            isSpecial = new boolean[n];
+            IntStream.range(0, n).parallel().forEach(j -> {
+                JMethod method = methods.get(j);
+                // call computeContextNumberOf() directly, as the cache
+                // in ContextComputer is not thread-safe
+                for (int i = 0; i < nVariants; ++i) {
+                    ctxNumbers[i][j] = getVariant(i).computeContextNumberOf(method);
+                }
+                ptsSizes[j] = getCIPTSSizeOf(method);
+                isSpecial[j] = isSpecialMethod(method);
+            });
+            buildSteps();
+        }
+
+        private ContextComputer getVariant(int i) {
+            return i < ctxComputers.size() ? ctxComputers.get(i) : bottomLine;
+        }
+
+        private long getWeight(int variant, int method) {
+            return ((long) ctxNumbers[variant][method])
+                    * ((long) ptsSizes[method]);
+        }
+
+        private void buildSteps() {
+            int bottom = ctxComputers.size();
+            List<long[]> changes = new ArrayList<>(); // (st, delta) pairs
+            for (int j = 0; j < methods.size(); ++j) {
+                if (isSpecial[j]) {
+                    // special methods are excluded from this computation
+                    continue;
+                }
+                baseTotal += getWeight(bottom, j);
+                // the variant selected for st is the first one whose
+                // weight <= st, and it changes only at these weights
+                long[] weights = new long[bottom];
+                for (int i = 0; i < bottom; ++i) {
+                    weights[i] = getWeight(i, j);
+                }
+                long[] sorted = weights.clone();
+                Arrays.sort(sorted);
+                long current = getWeight(bottom, j);
+                for (long st : sorted) {
+                    long selected = getWeight(selectVariant(j, st), j);
+                    if (selected != current) {
+                        changes.add(new long[]{ st, selected - current });
+                        current = selected;
+                    }
+                }
+            }
+            changes.sort(Comparator.comparingLong(c -> c[0]));
+            steps = new long[changes.size()];
+            deltaSums = new long[changes.size()];
+            long sum = 0;
+            for (int k = 0; k < changes.size(); ++k) {
+                sum += changes.get(k)[1];
+                steps[k] = changes.get(k)[0];
+                deltaSums[k] = sum;
+            }
+        }
+
+        /**
+         * Search the suitable st such that the accumulative size of
+         * context-sensitive points to sets of the methods is less than given tst.
+         *
+         * @return the st for every method
+         */
+        private long binarySearch(long tst) {
+            // Select the max value and make it as end
+            long end = 0;
+            for (int j = 0; j < methods.size(); ++j) {
+                end = Math.max(end, getWeight(0, j));
+            }
+            long start = 0;
+            long mid, ret = 0;
+            while (start <= end) {
+                mid = (start + end) / 2;
+                long totalSize = getTotalAccumulativePTS(mid);
+                if (totalSize < tst) {
+                    ret = mid;
+                    start = mid + 1;
+                } else if (totalSize > tst) {
+                    end = mid - 1;
+                } else {
+                    ret = mid;
+                    break;
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Given a st (scalability threshold), computes the total size
+         * of all (concerned) variables in the program.
+         */
+        private long getTotalAccumulativePTS(long st) {
+            // find the last step <= st
+            int k = Arrays.binarySearch(steps, st);
+            if (k >= 0) {
+                while (k + 1 < steps.length && steps[k + 1] == st) {
+                    ++k;
+                }
+            } else {
+                k = -k - 2;
+            }
+            return k >= 0 ? baseTotal + deltaSums[k] : baseTotal;
+        }
+
+        /**
+         * Selects a suitable variant for given method and st.
+         * If there are any ContextComputers which can satisfy that the weight
+         * of given method can be less than or equal to given st, then the
+         * most expensive (and precise) ContextComputer is returned;
+         * otherwise, bottom line is returned.
+         *
+         * @return the index of the selected variant
+         */
+        private int selectVariant(int method, long st) {
+            if (isSpecial[method]) {
+                // special methods will be analyzed with the most precise variant
+                return 0;
+            }
+            for (int i = 0; i < ctxComputers.size(); ++i) {
+                if (getWeight(i, method) <= st) {
+                    return i;
+                }
+            }
+            return ctxComputers.size();
+        }
+
+        /**
+         * Given st, selects suitable context sensitivity variant for given method.
+         */
+        private String selectVariantFor(int method, long st) {
+            int variant = selectVariant(method, st);
+            ContextComputer ctxComp = getVariant(variant);
+            logger.debug("{}, {}, {}", methods.get(method),
+                    ctxComp.getVariantName(), ctxNumbers[variant][method]);
+            return ctxComp.getVariantName();
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.zipper;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of OFG node indexes, which is backed by a bit set over all
+ * nodes of the OFG and keeps the list of its members, so that it can
+ * be cleared in time proportional to its size and reused for
+ * the precision flow graphs of many types.
+ */
+final class NodeSet {
+
+    private final BitSet bits;
+
+    private int[] members = new int[64];
+
+    private int size = 0;
+
+    NodeSet(int capacity) {
+        bits = new BitSet(capacity);
+    }
+
+    /**
+     * @return {@code true} if this set did not contain {@code node}.
+     */
+    boolean add(int node) {
+        if (bits.get(node)) {
+            return false;
+        }
+        bits.set(node);
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        members[size++] = node;
+        return true;
+    }
+
+    boolean contains(int node) {
+        return bits.get(node);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the i-th member added to this set.
+     */
+    int get(int i) {
+        return members[i];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; ++i) {
+            bits.clear(members[i]);
+        }
+        size = 0;
+    }
+}
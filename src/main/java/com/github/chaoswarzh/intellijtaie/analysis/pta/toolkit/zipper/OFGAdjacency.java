@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.zipper;
+
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.FlowEdge;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.Node;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.ObjectFlowGraph;
+
+/**
+ * Adjacency of an {@link ObjectFlowGraph} in compressed sparse row form,
+ * which is built once and shared by the {@link PFGBuilder}s of all types.
+ * The nodes are represented by their indexes in the OFG, and the edges
+ * of a node are stored in a contiguous range of the arrays, i.e.,
+ * {@code [outStart(n), outStart(n + 1))} for the out edges of node n.
+ */
+final class OFGAdjacency {
+
+    private final ObjectFlowGraph ofg;
+
+    private final int[] outOffsets;
+
+    private final FlowEdge[] outEdges;
+
+    private final int[] outTargets;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    OFGAdjacency(ObjectFlowGraph ofg) {
+        this.ofg = ofg;
+        int n = ofg.getNodes().size();
+        outOffsets = new int[n + 1];
+        inOffsets = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            Node node = ofg.getObject(i);
+            outOffsets[i + 1] = outOffsets[i] + ofg.getOutDegreeOf(node);
+            inOffsets[i + 1] = inOffsets[i] + ofg.getInDegreeOf(node);
+        }
+        outEdges = new FlowEdge[outOffsets[n]];
+        outTargets = new int[outOffsets[n]];
+        inSources = new int[inOffsets[n]];
+        for (int i = 0; i < n; ++i) {
+            Node node = ofg.getObject(i);
+            int k = outOffsets[i];
+            for (FlowEdge edge : ofg.getOutEdgesOf(node)) {
+                outEdges[k] = edge;
+                outTargets[k] = edge.target().getIndex();
+                ++k;
+            }
+            k = inOffsets[i];
+            for (FlowEdge edge : ofg.getInEdgesOf(node)) {
+                inSources[k++] = edge.source().getIndex();
+            }
+        }
+    }
+
+    ObjectFlowGraph getOFG() {
+        return ofg;
+    }
+
+    int getNumberOfNodes() {
+        return outOffsets.length - 1;
+    }
+
+    int getNumberOfEdges() {
+        return outEdges.length;
+    }
+
+    Node getNode(int index) {
+        return ofg.getObject(index);
+    }
+
+    int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    FlowEdge outEdge(int k) {
+        return outEdges[k];
+    }
+
+    int outTarget(int k) {
+        return outTargets[k];
+    }
+
+    int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    int inSource(int k) {
+        return inSources[k];
+    }
+}
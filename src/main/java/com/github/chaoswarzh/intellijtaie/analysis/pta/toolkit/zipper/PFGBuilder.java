@@ -38,14 +38,12 @@ import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
 import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
-import com.github.chaoswarzh.intellijtaie.util.collection.IndexerBitSet;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
 import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
@@ -62,6 +60,8 @@ class PFGBuilder {
 
     private final ObjectFlowGraph ofg;
 
+    private final OFGAdjacency adj;
+
     private final ObjectAllocationGraph oag;
 
     private final PotentialContextElement pce;
@@ -76,22 +76,28 @@ class PFGBuilder {
      */
     private final Set<JMethod> invokeMethods;
 
+    /**
+     * PCE methods of the input type.
+     */
+    private final Set<JMethod> pceMethods;
+
     /**
      * Stores wrapped and unwrapped flow edges.
      */
     private MultiMap<Node, FlowEdge> wuEdges;
 
-    private Set<Node> visitedNodes;
+    private NodeSet visitedNodes;
 
     private Set<VarNode> inNodes;
 
     private Set<VarNode> outNodes;
 
-    PFGBuilder(PointerAnalysisResultEx pta, ObjectFlowGraph ofg,
+    PFGBuilder(PointerAnalysisResultEx pta, OFGAdjacency adj,
                ObjectAllocationGraph oag, PotentialContextElement pce,
                Type type) {
         this.pta = pta;
-        this.ofg = ofg;
+        this.ofg = adj.getOFG();
+        this.adj = adj;
         this.oag = oag;
         this.pce = pce;
         this.type = type;
@@ -100,17 +106,29 @@ class PFGBuilder {
                 .map(pta::getMethodsInvokedOn)
                 .flatMap(Set::stream)
                 .collect(Collectors.toUnmodifiableSet());
+        this.pceMethods = pce.pceMethodsOf(type);
     }
 
-    PrecisionFlowGraph build() {
+    /**
+     * Builds the precision flow graph of the input type.
+     *
+     * @param visitedNodes empty set to keep the nodes of the resulting graph.
+     * @param budget       maximum number of nodes of the resulting graph.
+     * @return the precision flow graph, or {@code null} if its number
+     * of nodes exceeds {@code budget}.
+     */
+    @Nullable
+    PrecisionFlowGraph build(NodeSet visitedNodes, int budget) {
         inNodes = obtainInNodes();
         outNodes = obtainOutNodes();
-        visitedNodes = new IndexerBitSet<>(ofg, true);
+        this.visitedNodes = visitedNodes;
         wuEdges = Maps.newMultiMap();
         for (VarNode inNode : inNodes) {
-            dfs(inNode);
+            if (!dfs(inNode, budget)) {
+                return null;
+            }
         }
-        return new PrecisionFlowGraph(type, ofg, visitedNodes, outNodes, wuEdges);
+        return new PrecisionFlowGraph(type, adj, visitedNodes, outNodes, wuEdges);
     }
 
     private Set<JMethod> obtainMethods() {
@@ -172,16 +190,23 @@ class PFGBuilder {
         return false;
     }
 
-    private void dfs(Node startNode) {
+    /**
+     * @return {@code false} if the number of visited nodes exceeds
+     * {@code budget}, otherwise {@code true}.
+     */
+    private boolean dfs(Node startNode, int budget) {
         Deque<Node> stack = new ArrayDeque<>();
         stack.push(startNode);
         while (!stack.isEmpty()) {
             Node node = stack.pop();
-            if (visitedNodes.contains(node)) {
+            int index = node.getIndex();
+            if (!visitedNodes.add(index)) {
                 continue;
             }
+            if (visitedNodes.size() > budget) {
+                return false;
+            }
             logger.trace("dfs on {}", node);
-            visitedNodes.add(node);
             // add unwrapped flow edges
             if (node instanceof VarNode varNode) {
                 Var var = varNode.getVar();
@@ -202,78 +227,77 @@ class PFGBuilder {
                     }
                 });
             }
-            List<FlowEdge> nextEdges = new ArrayList<>();
-            for (FlowEdge edge : getOutEdgesOf(node)) {
-                switch (edge.kind()) {
-                    case LOCAL_ASSIGN, CAST -> {
-                        nextEdges.add(edge);
-                    }
-                    case INSTANCE_LOAD, ARRAY_LOAD,
-                            THIS_PASSING, PARAMETER_PASSING, RETURN -> {
-                        // target node must be a VarNode
-                        VarNode toNode = (VarNode) edge.target();
-                        Var toVar = toNode.getVar();
-                        // Optimization: filter out some potential spurious flows due to
-                        // the imprecision of context-insensitive pre-analysis, which
-                        // helps improve the performance of Zipper and pointer analysis.
-                        if (pce.pceMethodsOf(type).contains(toVar.getMethod())) {
-                            nextEdges.add(edge);
-                        }
-                    }
-                    case INSTANCE_STORE, ARRAY_STORE -> {
-                        InstanceNode toNode = (InstanceNode) edge.target();
-                        Obj base = toNode.getBase();
-                        if (base.getType().equals(type)) {
-                            // add wrapped flow edges to this variable
-                            invokeMethods.stream()
-                                    .map(m -> m.getIR().getThis())
-                                    .map(ofg::getVarNode)
-                                    .filter(Objects::nonNull) // filter this variable of native methods
-                                    .forEach(nextNode -> wuEdges.put(toNode,
-                                            new WrappedFlowEdge(toNode, nextNode)));
-                            nextEdges.add(edge);
-                        } else if (oag.getAllocateesOf(type).contains(base)) {
-                            // Optimization, similar as above.
-                            VarNode assignedNode = getAssignedNode(base);
-                            if (assignedNode != null) {
-                                wuEdges.put(toNode,
-                                        new WrappedFlowEdge(toNode, assignedNode));
-                            }
-                            nextEdges.add(edge);
-                        }
-                    }
-                    case OTHER -> {
-                        if (edge instanceof WrappedFlowEdge) {
-                            // same as INSTANCE_STORE
-                            // target node must be a VarNode
-                            VarNode toNode = (VarNode) edge.target();
-                            Var toVar = toNode.getVar();
-                            // Optimization: filter out some potential spurious flows due to
-                            // the imprecision of context-insensitive pre-analysis, which
-                            // helps improve the performance of Zipper and pointer analysis.
-                            if (pce.pceMethodsOf(type).contains(toVar.getMethod())) {
-                                nextEdges.add(edge);
-                            }
-                        } else if (edge instanceof UnwrappedFlowEdge) {
-                            // same as LOCAL_ASSIGN
-                            nextEdges.add(edge);
-                        }
-                    }
-                }
+            for (int k = adj.outStart(index); k < adj.outEnd(index); ++k) {
+                processEdge(adj.outEdge(k), stack);
             }
-            for (FlowEdge nextEdge : nextEdges) {
-                stack.push(nextEdge.target());
+            if (wuEdges.containsKey(node)) {
+                // copy the edges, as processing an edge may add
+                // wrapped flow edges to wuEdges
+                for (FlowEdge edge : List.copyOf(wuEdges.get(node))) {
+                    processEdge(edge, stack);
+                }
             }
         }
+        return true;
     }
 
-    public Set<FlowEdge> getOutEdgesOf(Node node) {
-        Set<FlowEdge> outEdges = ofg.getOutEdgesOf(node);
-        if (wuEdges.containsKey(node)) {
-            outEdges = Sets.newSet(outEdges);
-            outEdges.addAll(wuEdges.get(node));
+    private void processEdge(FlowEdge edge, Deque<Node> stack) {
+        switch (edge.kind()) {
+            case LOCAL_ASSIGN, CAST -> {
+                stack.push(edge.target());
+            }
+            case INSTANCE_LOAD, ARRAY_LOAD,
+                    THIS_PASSING, PARAMETER_PASSING, RETURN -> {
+                // target node must be a VarNode
+                VarNode toNode = (VarNode) edge.target();
+                Var toVar = toNode.getVar();
+                // Optimization: filter out some potential spurious flows due to
+                // the imprecision of context-insensitive pre-analysis, which
+                // helps improve the performance of Zipper and pointer analysis.
+                if (pceMethods.contains(toVar.getMethod())) {
+                    stack.push(toNode);
+                }
+            }
+            case INSTANCE_STORE, ARRAY_STORE -> {
+                InstanceNode toNode = (InstanceNode) edge.target();
+                Obj base = toNode.getBase();
+                if (base.getType().equals(type)) {
+                    // add wrapped flow edges to this variable
+                    invokeMethods.stream()
+                            .map(m -> m.getIR().getThis())
+                            .map(ofg::getVarNode)
+                            .filter(Objects::nonNull) // filter this variable of native methods
+                            .forEach(nextNode -> wuEdges.put(toNode,
+                                    new WrappedFlowEdge(toNode, nextNode)));
+                    stack.push(toNode);
+                } else if (oag.getAllocateesOf(type).contains(base)) {
+                    // Optimization, similar as above.
+                    VarNode assignedNode = getAssignedNode(base);
+                    if (assignedNode != null) {
+                        wuEdges.put(toNode,
+                                new WrappedFlowEdge(toNode, assignedNode));
+                    }
+                    stack.push(toNode);
+                }
+            }
+            case OTHER -> {
+                if (edge instanceof WrappedFlowEdge) {
+                    // same as INSTANCE_STORE
+                    // target node must be a VarNode
+                    VarNode toNode = (VarNode) edge.target();
+                    Var toVar = toNode.getVar();
+                    // Optimization: filter out some potential spurious flows due to
+                    // the imprecision of context-insensitive pre-analysis, which
+                    // helps improve the performance of Zipper and pointer analysis.
+                    if (pceMethods.contains(toVar.getMethod())) {
+                        stack.push(toNode);
+                    }
+                } else if (edge instanceof UnwrappedFlowEdge) {
+                    // same as LOCAL_ASSIGN
+                    stack.push(edge.target());
+                }
+            }
         }
-        return outEdges;
     }
 
     @Nullable
@@ -24,24 +24,30 @@ package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.zipper;
 
 import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.FlowEdge;
 import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.Node;
-import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.ObjectFlowGraph;
 import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.VarNode;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
-import com.github.chaoswarzh.intellijtaie.util.collection.Views;
-import com.github.chaoswarzh.intellijtaie.util.graph.Graph;
 
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
-class PrecisionFlowGraph implements Graph<Node> {
+/**
+ * Precision flow graph of a type, i.e., the sub-graph of OFG visited
+ * by {@link PFGBuilder} plus the wrapped and unwrapped flow edges.
+ * <p>
+ * The nodes are kept in a {@link NodeSet} which is reused for the
+ * following types, thus this graph is valid only until its node set
+ * is cleared.
+ */
+class PrecisionFlowGraph {
 
     private final Type type;
 
-    private final ObjectFlowGraph ofg;
+    private final OFGAdjacency adj;
 
-    private final Set<Node> nodes;
+    private final NodeSet nodes;
 
     private final Set<VarNode> outNodes;
 
@@ -49,15 +55,15 @@ class PrecisionFlowGraph implements Graph<Node> {
 
     private final MultiMap<Node, FlowEdge> outWUEdges;
 
-    PrecisionFlowGraph(Type type, ObjectFlowGraph ofg,
-                       Set<Node> nodes, Set<VarNode> outNodes,
+    PrecisionFlowGraph(Type type, OFGAdjacency adj,
+                       NodeSet nodes, Set<VarNode> outNodes,
                        MultiMap<Node, FlowEdge> outWUEdges) {
         this.type = type;
-        this.ofg = ofg;
+        this.adj = adj;
         this.nodes = nodes;
         this.outNodes = outNodes
                 .stream()
-                .filter(nodes::contains)
+                .filter(n -> nodes.contains(n.getIndex()))
                 .collect(Collectors.toUnmodifiableSet());
         this.outWUEdges = outWUEdges;
         this.inWUEdges = Maps.newMultiMap();
@@ -73,43 +79,36 @@ class PrecisionFlowGraph implements Graph<Node> {
         return outNodes;
     }
 
-    @Override
-    public boolean hasEdge(Node source, Node target) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Set<Node> getPredsOf(Node node) {
-        return Views.toMappedSet(getInEdgesOf(node), FlowEdge::source);
+    int getNumberOfNodes() {
+        return nodes.size();
     }
 
-    @Override
-    public Set<FlowEdge> getInEdgesOf(Node node) {
-        Set<FlowEdge> inEdges = ofg.getInEdgesOf(node)
-                .stream()
-                .filter(e -> nodes.contains(e.source()))
-                .collect(Collectors.toSet());
-        inEdges.addAll(inWUEdges.get(node));
-        return inEdges;
-    }
-
-    @Override
-    public Set<Node> getSuccsOf(Node node) {
-        return Views.toMappedSet(getOutEdgesOf(node), FlowEdge::target);
-    }
-
-    @Override
-    public Set<FlowEdge> getOutEdgesOf(Node node) {
-        Set<FlowEdge> outEdges = ofg.getOutEdgesOf(node)
-                .stream()
-                .filter(e -> nodes.contains(e.target()))
-                .collect(Collectors.toSet());
-        outEdges.addAll(outWUEdges.get(node));
-        return outEdges;
+    int getNumberOfEdges() {
+        int count = 0;
+        for (int i = 0; i < nodes.size(); ++i) {
+            int node = nodes.get(i);
+            for (int k = adj.outStart(node); k < adj.outEnd(node); ++k) {
+                if (nodes.contains(adj.outTarget(k))) {
+                    ++count;
+                }
+            }
+        }
+        return count + outWUEdges.size();
     }
 
-    @Override
-    public Set<Node> getNodes() {
-        return nodes;
+    /**
+     * Performs {@code action} for the index of each predecessor of
+     * given node. A predecessor may be passed more than once.
+     */
+    void forEachPredOf(int node, IntConsumer action) {
+        for (int k = adj.inStart(node); k < adj.inEnd(node); ++k) {
+            int source = adj.inSource(k);
+            if (nodes.contains(source)) {
+                action.accept(source);
+            }
+        }
+        for (FlowEdge edge : inWUEdges.get(adj.getNode(node))) {
+            action.accept(edge.source().getIndex());
+        }
     }
 }
@@ -40,7 +40,6 @@ import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.MutableInt;
 import com.github.chaoswarzh.intellijtaie.util.Timer;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
-import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
@@ -48,10 +47,12 @@ import java.util.Collection;
 import java.util.Deque;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Zipper {
 
@@ -59,6 +60,8 @@ public class Zipper {
 
     private static final float DEFAULT_PV = 0.05f;
 
+    private static final String BUDGET_PREFIX = ",budget=";
+
     private final PointerAnalysisResultEx pta;
 
     private final boolean isExpress;
@@ -72,12 +75,26 @@ public class Zipper {
 
     private final PotentialContextElement pce;
 
-    private final ObjectFlowGraph ofg;
+    private final OFGAdjacency adj;
+
+    /**
+     * Maximum number of nodes in the precision flow graph of a type.
+     * The types whose graphs exceed this budget have no
+     * precision-critical methods.
+     */
+    private final int budget;
+
+    /**
+     * Node sets that are reused by the worker threads.
+     */
+    private final Queue<NodeSet> nodeSets = new ConcurrentLinkedQueue<>();
 
     private AtomicInteger totalPFGNodes;
 
     private AtomicInteger totalPFGEdges;
 
+    private AtomicInteger overBudgetTypes;
+
     private Map<Type, Collection<JMethod>> pcmMap;
 
     private int pcmThreshold;
@@ -90,6 +107,13 @@ public class Zipper {
     public static Set<JMethod> run(PointerAnalysisResult pta, String arg) {
         boolean isExpress;
         float pv;
+        int budget = Integer.MAX_VALUE;
+        int budgetIndex = arg.indexOf(BUDGET_PREFIX);
+        if (budgetIndex != -1) { // zipper...,budget=nodes
+            budget = Integer.parseInt(
+                    arg.substring(budgetIndex + BUDGET_PREFIX.length()));
+            arg = arg.substring(0, budgetIndex);
+        }
         if (arg.equals("zipper")) {
             isExpress = false;
             pv = 1;
@@ -102,22 +126,29 @@ public class Zipper {
         } else {
             throw new IllegalArgumentException("Illegal Zipper argument: " + arg);
         }
-        return new Zipper(pta, isExpress, pv)
+        return new Zipper(pta, isExpress, pv, budget)
                 .selectPrecisionCriticalMethods();
     }
 
     public Zipper(PointerAnalysisResult ptaBase, boolean isExpress, float pv) {
+        this(ptaBase, isExpress, pv, Integer.MAX_VALUE);
+    }
+
+    public Zipper(PointerAnalysisResult ptaBase, boolean isExpress, float pv,
+                  int budget) {
         this.pta = new PointerAnalysisResultExImpl(ptaBase, true);
         this.isExpress = isExpress;
         this.pv = pv;
+        this.budget = budget;
         this.oag = Timer.runAndCount(() -> new ObjectAllocationGraph(pta),
                 "Building OAG", Level.INFO);
         this.pce = Timer.runAndCount(() -> new PotentialContextElement(pta, oag),
                 "Building PCE", Level.INFO);
-        this.ofg = ptaBase.getObjectFlowGraph();
-        logger.info("{} nodes in OFG", ofg.getNodes().size());
-        logger.info("{} edges in OFG",
-                ofg.getNodes().stream().mapToInt(ofg::getOutDegreeOf).sum());
+        ObjectFlowGraph ofg = ptaBase.getObjectFlowGraph();
+        this.adj = Timer.runAndCount(() -> new OFGAdjacency(ofg),
+                "Building OFG adjacency", Level.INFO);
+        logger.info("{} nodes in OFG", adj.getNumberOfNodes());
+        logger.info("{} edges in OFG", adj.getNumberOfEdges());
     }
 
     /**
@@ -127,6 +158,7 @@ public class Zipper {
     public Set<JMethod> selectPrecisionCriticalMethods() {
         totalPFGNodes = new AtomicInteger(0);
         totalPFGEdges = new AtomicInteger(0);
+        overBudgetTypes = new AtomicInteger(0);
         pcmMap = Maps.newConcurrentMap(1024);
 
         // prepare information for Zipper-e
@@ -153,6 +185,11 @@ public class Zipper {
         logger.info("#types: {}", types.size());
         logger.info("#avg. nodes in PFG: {}", totalPFGNodes.get() / types.size());
         logger.info("#avg. edges in PFG: {}", totalPFGEdges.get() / types.size());
+        if (budget != Integer.MAX_VALUE) {
+            logger.info("#types whose PFG exceeds budget ({} nodes): {}",
+                    budget, overBudgetTypes.get());
+        }
+        nodeSets.clear();
 
         // collect all precision-critical methods
         Set<JMethod> pcms = pcmMap.values()
@@ -164,24 +201,46 @@ public class Zipper {
     }
 
     private void analyze(Type type) {
-        PrecisionFlowGraph pfg = new PFGBuilder(pta, ofg, oag, pce, type).build();
-        totalPFGNodes.addAndGet(pfg.getNumberOfNodes());
-        totalPFGEdges.addAndGet(pfg.getNodes()
-                .stream()
-                .mapToInt(pfg::getOutDegreeOf)
-                .sum());
-        Set<JMethod> pcms = getPrecisionCriticalMethods(pfg);
-        if (!pcms.isEmpty()) {
-            pcmMap.put(type, pcms);
+        NodeSet pfgNodes = borrowNodeSet();
+        NodeSet flowNodes = borrowNodeSet();
+        try {
+            PrecisionFlowGraph pfg = new PFGBuilder(pta, adj, oag, pce, type)
+                    .build(pfgNodes, budget);
+            if (pfg == null) {
+                logger.debug("PFG of {} exceeds budget", type);
+                overBudgetTypes.incrementAndGet();
+                return;
+            }
+            totalPFGNodes.addAndGet(pfg.getNumberOfNodes());
+            totalPFGEdges.addAndGet(pfg.getNumberOfEdges());
+            Set<JMethod> pcms = getPrecisionCriticalMethods(pfg, flowNodes);
+            if (!pcms.isEmpty()) {
+                pcmMap.put(type, pcms);
+            }
+        } finally {
+            returnNodeSet(pfgNodes);
+            returnNodeSet(flowNodes);
         }
     }
 
-    private Set<JMethod> getPrecisionCriticalMethods(PrecisionFlowGraph pfg) {
-        Set<JMethod> pcms = getFlowNodes(pfg)
-                .stream()
-                .map(Zipper::node2Method)
+    private NodeSet borrowNodeSet() {
+        NodeSet nodeSet = nodeSets.poll();
+        return nodeSet != null ? nodeSet : new NodeSet(adj.getNumberOfNodes());
+    }
+
+    private void returnNodeSet(NodeSet nodeSet) {
+        nodeSet.clear();
+        nodeSets.add(nodeSet);
+    }
+
+    private Set<JMethod> getPrecisionCriticalMethods(
+            PrecisionFlowGraph pfg, NodeSet flowNodes) {
+        collectFlowNodes(pfg, flowNodes);
+        Set<JMethod> pceMethods = pce.pceMethodsOf(pfg.getType());
+        Set<JMethod> pcms = IntStream.range(0, flowNodes.size())
+                .mapToObj(i -> node2Method(adj.getNode(flowNodes.get(i))))
                 .filter(Objects::nonNull)
-                .filter(pce.pceMethodsOf(pfg.getType())::contains)
+                .filter(pceMethods::contains)
                 .collect(Collectors.toUnmodifiableSet());
         if (isExpress) {
             int accPts = 0;
@@ -197,22 +256,25 @@ public class Zipper {
         return pcms;
     }
 
-    private static Set<Node> getFlowNodes(PrecisionFlowGraph pfg) {
-        Set<Node> visited = Sets.newSet();
+    /**
+     * Collects the nodes that flow to the OUT nodes of {@code pfg}
+     * into {@code visited}.
+     */
+    private static void collectFlowNodes(PrecisionFlowGraph pfg, NodeSet visited) {
+        Deque<Integer> workList = new ArrayDeque<>();
         for (VarNode outNode : pfg.getOutNodes()) {
-            Deque<Node> workList = new ArrayDeque<>();
-            workList.add(outNode);
+            workList.add(outNode.getIndex());
             while (!workList.isEmpty()) {
-                Node node = workList.poll();
+                int node = workList.poll();
                 if (visited.add(node)) {
-                    pfg.getPredsOf(node)
-                            .stream()
-                            .filter(Predicate.not(visited::contains))
-                            .forEach(workList::add);
+                    pfg.forEachPredOf(node, pred -> {
+                        if (!visited.contains(pred)) {
+                            workList.add(pred);
+                        }
+                    });
                 }
             }
         }
-        return visited;
     }
 
     /**
@@ -207,6 +207,23 @@ public class Options implements Serializable {
         return preBuildIR;
     }
 
+    @JsonProperty
+    @Option(names = "--ir-cache-size",
+            description = "Maximum number of unpinned IRs, i.e., the IRs"
+                    + " built by bulk operations such as --pre-build-ir and"
+                    + " world cache saving, that are strongly held in memory."
+                    + " Other unpinned IRs are softly held and rebuilt on"
+                    + " demand. The IRs requested by analyses are held until"
+                    + " no result that may keep their elements is alive."
+                    + " 0 means no limit, i.e., no IR is evicted"
+                    + " (default: ${DEFAULT-VALUE})",
+            defaultValue = "0")
+    private int irCacheSize;
+
+    public int getIRCacheSize() {
+        return irCacheSize;
+    }
+
     @JsonProperty
     @Option(names = {"-wc", "--world-cache-mode"},
             description = "Enable world cache mode to save build time"
@@ -218,6 +235,47 @@ public class Options implements Serializable {
         return worldCacheMode;
     }
 
+    @JsonProperty
+    @Option(names = "--jdk-snapshot",
+            description = "Load the JDK classes and their IR from a snapshot"
+                    + " shared by all runs on the same JDK, and build the"
+                    + " snapshot if it does not exist. Only supported by"
+                    + " the ASM world builder (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean jdkSnapshot;
+
+    public boolean isJDKSnapshot() {
+        return jdkSnapshot;
+    }
+
+    @JsonProperty
+    @Option(names = "--class-index",
+            description = "Locate classes via the indexes of class path"
+                    + " entries, which are built on the first use of"
+                    + " each entry and reused by later runs. Only supported"
+                    + " by the ASM world builder (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean classIndex;
+
+    public boolean isClassIndex() {
+        return classIndex;
+    }
+
+    @JsonProperty
+    @Option(names = "--reachable-world",
+            description = "Populate the world with the classes required by"
+                    + " the methods reachable from the main method and implicit"
+                    + " entries, as computed by rapid type analysis, before"
+                    + " starting any analysis. Other classes are still loaded"
+                    + " on demand. Only supported by the ASM world builder"
+                    + " (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean reachableWorld;
+
+    public boolean isReachableWorld() {
+        return reachableWorld;
+    }
+
     @JsonProperty
     @Option(names = "-scope",
             description = "Scope for method/class analyses (default: ${DEFAULT-VALUE}," +
@@ -283,6 +341,46 @@ public class Options implements Serializable {
         return keepResult;
     }
 
+    @JsonProperty
+    @Option(names = "--analysis-threads",
+            description = "Number of threads for executing the analyses"
+                    + " that do not depend on each other concurrently."
+                    + " 1 means to execute the analyses one by one"
+                    + " in the order of the plan (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int analysisThreads;
+
+    public int getAnalysisThreads() {
+        return analysisThreads;
+    }
+
+    @JsonProperty
+    @Option(names = "--recomputable-results",
+            description = "The class/method analyses whose results are"
+                    + " cheap to recompute, e.g., cfg and live-var. Their"
+                    + " results are evicted under memory pressure and"
+                    + " recomputed on demand (multiple analyses are split"
+                    + " by ',', default: none)",
+            split = ",", paramLabel = "<analysisID>")
+    private Set<String> recomputableResults = Set.of();
+
+    public Set<String> getRecomputableResults() {
+        return recomputableResults;
+    }
+
+    @JsonProperty
+    @Option(names = "--method-result-cache",
+            description = "Cache the results of method analyses (e.g.,"
+                    + " live-var and const-prop) on disk, and reuse them"
+                    + " in later runs on the same program and analyses"
+                    + " (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean methodResultCache;
+
+    public boolean isMethodResultCache() {
+        return methodResultCache;
+    }
+
     /**
      * Parses arguments and return the parsed and post-processed Options.
      */
@@ -505,13 +603,20 @@ public class Options implements Serializable {
                 ", worldBuilderClass=" + worldBuilderClass +
                 ", outputDir='" + outputDir + '\'' +
                 ", preBuildIR=" + preBuildIR +
+                ", irCacheSize=" + irCacheSize +
                 ", worldCacheMode=" + worldCacheMode +
+                ", jdkSnapshot=" + jdkSnapshot +
+                ", classIndex=" + classIndex +
+                ", reachableWorld=" + reachableWorld +
                 ", scope=" + scope +
                 ", nativeModel=" + nativeModel +
                 ", planFile=" + planFile +
                 ", analyses=" + analyses +
                 ", onlyGenPlan=" + onlyGenPlan +
                 ", keepResult=" + keepResult +
+                ", analysisThreads=" + analysisThreads +
+                ", recomputableResults=" + recomputableResults +
+                ", methodResultCache=" + methodResultCache +
                 '}';
     }
 }
@@ -0,0 +1,270 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.language.annotation.AnnotationHolder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClassBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.Modifier;
+import com.github.chaoswarzh.intellijtaie.language.generics.ClassGSignature;
+import com.github.chaoswarzh.intellijtaie.language.generics.GSignatures;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.util.collection.Lists;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InnerClassNode;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.chaoswarzh.intellijtaie.language.classes.ClassNames.OBJECT;
+
+/**
+ * Builds {@link JClass} from the class file read by ASM.
+ * The method bodies are not retained; they are parsed again from
+ * {@link MethodSource} when the IR of the methods are requested.
+ */
+class AsmClassBuilder implements JClassBuilder {
+
+    private final Converter converter;
+
+    private final byte[] classFile;
+
+    private final ClassNode classNode;
+
+    private final boolean isApplication;
+
+    AsmClassBuilder(Converter converter, byte[] classFile, boolean isApplication) {
+        this.converter = converter;
+        this.classFile = classFile;
+        this.classNode = new ClassNode();
+        // method bodies are not needed for building classes
+        new ClassReader(classFile).accept(classNode,
+                ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        this.isApplication = isApplication;
+    }
+
+    /**
+     * @return the name of the class, e.g., {@code java.lang.String}.
+     */
+    String getName() {
+        return classNode.name.replace('/', '.');
+    }
+
+    @Override
+    public void build(JClass jclass) {
+        jclass.build(this);
+    }
+
+    @Override
+    public Set<Modifier> getModifiers() {
+        return Modifiers.convertClass(getAccess());
+    }
+
+    /**
+     * The access flags of inner classes are stored in InnerClasses
+     * attribute, e.g., private and static, which are absent in
+     * the access flags of the class itself.
+     */
+    private int getAccess() {
+        InnerClassNode inner = getInnerClassNode();
+        return inner != null ?
+                inner.access | (classNode.access & Opcodes.ACC_SUPER) :
+                classNode.access;
+    }
+
+    @Nullable
+    private InnerClassNode getInnerClassNode() {
+        for (InnerClassNode inner : classNode.innerClasses) {
+            if (inner.name.equals(classNode.name)) {
+                return inner;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getSimpleName() {
+        String name = getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    @Override
+    public ClassType getClassType() {
+        return (ClassType) converter.convertInternalName(classNode.name);
+    }
+
+    @Override
+    public JClass getSuperClass() {
+        if (getName().equals(OBJECT) || classNode.superName == null) {
+            return null;
+        } else {
+            return converter.convertClass(classNode.superName);
+        }
+    }
+
+    @Override
+    public Collection<JClass> getInterfaces() {
+        return Lists.map(classNode.interfaces, converter::convertClass);
+    }
+
+    @Override
+    public JClass getOuterClass() {
+        InnerClassNode inner = getInnerClassNode();
+        if (inner != null && inner.outerName != null) {
+            return converter.convertClass(inner.outerName);
+        }
+        // local and anonymous classes have no outerName in InnerClasses
+        // attribute, and their outer classes are given by EnclosingMethod
+        return classNode.outerClass != null ?
+                converter.convertClass(classNode.outerClass) :
+                null;
+    }
+
+    @Override
+    public Collection<JField> getDeclaredFields() {
+        return Lists.map(classNode.fields,
+                f -> converter.convertField(converter.convertClass(classNode.name), f));
+    }
+
+    @Override
+    public Collection<JMethod> getDeclaredMethods() {
+        JClass jclass = converter.convertClass(classNode.name);
+        return Lists.map(classNode.methods, m -> converter.convertMethod(jclass, m,
+                new MethodSource(classFile, m.name, m.desc)));
+    }
+
+    @Override
+    public AnnotationHolder getAnnotationHolder() {
+        return Converter.convertAnnotations(
+                classNode.visibleAnnotations, classNode.invisibleAnnotations);
+    }
+
+    @Override
+    public boolean isApplication() {
+        return isApplication;
+    }
+
+    @Override
+    public boolean isPhantom() {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public ClassGSignature getGSignature() {
+        return classNode.signature == null ? null :
+                GSignatures.toClassSig(
+                        (classNode.access & Opcodes.ACC_INTERFACE) != 0,
+                        classNode.signature);
+    }
+
+    /**
+     * Builds phantom class, i.e., the class that is referenced but
+     * absent in the class path.
+     */
+    static class Phantom implements JClassBuilder {
+
+        private final Converter converter;
+
+        private final String name;
+
+        Phantom(Converter converter, String name) {
+            this.converter = converter;
+            this.name = name;
+        }
+
+        @Override
+        public void build(JClass jclass) {
+            jclass.build(this);
+        }
+
+        @Override
+        public Set<Modifier> getModifiers() {
+            return Set.of(Modifier.PUBLIC);
+        }
+
+        @Override
+        public String getSimpleName() {
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+
+        @Override
+        public ClassType getClassType() {
+            return (ClassType) converter.convertInternalName(name.replace('.', '/'));
+        }
+
+        @Override
+        public JClass getSuperClass() {
+            return name.equals(OBJECT) ? null :
+                    converter.convertClass(OBJECT.replace('.', '/'));
+        }
+
+        @Override
+        public Collection<JClass> getInterfaces() {
+            return List.of();
+        }
+
+        @Override
+        public JClass getOuterClass() {
+            return null;
+        }
+
+        @Override
+        public Collection<JField> getDeclaredFields() {
+            return List.of();
+        }
+
+        @Override
+        public Collection<JMethod> getDeclaredMethods() {
+            return List.of();
+        }
+
+        @Override
+        public AnnotationHolder getAnnotationHolder() {
+            return AnnotationHolder.emptyHolder();
+        }
+
+        @Override
+        public boolean isApplication() {
+            return false;
+        }
+
+        @Override
+        public boolean isPhantom() {
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public ClassGSignature getGSignature() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClassBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClassLoader;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class loader which reads class files by ASM on demand, i.e., a class
+ * is loaded only when it is requested by its name, either by
+ * the world builder or by the building of other classes (e.g., the
+ * super class or the types of fields).
+ */
+class AsmClassLoader implements JClassLoader {
+
+    private static final Logger logger = LogManager.getLogger(AsmClassLoader.class);
+
+    private transient ClassPath classPath;
+
+    private final ClassHierarchy hierarchy;
+
+    private final boolean allowPhantom;
+
+    /**
+     * Names of classes that are treated as application classes
+     * regardless of their locations in class path.
+     */
+    private transient Set<String> appClasses;
+
+    private transient Converter converter;
+
+    private final Map<String, JClass> classes = Maps.newMap(1024);
+
+    /**
+     * Names of the classes that are missing in class path, which are
+     * recorded to report each missing class only once.
+     */
+    private final Set<String> missingClasses = Sets.newSet();
+
+    AsmClassLoader(ClassPath classPath, ClassHierarchy hierarchy,
+                   boolean allowPhantom, Set<String> appClasses) {
+        this.classPath = classPath;
+        this.hierarchy = hierarchy;
+        this.allowPhantom = allowPhantom;
+        this.appClasses = appClasses;
+    }
+
+    @Override
+    public synchronized JClass loadClass(String name) {
+        JClass jclass = classes.get(name);
+        if (jclass == null && classPath != null) {
+            ClassPath.ClassFile classFile = classPath.find(name);
+            JClassBuilder builder;
+            if (classFile != null) {
+                builder = new AsmClassBuilder(converter, classFile.content(),
+                        isApplication(name, classFile.isApp()));
+            } else if (allowPhantom) {
+                builder = new AsmClassBuilder.Phantom(converter, name);
+            } else {
+                if (missingClasses.add(name)) {
+                    logger.warn("Warning: class '{}' is not found in class path" +
+                            " and phantom classes are not allowed", name);
+                }
+                return null;
+            }
+            jclass = new JClass(this, name);
+            // New class must be put into classes map at first,
+            // at build(jclass) may also trigger the loading of
+            // the new created class. Not putting the class into classes
+            // may cause infinite recursion.
+            classes.put(name, jclass);
+            builder.build(jclass);
+            hierarchy.addClass(jclass);
+        }
+        return jclass;
+    }
+
+    private boolean isApplication(String name, boolean isAppPath) {
+        // exclude jdk classes from application classes, as Soot frontend
+        if (name.startsWith("jdk.") || name.startsWith("apple.laf.")) {
+            return false;
+        }
+        return isAppPath || appClasses.contains(name);
+    }
+
+    @Override
+    public synchronized Collection<JClass> getLoadedClasses() {
+        return new ArrayList<>(classes.values());
+    }
+
+    /**
+     * Attaches class path and application classes to this loader.
+     * This is used to load classes on top of a deserialized loader,
+     * whose class path is not serialized.
+     */
+    synchronized void attach(ClassPath classPath, Set<String> appClasses) {
+        this.classPath = classPath;
+        this.appClasses = appClasses;
+    }
+
+    void setConverter(Converter converter) {
+        this.converter = converter;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.AbstractWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.AnalysisConfig;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.frontend.cache.JDKSnapshot;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchyImpl;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.Subsignature;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystemImpl;
+import com.github.chaoswarzh.intellijtaie.util.Timer;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * World builder based on ASM. Different from {@link
+ * com.github.chaoswarzh.intellijtaie.frontend.soot.SootWorldBuilder},
+ * which resolves all classes reachable from the input classes before
+ * building the world, this builder only loads the input classes
+ * (and main class) eagerly, and other classes are loaded on demand when
+ * they are referenced. Method bodies are parsed only when their IR
+ * are requested.
+ * <p>
+ * Note that {@link ClassHierarchy} contains only the loaded classes,
+ * thus queries about subclasses (e.g., by class hierarchy analysis)
+ * only consider the classes that have been loaded.
+ */
+public class AsmWorldBuilder extends AbstractWorldBuilder {
+
+    private static final Logger logger = LogManager.getLogger(AsmWorldBuilder.class);
+
+    private static final String CLASS_INDEX_DIR = "cache/class-index";
+
+    private static final Subsignature MAIN = Subsignature.get(
+            "void main(java.lang.String[])");
+
+    @Override
+    public void build(Options options, List<AnalysisConfig> analyses) {
+        World.reset();
+        World snapshot = options.isJDKSnapshot() ? loadJDKSnapshot(options) : null;
+        World world = new World();
+        World.set(world);
+
+        // options will be used during World building, thus it should be
+        // set at first.
+        world.setOptions(options);
+        // initialize class hierarchy
+        List<String> inputClasses = getInputClasses(options);
+        Set<String> appClasses = Sets.newSet(inputClasses);
+        if (options.getMainClass() != null) {
+            appClasses.add(options.getMainClass());
+        }
+        ClassHierarchy hierarchy;
+        AsmClassLoader loader;
+        TypeSystem typeSystem;
+        if (snapshot != null) {
+            // layer application classes on top of the JDK snapshot
+            hierarchy = snapshot.getClassHierarchy();
+            loader = (AsmClassLoader) hierarchy.getDefaultClassLoader();
+            loader.attach(getAsmClassPath(options), appClasses);
+            typeSystem = snapshot.getTypeSystem();
+        } else {
+            hierarchy = new ClassHierarchyImpl();
+            loader = new AsmClassLoader(getAsmClassPath(options),
+                    hierarchy, options.isAllowPhantom(), appClasses);
+            hierarchy.setDefaultClassLoader(loader);
+            hierarchy.setBootstrapClassLoader(loader);
+            // initialize type manager
+            typeSystem = new TypeSystemImpl(hierarchy);
+        }
+        world.setClassHierarchy(hierarchy);
+        world.setTypeSystem(typeSystem);
+        // initialize converter
+        Converter converter = new Converter(loader, typeSystem);
+        loader.setConverter(converter);
+        // load input classes, and other classes are loaded on demand
+        appClasses.forEach(loader::loadClass);
+        // set main method
+        if (options.getMainClass() != null) {
+            JClass mainClass = hierarchy.getClass(options.getMainClass());
+            JMethod mainMethod = mainClass == null ? null :
+                    mainClass.getDeclaredMethod(MAIN);
+            if (mainMethod != null && mainMethod.isStatic()) {
+                world.setMainMethod(mainMethod);
+            } else {
+                logger.warn("Warning: main class '{}'" +
+                                " does not have main(String[]) method!",
+                        options.getMainClass());
+            }
+        } else {
+            logger.warn("Warning: main class was not given!");
+        }
+        // set implicit entries
+        world.setImplicitEntries(getImplicitEntries(hierarchy));
+        // initialize IR builder
+        world.setNativeModel(getNativeModel(typeSystem, hierarchy, options));
+        IRBuilder irBuilder = new IRBuilder(converter);
+        world.setIRBuilder(snapshot != null
+                ? JDKSnapshot.layer(snapshot, irBuilder) : irBuilder);
+        if (options.isReachableWorld()) {
+            loadReachableClasses(world);
+        }
+        if (options.isPreBuildIR()) {
+            // build IRs in background, and the analyses start without
+            // waiting for the building
+            IRPrebuilder.start(hierarchy);
+        }
+    }
+
+    /**
+     * Loads the classes required by the methods reachable from the main
+     * method and implicit entries of {@code world}.
+     */
+    private static void loadReachableClasses(World world) {
+        Timer timer = new Timer("Load reachable classes");
+        timer.start();
+        List<JMethod> entries = new ArrayList<>(world.getImplicitEntries());
+        if (world.getMainMethod() != null) {
+            entries.add(world.getMainMethod());
+        }
+        ClassHierarchy hierarchy = world.getClassHierarchy();
+        Set<JMethod> reachable = ReachableClosure.compute(hierarchy, entries);
+        timer.stop();
+        logger.info("{} reachable methods, {} classes loaded",
+                reachable.size(), hierarchy.allClasses().count());
+        logger.info(timer);
+    }
+
+    private static List<JMethod> getImplicitEntries(ClassHierarchy hierarchy) {
+        return implicitEntries.stream()
+                .map(hierarchy::getJREMethod)
+                // some implicit entries may not exist in certain JDK version,
+                // thus we filter out null
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Loads the JDK snapshot for {@code options}, and builds the snapshot
+     * at first if it does not exist.
+     *
+     * @return the world of the snapshot, or {@code null} if the snapshot
+     * fails to be built or loaded.
+     */
+    @Nullable
+    private static World loadJDKSnapshot(Options options) {
+        List<String> jdkPaths = getJDKClassPath(options);
+        File snapshotFile = JDKSnapshot.getSnapshotFile(options, jdkPaths);
+        if (!snapshotFile.exists()) {
+            buildJDKSnapshot(options, jdkPaths, snapshotFile);
+            World.reset();
+        }
+        logger.info("Loading the JDK snapshot from {}", snapshotFile);
+        Timer timer = new Timer("Load the JDK snapshot");
+        timer.start();
+        try {
+            return JDKSnapshot.load(snapshotFile);
+        } catch (Exception e) {
+            logger.error("Failed to load JDK snapshot from {} due to {}",
+                    snapshotFile, e);
+            return null;
+        } finally {
+            timer.stop();
+            logger.info(timer);
+        }
+    }
+
+    /**
+     * Builds the world of JDK classes that are transitively referenced
+     * by the basic classes and implicit entries, and saves it
+     * to {@code snapshotFile}.
+     */
+    private static void buildJDKSnapshot(
+            Options options, List<String> jdkPaths, File snapshotFile) {
+        logger.info("Building the JDK snapshot ...");
+        Timer timer = new Timer("Build the JDK snapshot");
+        timer.start();
+        try {
+            World world = new World();
+            World.set(world);
+            world.setOptions(options);
+            ClassHierarchy hierarchy = new ClassHierarchyImpl();
+            AsmClassLoader loader = new AsmClassLoader(
+                    new ClassPath(jdkPaths, Set.of(), options.isPrependJVM(),
+                            getClassIndexDir(options)),
+                    hierarchy, options.isAllowPhantom(), Set.of());
+            hierarchy.setDefaultClassLoader(loader);
+            hierarchy.setBootstrapClassLoader(loader);
+            world.setClassHierarchy(hierarchy);
+            TypeSystem typeSystem = new TypeSystemImpl(hierarchy);
+            world.setTypeSystem(typeSystem);
+            Converter converter = new Converter(loader, typeSystem);
+            loader.setConverter(converter);
+            getBasicClasses().forEach(loader::loadClass);
+            // resolving implicit entries loads their declaring classes
+            getImplicitEntries(hierarchy);
+            world.setNativeModel(getNativeModel(typeSystem, hierarchy, options));
+            IRBuilder irBuilder = new IRBuilder(converter);
+            world.setIRBuilder(irBuilder);
+            // building IR loads the referenced classes, thus we repeat
+            // until no new classes are loaded
+            long count;
+            do {
+                count = hierarchy.allClasses().count();
+                irBuilder.buildAll(hierarchy);
+            } while (hierarchy.allClasses().count() > count);
+            logger.info("Saving {} JDK classes to {}", count, snapshotFile);
+            JDKSnapshot.save(world, snapshotFile);
+        } catch (Exception e) {
+            logger.error("Failed to build JDK snapshot due to {}", e.toString());
+        } finally {
+            timer.stop();
+            logger.info(timer);
+        }
+    }
+
+    /**
+     * @return the class path entries of the JDK, i.e., the JRE jars when
+     * prependJVM is not set, otherwise empty, as the run-time image
+     * of current JVM is used.
+     */
+    private static List<String> getJDKClassPath(Options options) {
+        Set<String> nonJDKPaths = Sets.newSet(options.getClassPath());
+        nonJDKPaths.addAll(options.getAppClassPath());
+        return Arrays.stream(getClassPath(options).split(File.pathSeparator))
+                .filter(path -> !path.isBlank() && !nonJDKPaths.contains(path))
+                .toList();
+    }
+
+    /**
+     * When prependJVM is set, the class path of current JVM is represented
+     * by its run-time image instead of JAR files.
+     */
+    private static ClassPath getAsmClassPath(Options options) {
+        List<String> paths = new ArrayList<>();
+        Arrays.stream(getClassPath(options).split(File.pathSeparator))
+                .filter(path -> !path.isBlank())
+                .forEach(paths::add);
+        if (options.isPrependJVM()) {
+            // in this case, getClassPath() excludes application class path
+            paths.addAll(options.getAppClassPath());
+        }
+        return new ClassPath(paths, Set.copyOf(options.getAppClassPath()),
+                options.isPrependJVM(), getClassIndexDir(options));
+    }
+
+    /**
+     * @return the directory of class indexes, or {@code null}
+     * if class indexes are disabled.
+     */
+    @Nullable
+    private static File getClassIndexDir(Options options) {
+        return options.isClassIndex() ? new File(CLASS_INDEX_DIR) : null;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.ClassReader;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the classes in a class path entry (an archive or the run-time
+ * image of current JVM), which maps each class name to the location of
+ * its class file, super class and interfaces.
+ * <p>
+ * Building an index reads all class files in the entry once, thus indexes
+ * are stored in an index directory and reused by later runs, as long as
+ * the entry is not modified. With an index, looking up a class that is
+ * not in the entry does not touch the entry at all, and the class path
+ * can be queried for the super types of classes before loading them.
+ */
+final class ClassIndex {
+
+    private static final Logger logger = LogManager.getLogger(ClassIndex.class);
+
+    private static final int MAGIC = 0x54434958; // "TCIX"
+
+    private static final int VERSION = 1;
+
+    private static final String CLASS = ".class";
+
+    private static final String MODULE_INFO = "module-info";
+
+    /**
+     * Information of a class in the indexed entry.
+     *
+     * @param name       the class name
+     * @param location   the path of the class file in the entry
+     * @param superName  the name of the super class, or {@code null}
+     *                   if the class has no super class
+     * @param interfaces the names of the direct interfaces of the class
+     */
+    record ClassInfo(String name, String location,
+                     @Nullable String superName, List<String> interfaces) {
+    }
+
+    private final Map<String, ClassInfo> classes;
+
+    private ClassIndex(Map<String, ClassInfo> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * @return the information of class {@code className}, or {@code null}
+     * if the class is not in the indexed entry.
+     */
+    @Nullable
+    ClassInfo get(String className) {
+        return classes.get(className);
+    }
+
+    /**
+     * @return information of all classes in the indexed entry.
+     */
+    Collection<ClassInfo> getClasses() {
+        return Collections.unmodifiableCollection(classes.values());
+    }
+
+    /**
+     * @return the index of the classes in the entries of {@code zip}
+     * whose names start with {@code prefix}.
+     */
+    static ClassIndex ofArchive(ZipFile zip, String prefix,
+                                @Nullable File indexDir) throws IOException {
+        File file = new File(zip.getName()).getAbsoluteFile();
+        String key = file + "\n" + file.length() + "\n" + file.lastModified();
+        return loadOrBuild(indexDir, file.getName(), key, () -> {
+            Map<String, ClassInfo> classes = Maps.newMap(zip.size());
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String location = entry.getName();
+                if (!location.startsWith(prefix)) {
+                    continue;
+                }
+                String path = location.substring(prefix.length());
+                if (isClassFile(path) && !path.startsWith("META-INF/")) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        add(classes, location, in.readAllBytes());
+                    }
+                }
+            }
+            return classes;
+        });
+    }
+
+    /**
+     * @return the index of the classes in the run-time image {@code jrt}.
+     */
+    static ClassIndex ofRuntimeImage(FileSystem jrt, @Nullable File indexDir)
+            throws IOException {
+        String key = System.getProperty("java.home") + "\n"
+                + System.getProperty("java.runtime.version");
+        return loadOrBuild(indexDir, "jrt", key, () -> {
+            Map<String, ClassInfo> classes = Maps.newMap(32768);
+            try (Stream<Path> files = Files.walk(jrt.getPath("/modules"))) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (isClassFile(file.getFileName().toString())) {
+                        add(classes, file.toString(), Files.readAllBytes(file));
+                    }
+                }
+            }
+            return classes;
+        });
+    }
+
+    private static boolean isClassFile(String path) {
+        return path.endsWith(CLASS) && !path.endsWith(MODULE_INFO + CLASS);
+    }
+
+    private static void add(Map<String, ClassInfo> classes,
+                            String location, byte[] content) {
+        ClassReader reader;
+        try {
+            reader = new ClassReader(content);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to parse class file {}", location, e);
+            return;
+        }
+        String name = toClassName(reader.getClassName());
+        String superName = reader.getSuperName();
+        List<String> interfaces = new ArrayList<>();
+        for (String itf : reader.getInterfaces()) {
+            interfaces.add(toClassName(itf));
+        }
+        // keep the first class file of each class, as class path does
+        classes.putIfAbsent(name, new ClassInfo(name, location,
+                superName == null ? null : toClassName(superName),
+                List.copyOf(interfaces)));
+    }
+
+    private static String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    @FunctionalInterface
+    private interface Builder {
+
+        Map<String, ClassInfo> build() throws IOException;
+    }
+
+    /**
+     * Loads the index identified by {@code key} from {@code indexDir},
+     * or builds it by {@code builder} and stores it to {@code indexDir}
+     * if it does not exist.
+     */
+    private static ClassIndex loadOrBuild(@Nullable File indexDir, String name,
+                                          String key, Builder builder)
+            throws IOException {
+        File indexFile = indexDir == null ? null :
+                new File(indexDir, name + "-" + hash(key) + ".idx");
+        if (indexFile != null && indexFile.exists()) {
+            try {
+                return load(indexFile);
+            } catch (IOException e) {
+                logger.warn("Failed to load class index {}, rebuild it",
+                        indexFile, e);
+            }
+        }
+        ClassIndex index = new ClassIndex(builder.build());
+        if (indexFile != null) {
+            try {
+                index.save(indexFile);
+            } catch (IOException e) {
+                logger.warn("Failed to save class index {}", indexFile, e);
+            }
+        }
+        return index;
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(
+                    key.getBytes(StandardCharsets.UTF_8)), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AsmFrontendException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ClassIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Incompatible class index format");
+            }
+            int size = in.readInt();
+            Map<String, ClassInfo> classes = Maps.newMap(size);
+            for (int i = 0; i < size; ++i) {
+                String name = in.readUTF();
+                String location = in.readUTF();
+                String superName = in.readBoolean() ? in.readUTF() : null;
+                int nInterfaces = in.readUnsignedShort();
+                List<String> interfaces = new ArrayList<>(nInterfaces);
+                for (int j = 0; j < nInterfaces; ++j) {
+                    interfaces.add(in.readUTF());
+                }
+                classes.put(name, new ClassInfo(name, location,
+                        superName, List.copyOf(interfaces)));
+            }
+            return new ClassIndex(classes);
+        }
+    }
+
+    /**
+     * Saves this index to {@code file}. The index is written to a temporary
+     * file first, so that concurrent processes never see a partially-written
+     * index.
+     */
+    private void save(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File tmp = File.createTempFile(file.getName(), null, dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(classes.size());
+                for (ClassInfo info : classes.values()) {
+                    out.writeUTF(info.name());
+                    out.writeUTF(info.location());
+                    out.writeBoolean(info.superName() != null);
+                    if (info.superName() != null) {
+                        out.writeUTF(info.superName());
+                    }
+                    out.writeShort(info.interfaces().size());
+                    for (String itf : info.interfaces()) {
+                        out.writeUTF(itf);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
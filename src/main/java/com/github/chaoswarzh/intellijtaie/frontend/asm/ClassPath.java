@@ -0,0 +1,332 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Locates class files in a class path. The class path may consist of
+ * directories, JAR files, JMOD files, and the run-time image of the
+ * current JVM. Archives are opened on the first lookup, and class files
+ * are read only when requested.
+ * <p>
+ * If an index directory is given, archives and the run-time image are
+ * looked up via their {@link ClassIndex}es, which are stored in
+ * the directory and reused across runs.
+ */
+class ClassPath {
+
+    private static final Logger logger = LogManager.getLogger(ClassPath.class);
+
+    private static final String CLASS = ".class";
+
+    private static final String JMOD = ".jmod";
+
+    /**
+     * Content of a class file found in the class path.
+     *
+     * @param content the bytes of the class file
+     * @param isApp   whether the class file is found in application class path
+     */
+    record ClassFile(byte[] content, boolean isApp) {
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param paths      the class path entries
+     * @param appPaths   the entries which belong to application class path
+     * @param includeJVM whether to search the run-time image of current JVM
+     *                   before other entries
+     */
+    ClassPath(List<String> paths, Set<String> appPaths, boolean includeJVM) {
+        this(paths, appPaths, includeJVM, null);
+    }
+
+    /**
+     * @param indexDir the directory to store the indexes of class path
+     *                 entries, or {@code null} if indexes are not used
+     */
+    ClassPath(List<String> paths, Set<String> appPaths, boolean includeJVM,
+              @Nullable File indexDir) {
+        if (includeJVM) {
+            entries.add(new JrtEntry(indexDir));
+        }
+        for (String path : paths) {
+            File file = new File(path);
+            if (!file.exists()) {
+                logger.warn("Class path entry {} does not exist", path);
+                continue;
+            }
+            boolean isApp = appPaths.contains(path);
+            if (file.isDirectory()) {
+                entries.add(new DirEntry(file.toPath(), isApp));
+            } else {
+                String prefix = path.endsWith(JMOD) ? "classes/" : "";
+                entries.add(new ArchiveEntry(file, prefix, isApp, indexDir));
+            }
+        }
+    }
+
+    /**
+     * @return the class file of class {@code className}, or {@code null}
+     * if the class does not exist in this class path.
+     */
+    @Nullable
+    ClassFile find(String className) {
+        String path = className.replace('.', '/') + CLASS;
+        for (Entry entry : entries) {
+            try {
+                byte[] content = entry.read(className, path);
+                if (content != null) {
+                    return new ClassFile(content, entry.isApp());
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read {} from {}", path, entry, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the indexed information of class {@code className},
+     * or {@code null} if the class is not in any indexed entry.
+     * Note that directories are not indexed.
+     */
+    @Nullable
+    ClassIndex.ClassInfo getClassInfo(String className) {
+        for (Entry entry : entries) {
+            try {
+                ClassIndex index = entry.getIndex();
+                ClassIndex.ClassInfo info = index == null ?
+                        null : index.get(className);
+                if (info != null) {
+                    return info;
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to index {}", entry, e);
+            }
+        }
+        return null;
+    }
+
+    private interface Entry {
+
+        /**
+         * @return content of the class file of {@code className}
+         * at {@code path} in this entry, or {@code null} if the file
+         * does not exist.
+         */
+        @Nullable
+        byte[] read(String className, String path) throws IOException;
+
+        /**
+         * @return the index of this entry, or {@code null} if
+         * this entry is not indexed.
+         */
+        @Nullable
+        default ClassIndex getIndex() throws IOException {
+            return null;
+        }
+
+        boolean isApp();
+    }
+
+    private record DirEntry(Path dir, boolean isApp) implements Entry {
+
+        @Nullable
+        @Override
+        public byte[] read(String className, String path) throws IOException {
+            Path file = dir.resolve(path);
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        }
+    }
+
+    private static class ArchiveEntry implements Entry {
+
+        private final File file;
+
+        private final String prefix;
+
+        private final boolean isApp;
+
+        @Nullable
+        private final File indexDir;
+
+        private ZipFile zip;
+
+        private ClassIndex index;
+
+        private ArchiveEntry(File file, String prefix, boolean isApp,
+                             @Nullable File indexDir) {
+            this.file = file;
+            this.prefix = prefix;
+            this.isApp = isApp;
+            this.indexDir = indexDir;
+        }
+
+        @Nullable
+        @Override
+        public byte[] read(String className, String path) throws IOException {
+            String location;
+            ClassIndex index = getIndex();
+            if (index != null) {
+                ClassIndex.ClassInfo info = index.get(className);
+                if (info == null) {
+                    return null;
+                }
+                location = info.location();
+            } else {
+                location = prefix + path;
+            }
+            ZipFile zip = open();
+            ZipEntry entry = zip.getEntry(location);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        }
+
+        @Nullable
+        @Override
+        public synchronized ClassIndex getIndex() throws IOException {
+            if (index == null && indexDir != null) {
+                index = ClassIndex.ofArchive(open(), prefix, indexDir);
+            }
+            return index;
+        }
+
+        private synchronized ZipFile open() throws IOException {
+            if (zip == null) {
+                zip = new ZipFile(file);
+            }
+            return zip;
+        }
+
+        @Override
+        public boolean isApp() {
+            return isApp;
+        }
+
+        @Override
+        public String toString() {
+            return file.toString();
+        }
+    }
+
+    /**
+     * Entry for the run-time image (i.e., the modules) of current JVM.
+     */
+    private static class JrtEntry implements Entry {
+
+        @Nullable
+        private final File indexDir;
+
+        private FileSystem jrt;
+
+        private ClassIndex index;
+
+        private JrtEntry(@Nullable File indexDir) {
+            this.indexDir = indexDir;
+        }
+
+        @Nullable
+        @Override
+        public byte[] read(String className, String path) throws IOException {
+            ClassIndex index = getIndex();
+            if (index != null) {
+                ClassIndex.ClassInfo info = index.get(className);
+                return info == null ? null :
+                        Files.readAllBytes(open().getPath(info.location()));
+            }
+            int i = path.lastIndexOf('/');
+            if (i < 0) {
+                return null;
+            }
+            // the directory /packages/<package> contains a link for
+            // each module which contains the package
+            FileSystem fs = open();
+            Path pkgDir = fs.getPath("/packages",
+                    path.substring(0, i).replace('/', '.'));
+            if (!Files.isDirectory(pkgDir)) {
+                return null;
+            }
+            try (Stream<Path> modules = Files.list(pkgDir)) {
+                for (Path module : modules.toList()) {
+                    Path file = fs.getPath("/modules",
+                            module.getFileName().toString(), path);
+                    if (Files.isRegularFile(file)) {
+                        return Files.readAllBytes(file);
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public synchronized ClassIndex getIndex() throws IOException {
+            if (index == null && indexDir != null) {
+                index = ClassIndex.ofRuntimeImage(open(), indexDir);
+            }
+            return index;
+        }
+
+        private synchronized FileSystem open() {
+            if (jrt == null) {
+                jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+            }
+            return jrt;
+        }
+
+        @Override
+        public boolean isApp() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "jrt:/";
+        }
+    }
+}
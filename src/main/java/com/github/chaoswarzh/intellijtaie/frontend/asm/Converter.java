@@ -0,0 +1,336 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.FieldRef;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.MethodRef;
+import com.github.chaoswarzh.intellijtaie.language.annotation.Annotation;
+import com.github.chaoswarzh.intellijtaie.language.annotation.AnnotationElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.AnnotationHolder;
+import com.github.chaoswarzh.intellijtaie.language.annotation.ArrayElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.BooleanElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.ClassElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.DoubleElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.Element;
+import com.github.chaoswarzh.intellijtaie.language.annotation.EnumElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.FloatElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.IntElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.LongElement;
+import com.github.chaoswarzh.intellijtaie.language.annotation.StringElement;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassNames;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClassLoader;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.StringReps;
+import com.github.chaoswarzh.intellijtaie.language.generics.GSignatures;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
+import com.github.chaoswarzh.intellijtaie.util.collection.Lists;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.ParameterNode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.chaoswarzh.intellijtaie.language.type.BooleanType.BOOLEAN;
+import static com.github.chaoswarzh.intellijtaie.language.type.ByteType.BYTE;
+import static com.github.chaoswarzh.intellijtaie.language.type.CharType.CHAR;
+import static com.github.chaoswarzh.intellijtaie.language.type.DoubleType.DOUBLE;
+import static com.github.chaoswarzh.intellijtaie.language.type.FloatType.FLOAT;
+import static com.github.chaoswarzh.intellijtaie.language.type.IntType.INT;
+import static com.github.chaoswarzh.intellijtaie.language.type.LongType.LONG;
+import static com.github.chaoswarzh.intellijtaie.language.type.ShortType.SHORT;
+import static com.github.chaoswarzh.intellijtaie.language.type.VoidType.VOID;
+
+/**
+ * Converts the elements read by ASM to Tai-e's representation.
+ */
+class Converter {
+
+    private final JClassLoader loader;
+
+    private final TypeSystem typeSystem;
+
+    Converter(JClassLoader loader, TypeSystem typeSystem) {
+        this.loader = loader;
+        this.typeSystem = typeSystem;
+    }
+
+    Type convertType(org.objectweb.asm.Type asmType) {
+        return switch (asmType.getSort()) {
+            case org.objectweb.asm.Type.VOID -> VOID;
+            case org.objectweb.asm.Type.BOOLEAN -> BOOLEAN;
+            case org.objectweb.asm.Type.CHAR -> CHAR;
+            case org.objectweb.asm.Type.BYTE -> BYTE;
+            case org.objectweb.asm.Type.SHORT -> SHORT;
+            case org.objectweb.asm.Type.INT -> INT;
+            case org.objectweb.asm.Type.FLOAT -> FLOAT;
+            case org.objectweb.asm.Type.LONG -> LONG;
+            case org.objectweb.asm.Type.DOUBLE -> DOUBLE;
+            case org.objectweb.asm.Type.ARRAY -> typeSystem.getArrayType(
+                    convertType(asmType.getElementType()),
+                    asmType.getDimensions());
+            case org.objectweb.asm.Type.OBJECT ->
+                    typeSystem.getClassType(loader, asmType.getClassName());
+            default -> throw new AsmFrontendException(
+                    "Cannot convert ASM Type: " + asmType);
+        };
+    }
+
+    /**
+     * Converts a field descriptor, e.g., {@code [Ljava/lang/String;}.
+     */
+    Type convertDesc(String desc) {
+        return convertType(org.objectweb.asm.Type.getType(desc));
+    }
+
+    /**
+     * Converts an internal name, e.g., {@code java/lang/String},
+     * or a descriptor of array type, to a reference type.
+     */
+    Type convertInternalName(String internalName) {
+        return convertType(org.objectweb.asm.Type.getObjectType(internalName));
+    }
+
+    /**
+     * @return the class with given internal name, e.g., {@code java/lang/String}.
+     * For array types, which may be the owners of method references
+     * (e.g., {@code [I.clone()}), returns {@code java.lang.Object}.
+     */
+    JClass convertClass(String internalName) {
+        String name = internalName.startsWith("[") ?
+                ClassNames.OBJECT : internalName.replace('/', '.');
+        JClass jclass = loader.loadClass(name);
+        if (jclass == null) {
+            throw new AsmFrontendException("Cannot find class " + name);
+        }
+        return jclass;
+    }
+
+    JField convertField(JClass declaringClass, FieldNode field) {
+        return new JField(declaringClass, field.name,
+                Modifiers.convertField(field.access),
+                convertDesc(field.desc),
+                field.signature == null ? null : GSignatures.toTypeSig(field.signature),
+                convertAnnotations(field.visibleAnnotations,
+                        field.invisibleAnnotations));
+    }
+
+    /**
+     * @param methodSource the source for building the IR of the method
+     */
+    JMethod convertMethod(JClass declaringClass, MethodNode method,
+                          Object methodSource) {
+        org.objectweb.asm.Type methodType =
+                org.objectweb.asm.Type.getMethodType(method.desc);
+        List<Type> paramTypes = Arrays.stream(methodType.getArgumentTypes())
+                .map(this::convertType)
+                .toList();
+        Type returnType = convertType(methodType.getReturnType());
+        List<ClassType> exceptions = method.exceptions == null ? List.of() :
+                Lists.map(method.exceptions,
+                        e -> (ClassType) convertInternalName(e));
+        return new JMethod(declaringClass, method.name,
+                Modifiers.convertMethod(method.access),
+                paramTypes, returnType, exceptions,
+                method.signature == null ? null : GSignatures.toMethodSig(method.signature),
+                convertAnnotations(method.visibleAnnotations,
+                        method.invisibleAnnotations),
+                convertParamAnnotations(method, paramTypes.size()),
+                convertParamNames(method, paramTypes),
+                methodSource);
+    }
+
+    FieldRef convertFieldRef(String owner, String name, String desc,
+                             boolean isStatic) {
+        return FieldRef.get(convertClass(owner), name,
+                convertDesc(desc), isStatic);
+    }
+
+    MethodRef convertMethodRef(String owner, String name, String desc,
+                               boolean isStatic) {
+        org.objectweb.asm.Type methodType =
+                org.objectweb.asm.Type.getMethodType(desc);
+        List<Type> paramTypes = Arrays.stream(methodType.getArgumentTypes())
+                .map(this::convertType)
+                .toList();
+        return MethodRef.get(convertClass(owner), name, paramTypes,
+                convertType(methodType.getReturnType()), isStatic);
+    }
+
+    /**
+     * @return an annotation holder that contains all runtime-visible
+     * and runtime-invisible annotations.
+     */
+    static AnnotationHolder convertAnnotations(
+            @Nullable List<AnnotationNode> visible,
+            @Nullable List<AnnotationNode> invisible) {
+        if ((visible == null || visible.isEmpty())
+                && (invisible == null || invisible.isEmpty())) {
+            return AnnotationHolder.emptyHolder();
+        }
+        List<Annotation> annotations = new ArrayList<>();
+        if (visible != null) {
+            visible.forEach(a -> annotations.add(convertAnnotation(a)));
+        }
+        if (invisible != null) {
+            invisible.forEach(a -> annotations.add(convertAnnotation(a)));
+        }
+        return AnnotationHolder.make(annotations);
+    }
+
+    private static Annotation convertAnnotation(AnnotationNode node) {
+        String annotationType = StringReps.toTaieTypeDesc(node.desc);
+        Map<String, Element> elements = Maps.newHybridMap();
+        // node.values holds the names and values of elements alternately
+        if (node.values != null) {
+            for (int i = 0; i < node.values.size(); i += 2) {
+                elements.put((String) node.values.get(i),
+                        convertAnnotationElement(node.values.get(i + 1)));
+            }
+        }
+        return new Annotation(annotationType, elements);
+    }
+
+    private static Element convertAnnotationElement(Object value) {
+        if (value instanceof String s) {
+            return new StringElement(s);
+        } else if (value instanceof org.objectweb.asm.Type t) {
+            return new ClassElement(StringReps.toTaieTypeDesc(t.getDescriptor()));
+        } else if (value instanceof AnnotationNode a) {
+            return new AnnotationElement(convertAnnotation(a));
+        } else if (value instanceof List<?> list) {
+            return new ArrayElement(Lists.map(list,
+                    Converter::convertAnnotationElement));
+        } else if (value instanceof String[] e) {
+            // enum constant is represented by its descriptor and name
+            return new EnumElement(StringReps.toTaieTypeDesc(e[0]), e[1]);
+        } else if (value instanceof Boolean b) {
+            return new BooleanElement(b);
+        } else if (value instanceof Character c) {
+            return new IntElement(c);
+        } else if (value instanceof Byte || value instanceof Short
+                || value instanceof Integer) {
+            return new IntElement(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            return new LongElement(l);
+        } else if (value instanceof Float f) {
+            return new FloatElement(f);
+        } else if (value instanceof Double d) {
+            return new DoubleElement(d);
+        } else if (value instanceof byte[] || value instanceof boolean[]
+                || value instanceof char[] || value instanceof short[]
+                || value instanceof int[] || value instanceof long[]
+                || value instanceof float[] || value instanceof double[]) {
+            // arrays of primitive values are stored as primitive arrays
+            List<Element> elements = new ArrayList<>();
+            for (int i = 0; i < java.lang.reflect.Array.getLength(value); ++i) {
+                elements.add(convertAnnotationElement(
+                        java.lang.reflect.Array.get(value, i)));
+            }
+            return new ArrayElement(elements);
+        } else {
+            throw new AsmFrontendException(
+                    "Unable to handle annotation value: " + value);
+        }
+    }
+
+    @Nullable
+    private static List<AnnotationHolder> convertParamAnnotations(
+            MethodNode method, int nParams) {
+        if (method.visibleParameterAnnotations == null
+                && method.invisibleParameterAnnotations == null) {
+            return null;
+        }
+        List<AnnotationHolder> result = new ArrayList<>(nParams);
+        for (int i = 0; i < nParams; ++i) {
+            result.add(convertAnnotations(
+                    getParamAnnotations(method.visibleParameterAnnotations,
+                            method.visibleAnnotableParameterCount, nParams, i),
+                    getParamAnnotations(method.invisibleParameterAnnotations,
+                            method.invisibleAnnotableParameterCount, nParams, i)));
+        }
+        return result;
+    }
+
+    /**
+     * The annotable parameters may be fewer than the actual parameters
+     * (e.g., for constructors of inner classes), and in such case,
+     * the annotations are attached to the last parameters.
+     */
+    @Nullable
+    private static List<AnnotationNode> getParamAnnotations(
+            @Nullable List<AnnotationNode>[] annotations,
+            int annotableCount, int nParams, int i) {
+        if (annotations == null) {
+            return null;
+        }
+        int count = annotableCount == 0 ? annotations.length : annotableCount;
+        int j = i - (nParams - count);
+        return 0 <= j && j < annotations.length ? annotations[j] : null;
+    }
+
+    /**
+     * Obtains the parameter names from MethodParameters attribute,
+     * or from local variable table if the attribute is absent.
+     */
+    @Nullable
+    private static List<String> convertParamNames(
+            MethodNode method, List<Type> paramTypes) {
+        if (method.parameters != null
+                && method.parameters.size() == paramTypes.size()) {
+            List<String> names = Lists.map(method.parameters, p -> p.name);
+            if (names.stream().allMatch(n -> n != null)) {
+                return names;
+            }
+        }
+        if (method.localVariables != null && !method.localVariables.isEmpty()) {
+            String[] names = new String[paramTypes.size()];
+            int slot = (method.access & org.objectweb.asm.Opcodes.ACC_STATIC) != 0 ? 0 : 1;
+            for (int i = 0; i < paramTypes.size(); ++i) {
+                for (LocalVariableNode local : method.localVariables) {
+                    if (local.index == slot) {
+                        names[i] = local.name;
+                        break;
+                    }
+                }
+                if (names[i] == null) {
+                    return null;
+                }
+                slot += paramTypes.get(i) == LONG || paramTypes.get(i) == DOUBLE ? 2 : 1;
+            }
+            return List.of(names);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.IRBuildHelper;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+class IRBuilder implements com.github.chaoswarzh.intellijtaie.ir.IRBuilder {
+
+    private static final Logger logger = LogManager.getLogger(IRBuilder.class);
+
+    private final transient Converter converter;
+
+    IRBuilder(Converter converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public IR buildIR(JMethod method) {
+        try {
+            return new MethodIRBuilder(method, converter).build();
+        } catch (AsmFrontendException e) {
+            logger.warn("ASM frontend failed to build method body for {}" +
+                    " ({}), constructs an empty IR instead", method, e.getMessage());
+            return new IRBuildHelper(method).buildEmpty();
+        }
+    }
+
+    /**
+     * Builds IR for all methods in given class hierarchy.
+     * As classes are loaded on demand, building IR may load new classes,
+     * thus only the methods of the classes loaded before this call are built.
+     */
+    @Override
+    public void buildAll(ClassHierarchy hierarchy) {
+        IRPrebuilder.start(hierarchy).join();
+    }
+}
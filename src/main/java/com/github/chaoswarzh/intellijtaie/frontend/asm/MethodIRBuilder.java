@@ -0,0 +1,1396 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.ir.DefaultIR;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.*;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.ExceptionEntry;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.FieldRef;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.MemberRef;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.MethodRef;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.*;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassNames;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.ArrayType;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.language.type.ReferenceType;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.util.collection.Lists;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+import com.github.chaoswarzh.intellijtaie.util.collection.UnionFindSet;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.JSRInlinerAdapter;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.Interpreter;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.chaoswarzh.intellijtaie.language.type.BooleanType.BOOLEAN;
+import static com.github.chaoswarzh.intellijtaie.language.type.ByteType.BYTE;
+import static com.github.chaoswarzh.intellijtaie.language.type.CharType.CHAR;
+import static com.github.chaoswarzh.intellijtaie.language.type.DoubleType.DOUBLE;
+import static com.github.chaoswarzh.intellijtaie.language.type.FloatType.FLOAT;
+import static com.github.chaoswarzh.intellijtaie.language.type.IntType.INT;
+import static com.github.chaoswarzh.intellijtaie.language.type.LongType.LONG;
+import static com.github.chaoswarzh.intellijtaie.language.type.NullType.NULL;
+import static com.github.chaoswarzh.intellijtaie.language.type.ShortType.SHORT;
+import static com.github.chaoswarzh.intellijtaie.language.type.VoidType.VOID;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Converts the bytecode of a method to Tai-e IR.
+ * <p>
+ * The operand stack and local variables of JVM are mapped to {@link Var}s
+ * as follows. Firstly, {@link Analyzer} computes, for each value on
+ * the operand stack and in local variables, the instructions that produce
+ * the value (similar to {@link org.objectweb.asm.tree.analysis.SourceInterpreter}).
+ * Then the definitions that flow to the same use are merged into webs,
+ * and each web is represented by one {@link Var}, whose type is inferred
+ * from the types of its definitions. To avoid redundant temporary
+ * variables, a constant is inlined to its use, a load of local variable
+ * is directly replaced by the local variable if the variable is not
+ * redefined before the use, and a value that is immediately stored to
+ * a local variable is directly defined to the local variable.
+ */
+class MethodIRBuilder {
+
+    private static final String THIS = "%this";
+
+    private static final String STRING_CONSTANT = "%stringconst";
+
+    private static final String CLASS_CONSTANT = "%classconst";
+
+    private static final String NULL_CONSTANT = "%nullconst";
+
+    private static final String STACK = "$stack";
+
+    private static final String LOCAL = "l";
+
+    /**
+     * Bound of the iterations of type inference, which are usually
+     * converged in a few rounds.
+     */
+    private static final int MAX_INFERENCE_ROUNDS = 64;
+
+    private final JMethod method;
+
+    private final Converter converter;
+
+    private final MethodSource source;
+
+    private MethodNode node;
+
+    private InsnList insns;
+
+    private Frame<DefValue>[] frames;
+
+    MethodIRBuilder(JMethod method, Converter converter) {
+        this.method = method;
+        this.converter = converter;
+        this.source = (MethodSource) method.getMethodSource();
+    }
+
+    IR build() {
+        node = parseMethod();
+        insns = node.instructions;
+        if (insns.size() == 0) {
+            throw new AsmFrontendException("No method body for " + method);
+        }
+        analyzeFrames();
+        buildWebs();
+        buildInlining();
+        inferTypes();
+        buildParams();
+        buildStmts();
+        buildExceptionEntries();
+        return new DefaultIR(method, thisVar, params, returnVars,
+                vars, stmts, exceptionEntries);
+    }
+
+    private MethodNode parseMethod() {
+        MethodNode[] result = new MethodNode[1];
+        new ClassReader(source.classFile()).accept(new ClassVisitor(ASM9) {
+            @Override
+            public MethodVisitor visitMethod(
+                    int access, String name, String descriptor,
+                    String signature, String[] exceptions) {
+                if (name.equals(source.name())
+                        && descriptor.equals(source.desc())) {
+                    // inline subroutines (JSR/RET) generated by old compilers
+                    return result[0] = new JSRInlinerAdapter(null,
+                            access, name, descriptor, signature, exceptions);
+                }
+                return null;
+            }
+        }, ClassReader.SKIP_FRAMES);
+        if (result[0] == null) {
+            throw new AsmFrontendException("Cannot find method " + method +
+                    " in class file");
+        }
+        return result[0];
+    }
+
+    // ---------- data-flow analysis of operand stack and locals ----------
+
+    /**
+     * Abstract value in stack frames, i.e., the definitions that
+     * produce the value, which may be instructions, {@link ParamDef}s,
+     * or {@link CatchDef}s.
+     */
+    private record DefValue(int size, Set<Object> defs)
+            implements org.objectweb.asm.tree.analysis.Value {
+
+        private static final DefValue UNINITIALIZED = new DefValue(1, Set.of());
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        private Object getOneDef() {
+            return defs.iterator().next();
+        }
+    }
+
+    /**
+     * Definition of a parameter (or this variable) at method entry.
+     */
+    private record ParamDef(int local) {
+    }
+
+    /**
+     * Definition of a caught exception at the beginning of an exception handler.
+     */
+    private record CatchDef(LabelNode handler) {
+    }
+
+    /**
+     * Values consumed by each instruction.
+     */
+    private final Map<AbstractInsnNode, List<DefValue>> operands = Maps.newMap();
+
+    /**
+     * Values of local variables read by each load and iinc instruction.
+     */
+    private final Map<AbstractInsnNode, DefValue> localReads = Maps.newMap();
+
+    private final List<ParamDef> paramDefs = new ArrayList<>();
+
+    private final Map<LabelNode, CatchDef> catchDefs = Maps.newLinkedHashMap();
+
+    private void analyzeFrames() {
+        try {
+            frames = new Analyzer<>(new DefInterpreter())
+                    .analyze(getOwner(), node);
+        } catch (AnalyzerException e) {
+            throw new AsmFrontendException(
+                    "Failed to analyze bytecode of " + method, e);
+        }
+    }
+
+    private String getOwner() {
+        return method.getDeclaringClass().getName().replace('.', '/');
+    }
+
+    private boolean isReachable(AbstractInsnNode insn) {
+        return frames[insns.indexOf(insn)] != null;
+    }
+
+    private class DefInterpreter extends Interpreter<DefValue> {
+
+        private DefInterpreter() {
+            super(ASM9);
+        }
+
+        @Override
+        public DefValue newValue(org.objectweb.asm.Type type) {
+            if (type == org.objectweb.asm.Type.VOID_TYPE) {
+                return null;
+            }
+            return type == null ? DefValue.UNINITIALIZED :
+                    new DefValue(type.getSize(), Set.of());
+        }
+
+        @Override
+        public DefValue newParameterValue(boolean isInstanceMethod,
+                                          int local, org.objectweb.asm.Type type) {
+            ParamDef def = new ParamDef(local);
+            if (!paramDefs.contains(def)) {
+                paramDefs.add(def);
+            }
+            return new DefValue(type.getSize(), Set.of(def));
+        }
+
+        @Override
+        public DefValue newExceptionValue(
+                TryCatchBlockNode tryCatchBlock, Frame<DefValue> handlerFrame,
+                org.objectweb.asm.Type exceptionType) {
+            CatchDef def = catchDefs.computeIfAbsent(
+                    tryCatchBlock.handler, CatchDef::new);
+            return new DefValue(1, Set.of(def));
+        }
+
+        @Override
+        public DefValue newOperation(AbstractInsnNode insn) {
+            return newResult(insn);
+        }
+
+        @Override
+        public DefValue copyOperation(AbstractInsnNode insn, DefValue value) {
+            int opcode = insn.getOpcode();
+            if (ILOAD <= opcode && opcode <= ALOAD) {
+                localReads.put(insn, value);
+                return new DefValue(value.getSize(), Set.of(insn));
+            } else if (ISTORE <= opcode && opcode <= ASTORE) {
+                operands.put(insn, List.of(value));
+                return new DefValue(value.getSize(), Set.of(insn));
+            } else {
+                // DUP and SWAP instructions do not produce new values
+                return value;
+            }
+        }
+
+        @Override
+        public DefValue unaryOperation(AbstractInsnNode insn, DefValue value) {
+            if (insn.getOpcode() == IINC) {
+                localReads.put(insn, value);
+            } else {
+                operands.put(insn, List.of(value));
+            }
+            return newResult(insn);
+        }
+
+        @Override
+        public DefValue binaryOperation(AbstractInsnNode insn,
+                                        DefValue value1, DefValue value2) {
+            operands.put(insn, List.of(value1, value2));
+            return newResult(insn);
+        }
+
+        @Override
+        public DefValue ternaryOperation(AbstractInsnNode insn, DefValue value1,
+                                         DefValue value2, DefValue value3) {
+            operands.put(insn, List.of(value1, value2, value3));
+            return null;
+        }
+
+        @Override
+        public DefValue naryOperation(AbstractInsnNode insn,
+                                      List<? extends DefValue> values) {
+            operands.put(insn, List.copyOf(values));
+            return newResult(insn);
+        }
+
+        @Override
+        public void returnOperation(AbstractInsnNode insn,
+                                    DefValue value, DefValue expected) {
+            operands.put(insn, List.of(value));
+        }
+
+        @Override
+        public DefValue merge(DefValue value1, DefValue value2) {
+            if (value1.size() != value2.size()) {
+                return DefValue.UNINITIALIZED;
+            }
+            if (value1.defs().containsAll(value2.defs())) {
+                return value1;
+            }
+            Set<Object> defs = Sets.newHybridSet(value1.defs());
+            defs.addAll(value2.defs());
+            return new DefValue(value1.size(), defs);
+        }
+
+        private static DefValue newResult(AbstractInsnNode insn) {
+            return new DefValue(getResultSize(insn), Set.of(insn));
+        }
+
+        private static int getResultSize(AbstractInsnNode insn) {
+            return switch (insn.getOpcode()) {
+                case LCONST_0, LCONST_1, DCONST_0, DCONST_1,
+                        LALOAD, DALOAD, LADD, DADD, LSUB, DSUB, LMUL, DMUL,
+                        LDIV, DDIV, LREM, DREM, LNEG, DNEG, LSHL, LSHR, LUSHR,
+                        LAND, LOR, LXOR, I2L, I2D, L2D, F2L, F2D, D2L -> 2;
+                case LDC -> {
+                    Object cst = ((LdcInsnNode) insn).cst;
+                    if (cst instanceof ConstantDynamic condy) {
+                        yield condy.getSize();
+                    }
+                    yield cst instanceof Long || cst instanceof Double ? 2 : 1;
+                }
+                case GETSTATIC, GETFIELD -> org.objectweb.asm.Type.getType(
+                        ((FieldInsnNode) insn).desc).getSize();
+                case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE ->
+                        org.objectweb.asm.Type.getReturnType(
+                                ((MethodInsnNode) insn).desc).getSize();
+                case INVOKEDYNAMIC -> org.objectweb.asm.Type.getReturnType(
+                        ((InvokeDynamicInsnNode) insn).desc).getSize();
+                default -> 1;
+            };
+        }
+    }
+
+    // ---------- webs, inlining, and type inference ----------
+
+    /**
+     * Definitions that flow to the same uses are put in the same set.
+     */
+    private UnionFindSet<Object> webs;
+
+    /**
+     * Map from each definition to the instructions that consume its value.
+     */
+    private final MultiMap<Object, AbstractInsnNode> consumers = Maps.newMultiMap();
+
+    /**
+     * Definitions whose values are merged with other definitions
+     * on operand stack, e.g., the two branches of {@code c ? x : y}.
+     */
+    private final Set<Object> mergedDefs = Sets.newSet();
+
+    /**
+     * Load instructions that are replaced by the loaded local variables.
+     */
+    private final Set<AbstractInsnNode> inlinedLoads = Sets.newSet();
+
+    /**
+     * Map from the definitions to the store instructions that immediately
+     * store the defined values to local variables.
+     */
+    private final Map<Object, VarInsnNode> fusedStores = Maps.newMap();
+
+    /**
+     * Labels that are targets of jumps or exception handlers.
+     */
+    private final Set<LabelNode> jumpTargets = Sets.newSet();
+
+    private void buildWebs() {
+        List<Object> defs = new ArrayList<>(insns.size() +
+                paramDefs.size() + catchDefs.size());
+        insns.forEach(defs::add);
+        defs.addAll(paramDefs);
+        defs.addAll(catchDefs.values());
+        webs = new UnionFindSet<>(defs);
+        // values on operand stack
+        operands.forEach((insn, values) -> {
+            if (isReachable(insn)) {
+                for (DefValue value : values) {
+                    value.defs().forEach(def -> consumers.put(def, insn));
+                    if (value.defs().size() > 1) {
+                        unionAll(value.defs());
+                        mergedDefs.addAll(value.defs());
+                    }
+                }
+            }
+        });
+        // reaching definitions of local variables
+        localReads.forEach((insn, value) -> {
+            if (isReachable(insn)) {
+                unionAll(value.defs());
+                if (insn.getOpcode() == IINC) {
+                    webs.union(insn, value.getOneDef());
+                }
+            }
+        });
+    }
+
+    private void unionAll(Set<Object> defs) {
+        Object first = null;
+        for (Object def : defs) {
+            if (first == null) {
+                first = def;
+            } else {
+                webs.union(first, def);
+            }
+        }
+    }
+
+    private void buildInlining() {
+        for (AbstractInsnNode insn : insns) {
+            if (insn instanceof JumpInsnNode jump) {
+                jumpTargets.add(jump.label);
+            } else if (insn instanceof TableSwitchInsnNode tableSwitch) {
+                jumpTargets.add(tableSwitch.dflt);
+                jumpTargets.addAll(tableSwitch.labels);
+            } else if (insn instanceof LookupSwitchInsnNode lookupSwitch) {
+                jumpTargets.add(lookupSwitch.dflt);
+                jumpTargets.addAll(lookupSwitch.labels);
+            }
+        }
+        jumpTargets.addAll(catchDefs.keySet());
+        for (AbstractInsnNode insn : insns) {
+            int opcode = insn.getOpcode();
+            if (ILOAD <= opcode && opcode <= ALOAD
+                    && isReachable(insn) && canInlineLoad(insn)) {
+                inlinedLoads.add(insn);
+            }
+        }
+        for (AbstractInsnNode insn : insns) {
+            int opcode = insn.getOpcode();
+            if (ISTORE <= opcode && opcode <= ASTORE && isReachable(insn)) {
+                DefValue value = operands.get(insn).get(0);
+                if (value.defs().size() == 1) {
+                    Object def = value.getOneDef();
+                    if (consumers.get(def).size() == 1
+                            && !mergedDefs.contains(def)
+                            && !inlinedLoads.contains(def)
+                            && !(def instanceof ParamDef)
+                            && getStoreAfter(def) == insn) {
+                        fusedStores.put(def, (VarInsnNode) insn);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A load can be inlined if each of its uses follows it in straight-line
+     * code, and the local variable is not redefined before the uses.
+     */
+    private boolean canInlineLoad(AbstractInsnNode load) {
+        if (mergedDefs.contains(load)) {
+            return false;
+        }
+        int local = ((VarInsnNode) load).var;
+        for (AbstractInsnNode use : consumers.get(load)) {
+            if (insns.indexOf(use) <= insns.indexOf(load)) {
+                return false;
+            }
+            for (AbstractInsnNode insn = load.getNext();
+                 insn != use; insn = insn.getNext()) {
+                if (isLocalDef(insn, local) || jumpTargets.contains(insn)
+                        || insn instanceof JumpInsnNode
+                        || insn instanceof TableSwitchInsnNode
+                        || insn instanceof LookupSwitchInsnNode) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalDef(AbstractInsnNode insn, int local) {
+        int opcode = insn.getOpcode();
+        if (ISTORE <= opcode && opcode <= ASTORE) {
+            return ((VarInsnNode) insn).var == local;
+        }
+        return opcode == IINC && ((IincInsnNode) insn).var == local;
+    }
+
+    /**
+     * @return the store instruction that immediately follows given definition,
+     * or {@code null} if such store does not exist.
+     */
+    @Nullable
+    private AbstractInsnNode getStoreAfter(Object def) {
+        AbstractInsnNode insn;
+        if (def instanceof AbstractInsnNode defInsn) {
+            insn = defInsn.getNext();
+        } else if (def instanceof CatchDef catchDef) {
+            insn = catchDef.handler().getNext();
+        } else {
+            return null;
+        }
+        while (insn != null && (insn.getOpcode() < 0
+                && !jumpTargets.contains(insn))) {
+            // skip labels, line numbers, and frames
+            insn = insn.getNext();
+        }
+        return insn != null && ISTORE <= insn.getOpcode()
+                && insn.getOpcode() <= ASTORE ? insn : null;
+    }
+
+    private static boolean isLiteral(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return ACONST_NULL <= opcode && opcode <= LDC
+                && !isPhantomConstant(insn);
+    }
+
+    /**
+     * @return {@code true} if given instruction loads a dynamically-computed
+     * constant of reference type. Such constant is produced by running its
+     * bootstrap method, thus it is not a literal, and we model it as
+     * a phantom value, i.e., its variable is left undefined.
+     */
+    private static boolean isPhantomConstant(AbstractInsnNode insn) {
+        return insn instanceof LdcInsnNode ldc
+                && ldc.cst instanceof ConstantDynamic condy
+                && org.objectweb.asm.Type.getType(condy.getDescriptor())
+                .getSort() >= org.objectweb.asm.Type.ARRAY;
+    }
+
+    private boolean isInlinedLiteral(AbstractInsnNode insn) {
+        return isLiteral(insn) && !mergedDefs.contains(insn)
+                && !fusedStores.containsKey(insn);
+    }
+
+    private boolean isLiteralValue(DefValue value) {
+        for (Object def : value.defs()) {
+            if (!(def instanceof AbstractInsnNode insn) || !isLiteral(insn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inferred type of each web (represented by the root of the web).
+     */
+    private final Map<Object, Type> webTypes = Maps.newMap();
+
+    private final Map<Integer, Type> paramTypes = Maps.newMap();
+
+    private final Map<LabelNode, Type> catchTypes = Maps.newMap();
+
+    private Type objectType;
+
+    /**
+     * Infers the type of each web. A web consisting of different
+     * reference types is typed {@code java.lang.Object}, and a web consisting
+     * of different int-like types is typed {@code int}. Constants
+     * do not participate in inference unless the web has no other definitions.
+     */
+    private void inferTypes() {
+        objectType = converter.convertInternalName(
+                ClassNames.OBJECT.replace('.', '/'));
+        int local = 0;
+        if (!method.isStatic()) {
+            paramTypes.put(local++, method.getDeclaringClass().getType());
+        }
+        for (Type paramType : method.getParamTypes()) {
+            paramTypes.put(local, paramType);
+            local += paramType == LONG || paramType == DOUBLE ? 2 : 1;
+        }
+        for (TryCatchBlockNode tcb : node.tryCatchBlocks) {
+            // a handler that catches different types of exceptions
+            // is typed java.lang.Throwable
+            catchTypes.merge(tcb.handler, getCatchType(tcb),
+                    (t1, t2) -> t1.equals(t2) ? t1 : getThrowableType());
+        }
+        MultiMap<Object, Object> webDefs = Maps.newMultiMap();
+        paramDefs.forEach(def -> webDefs.put(webs.findRoot(def), def));
+        catchDefs.values().forEach(def -> webDefs.put(webs.findRoot(def), def));
+        for (AbstractInsnNode insn : insns) {
+            if (insn.getOpcode() >= 0 && isReachable(insn)) {
+                webDefs.put(webs.findRoot(insn), insn);
+            }
+        }
+        boolean changed = true;
+        for (int i = 0; changed && i < MAX_INFERENCE_ROUNDS; ++i) {
+            changed = false;
+            for (Object root : webDefs.keySet()) {
+                Type type = inferType(webDefs.get(root));
+                if (type != null && !type.equals(webTypes.get(root))) {
+                    webTypes.put(root, type);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private Type inferType(Set<Object> defs) {
+        Type strong = null, weak = null;
+        for (Object def : defs) {
+            if (def instanceof ParamDef paramDef) {
+                strong = join(strong, paramTypes.get(paramDef.local()));
+            } else if (def instanceof CatchDef catchDef) {
+                strong = join(strong, catchTypes.get(catchDef.handler()));
+            } else {
+                AbstractInsnNode insn = (AbstractInsnNode) def;
+                int opcode = insn.getOpcode();
+                if (ISTORE <= opcode && opcode <= ASTORE) {
+                    DefValue value = operands.get(insn).get(0);
+                    if (isLiteralValue(value)) {
+                        weak = join(weak, getValueType(value));
+                    } else {
+                        strong = join(strong, getValueType(value));
+                    }
+                } else if (isLiteral(insn)) {
+                    weak = join(weak, getResultType(insn));
+                } else {
+                    strong = join(strong, getResultType(insn));
+                }
+            }
+        }
+        return strong != null ? strong : weak;
+    }
+
+    private ClassType getCatchType(TryCatchBlockNode tcb) {
+        return (ClassType) converter.convertInternalName(tcb.type != null ?
+                tcb.type : ClassNames.THROWABLE.replace('.', '/'));
+    }
+
+    private Type getThrowableType() {
+        return converter.convertInternalName(
+                ClassNames.THROWABLE.replace('.', '/'));
+    }
+
+    private Type join(@Nullable Type t1, @Nullable Type t2) {
+        if (t1 == null || t1.equals(t2)) {
+            return t2 != null ? t2 : t1;
+        } else if (t2 == null) {
+            return t1;
+        } else if (t1 == NULL && t2 instanceof ReferenceType) {
+            return t2;
+        } else if (t2 == NULL && t1 instanceof ReferenceType) {
+            return t1;
+        } else if (isIntLike(t1) && isIntLike(t2)) {
+            return INT;
+        } else if (t1 instanceof ReferenceType && t2 instanceof ReferenceType) {
+            return objectType;
+        } else {
+            // should not happen for verified bytecode
+            return t1;
+        }
+    }
+
+    private static boolean isIntLike(Type type) {
+        return type == INT || type == BOOLEAN || type == BYTE
+                || type == CHAR || type == SHORT;
+    }
+
+    @Nullable
+    private Type getWebType(Object def) {
+        return webTypes.get(webs.findRoot(def));
+    }
+
+    @Nullable
+    private Type getValueType(DefValue value) {
+        return value.defs().isEmpty() ? null : getWebType(value.getOneDef());
+    }
+
+    /**
+     * @return type of the value produced by given instruction, or
+     * {@code null} if the instruction produces no value or the type
+     * is unknown yet.
+     */
+    @Nullable
+    private Type getResultType(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return switch (opcode) {
+            case ACONST_NULL -> NULL;
+            case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4,
+                    ICONST_5, BIPUSH, SIPUSH, IALOAD, ARRAYLENGTH,
+                    LCMP, FCMPL, FCMPG, DCMPL, DCMPG, L2I, F2I, D2I, IINC -> INT;
+            case LCONST_0, LCONST_1, LALOAD, I2L, F2L, D2L -> LONG;
+            case FCONST_0, FCONST_1, FCONST_2, FALOAD, I2F, L2F, D2F -> FLOAT;
+            case DCONST_0, DCONST_1, DALOAD, I2D, L2D, F2D -> DOUBLE;
+            case LDC -> {
+                Object cst = ((LdcInsnNode) insn).cst;
+                yield cst instanceof ConstantDynamic condy ?
+                        converter.convertType(org.objectweb.asm.Type.getType(
+                                condy.getDescriptor())) :
+                        convertConstant(cst).getType();
+            }
+            case ILOAD, LLOAD, FLOAD, DLOAD, ALOAD ->
+                    getValueType(localReads.get(insn));
+            case AALOAD -> {
+                Type arrayType = getValueType(operands.get(insn).get(0));
+                if (arrayType instanceof ArrayType at) {
+                    yield at.elementType();
+                }
+                yield arrayType == null ? null : objectType;
+            }
+            case BALOAD -> getValueType(operands.get(insn).get(0))
+                    instanceof ArrayType at && at.elementType() == BOOLEAN ?
+                    BOOLEAN : BYTE;
+            case CALOAD, I2C -> CHAR;
+            case SALOAD, I2S -> SHORT;
+            case I2B -> BYTE;
+            case INSTANCEOF -> BOOLEAN;
+            case GETSTATIC, GETFIELD ->
+                    converter.convertDesc(((FieldInsnNode) insn).desc);
+            case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE,
+                    INVOKEDYNAMIC -> {
+                String desc = insn instanceof MethodInsnNode m ?
+                        m.desc : ((InvokeDynamicInsnNode) insn).desc;
+                Type returnType = converter.convertType(
+                        org.objectweb.asm.Type.getReturnType(desc));
+                yield returnType == VOID ? null : returnType;
+            }
+            case NEW, CHECKCAST ->
+                    converter.convertInternalName(((TypeInsnNode) insn).desc);
+            case NEWARRAY, ANEWARRAY -> getNewArrayType(insn);
+            case MULTIANEWARRAY ->
+                    converter.convertDesc(((MultiANewArrayInsnNode) insn).desc);
+            default -> {
+                if (IADD <= opcode && opcode <= DNEG) {
+                    yield switch ((opcode - IADD) % 4) {
+                        case 0 -> INT;
+                        case 1 -> LONG;
+                        case 2 -> FLOAT;
+                        default -> DOUBLE;
+                    };
+                } else if (ISHL <= opcode && opcode <= LXOR) {
+                    yield (opcode - ISHL) % 2 == 0 ? INT : LONG;
+                }
+                yield null;
+            }
+        };
+    }
+
+    private ArrayType getNewArrayType(AbstractInsnNode insn) {
+        if (insn instanceof IntInsnNode newArray) {
+            String desc = switch (newArray.operand) {
+                case T_BOOLEAN -> "[Z";
+                case T_CHAR -> "[C";
+                case T_FLOAT -> "[F";
+                case T_DOUBLE -> "[D";
+                case T_BYTE -> "[B";
+                case T_SHORT -> "[S";
+                case T_INT -> "[I";
+                case T_LONG -> "[J";
+                default -> throw new AsmFrontendException(
+                        "Unknown array type: " + newArray.operand);
+            };
+            return (ArrayType) converter.convertDesc(desc);
+        } else {
+            String elemDesc = org.objectweb.asm.Type.getObjectType(
+                    ((TypeInsnNode) insn).desc).getDescriptor();
+            return (ArrayType) converter.convertDesc("[" + elemDesc);
+        }
+    }
+
+    // ---------- variables ----------
+
+    private final List<Var> vars = new ArrayList<>();
+
+    private final Set<String> varNames = Sets.newSet();
+
+    /**
+     * Map from the root of each web to the variable that represents the web.
+     */
+    private final Map<Object, Var> webVars = Maps.newMap();
+
+    /**
+     * Caches variables that hold constant values, so that we don't need to
+     * create multiple temp variables and assignments for the same constants
+     * in the same method.
+     */
+    private final Map<Literal, Var> constantVars = Maps.newHybridMap();
+
+    private Var thisVar;
+
+    private final List<Var> params = new ArrayList<>();
+
+    private Set<Var> returnVars;
+
+    private int stackCounter = 0;
+
+    private int tempConstCounter = 0;
+
+    private void buildParams() {
+        int local = 0;
+        if (!method.isStatic()) {
+            thisVar = newVar(THIS, paramTypes.get(local), null);
+            webVars.put(webs.findRoot(new ParamDef(local++)), thisVar);
+        }
+        for (int i = 0; i < method.getParamCount(); ++i) {
+            String name = method.getParamName(i);
+            if (name == null) {
+                name = getLocalName(local, 0);
+            }
+            Var param = newVar(name, paramTypes.get(local), null);
+            params.add(param);
+            webVars.put(webs.findRoot(new ParamDef(local)), param);
+            Type paramType = method.getParamType(i);
+            local += paramType == LONG || paramType == DOUBLE ? 2 : 1;
+        }
+        returnVars = method.getReturnType().equals(VOID) ?
+                Set.of() : Sets.newLinkedSet();
+    }
+
+    private Var newVar(String name, Type type, @Nullable Literal literal) {
+        Var var = new Var(method, name, type, vars.size(), literal);
+        vars.add(var);
+        varNames.add(name);
+        return var;
+    }
+
+    /**
+     * @return name of local variable at given instruction index.
+     * The name is obtained from local variable table if it is available.
+     */
+    private String getLocalName(int local, int index) {
+        String name = LOCAL + local;
+        if (node.localVariables != null) {
+            for (LocalVariableNode lv : node.localVariables) {
+                // the scope of local variable starts after the store
+                if (lv.index == local
+                        && insns.indexOf(lv.start) <= index + 1
+                        && index < insns.indexOf(lv.end)) {
+                    name = lv.name;
+                    break;
+                }
+            }
+        }
+        if (varNames.contains(name)) {
+            String base = name;
+            int i = 1;
+            do {
+                name = base + "#" + i++;
+            } while (varNames.contains(name));
+        }
+        return name;
+    }
+
+    /**
+     * @return the variable for the local variable defined or read by {@code insn}.
+     */
+    private Var getLocalVar(AbstractInsnNode insn, int local) {
+        Object def = localReads.containsKey(insn) ?
+                localReads.get(insn).getOneDef() : insn;
+        Object root = webs.findRoot(def);
+        Var var = webVars.get(root);
+        if (var == null) {
+            var = newVar(getLocalName(local, insns.indexOf(insn)),
+                    getTypeOfWeb(root), null);
+            webVars.put(root, var);
+        }
+        return var;
+    }
+
+    private Var getLocalVar(AbstractInsnNode insn) {
+        return getLocalVar(insn, insn instanceof VarInsnNode varInsn ?
+                varInsn.var : ((IincInsnNode) insn).var);
+    }
+
+    private Type getTypeOfWeb(Object root) {
+        Type type = webTypes.get(root);
+        return type != null ? type : objectType;
+    }
+
+    /**
+     * @return the variable that holds the value defined by {@code def}.
+     */
+    private Var getDefVar(Object def) {
+        VarInsnNode store = fusedStores.get(def);
+        if (store != null) {
+            return getLocalVar(store);
+        }
+        Object root = webs.findRoot(def);
+        Var var = webVars.get(root);
+        if (var == null) {
+            var = newVar(STACK + stackCounter++, getTypeOfWeb(root), null);
+            webVars.put(root, var);
+        }
+        return var;
+    }
+
+    /**
+     * @return the variable that holds given value at its use.
+     */
+    private Var getVar(DefValue value) {
+        if (value.defs().isEmpty()) {
+            throw new AsmFrontendException("Use of uninitialized value in " + method);
+        }
+        Object def = value.getOneDef();
+        if (value.defs().size() == 1 && def instanceof AbstractInsnNode insn) {
+            if (inlinedLoads.contains(insn)) {
+                return getLocalVar(insn);
+            } else if (isInlinedLiteral(insn)) {
+                return getConstantVar(toLiteral(insn));
+            }
+        }
+        return getDefVar(def);
+    }
+
+    private Var getOperand(AbstractInsnNode insn, int i) {
+        return getVar(operands.get(insn).get(i));
+    }
+
+    private List<Var> getOperands(AbstractInsnNode insn) {
+        return Lists.map(operands.get(insn), this::getVar);
+    }
+
+    private Var getConstantVar(Literal literal) {
+        Var var = constantVars.get(literal);
+        if (var == null) {
+            var = newConstantVar(literal);
+            constantVars.put(literal, var);
+            if (!(literal instanceof NullLiteral)) {
+                // add temp assignment for non-null variable
+                addStmt(new AssignLiteral(var, literal));
+            }
+        }
+        return var;
+    }
+
+    private Var newConstantVar(Literal literal) {
+        String varName;
+        if (literal instanceof StringLiteral) {
+            varName = STRING_CONSTANT + tempConstCounter++;
+        } else if (literal instanceof ClassLiteral) {
+            varName = CLASS_CONSTANT + tempConstCounter++;
+        } else if (literal instanceof NullLiteral) {
+            varName = NULL_CONSTANT;
+        } else {
+            varName = "%" + literal.getType().getName() +
+                    "const" + tempConstCounter++;
+        }
+        return newVar(varName, literal.getType(), literal);
+    }
+
+    private Literal toLiteral(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return switch (opcode) {
+            case ACONST_NULL -> NullLiteral.get();
+            case ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4,
+                    ICONST_5 -> IntLiteral.get(opcode - ICONST_0);
+            case LCONST_0, LCONST_1 -> LongLiteral.get(opcode - LCONST_0);
+            case FCONST_0, FCONST_1, FCONST_2 -> FloatLiteral.get(opcode - FCONST_0);
+            case DCONST_0, DCONST_1 -> DoubleLiteral.get(opcode - DCONST_0);
+            case BIPUSH, SIPUSH -> IntLiteral.get(((IntInsnNode) insn).operand);
+            case LDC -> convertConstant(((LdcInsnNode) insn).cst);
+            default -> throw new AsmFrontendException(
+                    "Expected constant instruction, given " + opcode);
+        };
+    }
+
+    /**
+     * Converts constant in constant pool to Literal.
+     */
+    private Literal convertConstant(Object cst) {
+        if (cst instanceof Integer i) {
+            return IntLiteral.get(i);
+        } else if (cst instanceof Float f) {
+            return FloatLiteral.get(f);
+        } else if (cst instanceof Long l) {
+            return LongLiteral.get(l);
+        } else if (cst instanceof Double d) {
+            return DoubleLiteral.get(d);
+        } else if (cst instanceof String s) {
+            return StringLiteral.get(s);
+        } else if (cst instanceof org.objectweb.asm.Type t) {
+            return t.getSort() == org.objectweb.asm.Type.METHOD ?
+                    convertMethodType(t.getDescriptor()) :
+                    ClassLiteral.get(converter.convertType(t));
+        } else if (cst instanceof Handle handle) {
+            return convertHandle(handle);
+        } else if (cst instanceof ConstantDynamic condy) {
+            // the value of dynamically-computed constant is unknown
+            // statically, so we use the default value of its type
+            // as an opaque literal (constants of reference types are
+            // handled as phantom values, see isPhantomConstant())
+            return switch (org.objectweb.asm.Type.getType(
+                    condy.getDescriptor()).getSort()) {
+                case org.objectweb.asm.Type.BOOLEAN, org.objectweb.asm.Type.CHAR,
+                        org.objectweb.asm.Type.BYTE, org.objectweb.asm.Type.SHORT,
+                        org.objectweb.asm.Type.INT -> IntLiteral.get(0);
+                case org.objectweb.asm.Type.LONG -> LongLiteral.get(0);
+                case org.objectweb.asm.Type.FLOAT -> FloatLiteral.get(0);
+                case org.objectweb.asm.Type.DOUBLE -> DoubleLiteral.get(0);
+                default -> throw new AsmFrontendException(
+                        "Cannot convert dynamic constant of reference type: " + cst);
+            };
+        } else {
+            throw new AsmFrontendException("Cannot convert constant: " + cst);
+        }
+    }
+
+    private MethodType convertMethodType(String desc) {
+        org.objectweb.asm.Type type = org.objectweb.asm.Type.getMethodType(desc);
+        List<Type> paramTypes = Arrays.stream(type.getArgumentTypes())
+                .map(converter::convertType)
+                .toList();
+        return MethodType.get(paramTypes,
+                converter.convertType(type.getReturnType()));
+    }
+
+    private MethodHandle convertHandle(Handle handle) {
+        int tag = handle.getTag();
+        MemberRef memberRef = tag <= H_PUTSTATIC ?
+                converter.convertFieldRef(handle.getOwner(), handle.getName(),
+                        handle.getDesc(), tag == H_GETSTATIC || tag == H_PUTSTATIC) :
+                converter.convertMethodRef(handle.getOwner(), handle.getName(),
+                        handle.getDesc(), tag == H_INVOKESTATIC);
+        return MethodHandle.get(MethodHandle.Kind.get(tag), memberRef);
+    }
+
+    // ---------- statements ----------
+
+    private List<Stmt> stmts;
+
+    private List<ExceptionEntry> exceptionEntries;
+
+    /**
+     * Labels that are not yet mapped to statements. They will be
+     * mapped to the next emitted statement.
+     */
+    private final List<LabelNode> pendingLabels = new ArrayList<>();
+
+    /**
+     * Map from labels to the first statements after them.
+     */
+    private final Map<LabelNode, Stmt> labelStmts = Maps.newMap();
+
+    /**
+     * Map from jump instructions to the corresponding statements.
+     */
+    private final Map<AbstractInsnNode, Stmt> jumpStmts = Maps.newHybridMap();
+
+    private final Map<LabelNode, Catch> catchStmts = Maps.newHybridMap();
+
+    private int currentLine = -1;
+
+    private void addStmt(Stmt stmt) {
+        pendingLabels.forEach(label -> labelStmts.put(label, stmt));
+        pendingLabels.clear();
+        stmt.setLineNumber(currentLine);
+        stmt.setIndex(stmts.size());
+        stmts.add(stmt);
+    }
+
+    private void buildStmts() {
+        stmts = new ArrayList<>();
+        for (AbstractInsnNode insn : insns) {
+            if (insn instanceof LabelNode label) {
+                pendingLabels.add(label);
+                CatchDef catchDef = catchDefs.get(label);
+                if (catchDef != null && isReachable(label)) {
+                    Catch catchStmt = new Catch(getDefVar(catchDef));
+                    catchStmts.put(label, catchStmt);
+                    addStmt(catchStmt);
+                }
+            } else if (insn instanceof LineNumberNode lineNumber) {
+                currentLine = lineNumber.line;
+            } else if (insn.getOpcode() >= 0 && isReachable(insn)) {
+                buildInsn(insn);
+            }
+        }
+        if (!pendingLabels.isEmpty()) {
+            // the end of exception scope may have no following statement
+            for (TryCatchBlockNode tcb : node.tryCatchBlocks) {
+                if (pendingLabels.contains(tcb.end)) {
+                    addStmt(new Nop());
+                    break;
+                }
+            }
+        }
+        linkJumpTargets();
+    }
+
+    private void linkJumpTargets() {
+        jumpStmts.forEach((insn, stmt) -> {
+            if (insn instanceof JumpInsnNode jump) {
+                if (stmt instanceof Goto gotoStmt) {
+                    gotoStmt.setTarget(labelStmts.get(jump.label));
+                } else {
+                    ((If) stmt).setTarget(labelStmts.get(jump.label));
+                }
+            } else if (insn instanceof TableSwitchInsnNode tableSwitch) {
+                SwitchStmt switchStmt = (SwitchStmt) stmt;
+                switchStmt.setTargets(Lists.map(tableSwitch.labels, labelStmts::get));
+                switchStmt.setDefaultTarget(labelStmts.get(tableSwitch.dflt));
+            } else if (insn instanceof LookupSwitchInsnNode lookupSwitch) {
+                SwitchStmt switchStmt = (SwitchStmt) stmt;
+                switchStmt.setTargets(Lists.map(lookupSwitch.labels, labelStmts::get));
+                switchStmt.setDefaultTarget(labelStmts.get(lookupSwitch.dflt));
+            }
+        });
+    }
+
+    private void buildExceptionEntries() {
+        if (node.tryCatchBlocks.isEmpty()) {
+            exceptionEntries = List.of();
+            return;
+        }
+        exceptionEntries = new ArrayList<>(node.tryCatchBlocks.size());
+        for (TryCatchBlockNode tcb : node.tryCatchBlocks) {
+            Stmt start = labelStmts.get(tcb.start);
+            Stmt end = labelStmts.get(tcb.end);
+            Catch handler = catchStmts.get(tcb.handler);
+            // skip the exception entries whose scopes or handlers
+            // are eliminated as unreachable code
+            if (start != null && end != null && handler != null
+                    && start.getIndex() < end.getIndex()) {
+                exceptionEntries.add(new ExceptionEntry(start, end, handler,
+                        getCatchType(tcb)));
+            }
+        }
+    }
+
+    private void buildInsn(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        switch (opcode) {
+            case NOP -> addStmt(new Nop());
+            case ACONST_NULL, ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3,
+                    ICONST_4, ICONST_5, LCONST_0, LCONST_1, FCONST_0, FCONST_1,
+                    FCONST_2, DCONST_0, DCONST_1, BIPUSH, SIPUSH, LDC -> {
+                // phantom constant leaves its variable undefined
+                if (!isPhantomConstant(insn) && !isInlinedLiteral(insn)
+                        && !consumers.get(insn).isEmpty()) {
+                    addStmt(new AssignLiteral(getDefVar(insn), toLiteral(insn)));
+                }
+            }
+            case ILOAD, LLOAD, FLOAD, DLOAD, ALOAD -> {
+                if (!inlinedLoads.contains(insn) && !consumers.get(insn).isEmpty()) {
+                    addStmt(new Copy(getDefVar(insn), getLocalVar(insn)));
+                }
+            }
+            case IALOAD, LALOAD, FALOAD, DALOAD, AALOAD, BALOAD, CALOAD, SALOAD ->
+                    addStmt(new LoadArray(getDefVar(insn), new ArrayAccess(
+                            getOperand(insn, 0), getOperand(insn, 1))));
+            case ISTORE, LSTORE, FSTORE, DSTORE, ASTORE -> buildStore(insn);
+            case IASTORE, LASTORE, FASTORE, DASTORE, AASTORE, BASTORE, CASTORE,
+                    SASTORE -> addStmt(new StoreArray(new ArrayAccess(
+                    getOperand(insn, 0), getOperand(insn, 1)), getOperand(insn, 2)));
+            case POP, POP2, DUP, DUP_X1, DUP_X2, DUP2, DUP2_X1, DUP2_X2, SWAP -> {
+                // stack manipulations are resolved by the analysis
+            }
+            case INEG, LNEG, FNEG, DNEG -> addStmt(new Unary(getDefVar(insn),
+                    new NegExp(getOperand(insn, 0))));
+            case IINC -> {
+                Var var = getLocalVar(insn);
+                Var incr = getConstantVar(IntLiteral.get(((IincInsnNode) insn).incr));
+                addStmt(new Binary(var,
+                        new ArithmeticExp(ArithmeticExp.Op.ADD, var, incr)));
+            }
+            case I2L, I2F, I2D, L2I, L2F, L2D, F2I, F2L, F2D, D2I, D2L, D2F,
+                    I2B, I2C, I2S -> addStmt(new Cast(getDefVar(insn), new CastExp(
+                    getOperand(insn, 0), getResultType(insn))));
+            case LCMP, FCMPL, FCMPG, DCMPL, DCMPG -> {
+                ComparisonExp.Op op = switch (opcode) {
+                    case LCMP -> ComparisonExp.Op.CMP;
+                    case FCMPL, DCMPL -> ComparisonExp.Op.CMPL;
+                    default -> ComparisonExp.Op.CMPG;
+                };
+                addStmt(new Binary(getDefVar(insn), new ComparisonExp(op,
+                        getOperand(insn, 0), getOperand(insn, 1))));
+            }
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE -> buildIf(insn,
+                    getOperand(insn, 0), getConstantVar(IntLiteral.get(0)));
+            case IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT, IF_ICMPLE,
+                    IF_ACMPEQ, IF_ACMPNE -> buildIf(insn,
+                    getOperand(insn, 0), getOperand(insn, 1));
+            case IFNULL, IFNONNULL -> buildIf(insn,
+                    getOperand(insn, 0), getConstantVar(NullLiteral.get()));
+            case GOTO -> {
+                Goto gotoStmt = new Goto();
+                jumpStmts.put(insn, gotoStmt);
+                addStmt(gotoStmt);
+            }
+            case TABLESWITCH -> {
+                TableSwitchInsnNode tableSwitch = (TableSwitchInsnNode) insn;
+                TableSwitch switchStmt = new TableSwitch(getOperand(insn, 0),
+                        tableSwitch.min, tableSwitch.max);
+                jumpStmts.put(insn, switchStmt);
+                addStmt(switchStmt);
+            }
+            case LOOKUPSWITCH -> {
+                LookupSwitch switchStmt = new LookupSwitch(getOperand(insn, 0),
+                        List.copyOf(((LookupSwitchInsnNode) insn).keys));
+                jumpStmts.put(insn, switchStmt);
+                addStmt(switchStmt);
+            }
+            case IRETURN, LRETURN, FRETURN, DRETURN, ARETURN -> {
+                Var returnVar = getOperand(insn, 0);
+                returnVars.add(returnVar);
+                addStmt(new Return(returnVar));
+            }
+            case RETURN -> addStmt(new Return());
+            case GETSTATIC -> addStmt(new LoadField(getDefVar(insn),
+                    new StaticFieldAccess(getFieldRef(insn, true))));
+            case PUTSTATIC -> addStmt(new StoreField(
+                    new StaticFieldAccess(getFieldRef(insn, true)),
+                    getOperand(insn, 0)));
+            case GETFIELD -> addStmt(new LoadField(getDefVar(insn),
+                    new InstanceFieldAccess(getFieldRef(insn, false),
+                            getOperand(insn, 0))));
+            case PUTFIELD -> addStmt(new StoreField(
+                    new InstanceFieldAccess(getFieldRef(insn, false),
+                            getOperand(insn, 0)),
+                    getOperand(insn, 1)));
+            case INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE,
+                    INVOKEDYNAMIC -> buildInvoke(insn);
+            case NEW -> addStmt(new New(method, getDefVar(insn), new NewInstance(
+                    (ClassType) getResultType(insn))));
+            case NEWARRAY, ANEWARRAY -> addStmt(new New(method, getDefVar(insn),
+                    new NewArray(getNewArrayType(insn), getOperand(insn, 0))));
+            case MULTIANEWARRAY -> addStmt(new New(method, getDefVar(insn),
+                    new NewMultiArray((ArrayType) getResultType(insn),
+                            getOperands(insn))));
+            case ARRAYLENGTH -> addStmt(new Unary(getDefVar(insn),
+                    new ArrayLengthExp(getOperand(insn, 0))));
+            case ATHROW -> addStmt(new Throw(getOperand(insn, 0)));
+            case CHECKCAST -> addStmt(new Cast(getDefVar(insn), new CastExp(
+                    getOperand(insn, 0), getResultType(insn))));
+            case INSTANCEOF -> addStmt(new InstanceOf(getDefVar(insn),
+                    new InstanceOfExp(getOperand(insn, 0), (ReferenceType)
+                            converter.convertInternalName(((TypeInsnNode) insn).desc))));
+            case MONITORENTER -> addStmt(new Monitor(Monitor.Op.ENTER,
+                    getOperand(insn, 0)));
+            case MONITOREXIT -> addStmt(new Monitor(Monitor.Op.EXIT,
+                    getOperand(insn, 0)));
+            default -> {
+                if (IADD <= opcode && opcode <= LXOR) {
+                    addStmt(new Binary(getDefVar(insn), getBinaryExp(insn)));
+                } else {
+                    throw new AsmFrontendException("Cannot handle instruction " +
+                            opcode + " in " + method);
+                }
+            }
+        }
+    }
+
+    private void buildStore(AbstractInsnNode store) {
+        DefValue value = operands.get(store).get(0);
+        if (!value.defs().isEmpty()
+                && fusedStores.get(value.getOneDef()) == store) {
+            // the value has been directly defined to the local variable
+            return;
+        }
+        Var lhs = getLocalVar(store);
+        if (value.defs().size() == 1
+                && value.getOneDef() instanceof AbstractInsnNode insn
+                && isInlinedLiteral(insn)) {
+            addStmt(new AssignLiteral(lhs, toLiteral(insn)));
+        } else {
+            addStmt(new Copy(lhs, getVar(value)));
+        }
+    }
+
+    private BinaryExp getBinaryExp(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        Var v1 = getOperand(insn, 0);
+        Var v2 = getOperand(insn, 1);
+        if (opcode <= DREM) {
+            ArithmeticExp.Op op = switch ((opcode - IADD) / 4) {
+                case 0 -> ArithmeticExp.Op.ADD;
+                case 1 -> ArithmeticExp.Op.SUB;
+                case 2 -> ArithmeticExp.Op.MUL;
+                case 3 -> ArithmeticExp.Op.DIV;
+                default -> ArithmeticExp.Op.REM;
+            };
+            return new ArithmeticExp(op, v1, v2);
+        } else if (opcode <= LUSHR) {
+            ShiftExp.Op op = switch ((opcode - ISHL) / 2) {
+                case 0 -> ShiftExp.Op.SHL;
+                case 1 -> ShiftExp.Op.SHR;
+                default -> ShiftExp.Op.USHR;
+            };
+            return new ShiftExp(op, v1, v2);
+        } else {
+            BitwiseExp.Op op = switch ((opcode - IAND) / 2) {
+                case 0 -> BitwiseExp.Op.AND;
+                case 1 -> BitwiseExp.Op.OR;
+                default -> BitwiseExp.Op.XOR;
+            };
+            return new BitwiseExp(op, v1, v2);
+        }
+    }
+
+    private void buildIf(AbstractInsnNode insn, Var v1, Var v2) {
+        int opcode = insn.getOpcode();
+        ConditionExp.Op op = switch (opcode) {
+            case IFEQ, IF_ICMPEQ, IF_ACMPEQ, IFNULL -> ConditionExp.Op.EQ;
+            case IFNE, IF_ICMPNE, IF_ACMPNE, IFNONNULL -> ConditionExp.Op.NE;
+            case IFLT, IF_ICMPLT -> ConditionExp.Op.LT;
+            case IFGE, IF_ICMPGE -> ConditionExp.Op.GE;
+            case IFGT, IF_ICMPGT -> ConditionExp.Op.GT;
+            case IFLE, IF_ICMPLE -> ConditionExp.Op.LE;
+            default -> throw new AsmFrontendException(
+                    "Expected conditional jump, given " + opcode);
+        };
+        If ifStmt = new If(new ConditionExp(op, v1, v2));
+        jumpStmts.put(insn, ifStmt);
+        addStmt(ifStmt);
+    }
+
+    private FieldRef getFieldRef(AbstractInsnNode insn, boolean isStatic) {
+        FieldInsnNode field = (FieldInsnNode) insn;
+        return converter.convertFieldRef(field.owner, field.name,
+                field.desc, isStatic);
+    }
+
+    private void buildInvoke(AbstractInsnNode insn) {
+        InvokeExp invokeExp;
+        if (insn instanceof InvokeDynamicInsnNode indy) {
+            Handle bsm = indy.bsm;
+            MethodRef bootstrapMethodRef = converter.convertMethodRef(
+                    bsm.getOwner(), bsm.getName(), bsm.getDesc(),
+                    bsm.getTag() == H_INVOKESTATIC);
+            List<Literal> bootstrapArgs = Arrays.stream(indy.bsmArgs)
+                    .map(this::convertConstant)
+                    .toList();
+            invokeExp = new InvokeDynamic(bootstrapMethodRef, indy.name,
+                    convertMethodType(indy.desc), bootstrapArgs,
+                    getOperands(insn));
+        } else {
+            MethodInsnNode m = (MethodInsnNode) insn;
+            int opcode = m.getOpcode();
+            MethodRef methodRef = converter.convertMethodRef(
+                    m.owner, m.name, m.desc, opcode == INVOKESTATIC);
+            List<Var> args = getOperands(insn);
+            if (opcode == INVOKESTATIC) {
+                invokeExp = new InvokeStatic(methodRef, args);
+            } else {
+                Var base = args.get(0);
+                args = args.subList(1, args.size());
+                invokeExp = switch (opcode) {
+                    case INVOKEVIRTUAL -> new InvokeVirtual(methodRef, base, args);
+                    case INVOKEINTERFACE -> new InvokeInterface(methodRef, base, args);
+                    default -> new InvokeSpecial(methodRef, base, args);
+                };
+            }
+        }
+        // remove unused variables that receive invoke result
+        Var result = consumers.get(insn).isEmpty() ? null : getDefVar(insn);
+        addStmt(new Invoke(method, invokeExp, result));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.language.classes.Modifier;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.github.chaoswarzh.intellijtaie.util.collection.Maps.newConcurrentMap;
+
+/**
+ * Converts access flags in class files to {@link Modifier}s.
+ * Some flags share the same bit for different kinds of members,
+ * e.g., {@link Opcodes#ACC_VOLATILE} and {@link Opcodes#ACC_BRIDGE},
+ * thus the conversion depends on the kind of the member.
+ */
+class Modifiers {
+
+    private static final ConcurrentMap<Integer, Set<Modifier>> classModMap
+            = newConcurrentMap();
+
+    private static final ConcurrentMap<Integer, Set<Modifier>> fieldModMap
+            = newConcurrentMap();
+
+    private static final ConcurrentMap<Integer, Set<Modifier>> methodModMap
+            = newConcurrentMap();
+
+    private Modifiers() {
+    }
+
+    static Set<Modifier> convertClass(int access) {
+        return classModMap.computeIfAbsent(access, a -> {
+            Set<Modifier> result = convertCommon(a);
+            add(result, a, Opcodes.ACC_INTERFACE, Modifier.INTERFACE);
+            add(result, a, Opcodes.ACC_ABSTRACT, Modifier.ABSTRACT);
+            add(result, a, Opcodes.ACC_ANNOTATION, Modifier.ANNOTATION);
+            add(result, a, Opcodes.ACC_ENUM, Modifier.ENUM);
+            return Collections.unmodifiableSet(result);
+        });
+    }
+
+    static Set<Modifier> convertField(int access) {
+        return fieldModMap.computeIfAbsent(access, a -> {
+            Set<Modifier> result = convertCommon(a);
+            add(result, a, Opcodes.ACC_VOLATILE, Modifier.VOLATILE);
+            add(result, a, Opcodes.ACC_TRANSIENT, Modifier.TRANSIENT);
+            add(result, a, Opcodes.ACC_ENUM, Modifier.ENUM);
+            return Collections.unmodifiableSet(result);
+        });
+    }
+
+    static Set<Modifier> convertMethod(int access) {
+        return methodModMap.computeIfAbsent(access, a -> {
+            Set<Modifier> result = convertCommon(a);
+            add(result, a, Opcodes.ACC_SYNCHRONIZED, Modifier.SYNCHRONIZED);
+            add(result, a, Opcodes.ACC_BRIDGE, Modifier.BRIDGE);
+            add(result, a, Opcodes.ACC_VARARGS, Modifier.VARARGS);
+            add(result, a, Opcodes.ACC_NATIVE, Modifier.NATIVE);
+            add(result, a, Opcodes.ACC_ABSTRACT, Modifier.ABSTRACT);
+            add(result, a, Opcodes.ACC_STRICT, Modifier.STRICTFP);
+            return Collections.unmodifiableSet(result);
+        });
+    }
+
+    /**
+     * Converts the flags which have the same meaning for all kinds of members.
+     */
+    private static Set<Modifier> convertCommon(int access) {
+        Set<Modifier> result = EnumSet.noneOf(Modifier.class);
+        add(result, access, Opcodes.ACC_PUBLIC, Modifier.PUBLIC);
+        add(result, access, Opcodes.ACC_PRIVATE, Modifier.PRIVATE);
+        add(result, access, Opcodes.ACC_PROTECTED, Modifier.PROTECTED);
+        add(result, access, Opcodes.ACC_STATIC, Modifier.STATIC);
+        add(result, access, Opcodes.ACC_FINAL, Modifier.FINAL);
+        add(result, access, Opcodes.ACC_SYNTHETIC, Modifier.SYNTHETIC);
+        return result;
+    }
+
+    private static void add(Set<Modifier> result, int access,
+                            int flag, Modifier modifier) {
+        if ((access & flag) != 0) {
+            result.add(modifier);
+        }
+    }
+}
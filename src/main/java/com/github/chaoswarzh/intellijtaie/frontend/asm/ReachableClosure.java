@@ -0,0 +1,198 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import com.github.chaoswarzh.intellijtaie.ir.exp.InvokeDynamic;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Literal;
+import com.github.chaoswarzh.intellijtaie.ir.exp.MethodHandle;
+import com.github.chaoswarzh.intellijtaie.ir.exp.NewInstance;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.FieldRef;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.MethodRef;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.FieldStmt;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Invoke;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassNames;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Computes the methods reachable from given entry methods by rapid type
+ * analysis (RTA), i.e., a virtual call is dispatched to the classes that
+ * are instantiated in reachable methods. As the {@link AsmClassLoader}
+ * loads classes on demand, computing the closure loads exactly the classes
+ * referenced by the reachable methods, instead of all classes referenced
+ * by the class path.
+ * <p>
+ * The closure is an approximation used to populate the world before
+ * analyses start (e.g., it does not model reflection or native code),
+ * and the classes that are missed are still loaded on demand later.
+ */
+final class ReachableClosure {
+
+    private final ClassHierarchy hierarchy;
+
+    private final Set<JMethod> reachableMethods = Sets.newSet(4096);
+
+    private final Deque<JMethod> workList = new ArrayDeque<>();
+
+    private final Set<JClass> initializedClasses = Sets.newSet();
+
+    private final Set<JClass> instantiatedClasses = Sets.newSet();
+
+    /**
+     * Instantiated classes, grouped by their (direct and indirect)
+     * super types, including themselves.
+     */
+    private final MultiMap<JClass, JClass> instantiatedSubtypes = Maps.newMultiMap();
+
+    /**
+     * Virtual call sites, grouped by the declaring classes of their
+     * method references.
+     */
+    private final MultiMap<JClass, MethodRef> virtualCalls = Maps.newMultiMap();
+
+    private ReachableClosure(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Computes the closure from {@code entries}, which loads the classes
+     * required by the reachable methods into {@code hierarchy}.
+     *
+     * @return the reachable methods.
+     */
+    static Set<JMethod> compute(ClassHierarchy hierarchy,
+                                Collection<JMethod> entries) {
+        ReachableClosure closure = new ReachableClosure(hierarchy);
+        // string constants are instances of String
+        closure.instantiate(hierarchy.getJREClass(ClassNames.STRING));
+        entries.forEach(closure::addReachable);
+        closure.solve();
+        return closure.reachableMethods;
+    }
+
+    private void solve() {
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (method.isAbstract()) {
+                continue;
+            }
+            for (Stmt stmt : method.getTransientIR()) {
+                if (stmt instanceof New newStmt) {
+                    if (newStmt.getRValue() instanceof NewInstance newInstance) {
+                        instantiate(newInstance.getType().getJClass());
+                    }
+                } else if (stmt instanceof Invoke invoke) {
+                    processInvoke(invoke);
+                } else if (stmt instanceof FieldStmt<?, ?> fieldStmt
+                        && fieldStmt.isStatic()) {
+                    FieldRef ref = fieldStmt.getFieldRef();
+                    initialize(ref.getDeclaringClass());
+                }
+            }
+        }
+    }
+
+    private void processInvoke(Invoke invoke) {
+        if (invoke.isDynamic()) {
+            InvokeDynamic indy = (InvokeDynamic) invoke.getInvokeExp();
+            addReachable(indy.getBootstrapMethodRef().resolveNullable());
+            // the targets of method handles (e.g., the bodies of lambdas)
+            for (Literal arg : indy.getBootstrapArgs()) {
+                if (arg instanceof MethodHandle handle && handle.isMethodRef()) {
+                    MethodRef ref = handle.getMethodRef();
+                    initialize(ref.getDeclaringClass());
+                    addReachable(ref.resolveNullable());
+                }
+            }
+        } else if (invoke.isStatic() || invoke.isSpecial()) {
+            MethodRef ref = invoke.getMethodRef();
+            if (invoke.isStatic()) {
+                initialize(ref.getDeclaringClass());
+            }
+            addReachable(ref.resolveNullable());
+        } else { // virtual or interface call
+            MethodRef ref = invoke.getMethodRef();
+            JClass declaringClass = ref.getDeclaringClass();
+            if (virtualCalls.put(declaringClass, ref)) {
+                for (JClass cls : instantiatedSubtypes.get(declaringClass)) {
+                    addReachable(hierarchy.dispatch(cls, ref));
+                }
+            }
+        }
+    }
+
+    private void instantiate(@Nullable JClass cls) {
+        if (cls == null || !instantiatedClasses.add(cls)) {
+            return;
+        }
+        initialize(cls);
+        // dispatch the virtual calls on the super types of cls
+        Deque<JClass> superTypes = new ArrayDeque<>();
+        Set<JClass> visited = Sets.newSet();
+        superTypes.add(cls);
+        while (!superTypes.isEmpty()) {
+            JClass superType = superTypes.poll();
+            if (!visited.add(superType)) {
+                continue;
+            }
+            instantiatedSubtypes.put(superType, cls);
+            for (MethodRef ref : virtualCalls.get(superType)) {
+                addReachable(hierarchy.dispatch(cls, ref));
+            }
+            if (superType.getSuperClass() != null) {
+                superTypes.add(superType.getSuperClass());
+            }
+            superTypes.addAll(superType.getInterfaces());
+        }
+    }
+
+    /**
+     * Makes the static initializers of {@code cls} and its super classes
+     * reachable.
+     */
+    private void initialize(@Nullable JClass cls) {
+        while (cls != null && initializedClasses.add(cls)) {
+            addReachable(cls.getClinit());
+            cls = cls.getSuperClass();
+        }
+    }
+
+    private void addReachable(@Nullable JMethod method) {
+        if (method != null && reachableMethods.add(method)) {
+            workList.add(method);
+        }
+    }
+}
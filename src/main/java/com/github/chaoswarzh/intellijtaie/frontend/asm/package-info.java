@@ -21,6 +21,8 @@
  */
 
 /**
- * TODO: We'll add another frontend implemented based on ASM
+ * Frontend implemented based on ASM, which reads class files directly
+ * and loads classes on demand. Use it by option
+ * {@code --world-builder com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder}.
  */
 package com.github.chaoswarzh.intellijtaie.frontend.asm;
@@ -30,8 +30,12 @@ import com.github.chaoswarzh.intellijtaie.config.AnalysisConfig;
 import com.github.chaoswarzh.intellijtaie.config.Options;
 import com.github.chaoswarzh.intellijtaie.util.Timer;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -44,6 +48,13 @@ public class CachedWorldBuilder implements WorldBuilder {
 
     private static final String CACHE_DIR = "cache";
 
+    /**
+     * The options whose world cache hash has been computed, and the hash.
+     */
+    private static Options hashedOptions;
+
+    private static String worldCacheHash;
+
     private final WorldBuilder delegate;
 
     public CachedWorldBuilder(WorldBuilder delegate) {
@@ -74,11 +85,8 @@ public class CachedWorldBuilder implements WorldBuilder {
         logger.info("Loading the world cache from {}", worldCacheFile);
         Timer timer = new Timer("Load the world cache");
         timer.start();
-        ObjectInputStream ois = null;
         try {
-            ois = new ObjectInputStream(
-                    new BufferedInputStream(new FileInputStream(worldCacheFile)));
-            World world = (World) ois.readObject();
+            World world = WorldCacheFile.load(worldCacheFile);
             World.set(world);
             world.setOptions(options);
             return true;
@@ -86,13 +94,6 @@ public class CachedWorldBuilder implements WorldBuilder {
             logger.error("Failed to load world cache from {} due to {}",
                     worldCacheFile, e);
         } finally {
-            if (ois != null) {
-                try {
-                    ois.close();
-                } catch (Exception e) {
-                    logger.error("Failed to close input stream", e);
-                }
-            }
             timer.stop();
             logger.info(timer);
         }
@@ -112,58 +113,79 @@ public class CachedWorldBuilder implements WorldBuilder {
         logger.info("Saving the world cache to {}", worldCacheFile);
         Timer timer = new Timer("Save the world cache");
         timer.start();
-        ObjectOutputStream oos = null;
         try {
-            oos = new ObjectOutputStream(
-                    new BufferedOutputStream(new FileOutputStream(worldCacheFile)));
-            oos.writeObject(World.get());
-            oos.close();
+            WorldCacheFile.save(World.get(), worldCacheFile);
         } catch (Exception e) {
             logger.error("Failed to save world cache from {} due to {}",
                     worldCacheFile, e);
         } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (Exception e) {
-                    logger.error("Failed to close output stream", e);
-                }
-            }
             timer.stop();
             logger.info(timer);
         }
     }
 
     public static File getWorldCacheFile(Options options) {
-        File cacheDir = new File(CACHE_DIR);
-        if (!cacheDir.exists()) {
-            cacheDir.mkdirs();
-        }
-        return new File(cacheDir,
+        return new File(getCacheDir(),
                 "world-cache-" + getWorldCacheHash(options) + ".bin").getAbsoluteFile();
     }
 
-    private static int getWorldCacheHash(Options options) {
-        int result = options.getMainClass() != null
-                ? options.getMainClass().hashCode() : 0;
-        result = 31 * result + (options.getInputClasses() != null
-                ? options.getInputClasses().hashCode() : 0);
-        result = 31 * result + options.getJavaVersion();
-        result = 31 * result + (options.isPrependJVM() ? 1 : 0);
-        result = 31 * result + (options.isAllowPhantom() ? 1 : 0);
-        result = 31 * result + (options.getWorldBuilderClass() != null
-                ? options.getWorldBuilderClass().getName().hashCode() : 0);
-        // add the timestamp to the cache key calculation
+    /**
+     * @return the hash of the options that affect world building and
+     * the contents of the class path entries. The class path is assumed
+     * not to change during a run, thus the hash is computed only once
+     * for the same options.
+     */
+    public static synchronized String getWorldCacheHash(Options options) {
+        if (options != hashedOptions) {
+            worldCacheHash = computeWorldCacheHash(options);
+            hashedOptions = options;
+        }
+        return worldCacheHash;
+    }
+
+    private static String computeWorldCacheHash(Options options) {
+        StringBuilder key = new StringBuilder();
+        key.append(options.getMainClass()).append('\n')
+                .append(options.getInputClasses()).append('\n')
+                .append(options.getJavaVersion()).append('\n')
+                .append(options.isPrependJVM()).append('\n')
+                .append(options.isAllowPhantom()).append('\n')
+                .append(options.getWorldBuilderClass() != null
+                        ? options.getWorldBuilderClass().getName() : null)
+                .append('\n');
+        if (options.isPrependJVM()) {
+            // the classes of current JVM are part of the world
+            key.append(System.getProperty("java.home")).append(' ')
+                    .append(System.getProperty("java.runtime.version"))
+                    .append('\n');
+        }
+        ClassPathManifest manifest = ClassPathManifest.load(getCacheDir());
         List<String> paths = new ArrayList<>();
         paths.addAll(options.getClassPath());
         paths.addAll(options.getAppClassPath());
         for (String path : paths) {
             File file = new File(path);
             if (file.exists()) {
-                result = 31 * result + (int) file.lastModified();
+                try {
+                    key.append(manifest.digest(file));
+                } catch (IOException e) {
+                    logger.warn("Failed to compute the digest of {}", file, e);
+                    key.append('?');
+                }
             }
+            key.append('\n');
+        }
+        manifest.save();
+        MessageDigest digest = ClassPathManifest.newDigest();
+        return HexFormat.of().formatHex(digest.digest(
+                key.toString().getBytes(StandardCharsets.UTF_8)), 0, 8);
+    }
+
+    private static File getCacheDir() {
+        File cacheDir = new File(CACHE_DIR);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
         }
-        result = Math.abs(result);
-        return result;
+        return cacheDir;
     }
 }
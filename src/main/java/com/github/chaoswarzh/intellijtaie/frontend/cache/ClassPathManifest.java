@@ -0,0 +1,190 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Computes the content digests of class path entries, i.e., jar files and
+ * class directories, and memorizes the digest of each file in a manifest
+ * in the cache directory. A file is re-hashed only when its size or
+ * modification time differs from the manifest, so that touching a file
+ * (e.g., by a checkout) costs one re-hashing, but never invalidates the
+ * caches that are keyed by the digests.
+ */
+final class ClassPathManifest {
+
+    private static final Logger logger = LogManager.getLogger(ClassPathManifest.class);
+
+    private static final String MANIFEST_FILE = "classpath-manifest.txt";
+
+    private final File file;
+
+    /**
+     * Maps absolute file path to its entry.
+     */
+    private final Map<String, Entry> entries;
+
+    private boolean changed = false;
+
+    private ClassPathManifest(File file, Map<String, Entry> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    static ClassPathManifest load(File cacheDir) {
+        File file = new File(cacheDir, MANIFEST_FILE);
+        Map<String, Entry> entries = Maps.newMap();
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(
+                    file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // path may contain tabs, so split from the end
+                    int i3 = line.lastIndexOf('\t');
+                    int i2 = line.lastIndexOf('\t', i3 - 1);
+                    int i1 = line.lastIndexOf('\t', i2 - 1);
+                    if (i1 < 0) {
+                        continue;
+                    }
+                    entries.put(line.substring(0, i1), new Entry(
+                            Long.parseLong(line.substring(i1 + 1, i2)),
+                            Long.parseLong(line.substring(i2 + 1, i3)),
+                            line.substring(i3 + 1)));
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to read class path manifest {}, ignore it",
+                        file, e);
+                entries.clear();
+            }
+        }
+        return new ClassPathManifest(file, entries);
+    }
+
+    /**
+     * @return the digest of given class path entry. For a directory,
+     * the digest covers the relative paths and contents of all files in it.
+     */
+    String digest(File path) throws IOException {
+        if (!path.isDirectory()) {
+            return digestFile(path.toPath());
+        }
+        Path root = path.toPath();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+        MessageDigest digest = newDigest();
+        for (Path p : files) {
+            digest.update(root.relativize(p).toString()
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(digestFile(p).getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String digestFile(Path path) throws IOException {
+        String key = path.toAbsolutePath().toString();
+        BasicFileAttributes attrs = Files.readAttributes(
+                path, BasicFileAttributes.class);
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size() == size
+                && entry.lastModified() == lastModified) {
+            return entry.digest();
+        }
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        String result = HexFormat.of().formatHex(digest.digest());
+        entries.put(key, new Entry(size, lastModified, result));
+        changed = true;
+        return result;
+    }
+
+    /**
+     * Saves the manifest if any entry has been (re-)hashed.
+     */
+    void save() {
+        if (!changed) {
+            return;
+        }
+        try {
+            // write to a temporary file and then move it, so that
+            // concurrent runs never see a partially-written manifest
+            File tmp = File.createTempFile(MANIFEST_FILE, null, file.getParentFile());
+            try (BufferedWriter writer = Files.newBufferedWriter(
+                    tmp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    writer.write(e.getKey() + '\t' + entry.size() + '\t'
+                            + entry.lastModified() + '\t' + entry.digest());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } catch (IOException e) {
+            logger.warn("Failed to save class path manifest {}", file, e);
+        }
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every implementation of the Java platform supports SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    private record Entry(long size, long lastModified, String digest) {
+    }
+}
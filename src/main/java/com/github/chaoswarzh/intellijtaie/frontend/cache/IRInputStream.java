@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+
+/**
+ * Reads the IR of a method from a record written by {@link IROutputStream},
+ * and resolves the class descriptors and the program elements in the
+ * record against the shared {@link IRTables}.
+ */
+class IRInputStream extends ObjectInputStream {
+
+    private final IRTables tables;
+
+    IRInputStream(InputStream in, IRTables tables) throws IOException {
+        super(in);
+        this.tables = tables;
+        enableResolveObject(true);
+    }
+
+    @Override
+    protected void readStreamHeader() {
+        // records do not have stream headers
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor()
+            throws IOException, ClassNotFoundException {
+        return tables.getClassDescriptor(readInt());
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+            throws IOException, ClassNotFoundException {
+        // the descriptors in class table have been resolved
+        Class<?> c = desc.forClass();
+        if (c == null) {
+            throw new InvalidClassException(desc.getName(), "unresolved class");
+        }
+        return c;
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) throws IOException {
+        if (obj instanceof IRTables.ElementRef ref) {
+            Object element = tables.getElement(ref.index());
+            if (element == null) {
+                throw new StreamCorruptedException(
+                        "Invalid element index: " + ref.index());
+            }
+            return element;
+        }
+        return obj;
+    }
+}
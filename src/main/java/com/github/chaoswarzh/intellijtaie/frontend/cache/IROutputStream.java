@@ -0,0 +1,240 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the IRs of methods as a sequence of records, each of which can
+ * be decoded separately by {@link IRInputStream}. All records are written
+ * by this single stream and share two tables, which are written by
+ * {@link #writeTables(OutputStream)} after the records:
+ * <ul>
+ *     <li>class table: the class descriptors, which are written in
+ *     the records as their indexes in the table;</li>
+ *     <li>element table: the program elements in the IRs (see
+ *     {@link SymbolicRef}), which are written in the records as their
+ *     indexes in the table (see {@link IRTables.ElementRef}).</li>
+ * </ul>
+ * The records do not have stream headers, and this stream is reset
+ * after each record, so that a record does not refer to the objects
+ * in other records.
+ *
+ * @see IRTables
+ */
+class IROutputStream extends ObjectOutputStream {
+
+    private final CountingOutputStream out;
+
+    private final Map<Class<?>, Integer> classIndexes = new IdentityHashMap<>();
+
+    private final List<ObjectStreamClass> classes = new ArrayList<>();
+
+    private final Map<Object, IRTables.ElementRef> elementRefs = new IdentityHashMap<>();
+
+    /**
+     * Buffer of the element table, which is written by a single stream,
+     * so that the strings and the elements shared by different entries
+     * are written only once.
+     */
+    private final ByteArrayOutputStream elementBuffer = new ByteArrayOutputStream(8192);
+
+    private final ElementOutputStream elementOut;
+
+    IROutputStream(OutputStream out, ClassHierarchy hierarchy) throws IOException {
+        this(new CountingOutputStream(out), hierarchy);
+    }
+
+    private IROutputStream(CountingOutputStream out, ClassHierarchy hierarchy)
+            throws IOException {
+        super(out);
+        this.out = out;
+        this.elementOut = new ElementOutputStream(elementBuffer, hierarchy);
+        enableReplaceObject(true);
+    }
+
+    /**
+     * @return the number of bytes written to the underlying stream,
+     * i.e., the offset of the next record.
+     */
+    long size() throws IOException {
+        flush();
+        return out.count;
+    }
+
+    /**
+     * Writes {@code ir} as a record at {@link #size()}.
+     *
+     * @return the size of the record.
+     */
+    int writeIR(IR ir) throws IOException {
+        long start = size();
+        writeObject(ir);
+        long length = size() - start;
+        // records are decoded separately
+        reset();
+        return (int) length;
+    }
+
+    /**
+     * Writes the class table and the element table of the records
+     * that have been written.
+     */
+    void writeTables(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(classes.size());
+        for (ObjectStreamClass desc : classes) {
+            dos.writeUTF(desc.getName());
+            dos.writeLong(desc.getSerialVersionUID());
+        }
+        elementOut.flush();
+        dos.writeInt(elementRefs.size());
+        elementBuffer.writeTo(dos);
+        dos.flush();
+    }
+
+    @Override
+    protected void writeStreamHeader() {
+        // records do not have stream headers
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+        Integer index = classIndexes.get(desc.forClass());
+        if (index == null) {
+            index = classes.size();
+            classes.add(desc);
+            classIndexes.put(desc.forClass(), index);
+        }
+        writeInt(index);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) throws IOException {
+        IRTables.ElementRef ref = elementRefs.get(obj);
+        if (ref == null) {
+            SymbolicRef symbolicRef = elementOut.getSymbolicRef(obj);
+            if (symbolicRef == null) {
+                return obj;
+            }
+            ref = new IRTables.ElementRef(elementRefs.size());
+            elementRefs.put(obj, ref);
+            // write the element now, so that the classes referenced by it
+            // are loaded along with the records
+            elementOut.writeObject(symbolicRef);
+        }
+        return ref;
+    }
+
+    /**
+     * Writes the entries of the element table, and replaces the program
+     * elements in the entries by {@link SymbolicRef}s.
+     */
+    private static class ElementOutputStream extends ObjectOutputStream {
+
+        private final ClassHierarchy hierarchy;
+
+        /**
+         * Caches the replaced references, so that each program element
+         * is written only once in the table.
+         */
+        private final Map<Object, SymbolicRef> refs = new IdentityHashMap<>();
+
+        private ElementOutputStream(OutputStream out, ClassHierarchy hierarchy)
+                throws IOException {
+            super(out);
+            this.hierarchy = hierarchy;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof SymbolicRef) {
+                return obj;
+            }
+            SymbolicRef ref = getSymbolicRef(obj);
+            return ref != null ? ref : obj;
+        }
+
+        /**
+         * @return the symbolic reference of {@code obj}, or {@code null}
+         * if {@code obj} is not a program element.
+         */
+        private SymbolicRef getSymbolicRef(Object obj) throws IOException {
+            SymbolicRef ref = refs.get(obj);
+            if (ref == null) {
+                if (obj instanceof ClassType classType) {
+                    WorldCacheFile.loadClass(classType);
+                }
+                ref = SymbolicRef.of(obj, hierarchy);
+                if (ref != null) {
+                    refs.put(obj, ref);
+                }
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * Counts the bytes written to the underlying stream. It does not
+     * flush the underlying stream, which is flushed by its owner.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * The class table and the element table shared by the IR records
+ * of a world cache file (see {@link IROutputStream}).
+ * The class table is resolved when the tables are read, and the element
+ * table is decoded and resolved against the loaded world when an element
+ * is requested for the first time, i.e., when the first IR is decoded.
+ */
+class IRTables {
+
+    /**
+     * Reference to an entry of the element table, which is written
+     * in the IR records in place of the program element.
+     */
+    record ElementRef(int index) implements Serializable {
+    }
+
+    private final ObjectStreamClass[] classes;
+
+    /**
+     * The encoded element table.
+     */
+    private final ByteBuffer elementTable;
+
+    private final int nElements;
+
+    private final ClassHierarchy hierarchy;
+
+    private final TypeSystem typeSystem;
+
+    private volatile Object[] elements;
+
+    private IRTables(ObjectStreamClass[] classes, ByteBuffer elementTable,
+                     int nElements, ClassHierarchy hierarchy,
+                     TypeSystem typeSystem) {
+        this.classes = classes;
+        this.elementTable = elementTable;
+        this.nElements = nElements;
+        this.hierarchy = hierarchy;
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * Reads the tables written by {@link IROutputStream#writeTables}.
+     */
+    static IRTables read(ByteBuffer section, ClassHierarchy hierarchy,
+                         TypeSystem typeSystem)
+            throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(
+                new MappedIRBuilder.ByteBufferInputStream(section));
+        ObjectStreamClass[] classes = new ObjectStreamClass[in.readInt()];
+        for (int i = 0; i < classes.length; ++i) {
+            String name = in.readUTF();
+            long suid = in.readLong();
+            Class<?> c = Class.forName(name, false, IRTables.class.getClassLoader());
+            ObjectStreamClass desc = ObjectStreamClass.lookup(c);
+            if (desc == null || desc.getSerialVersionUID() != suid) {
+                throw new InvalidClassException(name,
+                        "incompatible with the class in the world cache");
+            }
+            classes[i] = desc;
+        }
+        int nElements = in.readInt();
+        // the rest of the section is the encoded element table
+        return new IRTables(classes, section.slice(), nElements,
+                hierarchy, typeSystem);
+    }
+
+    ObjectStreamClass getClassDescriptor(int index) throws IOException {
+        if (index < 0 || index >= classes.length) {
+            throw new StreamCorruptedException("Invalid class index: " + index);
+        }
+        return classes[index];
+    }
+
+    /**
+     * @return the program element at {@code index} of the element table,
+     * or {@code null} if {@code index} is out of the table.
+     */
+    Object getElement(int index) throws IOException {
+        Object[] elements = this.elements;
+        if (elements == null) {
+            elements = decodeElements();
+        }
+        return index >= 0 && index < elements.length ? elements[index] : null;
+    }
+
+    private synchronized Object[] decodeElements() throws IOException {
+        if (elements == null) {
+            Object[] result = new Object[nElements];
+            try (ElementInputStream in = new ElementInputStream(
+                    new MappedIRBuilder.ByteBufferInputStream(
+                            elementTable.duplicate()))) {
+                for (int i = 0; i < nElements; ++i) {
+                    result[i] = in.readObject();
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Failed to decode element table", e);
+            }
+            elements = result;
+        }
+        return elements;
+    }
+
+    /**
+     * Reads the entries of the element table, and resolves
+     * the {@link SymbolicRef}s against the loaded world.
+     */
+    private class ElementInputStream extends ObjectInputStream {
+
+        private ElementInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            return obj instanceof SymbolicRef ref
+                    ? ref.resolve(hierarchy, typeSystem) : obj;
+        }
+    }
+}
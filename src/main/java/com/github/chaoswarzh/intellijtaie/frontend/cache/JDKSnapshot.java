@@ -0,0 +1,129 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.ir.IRBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Snapshot of the world that consists of only JDK classes. As the JDK
+ * portion of the world is identical for all programs analyzed on the same
+ * JDK, it can be built once and shared by all runs, and the world builder
+ * layers application classes on top of the loaded snapshot.
+ * <p>
+ * The snapshot is stored in the format of the world cache
+ * (see {@link WorldCacheFile}), thus the IR section is memory-mapped
+ * read-only and can be shared by concurrent analysis processes.
+ */
+public final class JDKSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(JDKSnapshot.class);
+
+    private static final String CACHE_DIR = "cache";
+
+    private JDKSnapshot() {
+    }
+
+    /**
+     * @param jdkPaths the class path entries of the JDK, empty if the JDK
+     *                 is the run-time image of current JVM.
+     * @return the snapshot file for the JDK specified by given arguments.
+     */
+    public static File getSnapshotFile(Options options, List<String> jdkPaths) {
+        StringBuilder key = new StringBuilder();
+        key.append(options.getJavaVersion()).append('\n')
+                .append(options.isPrependJVM()).append('\n')
+                .append(options.isAllowPhantom()).append('\n')
+                .append(options.enableNativeModel()).append('\n');
+        if (options.isPrependJVM()) {
+            key.append(System.getProperty("java.home")).append(' ')
+                    .append(System.getProperty("java.runtime.version"))
+                    .append('\n');
+        }
+        File cacheDir = new File(CACHE_DIR);
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        ClassPathManifest manifest = ClassPathManifest.load(cacheDir);
+        for (String path : jdkPaths) {
+            try {
+                key.append(manifest.digest(new File(path))).append('\n');
+            } catch (IOException e) {
+                logger.warn("Failed to compute the digest of {}", path, e);
+                key.append("?\n");
+            }
+        }
+        manifest.save();
+        MessageDigest digest = ClassPathManifest.newDigest();
+        String hash = HexFormat.of().formatHex(digest.digest(
+                key.toString().getBytes(StandardCharsets.UTF_8)), 0, 8);
+        return new File(cacheDir, "jdk-snapshot-" + hash + ".bin").getAbsoluteFile();
+    }
+
+    /**
+     * Saves the snapshot world to {@code file}. The snapshot is written to
+     * a temporary file first, so that concurrent processes never see
+     * a partially-written snapshot.
+     */
+    public static void save(World world, File file) throws IOException {
+        File tmp = File.createTempFile(file.getName(), null, file.getParentFile());
+        try {
+            WorldCacheFile.save(world, tmp);
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Loads the snapshot world from {@code file}. The IRs of the methods
+     * in the snapshot are decoded lazily.
+     */
+    public static World load(File file) throws IOException, ClassNotFoundException {
+        return WorldCacheFile.load(file);
+    }
+
+    /**
+     * @return the {@link IRBuilder} which provides the IRs of the methods
+     * in {@code snapshot}, and builds the IRs of other methods
+     * (i.e., the methods of the classes layered on the snapshot)
+     * by {@code irBuilder}.
+     */
+    public static IRBuilder layer(World snapshot, IRBuilder irBuilder) {
+        return ((MappedIRBuilder) snapshot.getIRBuilder()).withFallback(irBuilder);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.IRBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link IRBuilder} that decodes the {@link IR}s from the IR section
+ * of a (memory-mapped) world cache file. The IR of a method is decoded
+ * lazily when it is requested for the first time.
+ *
+ * @see WorldCacheFile
+ */
+class MappedIRBuilder implements IRBuilder {
+
+    /**
+     * The (memory-mapped) regions of the IR section of the world cache file.
+     */
+    private final List<ByteBuffer> regions;
+
+    /**
+     * Maps method signature to its IR in {@link #regions}.
+     */
+    private final Map<String, Section> index;
+
+    private final IRTables tables;
+
+    /**
+     * The builder for the methods whose IRs are absent in the cache.
+     */
+    @Nullable
+    private final IRBuilder fallback;
+
+    MappedIRBuilder(List<ByteBuffer> regions, Map<String, Section> index,
+                    IRTables tables, @Nullable IRBuilder fallback) {
+        this.regions = regions;
+        this.index = index;
+        this.tables = tables;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return a builder that decodes the same IRs as this builder, and
+     * builds the IRs of other methods by {@code fallback}.
+     */
+    MappedIRBuilder withFallback(IRBuilder fallback) {
+        return new MappedIRBuilder(regions, index, tables, fallback);
+    }
+
+    @Override
+    public IR buildIR(JMethod method) {
+        Section section = index.get(method.getSignature());
+        if (section == null) {
+            if (fallback != null) {
+                return fallback.buildIR(method);
+            }
+            throw new AnalysisException(
+                    "IR of " + method + " is absent in the world cache");
+        }
+        // slice() with absolute bounds does not touch the position of
+        // the region, so IRs can be decoded in parallel
+        ByteBuffer buffer = regions.get(section.region())
+                .slice(section.offset(), section.length());
+        try (IRInputStream in = new IRInputStream(
+                new ByteBufferInputStream(buffer), tables)) {
+            return (IR) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new AnalysisException(
+                    "Failed to decode IR of " + method + " from the world cache", e);
+        }
+    }
+
+    @Override
+    public void buildAll(ClassHierarchy hierarchy) {
+        IRPrebuilder.start(hierarchy).join();
+    }
+
+    /**
+     * Position of an IR in the regions of the IR section.
+     */
+    record Section(int region, int offset, int length) {
+    }
+
+    static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.FieldRef;
+import com.github.chaoswarzh.intellijtaie.ir.proginfo.MethodRef;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClassLoader;
+import com.github.chaoswarzh.intellijtaie.language.classes.JField;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.Subsignature;
+import com.github.chaoswarzh.intellijtaie.language.type.ArrayType;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.language.type.TypeSystem;
+
+import javax.annotation.Nullable;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Symbolic references to the program elements that are shared among
+ * the IRs of different methods, e.g., classes, methods and types.
+ * <p>
+ * The IR of each method is stored in the world cache separately, so
+ * instead of serializing these elements into every IR, we replace them
+ * by symbolic references on writing, and resolve the references
+ * against the loaded world on reading.
+ */
+sealed interface SymbolicRef extends Serializable {
+
+    /**
+     * @return the program element referenced by this reference.
+     */
+    Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem)
+            throws InvalidObjectException;
+
+    /**
+     * @return the symbolic reference of {@code obj}, or {@code null}
+     * if {@code obj} should be serialized as it is.
+     */
+    @Nullable
+    static SymbolicRef of(Object obj, ClassHierarchy hierarchy)
+            throws NotSerializableException {
+        if (obj instanceof JClass jclass) {
+            return new ClassRef(jclass.getName());
+        } else if (obj instanceof JMethod method) {
+            return new JMethodRef(method.getDeclaringClass(),
+                    method.getSubsignature().toString());
+        } else if (obj instanceof JField field) {
+            return new JFieldRef(field.getDeclaringClass(),
+                    field.getName(), field.getType());
+        } else if (obj instanceof ClassType classType) {
+            return new ClassTypeRef(classType.getClassLoader(),
+                    classType.getName());
+        } else if (obj instanceof ArrayType arrayType) {
+            return new ArrayTypeRef(arrayType.baseType(),
+                    arrayType.dimensions());
+        } else if (obj instanceof MethodRef methodRef) {
+            return new MethodRefRef(methodRef.getDeclaringClass(),
+                    methodRef.getName(), methodRef.getParameterTypes(),
+                    methodRef.getReturnType(), methodRef.isStatic());
+        } else if (obj instanceof FieldRef fieldRef) {
+            return new FieldRefRef(fieldRef.getDeclaringClass(),
+                    fieldRef.getName(), fieldRef.getType(), fieldRef.isStatic());
+        } else if (obj instanceof JClassLoader loader) {
+            if (loader == hierarchy.getDefaultClassLoader()) {
+                return LoaderRef.DEFAULT;
+            } else if (loader == hierarchy.getBootstrapClassLoader()) {
+                return LoaderRef.BOOTSTRAP;
+            } else {
+                throw new NotSerializableException(
+                        "Unknown class loader: " + loader);
+            }
+        } else {
+            return null;
+        }
+    }
+
+    enum LoaderRef implements SymbolicRef {
+
+        DEFAULT, BOOTSTRAP;
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem) {
+            return this == DEFAULT ? hierarchy.getDefaultClassLoader()
+                    : hierarchy.getBootstrapClassLoader();
+        }
+    }
+
+    record ClassRef(String name) implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem)
+                throws InvalidObjectException {
+            JClass jclass = hierarchy.getClass(name);
+            if (jclass == null) {
+                throw new InvalidObjectException("Class not found: " + name);
+            }
+            return jclass;
+        }
+    }
+
+    record JMethodRef(JClass declaringClass, String subsignature)
+            implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem)
+                throws InvalidObjectException {
+            JMethod method = declaringClass.getDeclaredMethod(
+                    Subsignature.get(subsignature));
+            if (method == null) {
+                throw new InvalidObjectException("Method not found: <"
+                        + declaringClass + ": " + subsignature + ">");
+            }
+            return method;
+        }
+    }
+
+    record JFieldRef(JClass declaringClass, String name, Type type)
+            implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem)
+                throws InvalidObjectException {
+            JField field = declaringClass.getDeclaredField(name, type);
+            if (field == null) {
+                throw new InvalidObjectException("Field not found: <"
+                        + declaringClass + ": " + type + " " + name + ">");
+            }
+            return field;
+        }
+    }
+
+    record ClassTypeRef(JClassLoader loader, String name)
+            implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem) {
+            return typeSystem.getClassType(loader, name);
+        }
+    }
+
+    record ArrayTypeRef(Type baseType, int dimensions)
+            implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem) {
+            return typeSystem.getArrayType(baseType, dimensions);
+        }
+    }
+
+    record MethodRefRef(JClass declaringClass, String name,
+                        List<Type> parameterTypes, Type returnType,
+                        boolean isStatic) implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem) {
+            return MethodRef.get(declaringClass, name,
+                    parameterTypes, returnType, isStatic);
+        }
+    }
+
+    record FieldRefRef(JClass declaringClass, String name,
+                       Type type, boolean isStatic) implements SymbolicRef {
+
+        @Override
+        public Object resolve(ClassHierarchy hierarchy, TypeSystem typeSystem) {
+            return FieldRef.get(declaringClass, name, type, isStatic);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.ArrayType;
+import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Reads and writes the world cache file, which consists of five sections:
+ * <ol>
+ *     <li>header: magic number, format version and the offsets
+ *     of the other sections;</li>
+ *     <li>IR: the IR of each method, written as a separate record
+ *     by {@link IROutputStream};</li>
+ *     <li>tables: the class table and the element table shared
+ *     by the IR records (see {@link IRTables});</li>
+ *     <li>world: the serialized {@link World} without method IRs;</li>
+ *     <li>index: the signature, offset and length of each IR.</li>
+ * </ol>
+ * The IR and table sections precede the world section, as building and
+ * writing IRs may load new classes (e.g., by the frontends which load
+ * classes on demand), and the world section must include these classes.
+ * <p>
+ * On loading, the IR section is memory-mapped and the IRs are decoded
+ * lazily by {@link MappedIRBuilder}, thus the methods that are never
+ * analyzed cost nothing but the index entries. As a mapped buffer is
+ * indexed by {@code int}, the IR section is mapped in several regions
+ * of at most 2GB, and each IR lies in a single region.
+ * <p>
+ * The IR records refer to the class descriptors and the program elements
+ * by their indexes in the shared tables, thus each class descriptor,
+ * program element and the strings in it are written only once in the file.
+ * Note that the world section is still written by {@link ObjectOutputStream},
+ * thus it must be fully deserialized on loading, and only the decoding
+ * of IRs is deferred.
+ */
+final class WorldCacheFile {
+
+    private static final int MAGIC = 0x54414957; // "TAIW"
+
+    private static final int VERSION = 5;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 * 5;
+
+    /**
+     * Number of IRs that are built in parallel and then written together.
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Maximum size of a memory-mapped region of the IR section.
+     */
+    private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+    private WorldCacheFile() {
+    }
+
+    static void save(World world, File file) throws IOException {
+        ClassHierarchy hierarchy = world.getClassHierarchy();
+        try (FileChannel channel = FileChannel.open(
+                file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+            BufferedOutputStream out = new BufferedOutputStream(
+                    Channels.newOutputStream(channel.position(HEADER_SIZE)));
+            // IR section
+            List<IndexEntry> entries = new ArrayList<>();
+            // closing irOut would close the channel
+            IROutputStream irOut = new IROutputStream(out, hierarchy);
+            Set<JClass> visited = Sets.newSet();
+            List<JMethod> newMethods;
+            // repeat until building IRs does not load new classes
+            while (!(newMethods = getNewMethods(hierarchy, visited)).isEmpty()) {
+                for (int i = 0; i < newMethods.size(); i += BATCH_SIZE) {
+                    List<JMethod> batch = newMethods.subList(
+                            i, Math.min(i + BATCH_SIZE, newMethods.size()));
+                    // the IRs are not pinned, so that at most one batch
+                    // of IRs is held in memory besides the IR cache
+                    List<IR> irs = batch.parallelStream()
+                            .map(JMethod::getTransientIR)
+                            .toList();
+                    for (int j = 0; j < batch.size(); ++j) {
+                        long offset = irOut.size();
+                        int length = irOut.writeIR(irs.get(j));
+                        entries.add(new IndexEntry(
+                                batch.get(j).getSignature(), offset, length));
+                    }
+                }
+            }
+            irOut.flush();
+            out.flush();
+            long tablesOffset = channel.position();
+            // tables section
+            irOut.writeTables(out);
+            out.flush();
+            long worldOffset = channel.position();
+            // world section
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(world);
+            oos.flush();
+            long indexOffset = channel.position();
+            // index section
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeInt(entries.size());
+            for (IndexEntry entry : entries) {
+                byte[] sig = entry.signature().getBytes(StandardCharsets.UTF_8);
+                dos.writeInt(sig.length);
+                dos.write(sig);
+                dos.writeLong(entry.offset());
+                dos.writeInt(entry.length());
+            }
+            dos.flush();
+            long end = channel.position();
+            // header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(HEADER_SIZE)
+                    .putLong(tablesOffset)
+                    .putLong(worldOffset)
+                    .putLong(indexOffset)
+                    .putLong(end)
+                    .flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * @return the methods (that have IR) of the classes not in
+     * {@code visited}, and adds these classes to {@code visited}.
+     */
+    private static List<JMethod> getNewMethods(
+            ClassHierarchy hierarchy, Set<JClass> visited) {
+        // collect the classes before loading new ones
+        List<JClass> newClasses = hierarchy.allClasses()
+                .filter(visited::add)
+                .toList();
+        newClasses.forEach(WorldCacheFile::loadSignatureClasses);
+        return newClasses.stream()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+    }
+
+    /**
+     * Loads the classes of the types in the signatures of the members
+     * of {@code jclass}.
+     */
+    private static void loadSignatureClasses(JClass jclass) {
+        jclass.getDeclaredFields().forEach(f -> loadClass(f.getType()));
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            method.getParamTypes().forEach(WorldCacheFile::loadClass);
+            loadClass(method.getReturnType());
+            method.getExceptions().forEach(WorldCacheFile::loadClass);
+        }
+    }
+
+    /**
+     * Loads the class of {@code type} (or the element class if
+     * {@code type} is an array type), if it has not been loaded.
+     * The frontends which load classes on demand cannot load classes
+     * after the world is deserialized, thus all classes referenced by
+     * the world and the IRs must be loaded before writing the world section.
+     */
+    static void loadClass(Type type) {
+        if (type instanceof ArrayType arrayType) {
+            type = arrayType.baseType();
+        }
+        if (type instanceof ClassType classType) {
+            classType.getJClass();
+        }
+    }
+
+    static World load(File file) throws IOException, ClassNotFoundException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            ByteBuffer header = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Incompatible world cache format");
+            }
+            long irOffset = header.getLong();
+            long tablesOffset = header.getLong();
+            long worldOffset = header.getLong();
+            long indexOffset = header.getLong();
+            long end = header.getLong();
+            // world section
+            ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(worldOffset))));
+            World world = (World) ois.readObject();
+            // index section
+            ByteBuffer indexSection = channel.map(FileChannel.MapMode.READ_ONLY,
+                    indexOffset, end - indexOffset);
+            int size = indexSection.getInt();
+            List<IndexEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                byte[] sig = new byte[indexSection.getInt()];
+                indexSection.get(sig);
+                entries.add(new IndexEntry(new String(sig, StandardCharsets.UTF_8),
+                        indexSection.getLong(), indexSection.getInt()));
+            }
+            // tables section
+            if (worldOffset - tablesOffset > MAX_REGION_SIZE) {
+                throw new IOException("Tables section of world cache exceeds 2GB");
+            }
+            IRTables tables = IRTables.read(channel.map(FileChannel.MapMode.READ_ONLY,
+                            tablesOffset, worldOffset - tablesOffset),
+                    world.getClassHierarchy(), world.getTypeSystem());
+            // IR section, which remains mapped after the channel is closed
+            Map<String, MappedIRBuilder.Section> index = Maps.newMap(size);
+            List<ByteBuffer> regions = mapIRSection(channel, irOffset,
+                    tablesOffset - irOffset, entries, MAX_REGION_SIZE, index);
+            world.setIRBuilder(new MappedIRBuilder(regions, index, tables, null));
+            return world;
+        }
+    }
+
+    /**
+     * Maps the IR section into regions of at most {@code maxRegionSize}
+     * bytes, such that each IR lies in a single region, and puts
+     * the position of each IR in the regions to {@code index}.
+     *
+     * @param irOffset the offset of the IR section in the file.
+     * @param irSize   the size of the IR section.
+     * @param entries  the index entries, in the order of their offsets.
+     * @return the mapped regions.
+     */
+    static List<ByteBuffer> mapIRSection(
+            FileChannel channel, long irOffset, long irSize,
+            List<IndexEntry> entries, long maxRegionSize,
+            Map<String, MappedIRBuilder.Section> index) throws IOException {
+        List<ByteBuffer> regions = new ArrayList<>();
+        // start of current region, relative to the IR section
+        long regionStart = 0;
+        for (IndexEntry entry : entries) {
+            if (entry.offset() + entry.length() - regionStart > maxRegionSize) {
+                regions.add(channel.map(FileChannel.MapMode.READ_ONLY,
+                        irOffset + regionStart, entry.offset() - regionStart));
+                regionStart = entry.offset();
+            }
+            index.put(entry.signature(), new MappedIRBuilder.Section(
+                    regions.size(), (int) (entry.offset() - regionStart),
+                    entry.length()));
+        }
+        regions.add(channel.map(FileChannel.MapMode.READ_ONLY,
+                irOffset + regionStart, irSize - regionStart));
+        return regions;
+    }
+
+    /**
+     * Entry of the index section, i.e., the signature of a method, and
+     * the offset (relative to the IR section) and length of its IR.
+     */
+    record IndexEntry(String signature, long offset, int length) {
+    }
+}
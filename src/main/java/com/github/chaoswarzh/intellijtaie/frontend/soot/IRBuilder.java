@@ -26,16 +26,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.github.chaoswarzh.intellijtaie.ir.IR;
 import com.github.chaoswarzh.intellijtaie.ir.IRBuildHelper;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
-import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
-import com.github.chaoswarzh.intellijtaie.util.Timer;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 class IRBuilder implements com.github.chaoswarzh.intellijtaie.ir.IRBuilder {
 
@@ -67,35 +60,6 @@ class IRBuilder implements com.github.chaoswarzh.intellijtaie.ir.IRBuilder {
      */
     @Override
     public void buildAll(ClassHierarchy hierarchy) {
-        Timer timer = new Timer("Build IR for all methods");
-        timer.start();
-        int nThreads = Runtime.getRuntime().availableProcessors();
-        // Group all methods by number of threads
-        List<List<JMethod>> groups = new ArrayList<>();
-        for (int i = 0; i < nThreads; ++i) {
-            groups.add(new ArrayList<>());
-        }
-        List<JClass> classes = hierarchy.allClasses().toList();
-        int i = 0;
-        for (JClass c : classes) {
-            for (JMethod m : c.getDeclaredMethods()) {
-                if (!m.isAbstract() || m.isNative()) {
-                    groups.get(i++ % nThreads).add(m);
-                }
-            }
-        }
-        // Build IR for all methods in parallel
-        ExecutorService service = Executors.newFixedThreadPool(nThreads);
-        for (List<JMethod> group : groups) {
-            service.execute(() -> group.forEach(JMethod::getIR));
-        }
-        service.shutdown();
-        try {
-            service.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        timer.stop();
-        logger.info(timer);
+        IRPrebuilder.start(hierarchy).join();
     }
 }
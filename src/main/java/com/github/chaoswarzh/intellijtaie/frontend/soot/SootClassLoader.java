@@ -26,11 +26,17 @@ import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClassLoader;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
 import soot.Scene;
 import soot.SootClass;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 class SootClassLoader implements JClassLoader {
 
@@ -42,7 +48,20 @@ class SootClassLoader implements JClassLoader {
 
     private transient Converter converter;
 
-    private final Map<String, JClass> classes = Maps.newMap(1024);
+    /**
+     * This map may be concurrently read and written when building
+     * classes in parallel, thus we use concurrent map.
+     */
+    private final Map<String, JClass> classes = Maps.newConcurrentMap(1024);
+
+    /**
+     * Classes that are loaded on demand during parallel building of
+     * {@link #loadClasses(Collection)}. Their loading order depends on
+     * the scheduling of threads, thus they are added to class hierarchy
+     * after the building, instead of in {@link #loadNewClass(String)}.
+     * This field is {@code null} when no classes are being built in parallel.
+     */
+    private transient List<JClass> deferredClasses;
 
     SootClassLoader(Scene scene, ClassHierarchy hierarchy, boolean allowPhantom) {
         this.scene = scene;
@@ -54,24 +73,92 @@ class SootClassLoader implements JClassLoader {
     public JClass loadClass(String name) {
         JClass jclass = classes.get(name);
         if (jclass == null && scene != null) {
-            SootClass sootClass = scene.getSootClassUnsafe(name, false);
-            if (sootClass != null && (!sootClass.isPhantom() || allowPhantom)) {
-                // TODO: handle phantom class more comprehensively
-                jclass = new JClass(this, sootClass.getName(),
-                        sootClass.moduleName);
-                // New class must be put into classes map at first,
-                // at build(jclass) may also trigger the loading of
-                // the new created class. Not putting the class into classes
-                // may cause infinite recursion.
-                classes.put(name, jclass);
-                new SootClassBuilder(converter, sootClass).build(jclass);
-                hierarchy.addClass(jclass);
+            synchronized (this) {
+                jclass = classes.get(name);
+                if (jclass == null) {
+                    jclass = loadNewClass(name);
+                }
             }
         }
         // TODO: add warning for missing classes
         return jclass;
     }
 
+    private JClass loadNewClass(String name) {
+        JClass jclass = null;
+        SootClass sootClass = scene.getSootClassUnsafe(name, false);
+        if (sootClass != null && (!sootClass.isPhantom() || allowPhantom)) {
+            // TODO: handle phantom class more comprehensively
+            jclass = new JClass(this, sootClass.getName(),
+                    sootClass.moduleName);
+            // New class must be put into classes map at first,
+            // at build(jclass) may also trigger the loading of
+            // the new created class. Not putting the class into classes
+            // may cause infinite recursion.
+            classes.put(name, jclass);
+            new SootClassBuilder(converter, sootClass).build(jclass);
+            if (deferredClasses != null) {
+                deferredClasses.add(jclass);
+            } else {
+                hierarchy.addClass(jclass);
+            }
+        }
+        return jclass;
+    }
+
+    /**
+     * Loads given classes in parallel. All classes are created and put into
+     * classes map at first, so that the references among them are resolved
+     * without recursive loading, and then the classes are built concurrently.
+     * Finally, the classes are added to class hierarchy sequentially in
+     * the same order as {@link #loadClass(String)} one by one, i.e.,
+     * super class, interfaces, and outer class before the class itself,
+     * so that the indexes of the classes are deterministic. The classes
+     * loaded on demand during the building are added after the given
+     * classes in the order of their names.
+     */
+    void loadClasses(Collection<SootClass> sootClasses) {
+        List<JClass> newClasses = new ArrayList<>(sootClasses.size());
+        List<SootClass> newSootClasses = new ArrayList<>(sootClasses.size());
+        for (SootClass sootClass : sootClasses) {
+            String name = sootClass.getName();
+            if (!classes.containsKey(name)
+                    && (!sootClass.isPhantom() || allowPhantom)) {
+                JClass jclass = new JClass(this, name, sootClass.moduleName);
+                classes.put(name, jclass);
+                newClasses.add(jclass);
+                newSootClasses.add(sootClass);
+            }
+        }
+        List<JClass> lazyClasses = new ArrayList<>();
+        synchronized (this) {
+            deferredClasses = lazyClasses;
+        }
+        try {
+            IntStream.range(0, newClasses.size()).parallel().forEach(i ->
+                    new SootClassBuilder(converter, newSootClasses.get(i))
+                            .build(newClasses.get(i)));
+        } finally {
+            synchronized (this) {
+                deferredClasses = null;
+            }
+        }
+        lazyClasses.sort(Comparator.comparing(JClass::getName));
+        Set<JClass> pending = Sets.newSet(newClasses);
+        pending.addAll(lazyClasses);
+        newClasses.forEach(jclass -> addToHierarchy(jclass, pending));
+        lazyClasses.forEach(jclass -> addToHierarchy(jclass, pending));
+    }
+
+    private void addToHierarchy(JClass jclass, Set<JClass> pending) {
+        if (jclass != null && pending.remove(jclass)) {
+            addToHierarchy(jclass.getSuperClass(), pending);
+            jclass.getInterfaces().forEach(i -> addToHierarchy(i, pending));
+            addToHierarchy(jclass.getOuterClass(), pending);
+            hierarchy.addClass(jclass);
+        }
+    }
+
     @Override
     public Collection<JClass> getLoadedClasses() {
         return classes.values();
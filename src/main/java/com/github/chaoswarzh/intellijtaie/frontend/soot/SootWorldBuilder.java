@@ -22,9 +22,6 @@
 
 package com.github.chaoswarzh.intellijtaie.frontend.soot;
 
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.github.chaoswarzh.intellijtaie.AbstractWorldBuilder;
@@ -33,6 +30,7 @@ import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.reflection.LogItem;
 import com.github.chaoswarzh.intellijtaie.config.AnalysisConfig;
 import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchyImpl;
 import com.github.chaoswarzh.intellijtaie.language.classes.StringReps;
@@ -47,7 +45,6 @@ import soot.Transform;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -60,12 +57,6 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
 
     private static final Logger logger = LogManager.getLogger(SootWorldBuilder.class);
 
-    /**
-     * Path to the file which specifies the basic classes that should be
-     * added to Scene in advance.
-     */
-    private static final String BASIC_CLASSES = "basic-classes.yml";
-
     @Override
     public void build(Options options, List<AnalysisConfig> analyses) {
         initSoot(options, analyses, this);
@@ -109,11 +100,13 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         if (options.isAllowPhantom()) {
             soot.options.Options.v().set_allow_phantom_refs(true);
         }
-        if (options.isPreBuildIR()) {
+        if (options.isPreBuildIR() || options.getIRCacheSize() > 0) {
             // we need to set this option to false when pre-building IRs,
             // otherwise Soot throws RuntimeException saying
             // "No method source set for method ...".
             // TODO: figure out the reason of "No method source"
+            // Besides, when --ir-cache-size is set, IRs evicted from
+            // IR cache are rebuilt from the method sources.
             soot.options.Options.v().set_drop_bodies_after_load(false);
         }
 
@@ -139,15 +132,8 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
      * adds them to {@code scene}.
      */
     private static void addBasicClasses(Scene scene) {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        JavaType type = mapper.getTypeFactory()
-                .constructCollectionType(List.class, String.class);
         try {
-            InputStream content = SootWorldBuilder.class
-                    .getClassLoader()
-                    .getResourceAsStream(BASIC_CLASSES);
-            List<String> classNames = mapper.readValue(content, type);
-            classNames.forEach(name -> scene.addBasicClass(name, HIERARCHY));
+            getBasicClasses().forEach(name -> scene.addBasicClass(name, HIERARCHY));
         } catch (IOException e) {
             throw new SootFrontendException("Failed to read Soot basic classes", e);
         }
@@ -212,7 +198,7 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         Converter converter = new Converter(loader, typeSystem);
         loader.setConverter(converter);
         // build classes in hierarchy
-        buildClasses(hierarchy, scene);
+        buildClasses(loader, scene);
         // set main method
         if (options.getMainClass() != null) {
             if (scene.hasMainClass()) {
@@ -238,14 +224,14 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         IRBuilder irBuilder = new IRBuilder(converter);
         world.setIRBuilder(irBuilder);
         if (options.isPreBuildIR()) {
-            irBuilder.buildAll(hierarchy);
+            // build IRs in background, and the analyses start without
+            // waiting for the building
+            IRPrebuilder.start(hierarchy);
         }
     }
 
-    protected static void buildClasses(ClassHierarchy hierarchy, Scene scene) {
-        // TODO: parallelize?
-        new ArrayList<>(scene.getClasses()).forEach(c ->
-                hierarchy.getDefaultClassLoader().loadClass(c.getName()));
+    private static void buildClasses(SootClassLoader loader, Scene scene) {
+        loader.loadClasses(new ArrayList<>(scene.getClasses()));
     }
 
     private static void runSoot(String[] args) {
@@ -71,6 +71,16 @@ public class DefaultIR extends AbstractResultHolder implements IR {
         this.exceptionEntries = List.copyOf(exceptionEntries);
     }
 
+    /**
+     * Pins this IR (see {@link JMethod#getIR()}) before storing the result,
+     * so that the result is not lost by the eviction of this IR.
+     */
+    @Override
+    public <R> void storeResult(String key, R result) {
+        method.getIR();
+        super.storeResult(key, result);
+    }
+
     @Override
     public JMethod getMethod() {
         return method;
@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.ir;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds the IRs of all methods in a class hierarchy by a work-stealing
+ * pool, with one task per method, so that a few large methods do not
+ * hold back the other workers.
+ * <p>
+ * The building can run in background, i.e., the analyses start without
+ * waiting for it. A method whose IR is being built by a worker blocks
+ * the threads requesting its IR (see {@link JMethod#getIR()}) until
+ * the IR is ready, and the IRs requested before their tasks start are
+ * built by the requesting threads.
+ */
+public final class IRPrebuilder {
+
+    private static final Logger logger = LogManager.getLogger(IRPrebuilder.class);
+
+    /**
+     * The pool of the running building, if any.
+     */
+    private static ForkJoinPool pool;
+
+    static {
+        World.registerResetCallback(IRPrebuilder::cancel);
+    }
+
+    private IRPrebuilder() {
+    }
+
+    /**
+     * Starts building the IRs of all methods in {@code hierarchy}.
+     * The IRs are obtained by {@link JMethod#getTransientIR()}, and
+     * the methods of application classes are built first, as the analyses
+     * usually start from them.
+     *
+     * @return a future which completes when all IRs are built.
+     */
+    public static synchronized CompletableFuture<Void> start(ClassHierarchy hierarchy) {
+        cancel();
+        Timer timer = new Timer("Build IR for all methods");
+        timer.start();
+        List<JMethod> methods = hierarchy.allClasses()
+                .sorted(Comparator.comparing(c -> !c.isApplication()))
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() || m.isNative())
+                .toList();
+        ForkJoinPool current = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors());
+        pool = current;
+        CompletableFuture<?>[] tasks = methods.stream()
+                .map(m -> CompletableFuture.runAsync(() -> build(m), current))
+                .toArray(CompletableFuture[]::new);
+        current.shutdown();
+        return CompletableFuture.allOf(tasks).whenComplete((r, e) -> {
+            timer.stop();
+            logger.info(timer);
+        });
+    }
+
+    private static void build(JMethod method) {
+        try {
+            method.getTransientIR();
+        } catch (RuntimeException e) {
+            // the failure is reported again if the IR is requested
+            logger.warn("Failed to pre-build IR for {} due to {}", method, e);
+        }
+    }
+
+    /**
+     * Cancels the pending tasks of the running building.
+     */
+    private static synchronized void cancel() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+}
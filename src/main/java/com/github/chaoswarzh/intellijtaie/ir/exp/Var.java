@@ -24,6 +24,7 @@ package com.github.chaoswarzh.intellijtaie.ir.exp;
 
 import com.github.chaoswarzh.intellijtaie.ir.stmt.*;
 import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.classes.Symbols;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
 import com.github.chaoswarzh.intellijtaie.util.Indexable;
@@ -85,7 +86,7 @@ public class Var implements LValue, RValue, Indexable {
     public Var(JMethod method, String name, Type type, int index,
                @Nullable Literal constValue) {
         this.method = method;
-        this.name = name;
+        this.name = Symbols.intern(name);
         this.type = type;
         this.index = index;
         this.constValue = constValue;
@@ -24,6 +24,7 @@ package com.github.chaoswarzh.intellijtaie.ir.proginfo;
 
 import com.github.chaoswarzh.intellijtaie.language.classes.ClassMember;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.Symbols;
 
 import javax.annotation.Nullable;
 import java.io.Serializable;
@@ -41,7 +42,7 @@ public abstract class MemberRef implements Serializable {
 
     public MemberRef(JClass declaringClass, String name, boolean isStatic) {
         this.declaringClass = declaringClass;
-        this.name = name;
+        this.name = Symbols.intern(name);
         this.isStatic = isStatic;
     }
 
@@ -32,13 +32,22 @@ import com.github.chaoswarzh.intellijtaie.language.type.ClassType;
 import com.github.chaoswarzh.intellijtaie.language.type.Type;
 import com.github.chaoswarzh.intellijtaie.util.collection.HybridBitSet;
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
-import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
 import com.github.chaoswarzh.intellijtaie.util.collection.TwoKeyMap;
 
 import javax.annotation.Nullable;
+import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Stream;
 
+/**
+ * Class hierarchy which may be read and extended concurrently, as the
+ * frontends which load classes on demand add classes to the hierarchy
+ * while it is used by analyses, IR builders and other threads.
+ * Classes are added under the lock of this hierarchy, and the queries
+ * work on snapshots, e.g., {@link #allClasses()} streams the classes
+ * that have been added when it is called, and the direct subclass
+ * relations are views of append-only lists.
+ */
 public class ClassHierarchyImpl implements ClassHierarchy {
 
     private static final Logger logger = LogManager.getLogger(ClassHierarchyImpl.class);
@@ -50,36 +59,48 @@ public class ClassHierarchyImpl implements ClassHierarchy {
     // TODO: properly manage class loaders
     private final Map<String, JClassLoader> loaders = Maps.newSmallMap();
 
-    private JClass JavaLangObject;
+    private volatile JClass JavaLangObject;
 
-    private final List<JClass> classes = new ArrayList<>(1024);
+    /**
+     * Classes in the order of their indexes. The first {@link #classCounter}
+     * elements are valid, and the array is replaced by a larger copy
+     * when it is full, so that the readers can take a snapshot of it
+     * without locking.
+     */
+    private volatile JClass[] classes = new JClass[1024];
 
-    private int classCounter = 0;
+    /**
+     * Number of classes in this hierarchy. It is written after the new
+     * class has been stored in {@link #classes}, thus the readers that
+     * read this field first always see the classes it counts.
+     */
+    private volatile int classCounter = 0;
 
     /**
      * Map from each interface to its direct subinterfaces.
      */
-    private final MultiMap<JClass, JClass> directSubinterfaces = Maps.newMultiMap();
+    private final Map<JClass, ClassList> directSubinterfaces = Maps.newConcurrentMap();
 
     /**
      * Map from each interface to its direct implementors.
      */
-    private final MultiMap<JClass, JClass> directImplementors = Maps.newMultiMap();
+    private final Map<JClass, ClassList> directImplementors = Maps.newConcurrentMap();
 
     /**
      * Map from each class to its direct subclasses.
      */
-    private final MultiMap<JClass, JClass> directSubclasses = Maps.newMultiMap();
+    private final Map<JClass, ClassList> directSubclasses = Maps.newConcurrentMap();
 
     /**
      * Map from a class to its direct inner classes.
      */
-    private final MultiMap<JClass, JClass> directInnerClasses = Maps.newMultiMap();
+    private final Map<JClass, ClassList> directInnerClasses = Maps.newConcurrentMap();
 
     /**
      * Cache results of method dispatch.
      */
-    private final TwoKeyMap<JClass, Subsignature, JMethod> dispatchTable = Maps.newTwoKeyMap();
+    private final TwoKeyMap<JClass, Subsignature, JMethod> dispatchTable =
+            Maps.newTwoKeyMap(Maps.newConcurrentMap(), Maps::newConcurrentMap);
 
     /**
      * Cache results of {@link #getAllSubclassesOf(JClass)}.
@@ -117,31 +138,36 @@ public class ClassHierarchyImpl implements ClassHierarchy {
     }
 
     @Override
-    public void addClass(JClass jclass) {
+    public synchronized void addClass(JClass jclass) {
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
-                    directSubinterfaces.put(iface, jclass));
+                    add(directSubinterfaces, iface, jclass));
         } else {
             // add direct implementors
             jclass.getInterfaces()
                     .stream()
                     .filter(Objects::nonNull)
-                    .forEach(iface -> directImplementors.put(iface, jclass));
+                    .forEach(iface -> add(directImplementors, iface, jclass));
             // add direct subclasses
             JClass superClass = jclass.getSuperClass();
             if (superClass != null) {
-                directSubclasses.put(superClass, jclass);
+                add(directSubclasses, superClass, jclass);
             }
         }
         // add inner classes
         JClass outer = jclass.getOuterClass();
         if (outer != null) {
-            directInnerClasses.put(outer, jclass);
+            add(directInnerClasses, outer, jclass);
         }
         // set index
-        jclass.setIndex(classCounter++);
-        classes.add(jclass);
+        int index = classCounter;
+        jclass.setIndex(index);
+        if (index == classes.length) {
+            classes = Arrays.copyOf(classes, index * 2);
+        }
+        classes[index] = jclass;
+        classCounter = index + 1;
         // invalidate global hierarchy information
         // TODO - make this elegant
         allSubclasses.clear();
@@ -154,12 +180,17 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public JClass getObject(int index) {
-        return classes.get(index);
+        if (index < 0 || index >= classCounter) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return classes[index];
     }
 
     @Override
     public Stream<JClass> allClasses() {
-        return classes.stream();
+        // read the counter before the array, see classCounter
+        int size = classCounter;
+        return Arrays.stream(classes, 0, size);
     }
 
     @Override
@@ -268,11 +299,13 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         JField field;
         // 0. First, check and handle phantom fields
         if (jclass.isPhantom()) {
-            field = jclass.getPhantomField(name, type);
-            if (field == null) {
-                field = new JField(jclass, name, Set.of(),
-                        type, null, AnnotationHolder.emptyHolder());
-                jclass.addPhantomField(name, type, field);
+            synchronized (jclass) {
+                field = jclass.getPhantomField(name, type);
+                if (field == null) {
+                    field = new JField(jclass, name, Set.of(),
+                            type, null, AnnotationHolder.emptyHolder());
+                    jclass.addPhantomField(name, type, field);
+                }
             }
             return field;
         }
@@ -458,11 +491,19 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public Collection<JClass> getAllSubclassesOf(JClass jclass) {
-        return allSubclasses.computeIfAbsent(jclass, c -> {
-            Set<JClass> subclasses = new HybridBitSet<>(this, true);
-            getAllSubclassesOf0(c, subclasses);
-            return subclasses;
-        });
+        Set<JClass> result = allSubclasses.get(jclass);
+        if (result != null) {
+            return result;
+        }
+        // compute under the lock, so that the cache is not polluted by
+        // the results computed before the addition of new classes
+        synchronized (this) {
+            return allSubclasses.computeIfAbsent(jclass, c -> {
+                Set<JClass> subclasses = new HybridBitSet<>(this, true);
+                getAllSubclassesOf0(c, subclasses);
+                return subclasses;
+            });
+        }
     }
 
     private void getAllSubclassesOf0(JClass jclass, Set<JClass> result) {
@@ -480,21 +521,76 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public Collection<JClass> getDirectSubinterfacesOf(JClass jclass) {
-        return directSubinterfaces.get(jclass);
+        return get(directSubinterfaces, jclass);
     }
 
     @Override
     public Collection<JClass> getDirectImplementorsOf(JClass jclass) {
-        return directImplementors.get(jclass);
+        return get(directImplementors, jclass);
     }
 
     @Override
     public Collection<JClass> getDirectSubclassesOf(JClass jclass) {
-        return directSubclasses.get(jclass);
+        return get(directSubclasses, jclass);
     }
 
     @Override
     public Collection<JClass> getDirectInnerClassesOf(JClass jclass) {
-        return directInnerClasses.get(jclass);
+        return get(directInnerClasses, jclass);
+    }
+
+    private static void add(Map<JClass, ClassList> map, JClass key, JClass jclass) {
+        map.computeIfAbsent(key, __ -> new ClassList()).add(jclass);
+    }
+
+    private static List<JClass> get(Map<JClass, ClassList> map, JClass key) {
+        ClassList list = map.get(key);
+        return list == null ? List.of() : list.view();
+    }
+
+    /**
+     * List of the classes directly related to a class, e.g., its direct
+     * subclasses. Like {@link #classes}, it is appended under the lock of
+     * the hierarchy, and read without locking.
+     */
+    private static class ClassList implements Serializable {
+
+        private static final JClass[] EMPTY = new JClass[0];
+
+        private volatile JClass[] elements = EMPTY;
+
+        private volatile int size = 0;
+
+        private void add(JClass jclass) {
+            int n = size;
+            if (n == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(4, n * 2));
+            }
+            elements[n] = jclass;
+            size = n + 1;
+        }
+
+        /**
+         * @return an unmodifiable view of the classes that are in this
+         * list when this method is called.
+         */
+        private List<JClass> view() {
+            // read the size before the array, see classCounter
+            int n = size;
+            JClass[] snapshot = elements;
+            return new AbstractList<>() {
+
+                @Override
+                public JClass get(int index) {
+                    Objects.checkIndex(index, n);
+                    return snapshot[index];
+                }
+
+                @Override
+                public int size() {
+                    return n;
+                }
+            };
+        }
     }
 }
@@ -41,7 +41,10 @@ public abstract class ClassMember implements Annotated, Serializable {
 
     protected final AnnotationHolder annotationHolder;
 
-    protected String signature;
+    /**
+     * Cache of {@link #getSignature()}, computed on first use.
+     */
+    private transient String signature;
 
     // TODO: source location
 
@@ -49,7 +52,7 @@ public abstract class ClassMember implements Annotated, Serializable {
                           Set<Modifier> modifiers,
                           AnnotationHolder annotationHolder) {
         this.declaringClass = declaringClass;
-        this.name = name;
+        this.name = Symbols.intern(name);
         this.modifiers = modifiers;
         this.annotationHolder = annotationHolder;
     }
@@ -66,9 +69,18 @@ public abstract class ClassMember implements Annotated, Serializable {
     }
 
     public String getSignature() {
-        return signature;
+        String sig = signature;
+        if (sig == null) {
+            sig = signature = computeSignature();
+        }
+        return sig;
     }
 
+    /**
+     * @return the signature of this class member.
+     */
+    protected abstract String computeSignature();
+
     public Set<Modifier> getModifiers() {
         return modifiers;
     }
@@ -111,6 +123,6 @@ public abstract class ClassMember implements Annotated, Serializable {
 
     @Override
     public String toString() {
-        return signature;
+        return getSignature();
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the IRs which are not pinned by {@link JMethod#getIR()}.
+ * The most recently used IRs (about {@link Options#getIRCacheSize()})
+ * are held strongly, and the others are held by soft references,
+ * so that they are reclaimed by the garbage collector under memory
+ * pressure and rebuilt on demand.
+ * <p>
+ * The methods are distributed over segments, each of which has its
+ * own lock and an equal share of the capacity, so that the threads
+ * building IRs in parallel (e.g., by
+ * {@link com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder})
+ * rarely contend for the cache.
+ */
+final class IRCache {
+
+    /**
+     * Number of segments. It must be a power of two.
+     */
+    private static final int SEGMENTS = 64;
+
+    private static final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * The IRs evicted from the segments.
+     */
+    private static final Map<JMethod, Entry> evicted = Maps.newConcurrentMap();
+
+    private static final ReferenceQueue<IR> queue = new ReferenceQueue<>();
+
+    static {
+        for (int i = 0; i < SEGMENTS; ++i) {
+            segments[i] = new Segment();
+        }
+        World.registerResetCallback(IRCache::clear);
+    }
+
+    private IRCache() {
+    }
+
+    @Nullable
+    static IR get(JMethod method) {
+        return getSegment(method).get(method);
+    }
+
+    static void put(JMethod method, IR ir) {
+        getSegment(method).put(method, ir);
+    }
+
+    /**
+     * Removes the IR of {@code method} from this cache.
+     *
+     * @return the removed IR, or {@code null} if the IR is absent or
+     * has been reclaimed.
+     */
+    @Nullable
+    static IR remove(JMethod method) {
+        return getSegment(method).remove(method);
+    }
+
+    private static void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        evicted.clear();
+        while (queue.poll() != null) {
+            // drain the queue
+        }
+    }
+
+    private static Segment getSegment(JMethod method) {
+        int hash = method.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Removes the entries whose IRs have been reclaimed.
+     */
+    private static void expunge() {
+        Entry entry;
+        while ((entry = (Entry) queue.poll()) != null) {
+            evicted.remove(entry.method, entry);
+        }
+    }
+
+    /**
+     * @return the maximum number of IRs held strongly by each segment,
+     * or 0 if the number is not limited.
+     */
+    private static int getSegmentCapacity() {
+        World world = World.get();
+        int capacity = world != null && world.getOptions() != null
+                ? world.getOptions().getIRCacheSize() : 0;
+        return (capacity + SEGMENTS - 1) / SEGMENTS;
+    }
+
+    /**
+     * A segment holds the recently used IRs of its methods. The evicted
+     * IRs of a method are only accessed under the lock of its segment.
+     */
+    private static class Segment {
+
+        /**
+         * Recently used IRs in access order.
+         */
+        private final Map<JMethod, IR> recent =
+                new LinkedHashMap<>(64, 0.75f, true);
+
+        @Nullable
+        private synchronized IR get(JMethod method) {
+            IR ir = recent.get(method);
+            if (ir == null) {
+                expunge();
+                Entry entry = evicted.remove(method);
+                if (entry != null && (ir = entry.get()) != null) {
+                    put(method, ir);
+                }
+            }
+            return ir;
+        }
+
+        private synchronized void put(JMethod method, IR ir) {
+            recent.put(method, ir);
+            int capacity = getSegmentCapacity();
+            if (capacity > 0 && recent.size() > capacity) {
+                expunge();
+                Iterator<Map.Entry<JMethod, IR>> it = recent.entrySet().iterator();
+                Map.Entry<JMethod, IR> eldest = it.next();
+                it.remove();
+                evicted.put(eldest.getKey(),
+                        new Entry(eldest.getKey(), eldest.getValue(), queue));
+            }
+        }
+
+        @Nullable
+        private synchronized IR remove(JMethod method) {
+            IR ir = recent.remove(method);
+            if (ir == null) {
+                Entry entry = evicted.remove(method);
+                if (entry != null) {
+                    ir = entry.get();
+                }
+            }
+            return ir;
+        }
+
+        private synchronized void clear() {
+            recent.clear();
+        }
+    }
+
+    private static class Entry extends SoftReference<IR> {
+
+        private final JMethod method;
+
+        private Entry(JMethod method, IR ir, ReferenceQueue<IR> queue) {
+            super(ir, queue);
+            this.method = method;
+        }
+    }
+}
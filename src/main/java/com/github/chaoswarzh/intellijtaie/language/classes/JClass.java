@@ -95,8 +95,8 @@ public class JClass extends AbstractResultHolder
 
     public JClass(JClassLoader loader, String name, String moduleName) {
         this.loader = loader;
-        this.name = name;
-        this.moduleName = moduleName;
+        this.name = Symbols.intern(name);
+        this.moduleName = Symbols.intern(moduleName);
     }
 
     /**
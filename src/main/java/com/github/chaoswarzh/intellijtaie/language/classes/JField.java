@@ -49,7 +49,11 @@ public class JField extends ClassMember {
         super(declaringClass, name, modifiers, annotationHolder);
         this.type = type;
         this.gSignature = gSignature;
-        this.signature = StringReps.getSignatureOf(this);
+    }
+
+    @Override
+    protected String computeSignature() {
+        return StringReps.getSignatureOf(this);
     }
 
     public Type getType() {
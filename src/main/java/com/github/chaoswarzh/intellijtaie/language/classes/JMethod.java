@@ -34,6 +34,9 @@ import com.github.chaoswarzh.intellijtaie.util.AnalysisException;
 import com.github.chaoswarzh.intellijtaie.util.Experimental;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -72,11 +75,24 @@ public class JMethod extends ClassMember {
     private final transient Object methodSource;
 
     /**
+     * The IR pinned by {@link #getIR()}. This field is {@code volatile}
+     * as IRs may be built in background threads.
+     * <p>
      * Notes: This field is {@code transient} because it is serialized separately.
      *
-     * @see com.github.chaoswarzh.intellijtaie.frontend.cache.CachedIRBuilder
+     * @see com.github.chaoswarzh.intellijtaie.frontend.cache.CachedWorldBuilder
+     * @see com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder
      */
-    private transient IR ir;
+    private transient volatile IR ir;
+
+    /**
+     * Lock for building and pinning {@link #ir}. It is private, so that
+     * the code locking this method does not block IR building.
+     * <p>
+     * Notes: This field is {@code transient} because it is not serializable,
+     * and it is re-created after deserialization.
+     */
+    private transient Object irLock = new Object();
 
     public JMethod(JClass declaringClass, String name, Set<Modifier> modifiers,
                    List<Type> paramTypes, Type returnType, List<ClassType> exceptions,
@@ -89,14 +105,18 @@ public class JMethod extends ClassMember {
         this.paramTypes = List.copyOf(paramTypes);
         this.returnType = returnType;
         this.exceptions = List.copyOf(exceptions);
-        this.signature = StringReps.getSignatureOf(this);
         this.subsignature = Subsignature.get(name, paramTypes, returnType);
         this.gSignature = gSignature;
         this.paramAnnotations = paramAnnotations;
-        this.paramNames = paramNames;
+        this.paramNames = Symbols.intern(paramNames);
         this.methodSource = methodSource;
     }
 
+    @Override
+    protected String computeSignature() {
+        return StringReps.getSignatureOf(this);
+    }
+
     public boolean isAbstract() {
         return Modifier.hasAbstract(modifiers);
     }
@@ -180,19 +200,95 @@ public class JMethod extends ClassMember {
         return methodSource;
     }
 
+    /**
+     * @return the IR of this method. The IR is pinned in memory, as
+     * analyses may keep its elements (e.g., variables and statements)
+     * which must not be replaced by the ones of a rebuilt IR.
+     * The pin is released by {@link #releaseIR()}.
+     */
     public IR getIR() {
-        if (ir == null) {
-            if (isAbstract()) {
-                throw new AnalysisException("Abstract method " + this +
-                        " has no method body");
+        IR result = ir;
+        if (result != null) {
+            return result;
+        }
+        // the IR of a method is built by at most one thread at a time,
+        // and other threads requesting it wait for the result
+        synchronized (irLock) {
+            if (ir == null) {
+                // reuse the IR obtained by getTransientIR() if it is alive
+                IR cached = IRCache.remove(this);
+                ir = cached != null ? cached : buildIR();
             }
-            if (isNative()) {
-                ir = World.get().getNativeModel().buildNativeIR(this);
-            } else {
-                ir = World.get().getIRBuilder().buildIR(this);
+            return ir;
+        }
+    }
+
+    /**
+     * Clears the result of analysis {@code id} stored on the IR of this
+     * method, if the IR has been pinned. Unlike
+     * {@code getIR().clearResult(id)}, this method does not build the IR.
+     */
+    public void clearIRResult(String id) {
+        IR pinned = ir;
+        if (pinned != null) {
+            pinned.clearResult(id);
+        }
+    }
+
+    /**
+     * Unpins the IR of this method if no result is stored on it, and hands
+     * it over to the IR cache, so that it can be reclaimed when it is not
+     * used any more. The caller must ensure that no one keeps the elements
+     * of the IR, e.g., the results of program analyses, as the IR may be
+     * rebuilt with new elements.
+     */
+    public void releaseIR() {
+        synchronized (irLock) {
+            IR pinned = ir;
+            if (pinned != null && pinned.getKeys().isEmpty()) {
+                ir = null;
+                IRCache.put(this, pinned);
+            }
+        }
+    }
+
+    /**
+     * Obtains the IR of this method without pinning it. Unless it has been
+     * pinned by {@link #getIR()}, the IR is kept by a bounded cache and
+     * may be evicted and rebuilt later, thus the callers must not keep
+     * its elements. This method is for bulk traversals of IRs,
+     * e.g., pre-building or caching the IRs of all methods.
+     *
+     * @see com.github.chaoswarzh.intellijtaie.config.Options#getIRCacheSize()
+     */
+    public IR getTransientIR() {
+        IR result = ir;
+        if (result != null) {
+            return result;
+        }
+        synchronized (irLock) {
+            if (ir != null) {
+                return ir;
+            }
+            IR cached = IRCache.get(this);
+            if (cached == null) {
+                cached = buildIR();
+                IRCache.put(this, cached);
             }
+            return cached;
+        }
+    }
+
+    private IR buildIR() {
+        if (isAbstract()) {
+            throw new AnalysisException("Abstract method " + this +
+                    " has no method body");
+        }
+        if (isNative()) {
+            return World.get().getNativeModel().buildNativeIR(this);
+        } else {
+            return World.get().getIRBuilder().buildIR(this);
         }
-        return ir;
     }
 
     /**
@@ -202,4 +298,11 @@ public class JMethod extends ClassMember {
         return MethodRef.get(declaringClass, name,
                 paramTypes, returnType, isStatic());
     }
+
+    @Serial
+    private void readObject(ObjectInputStream s)
+            throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        irLock = new Object();
+    }
 }
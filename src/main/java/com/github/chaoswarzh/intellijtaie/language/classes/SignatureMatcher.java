@@ -27,15 +27,39 @@ import com.github.chaoswarzh.intellijtaie.language.type.Type;
 
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Provides functionality to match signatures by given patterns.
+ * <p>
+ * Matched classes and compiled matchers are cached, so that the patterns
+ * sharing the same class (or type) part are resolved only once.
+ * Class name patterns with wildcards are resolved via an index of
+ * sorted class names, which is built on the first such query.
+ * If classes are added to the hierarchy afterwards (e.g., loaded lazily
+ * by the frontend), the index is extended with the new classes, and the
+ * cached results are discarded on the next query.
  */
 public class SignatureMatcher {
 
     private final ClassHierarchy hierarchy;
 
+    private final Map<Pattern.ClassPattern, Set<JClass>> classCache = new HashMap<>();
+
+    private final Map<Pattern.NamePattern, NameMatcher> nameMatchers = new HashMap<>();
+
+    private final Map<Pattern.TypePattern, TypeMatcher> typeMatchers = new HashMap<>();
+
+    /**
+     * Index of class names, built lazily.
+     */
+    private ClassNameIndex classNameIndex;
+
+    /**
+     * Number of classes in the hierarchy when the caches were last validated.
+     */
+    private long numClasses = -1;
+
     public SignatureMatcher(ClassHierarchy hierarchy) {
         this.hierarchy = hierarchy;
     }
@@ -44,10 +68,20 @@ public class SignatureMatcher {
      * @return the classes that match given pattern.
      */
     public Set<JClass> getClasses(String classPattern) {
-        return getClasses(Pattern.parseClassPattern(classPattern));
+        syncWithHierarchy();
+        return new LinkedHashSet<>(getClasses(Pattern.parseClassPattern(classPattern)));
     }
 
     private Set<JClass> getClasses(Pattern.ClassPattern classPattern) {
+        Set<JClass> result = classCache.get(classPattern);
+        if (result == null) {
+            result = Collections.unmodifiableSet(doGetClasses(classPattern));
+            classCache.put(classPattern, result);
+        }
+        return result;
+    }
+
+    private Set<JClass> doGetClasses(Pattern.ClassPattern classPattern) {
         Set<JClass> result = new LinkedHashSet<>();
         Pattern.NamePattern name = classPattern.name();
         if (!name.hasWildcard()) {
@@ -56,11 +90,17 @@ public class SignatureMatcher {
                 result.add(klass);
             }
         } else {
-            // Iterate the whole class hierarchy to find matched classes.
-            // This operation MAY cause performance issues.
-            Predicate<String> nameMatcher = new NameMatcher(name);
-            hierarchy.allClasses()
-                    .filter(c -> nameMatcher.test(c.getName()))
+            // Only test the classes whose names contain the literal
+            // prefix (or suffix) of the pattern, instead of iterating
+            // the whole class hierarchy.
+            Predicate<String> nameMatcher = getNameMatcher(name);
+            if (classNameIndex == null) {
+                classNameIndex = new ClassNameIndex(hierarchy);
+            }
+            classNameIndex.candidates(name)
+                    .filter(nameMatcher)
+                    .map(hierarchy::getClass)
+                    .filter(Objects::nonNull)
                     .forEach(result::add);
         }
         if (classPattern.includeSubclasses()) {
@@ -70,10 +110,37 @@ public class SignatureMatcher {
         return result;
     }
 
+    /**
+     * Discards the cached classes and extends the class name index
+     * if new classes have been added to the hierarchy.
+     */
+    private void syncWithHierarchy() {
+        // counting a stream of the class list does not traverse it
+        long n = hierarchy.allClasses().count();
+        if (n != numClasses) {
+            classCache.clear();
+            // type matchers hold the classes of the type patterns
+            typeMatchers.clear();
+            if (classNameIndex != null) {
+                classNameIndex.update(hierarchy);
+            }
+            numClasses = n;
+        }
+    }
+
+    private NameMatcher getNameMatcher(Pattern.NamePattern pattern) {
+        return nameMatchers.computeIfAbsent(pattern, NameMatcher::new);
+    }
+
+    private TypeMatcher getTypeMatcher(Pattern.TypePattern pattern) {
+        return typeMatchers.computeIfAbsent(pattern, TypeMatcher::new);
+    }
+
     /**
      * @return the methods that match given pattern.
      */
     public Set<JMethod> getMethods(String methodPattern) {
+        syncWithHierarchy();
         Pattern.MethodPattern pattern = Pattern.parseMethodPattern(methodPattern);
         Set<JMethod> result = new LinkedHashSet<>();
         if (pattern.isExactMatch()) {
@@ -82,8 +149,8 @@ public class SignatureMatcher {
                 result.add(method);
             }
         } else {
-            Predicate<Type> typeMatcher = new TypeMatcher(pattern.retType());
-            Predicate<String> nameMatcher = new NameMatcher(pattern.name());
+            Predicate<Type> typeMatcher = getTypeMatcher(pattern.retType());
+            Predicate<String> nameMatcher = getNameMatcher(pattern.name());
             Predicate<List<Type>> paramsMatcher = new ParamsMatcher(pattern.params());
             getClasses(pattern.klass())
                     .stream()
@@ -101,6 +168,7 @@ public class SignatureMatcher {
      * @return the fields that match given pattern.
      */
     public Set<JField> getFields(String fieldPattern) {
+        syncWithHierarchy();
         Pattern.FieldPattern pattern = Pattern.parseFieldPattern(fieldPattern);
         Set<JField> result = new LinkedHashSet<>();
         if (pattern.isExactMatch()) {
@@ -109,8 +177,8 @@ public class SignatureMatcher {
                 result.add(field);
             }
         } else {
-            Predicate<Type> typeMatcher = new TypeMatcher(pattern.type());
-            Predicate<String> nameMatcher = new NameMatcher(pattern.name());
+            Predicate<Type> typeMatcher = getTypeMatcher(pattern.type());
+            Predicate<String> nameMatcher = getNameMatcher(pattern.name());
             getClasses(pattern.klass())
                     .stream()
                     .map(JClass::getDeclaredFields)
@@ -162,11 +230,12 @@ public class SignatureMatcher {
         private TypeMatcher(Pattern.TypePattern pattern) {
             includeSubtypes = pattern.includeSubtypes();
             if (includeSubtypes) {
-                superClasses = getClasses(pattern.name().toString());
+                superClasses = getClasses(
+                        Pattern.parseClassPattern(pattern.name().toString()));
                 matcher = null;
             } else {
                 superClasses = null;
-                matcher = new NameMatcher(pattern.name());
+                matcher = getNameMatcher(pattern.name());
             }
         }
 
@@ -194,12 +263,9 @@ public class SignatureMatcher {
 
         private ParamsMatcher(List<Pattern.ParamUnit> units) {
             this.units = units;
-            this.typeMatchers = units.stream()
-                    .map(Pattern.ParamUnit::type)
-                    .collect(Collectors.toMap(
-                            tp -> tp,
-                            TypeMatcher::new,
-                            (tm1, tm2) -> tm1));
+            this.typeMatchers = new HashMap<>();
+            units.forEach(unit -> typeMatchers.computeIfAbsent(
+                    unit.type(), SignatureMatcher.this::getTypeMatcher));
         }
 
         @Override
@@ -241,4 +307,95 @@ public class SignatureMatcher {
             return false;
         }
     }
+
+    /**
+     * Index of the names of all classes in the hierarchy. The names are
+     * sorted both as they are and reversed, so that the classes whose
+     * names start (or end) with a given string are found by binary search.
+     */
+    private static class ClassNameIndex {
+
+        private String[] names;
+
+        private String[] reversedNames;
+
+        private ClassNameIndex(ClassHierarchy hierarchy) {
+            names = hierarchy.allClasses()
+                    .map(JClass::getName)
+                    .sorted()
+                    .toArray(String[]::new);
+            reversedNames = Arrays.stream(names)
+                    .map(ClassNameIndex::reverse)
+                    .sorted()
+                    .toArray(String[]::new);
+        }
+
+        /**
+         * Adds the names of the classes which have been added to
+         * the hierarchy since this index was built (or last updated).
+         * As classes are only appended to the hierarchy,
+         * the new classes are the ones after the indexed classes.
+         */
+        private void update(ClassHierarchy hierarchy) {
+            String[] added = hierarchy.allClasses()
+                    .skip(names.length)
+                    .map(JClass::getName)
+                    .sorted()
+                    .toArray(String[]::new);
+            if (added.length > 0) {
+                names = merge(names, added);
+                reversedNames = merge(reversedNames, Arrays.stream(added)
+                        .map(ClassNameIndex::reverse)
+                        .sorted()
+                        .toArray(String[]::new));
+            }
+        }
+
+        private static String[] merge(String[] sorted1, String[] sorted2) {
+            String[] result = new String[sorted1.length + sorted2.length];
+            int i = 0, j = 0, k = 0;
+            while (i < sorted1.length && j < sorted2.length) {
+                result[k++] = sorted1[i].compareTo(sorted2[j]) <= 0
+                        ? sorted1[i++] : sorted2[j++];
+            }
+            while (i < sorted1.length) {
+                result[k++] = sorted1[i++];
+            }
+            while (j < sorted2.length) {
+                result[k++] = sorted2[j++];
+            }
+            return result;
+        }
+
+        /**
+         * @return names of the classes that may match given pattern.
+         */
+        private Stream<String> candidates(Pattern.NamePattern pattern) {
+            List<Pattern.NameUnit> units = pattern.units();
+            if (units.get(0) instanceof Pattern.StringUnit prefix) {
+                return withPrefix(names, prefix.content());
+            }
+            if (units.get(units.size() - 1) instanceof Pattern.StringUnit suffix) {
+                return withPrefix(reversedNames, reverse(suffix.content()))
+                        .map(ClassNameIndex::reverse);
+            }
+            return Arrays.stream(names);
+        }
+
+        private static Stream<String> withPrefix(String[] sorted, String prefix) {
+            int from = Arrays.binarySearch(sorted, prefix);
+            if (from < 0) {
+                from = -(from + 1);
+            }
+            int to = from;
+            while (to < sorted.length && sorted[to].startsWith(prefix)) {
+                ++to;
+            }
+            return Arrays.stream(sorted, from, to);
+        }
+
+        private static String reverse(String s) {
+            return new StringBuilder(s).reverse().toString();
+        }
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Symbol table shared by the program representation.
+ * <p>
+ * The same class, member and variable names occur many times in a program
+ * (e.g., {@code <init>}, {@code java.lang.Object}, {@code this}), and each
+ * front end creates a fresh {@link String} for every occurrence. Interning
+ * these names via this table keeps one copy of each of them, and the table
+ * is cleared together with {@link World}.
+ */
+public final class Symbols {
+
+    private static final ConcurrentMap<String, String> table =
+            Maps.newConcurrentMap(8192);
+
+    static {
+        World.registerResetCallback(table::clear);
+    }
+
+    private Symbols() {
+    }
+
+    /**
+     * @return the canonical instance of {@code symbol}, or {@code null}
+     * if {@code symbol} is {@code null}.
+     */
+    public static String intern(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        String canonical = table.putIfAbsent(symbol, symbol);
+        return canonical != null ? canonical : symbol;
+    }
+
+    /**
+     * @return a list of the canonical instances of {@code symbols},
+     * or {@code null} if {@code symbols} is {@code null}.
+     */
+    public static List<String> intern(List<String> symbols) {
+        if (symbols == null) {
+            return null;
+        }
+        return symbols.stream().map(Symbols::intern).toList();
+    }
+}
@@ -24,6 +24,7 @@ package com.github.chaoswarzh.intellijtaie.language.type;
 
 import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
 import com.github.chaoswarzh.intellijtaie.language.classes.JClassLoader;
+import com.github.chaoswarzh.intellijtaie.language.classes.Symbols;
 import com.github.chaoswarzh.intellijtaie.util.Hashes;
 
 public class ClassType implements ReferenceType {
@@ -39,7 +40,11 @@ public class ClassType implements ReferenceType {
 
     public ClassType(JClassLoader loader, String name) {
         this.loader = loader;
-        this.name = name;
+        this.name = Symbols.intern(name);
+    }
+
+    public JClassLoader getClassLoader() {
+        return loader;
     }
 
     @Override
@@ -24,12 +24,19 @@ package com.github.chaoswarzh.intellijtaie.util;
 
 import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
 
+import java.lang.ref.SoftReference;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
 /**
  * Map-based implementation for {@link ResultHolder}.
+ * <p>
+ * The accesses to the results are synchronized, as independent analyses
+ * may store their results into the same holder concurrently.
+ * The results of the keys registered in {@link ResultRecomputers}
+ * are held softly, and recomputed on demand after they are reclaimed.
  */
 public abstract class AbstractResultHolder implements ResultHolder {
 
@@ -39,42 +46,108 @@ public abstract class AbstractResultHolder implements ResultHolder {
     private final transient Map<String, Object> results = Maps.newHybridMap();
 
     @Override
-    public <R> void storeResult(String key, R result) {
-        results.put(key, result);
+    public synchronized <R> void storeResult(String key, R result) {
+        results.put(key, wrap(key, result));
     }
 
     @Override
-    public boolean hasResult(String key) {
+    public synchronized boolean hasResult(String key) {
         return results.containsKey(key);
     }
 
     @Override
     public <R> R getResult(String key) {
-        return (R) results.get(key);
+        Object result;
+        synchronized (this) {
+            result = results.get(key);
+        }
+        return (R) unwrap(key, result);
     }
 
     @Override
     public <R> R getResult(String key, R defaultResult) {
-        return (R) results.getOrDefault(key, defaultResult);
+        Object result;
+        synchronized (this) {
+            if (!results.containsKey(key)) {
+                return defaultResult;
+            }
+            result = results.get(key);
+        }
+        return (R) unwrap(key, result);
     }
 
     @Override
     public <R> R getResult(String key, Supplier<R> supplier) {
-        return (R) results.computeIfAbsent(key, __ -> supplier.get());
+        Object result;
+        synchronized (this) {
+            result = results.get(key);
+        }
+        if (result != null) {
+            return (R) unwrap(key, result);
+        }
+        // compute the result without holding the lock, as the supplier
+        // may access other result holders
+        R computed = supplier.get();
+        synchronized (this) {
+            result = results.get(key);
+            if (result == null && computed != null) {
+                results.put(key, wrap(key, computed));
+                return computed;
+            }
+        }
+        return result != null ? (R) unwrap(key, result) : computed;
     }
 
     @Override
-    public Collection<String> getKeys() {
-        return results.keySet();
+    public synchronized Collection<String> getKeys() {
+        return List.copyOf(results.keySet());
     }
 
     @Override
-    public void clearResult(String key) {
+    public synchronized void clearResult(String key) {
         results.remove(key);
     }
 
     @Override
-    public void clearAll() {
+    public synchronized void clearAll() {
         results.clear();
     }
+
+    private static Object wrap(String key, Object result) {
+        return result != null && ResultRecomputers.isRecomputable(key)
+                ? new SoftResult(result) : result;
+    }
+
+    /**
+     * @return the result held by {@code value}, which is recomputed
+     * if it has been reclaimed.
+     */
+    private Object unwrap(String key, Object value) {
+        if (!(value instanceof SoftResult soft)) {
+            return value;
+        }
+        Object result = soft.get();
+        if (result == null) {
+            result = ResultRecomputers.recompute(key, this);
+            synchronized (this) {
+                // keep the recomputed result unless the result has been
+                // cleared or replaced during the recomputation
+                if (results.get(key) == soft) {
+                    if (result != null) {
+                        results.put(key, new SoftResult(result));
+                    } else {
+                        results.remove(key);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static class SoftResult extends SoftReference<Object> {
+
+        private SoftResult(Object result) {
+            super(result);
+        }
+    }
 }
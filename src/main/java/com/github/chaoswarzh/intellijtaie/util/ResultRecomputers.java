@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.util;
+
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Registry of the functions that recompute results of given keys
+ * (i.e., analysis IDs) for result holders.
+ * <p>
+ * The results of the keys registered here are held by
+ * {@link AbstractResultHolder} through soft references, so that they
+ * are reclaimed by the garbage collector under memory pressure, and
+ * recomputed by the registered functions when they are requested again.
+ * Hence, a key should be registered only if its results are cheap to
+ * recompute, and no other results rely on their identities.
+ */
+public final class ResultRecomputers {
+
+    private static final Map<String, Function<ResultHolder, ?>> recomputers =
+            Maps.newConcurrentMap();
+
+    private ResultRecomputers() {
+    }
+
+    /**
+     * Registers {@code recomputer} for the results of {@code key}.
+     * The results of {@code key} stored after this call become evictable.
+     */
+    public static void register(String key, Function<ResultHolder, ?> recomputer) {
+        recomputers.put(key, recomputer);
+    }
+
+    static boolean isRecomputable(String key) {
+        return recomputers.containsKey(key);
+    }
+
+    /**
+     * Recomputes the result of {@code key} for {@code holder}.
+     *
+     * @return the recomputed result, or {@code null} if no recomputer
+     * is registered for {@code key}.
+     */
+    @Nullable
+    static Object recompute(String key, ResultHolder holder) {
+        Function<ResultHolder, ?> recomputer = recomputers.get(key);
+        return recomputer != null ? recomputer.apply(holder) : null;
+    }
+
+    /**
+     * Removes all registered recomputers.
+     */
+    public static void clear() {
+        recomputers.clear();
+    }
+}
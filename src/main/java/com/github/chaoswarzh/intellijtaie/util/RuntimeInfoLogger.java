@@ -85,14 +85,24 @@ public class RuntimeInfoLogger {
      */
     private static void logTaieInfo() {
         Manifest manifest = getManifest();
-        String version = manifest != null ? readVersionFromManifest(manifest)
-                : readVersionFromGradleProperties();
-        logger.info("Tai-e Version: {}", version);
+        logger.info("Tai-e Version: {}", getTaieVersion(manifest));
         String commit = manifest != null ? readCommitFromManifest(manifest)
                 : readCommitFromDotGit();
         logger.info("Tai-e Commit: {}", commit);
     }
 
+    /**
+     * @return the Tai-e version, or {@code "Unknown"} if it cannot be read.
+     */
+    public static String getTaieVersion() {
+        return getTaieVersion(getManifest());
+    }
+
+    private static String getTaieVersion(@Nullable Manifest manifest) {
+        return manifest != null ? readVersionFromManifest(manifest)
+                : readVersionFromGradleProperties();
+    }
+
     /**
      * Reads the Tai-e version from the provided manifest.
      *
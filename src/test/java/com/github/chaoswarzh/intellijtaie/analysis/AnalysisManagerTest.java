@@ -0,0 +1,163 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.LiveVariable;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.ReachingDefinition;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.CPFact;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact.NodeResult;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact.SetFact;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraphBuilder;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.cfg.CFGBuilder;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnalysisManagerTest {
+
+    private static final String[] ANALYSES = {
+            "-a", CallGraphBuilder.ID + "=algorithm:cha",
+            "-a", CFGBuilder.ID,
+            "-a", LiveVariable.ID,
+            "-a", ReachingDefinition.ID,
+            "-a", ConstantPropagation.ID,
+    };
+
+    @Test
+    void testConcurrentAnalyses(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        analyze(cp, 1);
+        Map<String, String> expected = summarize();
+        Set<String> reachable = getReachableAppMethods();
+        for (int i = 0; i < 3; ++i) {
+            // the lazy frontend loads classes for the call graph builder
+            // while the other analyses build IRs of application methods
+            analyze(cp, 4, "--pre-build-ir");
+            assertEquals(expected, summarize());
+            // JDK methods reachable by CHA depend on the classes loaded by
+            // pre-building when CHA starts, thus only application methods
+            // are compared
+            assertEquals(reachable, getReachableAppMethods());
+        }
+    }
+
+    @Test
+    void testClearUnusedResults(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        analyze(cp, 4, "-kr", LiveVariable.ID);
+        assertFalse(World.get().hasResult(CallGraphBuilder.ID));
+        for (JMethod method : getAppMethods()) {
+            IR ir = method.getIR();
+            assertTrue(ir.hasResult(LiveVariable.ID), method.toString());
+            assertFalse(ir.hasResult(CFGBuilder.ID), method.toString());
+            assertFalse(ir.hasResult(ReachingDefinition.ID), method.toString());
+            assertFalse(ir.hasResult(ConstantPropagation.ID), method.toString());
+        }
+    }
+
+    private static void analyze(String classPath, int threads, String... opts) {
+        List<String> args = new ArrayList<>(List.of(
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath, "-m", "FrontendFeatures",
+                "--analysis-threads", Integer.toString(threads)));
+        args.addAll(List.of(ANALYSES));
+        args.addAll(List.of(opts));
+        Main.main(args.toArray(new String[0]));
+    }
+
+    /**
+     * @return textual results of the dataflow analyses on each statement
+     * of the application methods, which are independent of the identities
+     * of the IR objects.
+     */
+    private static Map<String, String> summarize() {
+        Map<String, String> summary = new TreeMap<>();
+        for (JMethod method : getAppMethods()) {
+            IR ir = method.getIR();
+            NodeResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariable.ID);
+            NodeResult<Stmt, SetFact<Stmt>> reachDefs = ir.getResult(ReachingDefinition.ID);
+            NodeResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
+            for (Stmt stmt : ir) {
+                String live = liveVars.getOutFact(stmt).stream()
+                        .map(Var::getName)
+                        .sorted()
+                        .toList()
+                        .toString();
+                String defs = reachDefs.getOutFact(stmt).stream()
+                        .map(Stmt::getIndex)
+                        .sorted()
+                        .toList()
+                        .toString();
+                CPFact fact = constants.getOutFact(stmt);
+                String values = ir.getVars().stream()
+                        .map(v -> v.getName() + "=" + fact.get(v))
+                        .toList()
+                        .toString();
+                summary.put(method.getSignature() + "#" + stmt.getIndex(),
+                        live + defs + values);
+            }
+        }
+        return summary;
+    }
+
+    private static Set<String> getReachableAppMethods() {
+        CallGraph<?, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.reachableMethods()
+                .filter(m -> m.getDeclaringClass().isApplication())
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+    }
+
+    private static List<JMethod> getAppMethods() {
+        List<JMethod> methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+        assertFalse(methods.isEmpty());
+        return methods;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.LiveVariable;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.CPFact;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact.NodeResult;
+import com.github.chaoswarzh.intellijtaie.analysis.dataflow.fact.SetFact;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MethodResultCacheTest {
+
+    private static final Path CACHE_DIR = Path.of("cache", "method-results");
+
+    @Test
+    void testReuseCachedResults(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        analyze(cp, false);
+        Map<String, String> expected = summarize();
+        analyze(cp, true);
+        assertEquals(expected, summarize());
+        Map<Path, Object> files = getCacheFiles();
+        // the second run reads all results from the cache,
+        // thus no cache file is rewritten
+        analyze(cp, true);
+        assertEquals(expected, summarize());
+        assertEquals(files, getCacheFiles());
+    }
+
+    @Test
+    void testSeparateResultsOfDifferentPlans(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        analyze(cp, true);
+        Map<Path, Object> files = getCacheFiles();
+        // the result of live-var changes with its option
+        analyze(cp, true, "-a", LiveVariable.ID + "=strongly:false");
+        Map<Path, Object> newFiles = getCacheFiles();
+        assertTrue(newFiles.size() > files.size());
+        files.forEach((file, key) -> assertEquals(key, newFiles.get(file)));
+    }
+
+    private static void analyze(String classPath, boolean cache, String... opts) {
+        List<String> args = new ArrayList<>(List.of(
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath, "-m", "FrontendFeatures",
+                "-a", ConstantPropagation.ID));
+        if (opts.length == 0) {
+            args.addAll(List.of("-a", LiveVariable.ID));
+        }
+        args.addAll(List.of(opts));
+        if (cache) {
+            args.add("--method-result-cache");
+        }
+        Main.main(args.toArray(new String[0]));
+    }
+
+    /**
+     * @return the cache files and their file keys, which change when
+     * the files are rewritten.
+     */
+    private static Map<Path, Object> getCacheFiles() {
+        try (Stream<Path> files = Files.walk(CACHE_DIR)) {
+            return files.filter(Files::isRegularFile)
+                    .collect(Collectors.toMap(f -> f, f -> {
+                        try {
+                            return Files.readAttributes(f, BasicFileAttributes.class)
+                                    .fileKey();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, String> summarize() {
+        Map<String, String> summary = new TreeMap<>();
+        World.get().getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .forEach(m -> {
+                    IR ir = m.getIR();
+                    NodeResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariable.ID);
+                    NodeResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
+                    for (Stmt stmt : ir) {
+                        String live = liveVars.getOutFact(stmt).stream()
+                                .map(Var::getName)
+                                .sorted()
+                                .toList()
+                                .toString();
+                        CPFact fact = constants.getOutFact(stmt);
+                        String values = ir.getVars().stream()
+                                .map(v -> v.getName() + "=" + fact.get(v))
+                                .toList()
+                                .toString();
+                        summary.put(m.getSignature() + "#" + stmt.getIndex(),
+                                live + values);
+                    }
+                });
+        assertFalse(summary.isEmpty());
+        return summary;
+    }
+}
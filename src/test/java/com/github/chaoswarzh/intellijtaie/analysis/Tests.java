@@ -32,8 +32,11 @@ import com.github.chaoswarzh.intellijtaie.analysis.misc.ResultProcessor;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
 import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.assertion.AssertionChecker;
 
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -42,7 +45,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -193,6 +198,30 @@ public final class Tests {
         }
     }
 
+    /**
+     * Compiles the Java source files in {@code srcDir} to {@code outputDir},
+     * for the tests which require class files, e.g., the tests of
+     * the ASM-based frontend.
+     *
+     * @return the path of {@code outputDir}.
+     */
+    public static String compile(String srcDir, Path outputDir) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> args = new ArrayList<>(List.of(
+                "-g", "-nowarn", "-d", outputDir.toString()));
+        try (Stream<Path> paths = Files.list(Path.of(srcDir))) {
+            paths.map(Path::toString)
+                    .filter(p -> p.endsWith(".java"))
+                    .sorted()
+                    .forEach(args::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int exitCode = compiler.run(null, null, null, args.toArray(new String[0]));
+        assertEquals(0, exitCode, "Failed to compile " + srcDir);
+        return outputDir.toString();
+    }
+
     private static String getPTAArgs(
             boolean processResult, String expectedFile, String... opts) {
         List<String> ptaArgs = new ArrayList<>(List.of(
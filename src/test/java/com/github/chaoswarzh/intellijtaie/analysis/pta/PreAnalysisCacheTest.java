@@ -0,0 +1,152 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.mahjong.Mahjong;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreAnalysisCacheTest {
+
+    private static final Path CACHE_DIR = Path.of("cache", "pre-analysis");
+
+    @Test
+    void testCodecs(@TempDir Path classPath) throws IOException {
+        PointerAnalysisResult pta = analyze(classPath, "cs:ci");
+        List<JMethod> methods = pta.getCallGraph()
+                .reachableMethods()
+                .limit(100)
+                .toList();
+        Map<JMethod, String> csMap = methods.stream()
+                .collect(Collectors.toMap(Function.identity(),
+                        m -> m.isStatic() ? "ci" : "2-obj"));
+        assertEquals(csMap, roundTrip(PreAnalysisCache.METHOD_MAP, csMap));
+        Set<JMethod> methodSet = Set.copyOf(methods);
+        assertEquals(methodSet, roundTrip(PreAnalysisCache.METHODS, methodSet));
+        List<List<New>> allocGroups = Mahjong.merge(pta);
+        assertFalse(allocGroups.isEmpty());
+        assertEquals(allocGroups, roundTrip(PreAnalysisCache.ALLOC_GROUPS, allocGroups));
+    }
+
+    @Test
+    void testStaleResults(@TempDir Path classPath) throws IOException {
+        analyze(classPath, "cs:ci");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1);
+        out.writeUTF("<Missing: void m()>");
+        assertThrows(IOException.class, () -> PreAnalysisCache.METHODS.decode(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        // the allocation site is out of the IR of main()
+        bytes.reset();
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeUTF(World.get().getMainMethod().getSignature());
+        out.writeInt(World.get().getMainMethod().getIR().getStmts().size());
+        assertThrows(IOException.class, () -> PreAnalysisCache.ALLOC_GROUPS.decode(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    void testReuseCachedResults(@TempDir Path classPath) {
+        String options = "cs:1-type;advanced:zipper;pre-analysis-cache:true";
+        PointerAnalysisResult pta = analyze(classPath, options);
+        Set<String> expected = getReachableMethods(pta);
+        Map<Path, Object> files = getCacheFiles();
+        assertFalse(files.isEmpty());
+        // the result of Zipper is loaded from the cache, which is not rewritten
+        pta = analyze(classPath, options);
+        assertEquals(expected, getReachableMethods(pta));
+        assertEquals(files, getCacheFiles());
+    }
+
+    private static PointerAnalysisResult analyze(Path classPath, String options) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", PointerAnalysis.ID + "=" + options,
+        });
+        return World.get().getResult(PointerAnalysis.ID);
+    }
+
+    private static <T> T roundTrip(PreAnalysisCache.Codec<T> codec, T result)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.encode(result, new DataOutputStream(bytes));
+        return codec.decode(new DataInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static Set<String> getReachableMethods(PointerAnalysisResult pta) {
+        return pta.getCallGraph()
+                .reachableMethods()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return the cache files and their file keys, which change when
+     * the files are rewritten.
+     */
+    private static Map<Path, Object> getCacheFiles() {
+        try (Stream<Path> files = Files.list(CACHE_DIR)) {
+            return files.filter(f -> f.toString().endsWith(".bin"))
+                    .collect(Collectors.toMap(f -> f, f -> {
+                        try {
+                            return Files.readAttributes(f, BasicFileAttributes.class)
+                                    .fileKey();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint.TaintAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint.TaintFlow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that reloading the taint config in interactive mode
+ * gives the same taint flows as analyzing with the new config from scratch.
+ */
+public class TaintReloadTest {
+
+    private static final String MAIN = "IncrementalTaint";
+
+    private static final String CONFIG_PREFIX =
+            "src/test/resources/pta/taint/taint-config-incremental-";
+
+    @Test
+    void testAddConfig(@TempDir Path tempDir) {
+        testReload("1", "2", 3, tempDir);
+    }
+
+    @Test
+    void testRemoveConfig(@TempDir Path tempDir) {
+        testReload("2", "1", 2, tempDir);
+    }
+
+    private static void testReload(String from, String to,
+                                   int expectedFlows, Path tempDir) {
+        Path config = tempDir.resolve("taint-config.yml");
+        copy(getConfig(from), config);
+        Set<String> reloaded = analyze(config, new ReloadInput(getConfig(to), config));
+        Set<String> expected = analyze(getConfig(to), InputStream.nullInputStream());
+        assertEquals(expectedFlows, expected.size());
+        assertEquals(expected, reloaded);
+    }
+
+    private static Path getConfig(String id) {
+        return Path.of(CONFIG_PREFIX + id + ".yml");
+    }
+
+    private static Set<String> analyze(Path config, InputStream input) {
+        InputStream originalSystemIn = System.in;
+        try {
+            System.setIn(input);
+            Tests.testPTA(false, TaintTest.DIR, MAIN,
+                    "taint-config:" + config,
+                    "taint-interactive-mode:true");
+        } finally {
+            System.setIn(originalSystemIn);
+        }
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> flows = pta.getResult(TaintAnalysis.class.getName());
+        return flows.stream().map(TaintFlow::toString).collect(Collectors.toSet());
+    }
+
+    private static void copy(Path from, Path to) {
+        try {
+            Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Simulates a user who edits the taint config, then reloads it
+     * and exits interactive mode.
+     */
+    private static class ReloadInput extends InputStream {
+
+        private final Path newConfig;
+
+        private final Path config;
+
+        private ByteArrayInputStream commands;
+
+        private ReloadInput(Path newConfig, Path config) {
+            this.newConfig = newConfig;
+            this.config = config;
+        }
+
+        @Override
+        public int read() {
+            if (commands == null) {
+                copy(newConfig, config);
+                commands = new ByteArrayInputStream("r\ne\n".getBytes());
+            }
+            return commands.read();
+        }
+    }
+}
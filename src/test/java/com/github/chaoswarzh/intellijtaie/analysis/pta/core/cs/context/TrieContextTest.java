@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TrieContextTest {
+
+    private static final String[] ELEMS = {"a", "b", "c"};
+
+    private static final int MAX_LENGTH = 4;
+
+    @Test
+    void testDenseIds() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        List<TrieContext> contexts = new ArrayList<>();
+        contexts.add(factory.getEmptyContext());
+        for (String[] elems : allSequences()) {
+            TrieContext context = factory.make(elems);
+            // contexts are canonical
+            assertSame(context, factory.make(elems));
+            if (!contexts.contains(context)) {
+                contexts.add(context);
+            }
+        }
+        Set<Integer> ids = contexts.stream()
+                .map(TrieContext::getId)
+                .collect(Collectors.toSet());
+        assertEquals(IntStream.range(0, contexts.size()).boxed()
+                .collect(Collectors.toSet()), ids);
+        contexts.forEach(c -> assertEquals(c.getId(), c.hashCode()));
+    }
+
+    @Test
+    void testMakeLastK() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        for (String[] elems : allSequences()) {
+            TrieContext context = factory.make(elems);
+            assertEquals(Arrays.toString(elems), context.toString());
+            for (int k = 0; k <= MAX_LENGTH; ++k) {
+                String[] lastK = Arrays.copyOfRange(elems,
+                        Math.max(0, elems.length - k), elems.length);
+                assertSame(factory.make(lastK), factory.makeLastK(context, k));
+            }
+        }
+    }
+
+    @Test
+    void testAppend() {
+        TrieContext.Factory<String> factory = new TrieContext.Factory<>();
+        for (String[] elems : allSequences()) {
+            TrieContext context = factory.make(elems);
+            for (int limit = 1; limit <= MAX_LENGTH; ++limit) {
+                String[] expected = Arrays.copyOfRange(elems,
+                        Math.max(0, elems.length - limit + 1), elems.length + 1);
+                expected[expected.length - 1] = "d";
+                assertSame(factory.make(expected),
+                        factory.append(context, "d", limit));
+            }
+        }
+    }
+
+    @Test
+    void testContextOfOtherFactory() {
+        TrieContext.Factory<String> factory1 = new TrieContext.Factory<>();
+        TrieContext.Factory<String> factory2 = new TrieContext.Factory<>();
+        Context context = factory1.make("a", "b", "c");
+        Context lastK = factory2.makeLastK(context, 2);
+        assertNotSame(factory1.make("b", "c"), lastK);
+        assertSame(factory2.make("b", "c"), lastK);
+    }
+
+    /**
+     * @return all sequences of {@link #ELEMS} whose lengths are
+     * in [0, {@link #MAX_LENGTH}].
+     */
+    private static List<String[]> allSequences() {
+        List<String[]> result = new ArrayList<>();
+        result.add(new String[0]);
+        for (int i = 0; i < result.size(); ++i) {
+            String[] seq = result.get(i);
+            if (seq.length < MAX_LENGTH) {
+                for (String elem : ELEMS) {
+                    String[] next = Arrays.copyOf(seq, seq.length + 1);
+                    next[seq.length] = elem;
+                    result.add(next);
+                }
+            }
+        }
+        return result;
+    }
+}
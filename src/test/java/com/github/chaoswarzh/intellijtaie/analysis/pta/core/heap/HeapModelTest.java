@@ -0,0 +1,149 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeapModelTest {
+
+    private static final Set<String> MERGED_TYPES =
+            Set.of("java.util.ArrayList", "Circle");
+
+    private static final int THRESHOLD = 1;
+
+    @Test
+    void testMergeTypes(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        Map<String, Set<String>> pts = getPointsToSets(analyze(cp, "cs:ci"));
+
+        PointerAnalysisResult merged = analyze(cp,
+                "cs:ci;merge-types:[" + String.join(",", MERGED_TYPES) + "]");
+        // each merged type is represented by a single merged object
+        Map<String, Set<Obj>> objsOfMergedTypes = merged.getObjects()
+                .stream()
+                .filter(o -> MERGED_TYPES.contains(o.getType().getName()))
+                .collect(Collectors.groupingBy(o -> o.getType().getName(),
+                        Collectors.toSet()));
+        assertEquals(MERGED_TYPES, objsOfMergedTypes.keySet());
+        objsOfMergedTypes.forEach((type, objs) -> {
+            assertEquals(1, objs.size(), type);
+            assertTrue(objs.iterator().next() instanceof MergedObj, type);
+        });
+        assertSound(pts, getPointsToSets(merged));
+    }
+
+    @Test
+    void testMergeTypeThreshold(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        Map<String, Set<String>> pts = getPointsToSets(analyze(cp, "cs:ci"));
+
+        PointerAnalysisResult merged = analyze(cp,
+                "cs:ci;merge-type-threshold:" + THRESHOLD);
+        // at most THRESHOLD allocation sites of each type are distinguished,
+        // and the types with more allocation sites are merged as a whole
+        Map<Type, Long> newObjCounts = merged.getObjects()
+                .stream()
+                .filter(o -> o instanceof NewObj)
+                .collect(Collectors.groupingBy(Obj::getType,
+                        Collectors.counting()));
+        newObjCounts.forEach((type, count) ->
+                assertTrue(count <= THRESHOLD, type + ": " + count));
+        merged.getObjects()
+                .stream()
+                .filter(o -> o instanceof MergedObj)
+                .forEach(o -> assertFalse(
+                        newObjCounts.containsKey(o.getType()), o.toString()));
+        assertTrue(merged.getObjects().stream()
+                .anyMatch(o -> o instanceof MergedObj m
+                        && m.getAllocation().size() > THRESHOLD));
+        assertSound(pts, getPointsToSets(merged));
+    }
+
+    @Test
+    void testInvalidMergeTypeThreshold(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        assertThrows(ConfigException.class,
+                () -> analyze(cp, "cs:ci;merge-type-threshold:-2"));
+    }
+
+    private static PointerAnalysisResult analyze(String classPath, String options) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath, "-m", "FrontendFeatures",
+                "-a", PointerAnalysis.ID + "=" + options,
+        });
+        return World.get().getResult(PointerAnalysis.ID);
+    }
+
+    /**
+     * Merging objects only loses precision, i.e., each object pointed to
+     * by a variable is still pointed to via the merged object representing it.
+     */
+    private static void assertSound(Map<String, Set<String>> pts,
+                                    Map<String, Set<String>> mergedPts) {
+        pts.forEach((var, objs) -> {
+            Set<String> newObjs = mergedPts.get(var);
+            assertTrue(newObjs != null && newObjs.containsAll(objs), var);
+        });
+    }
+
+    /**
+     * @return the points-to sets of the variables in the application
+     * methods, where merged objects are expanded to the objects they
+     * represent, and variables and objects are represented by their
+     * textual forms, so that the results of different runs are comparable.
+     */
+    private static Map<String, Set<String>> getPointsToSets(PointerAnalysisResult pta) {
+        return pta.getVars()
+                .stream()
+                .filter(v -> v.getMethod().isApplication())
+                .collect(Collectors.toMap(
+                        v -> v.getMethod().getSignature() + "/" + v.getName(),
+                        v -> pta.getPointsToSet(v)
+                        .stream()
+                        .flatMap(o -> o instanceof MergedObj m
+                                ? m.getAllocation().stream() : Stream.of(o))
+                        .map(Object::toString)
+                        .collect(Collectors.toSet())));
+    }
+}
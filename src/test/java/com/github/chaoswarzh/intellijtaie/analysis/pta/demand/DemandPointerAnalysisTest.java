@@ -0,0 +1,126 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.demand;
+
+import org.junit.jupiter.api.Test;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Descriptor;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.MockObj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DemandPointerAnalysisTest {
+
+    private static final String DIR = "src/test/resources/pta/demand";
+
+    private static final String MAIN = "DemandPTA";
+
+    @Test
+    void testSoundness() {
+        analyze("budget:10000");
+        DemandPointerAnalysisResult demand = World.get().getResult(DemandPointerAnalysis.ID);
+        assertSound(demand);
+        assertEquals(0, demand.getExhaustedQueries());
+    }
+
+    @Test
+    void testPrecision() {
+        analyze("budget:10000");
+        DemandPointerAnalysisResult demand = World.get().getResult(DemandPointerAnalysis.ID);
+        assertEquals(1, demand.getPointsToSet(getVar("fields", "x")).size());
+        assertEquals(1, demand.getPointsToSet(getVar("fields", "y")).size());
+        assertEquals(demand.getPointsToSet(getVar("fields", "x")),
+                demand.getPointsToSet(getVar("fields", "z")));
+        assertEquals(1, demand.getPointsToSet(getVar("arrays", "x")).size());
+        assertEquals(1, demand.getPointsToSet(getVar("statics", "x")).size());
+        assertEquals(1, demand.getPointsToSet(getVar("calls", "a")).size());
+    }
+
+    @Test
+    void testFallback() {
+        analyze("budget:1");
+        DemandPointerAnalysisResult demand = World.get().getResult(DemandPointerAnalysis.ID);
+        assertSound(demand);
+        assertTrue(demand.getExhaustedQueries() > 0);
+        assertTrue(demand.getTypeFilteredQueries() > 0);
+        // objects of type-filtered results conform to the declared types
+        Var x = getVar("fields", "x");
+        demand.getPointsToSet(x).forEach(obj -> assertTrue(
+                World.get().getTypeSystem().isSubtype(x.getType(), obj.getType())));
+    }
+
+    private static void analyze(String demandOpts) {
+        Main.main(new String[]{
+                "-pp", "-cp", DIR, "-m", MAIN,
+                "-a", PointerAnalysis.ID + "=implicit-entries:false",
+                "-a", DemandPointerAnalysis.ID + "=implicit-entries:false;" + demandOpts,
+        });
+    }
+
+    /**
+     * Checks that the demand-driven results over-approximate
+     * the whole-program results on the variables of the main class.
+     */
+    private static void assertSound(PointerAnalysisResult demand) {
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        for (Var var : pta.getVars()) {
+            if (!var.getMethod().getDeclaringClass().isApplication()) {
+                continue;
+            }
+            // objects created by the JVM are not tracked by demand-driven analysis
+            Set<String> expected = toStrings(pta.getPointsToSet(var)
+                    .stream()
+                    .filter(o -> !(o instanceof MockObj mockObj &&
+                            mockObj.getDescriptor() == Descriptor.ENTRY_DESC))
+                    .collect(Collectors.toSet()));
+            Set<String> actual = toStrings(demand.getPointsToSet(var));
+            assertTrue(actual.containsAll(expected), () -> "Unsound result of " +
+                    var + " in " + var.getMethod() + ": expected " +
+                    expected + ", given " + actual);
+        }
+    }
+
+    private static Set<String> toStrings(Collection<Obj> objs) {
+        return objs.stream().map(Obj::toString).collect(Collectors.toSet());
+    }
+
+    private static Var getVar(String methodName, String varName) {
+        JMethod method = World.get().getClassHierarchy()
+                .getClass(MAIN).getDeclaredMethod(methodName);
+        return method.getIR().getVars().stream()
+                .filter(v -> v.getName().equals(varName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
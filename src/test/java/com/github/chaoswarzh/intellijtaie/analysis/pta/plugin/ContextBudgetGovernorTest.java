@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.cs.element.CSMethod;
+import com.github.chaoswarzh.intellijtaie.config.ConfigException;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContextBudgetGovernorTest {
+
+    private static final int CONTEXT_LIMIT = 2;
+
+    @Test
+    void testParseBudget() {
+        ContextBudgetGovernor governor = new ContextBudgetGovernor(
+                "contexts=10, pts=1000, time=5, fallback=1-type");
+        assertEquals("1-type", governor.getFallbackCS());
+        assertEquals("ci", new ContextBudgetGovernor("contexts=10").getFallbackCS());
+        assertThrows(ConfigException.class, () -> new ContextBudgetGovernor("contexts"));
+        assertThrows(ConfigException.class, () -> new ContextBudgetGovernor("contexts=x"));
+        assertThrows(ConfigException.class, () -> new ContextBudgetGovernor("calls=10"));
+    }
+
+    @Test
+    void testContextBudget(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        PointerAnalysisResult full = analyze(cp, "cs:1-obj");
+        Map<JMethod, Long> fullCounts = countContexts(full);
+        Map<String, Set<String>> fullPts = getPointsToSets(full);
+        assertTrue(fullCounts.values().stream().anyMatch(n -> n > CONTEXT_LIMIT + 1));
+
+        PointerAnalysisResult budgeted = analyze(cp,
+                "cs:1-obj;cs-budget:contexts=" + CONTEXT_LIMIT);
+        // the method that exceeds the limit is switched to ci, which adds
+        // at most the empty context
+        countContexts(budgeted).forEach((method, count) ->
+                assertTrue(count <= CONTEXT_LIMIT + 1, method + ": " + count));
+        // switching to ci only loses precision
+        Map<String, Set<String>> budgetedPts = getPointsToSets(budgeted);
+        fullPts.forEach((var, pts) -> {
+            Set<String> newPts = budgetedPts.get(var);
+            assertTrue(newPts != null && newPts.containsAll(pts), var);
+        });
+    }
+
+    private static PointerAnalysisResult analyze(String classPath, String options) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath, "-m", "FrontendFeatures",
+                "-a", PointerAnalysis.ID + "=" + options,
+        });
+        return World.get().getResult(PointerAnalysis.ID);
+    }
+
+    private static Map<JMethod, Long> countContexts(PointerAnalysisResult pta) {
+        return pta.getCSCallGraph()
+                .reachableMethods()
+                .collect(Collectors.groupingBy(CSMethod::getMethod,
+                        Collectors.counting()));
+    }
+
+    /**
+     * @return the points-to sets of the variables in the application
+     * methods, where variables and objects are represented by their
+     * textual forms, so that the results of different runs are comparable.
+     */
+    private static Map<String, Set<String>> getPointsToSets(PointerAnalysisResult pta) {
+        return pta.getVars()
+                .stream()
+                .filter(v -> v.getMethod().isApplication())
+                .collect(Collectors.toMap(
+                        v -> v.getMethod().getSignature() + "/" + v.getName(),
+                        v -> pta.getPointsToSet(v)
+                        .stream()
+                        .map(Object::toString)
+                        .collect(Collectors.toSet())));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
+
+import org.junit.jupiter.api.Test;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+import com.github.chaoswarzh.intellijtaie.util.collection.MultiMap;
+import com.github.chaoswarzh.intellijtaie.util.collection.Sets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the dumped taint flow graph: every taint flow is witnessed by
+ * a path from its source to its sink, and every node of the graph lies
+ * on a path from a source to a sink.
+ */
+public class TaintFlowGraphTest {
+
+    private static final Pattern EDGE = Pattern.compile(
+            "^\\s*(\"(?:[^\"\\\\]|\\\\.)*\") -> (\"(?:[^\"\\\\]|\\\\.)*\")");
+
+    @Test
+    void testTaintFlowGraph() throws IOException {
+        Tests.testPTA(false, "taint", "IncrementalTaint",
+                "taint-config:src/test/resources/pta/taint/taint-config-incremental-2.yml");
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        Set<TaintFlow> flows = pta.getResult(TaintAnalysis.class.getName());
+        assertEquals(3, flows.size());
+        MultiMap<String, String> succs = Maps.newMultiMap();
+        MultiMap<String, String> preds = Maps.newMultiMap();
+        Path dot = World.get().getOptions().getOutputDir()
+                .toPath().resolve("taint-flow-graph.dot");
+        for (String line : Files.readAllLines(dot)) {
+            Matcher matcher = EDGE.matcher(line);
+            if (matcher.find()) {
+                succs.put(matcher.group(1), matcher.group(2));
+                preds.put(matcher.group(2), matcher.group(1));
+            }
+        }
+        Set<String> sources = Sets.newSet();
+        Set<String> sinks = Sets.newSet();
+        for (TaintFlow flow : flows) {
+            String source = quoted(flow.sourcePoint().source().rawEntry()
+                    + "\\n" + flow.sourcePoint());
+            String sink = quoted(flow.sinkPoint().sink().rawEntry()
+                    + "\\n" + flow.sinkPoint());
+            assertTrue(reach(source, succs::get).contains(sink),
+                    "No path for " + flow);
+            sources.add(source);
+            sinks.add(sink);
+        }
+        // all edges between the nodes of object flow graph are
+        // reachable from sources and reach sinks
+        Set<String> forward = Sets.newSet();
+        sources.forEach(s -> forward.addAll(reach(s, succs::get)));
+        Set<String> backward = Sets.newSet();
+        sinks.forEach(s -> backward.addAll(reach(s, preds::get)));
+        int edges = 0;
+        for (var edge : succs.entrySet()) {
+            if (isConfigNode(edge.getKey()) || isConfigNode(edge.getValue())) {
+                continue;
+            }
+            ++edges;
+            assertTrue(forward.contains(edge.getKey()) && backward.contains(edge.getValue()),
+                    edge + " is not on any taint flow");
+        }
+        assertTrue(edges > 0);
+    }
+
+    private static Set<String> reach(String root, Function<String, Set<String>> next) {
+        Set<String> visited = Sets.newSet();
+        Deque<String> workList = new ArrayDeque<>();
+        visited.add(root);
+        workList.add(root);
+        while (!workList.isEmpty()) {
+            for (String n : next.apply(workList.poll())) {
+                if (visited.add(n)) {
+                    workList.add(n);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * @return {@code true} if {@code node} is dumped for a source or a sink,
+     * whose label consists of the config entry and the source (sink) point.
+     */
+    private static boolean isConfigNode(String node) {
+        return node.contains("\\n");
+    }
+
+    private static String quoted(String s) {
+        return "\"" + s.replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaintFlowReporterTest {
+
+    private static final String CONFIG =
+            "taint-config:src/test/resources/pta/taint/taint-config-incremental-2.yml";
+
+    @Test
+    void testNDJson() throws IOException {
+        File report = analyze("ndjson");
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> flows = new ArrayList<>();
+        for (String line : Files.readAllLines(report.toPath())) {
+            flows.add(mapper.readTree(line));
+        }
+        assertEquals(3, flows.size());
+        int transferred = 0;
+        for (JsonNode flow : flows) {
+            JsonNode path = flow.get("path");
+            if (path.size() > 2) {
+                // the flow via taint transfer
+                ++transferred;
+            }
+            assertEquals("source", path.get(0).get("kind").asText());
+            assertEquals(flow.get("source").asText(), path.get(0).get("message").asText());
+            JsonNode last = path.get(path.size() - 1);
+            assertEquals("sink", last.get("kind").asText());
+            assertEquals(flow.get("sink").asText(), last.get("message").asText());
+            assertTrue(last.get("line").asInt() > 0);
+        }
+        assertEquals(1, transferred);
+    }
+
+    @Test
+    void testSarif() throws IOException {
+        JsonNode log = new ObjectMapper().readTree(analyze("sarif"));
+        assertEquals("2.1.0", log.get("version").asText());
+        JsonNode results = log.get("runs").get(0).get("results");
+        assertEquals(3, results.size());
+        int transferred = 0;
+        for (JsonNode result : results) {
+            assertEquals("taint-flow", result.get("ruleId").asText());
+            JsonNode steps = result.get("codeFlows").get(0)
+                    .get("threadFlows").get(0).get("locations");
+            if (steps.size() > 2) {
+                ++transferred;
+            }
+            assertEquals("IncrementalTaint.java", result.get("locations").get(0)
+                    .get("physicalLocation").get("artifactLocation").get("uri").asText());
+        }
+        assertEquals(1, transferred);
+    }
+
+    private static File analyze(String format) {
+        Tests.testPTA(false, "taint", "IncrementalTaint", CONFIG,
+                "taint-report:" + format);
+        return new File(World.get().getOptions().getOutputDir(),
+                "taint-flows." + format);
+    }
+}
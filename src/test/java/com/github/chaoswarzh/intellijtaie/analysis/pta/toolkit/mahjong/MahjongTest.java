@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.mahjong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.NewObj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.language.type.Type;
+import com.github.chaoswarzh.intellijtaie.util.collection.UnionFindSet;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MahjongTest {
+
+    @Test
+    void testMergeGroups(@TempDir Path classPath) {
+        PointerAnalysisResult pta = runPTA(classPath);
+        Set<Set<New>> groups = toSets(Mahjong.merge(pta));
+        assertFalse(groups.isEmpty());
+        assertEquals(computeMergeGroupsWithoutBuckets(pta), groups);
+    }
+
+    @Test
+    void testFingerprint(@TempDir Path classPath) {
+        PointerAnalysisResult pta = runPTA(classPath);
+        List<Obj> objs = List.copyOf(pta.getObjects()).subList(0, 8);
+        Set<Type> output = Set.of(objs.get(0).getType());
+        Field f = new Field.Factory().getArrayIndex();
+        // a: a0 -f-> a0
+        DFAState a0 = newState(objs.get(0), output);
+        a0.addTransition(f, a0);
+        // b: b0 -f-> b1 -f-> b0, which is equivalent to a
+        DFAState b0 = newState(objs.get(1), output);
+        DFAState b1 = newState(objs.get(2), output);
+        b0.addTransition(f, b1);
+        b1.addTransition(f, b0);
+        // c: c0 -f-> c1 -f-> c2, which accepts finite paths only
+        DFAState c0 = newState(objs.get(3), output);
+        DFAState c1 = newState(objs.get(4), output);
+        DFAState c2 = newState(objs.get(5), output);
+        c0.addTransition(f, c1);
+        c1.addTransition(f, c2);
+        DFA a = new DFA(a0);
+        DFA b = new DFA(b0);
+        DFA c = new DFA(c0);
+        DFAEquivChecker checker = new DFAEquivChecker();
+        assertTrue(checker.isEquivalent(a, b));
+        assertEquals(checker.fingerprint(a), checker.fingerprint(b));
+        assertFalse(checker.isEquivalent(a, c));
+        assertNotEquals(checker.fingerprint(a), checker.fingerprint(c));
+        // d: d0 -f-> (state without objects), which is equivalent to
+        // e: e0, as both transitions on f lead to no objects
+        DFAState d0 = newState(objs.get(6), output);
+        d0.addTransition(f, new DFAState(Set.of(), Set.of()));
+        DFAState e0 = newState(objs.get(7), output);
+        DFA d = new DFA(d0);
+        DFA e = new DFA(e0);
+        assertTrue(checker.isEquivalent(d, e));
+        assertEquals(checker.fingerprint(d), checker.fingerprint(e));
+    }
+
+    private static PointerAnalysisResult runPTA(Path classPath) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", PointerAnalysis.ID,
+        });
+        return World.get().getResult(PointerAnalysis.ID);
+    }
+
+    private static DFAState newState(Obj obj, Set<Type> output) {
+        return new DFAState(Set.of(obj), output);
+    }
+
+    /**
+     * Merges the mergeable objects of each type by checking every object
+     * against the representatives of all equivalence classes of its type.
+     */
+    private static Set<Set<New>> computeMergeGroupsWithoutBuckets(
+            PointerAnalysisResult pta) {
+        FieldPointsToGraph fpg = new FieldPointsToGraph(pta);
+        DFAFactory dfaFactory = new DFAFactory(fpg);
+        DFAEquivChecker checker = new DFAEquivChecker();
+        UnionFindSet<Obj> uf = new UnionFindSet<>(fpg.getObjects());
+        Map<Type, List<Obj>> groupedObjs = fpg.getObjects()
+                .stream()
+                .collect(Collectors.groupingBy(Obj::getType));
+        groupedObjs.values().parallelStream().forEach(objs -> {
+            List<Obj> representatives = new ArrayList<>();
+            for (Obj o : objs) {
+                DFA dfa = dfaFactory.getDFA(o);
+                if (dfa.getStates().stream()
+                        .anyMatch(s -> dfa.outputOf(s).size() > 1)) {
+                    continue;
+                }
+                Obj rep = representatives.stream()
+                        .filter(r -> checker.isEquivalent(dfaFactory.getDFA(r), dfa))
+                        .findFirst()
+                        .orElse(null);
+                if (rep != null) {
+                    synchronized (uf) {
+                        uf.union(rep, o);
+                    }
+                } else {
+                    representatives.add(o);
+                }
+            }
+        });
+        List<List<New>> groups = new ArrayList<>();
+        for (Set<Obj> objs : uf.getDisjointSets()) {
+            List<New> allocSites = objs.stream()
+                    .filter(o -> o instanceof NewObj)
+                    .map(o -> ((NewObj) o).getAllocation())
+                    .toList();
+            if (allocSites.size() > 1) {
+                groups.add(allocSites);
+            }
+        }
+        return toSets(groups);
+    }
+
+    private static Set<Set<New>> toSets(Collection<? extends Collection<New>> groups) {
+        return groups.stream()
+                .map(Set::copyOf)
+                .collect(Collectors.toSet());
+    }
+}
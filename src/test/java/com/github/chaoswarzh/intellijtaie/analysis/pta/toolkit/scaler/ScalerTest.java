@@ -0,0 +1,192 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.scaler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.core.heap.Obj;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.util.OAGs;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.language.type.NullType;
+import com.github.chaoswarzh.intellijtaie.language.type.ReferenceType;
+import com.github.chaoswarzh.intellijtaie.util.graph.Graph;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScalerTest {
+
+    @Test
+    void testSameSelectionAsNaiveSearch(@TempDir Path classPath) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", PointerAnalysis.ID,
+        });
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        NaiveScaler naive = new NaiveScaler(pta);
+        // pick the totals at some weights (i.e., the st values at which
+        // the selection changes) as tst, together with the values next
+        // to them
+        List<Long> weights = List.copyOf(naive.getWeights());
+        Set<Long> tsts = new TreeSet<>();
+        for (int i = 0; i < weights.size(); i += Math.max(1, weights.size() / 4)) {
+            long total = naive.getTotal(weights.get(i));
+            tsts.add(total - 1);
+            tsts.add(total);
+            tsts.add(total + 1);
+        }
+        tsts.add(0L);
+        tsts.add(Long.MAX_VALUE / 2);
+        Set<String> selectedVariants = new HashSet<>();
+        for (long tst : tsts) {
+            Map<JMethod, String> expected = naive.selectContext(tst);
+            assertEquals(expected, new Scaler(pta, tst).selectContext(),
+                    "tst: " + tst);
+            selectedVariants.addAll(expected.values());
+        }
+        // the tsts cover more than one variant
+        assertTrue(selectedVariants.size() > 1, selectedVariants.toString());
+    }
+
+    /**
+     * Straightforward Scaler, which computes the total weight of all
+     * methods for each st during binary search.
+     */
+    private static class NaiveScaler {
+
+        private final PointerAnalysisResultEx pta;
+
+        private final List<ContextComputer> ctxComputers;
+
+        private final ContextComputer bottomLine;
+
+        private final Set<JMethod> methods;
+
+        private final Map<JMethod, Long> ptsSizes = new HashMap<>();
+
+        private NaiveScaler(PointerAnalysisResult ptaBase) {
+            pta = new PointerAnalysisResultExImpl(ptaBase, true);
+            Graph<Obj> oag = OAGs.build(pta);
+            ctxComputers = List.of(
+                    new _2ObjContextComputer(pta, oag),
+                    new _2TypeContextComputer(pta, oag),
+                    new _1TypeContextComputer(pta));
+            bottomLine = new _InsensitiveContextComputer(pta);
+            methods = ptaBase.getCallGraph()
+                    .reachableMethods()
+                    .filter(m -> !m.isStatic())
+                    .collect(Collectors.toSet());
+        }
+
+        private Set<Long> getWeights() {
+            Set<Long> weights = new TreeSet<>();
+            for (JMethod method : methods) {
+                for (ContextComputer cc : ctxComputers) {
+                    weights.add(getWeight(method, cc));
+                }
+            }
+            return weights;
+        }
+
+        private Map<JMethod, String> selectContext(long tst) {
+            long st = binarySearch(tst);
+            return methods.stream().collect(Collectors.toMap(
+                    m -> m, m -> select(m, st).getVariantName()));
+        }
+
+        private long binarySearch(long tst) {
+            long end = methods.stream()
+                    .mapToLong(m -> getWeight(m, ctxComputers.get(0)))
+                    .max()
+                    .orElse(0);
+            long start = 0;
+            long ret = 0;
+            while (start <= end) {
+                long mid = (start + end) / 2;
+                long total = getTotal(mid);
+                if (total < tst) {
+                    ret = mid;
+                    start = mid + 1;
+                } else if (total > tst) {
+                    end = mid - 1;
+                } else {
+                    ret = mid;
+                    break;
+                }
+            }
+            return ret;
+        }
+
+        private long getTotal(long st) {
+            return methods.stream()
+                    .filter(m -> !isSpecial(m))
+                    .mapToLong(m -> getWeight(m, select(m, st)))
+                    .sum();
+        }
+
+        private ContextComputer select(JMethod method, long st) {
+            if (isSpecial(method)) {
+                return ctxComputers.get(0);
+            }
+            for (ContextComputer cc : ctxComputers) {
+                if (getWeight(method, cc) <= st) {
+                    return cc;
+                }
+            }
+            return bottomLine;
+        }
+
+        private long getWeight(JMethod method, ContextComputer cc) {
+            long ptsSize = ptsSizes.computeIfAbsent(method, m -> m.getIR()
+                    .getVars()
+                    .stream()
+                    .filter(v -> v.getType() instanceof ReferenceType
+                            && !(v.getType() instanceof NullType))
+                    .mapToLong(v -> pta.getBase().getPointsToSet(v).size())
+                    .sum());
+            return cc.contextNumberOf(method) * ptsSize;
+        }
+
+        private static boolean isSpecial(JMethod method) {
+            return method.getDeclaringClass().getName().startsWith("java.util.");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.analysis.pta.toolkit.zipper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.FlowEdge;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.Node;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.flowgraph.ObjectFlowGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZipperTest {
+
+    @Test
+    void testNodeSet() {
+        NodeSet set = new NodeSet(1000);
+        for (int i = 0; i < 1000; i += 3) {
+            assertTrue(set.add(i));
+        }
+        assertFalse(set.add(3));
+        assertEquals(334, set.size());
+        assertEquals(0, set.get(0));
+        assertEquals(999, set.get(333));
+        assertTrue(set.contains(999));
+        assertFalse(set.contains(998));
+        // cleared set is reused for other nodes
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(999));
+        assertTrue(set.add(998));
+        assertEquals(998, set.get(0));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void testAdjacencyAndSelection(@TempDir Path classPath) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", PointerAnalysis.ID,
+        });
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        ObjectFlowGraph ofg = pta.getObjectFlowGraph();
+        OFGAdjacency adj = new OFGAdjacency(ofg);
+        assertEquals(ofg.getNodes().size(), adj.getNumberOfNodes());
+        int edges = 0;
+        for (Node node : ofg) {
+            int i = node.getIndex();
+            assertEquals(node, adj.getNode(i));
+            List<FlowEdge> outEdges = new ArrayList<>();
+            for (int k = adj.outStart(i); k < adj.outEnd(i); ++k) {
+                outEdges.add(adj.outEdge(k));
+                assertEquals(adj.outEdge(k).target().getIndex(), adj.outTarget(k));
+            }
+            assertEquals(List.copyOf(ofg.getOutEdgesOf(node)), outEdges);
+            List<Integer> inSources = new ArrayList<>();
+            for (int k = adj.inStart(i); k < adj.inEnd(i); ++k) {
+                inSources.add(adj.inSource(k));
+            }
+            assertEquals(ofg.getInEdgesOf(node).stream()
+                    .map(e -> e.source().getIndex())
+                    .toList(), inSources);
+            edges += outEdges.size();
+        }
+        assertEquals(edges, adj.getNumberOfEdges());
+
+        // node sets reused across types and runs do not affect the selection
+        Set<JMethod> pcms = Zipper.run(pta, "zipper");
+        assertFalse(pcms.isEmpty());
+        assertEquals(pcms, Zipper.run(pta, "zipper"));
+        assertEquals(pcms, Zipper.run(pta, "zipper,budget=" + Integer.MAX_VALUE));
+        // types whose PFGs exceed the budget have no precision-critical methods
+        assertEquals(Set.of(), Zipper.run(pta, "zipper,budget=0"));
+        Set<JMethod> express = Zipper.run(pta, "zipper-e");
+        assertTrue(pcms.containsAll(express));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.frontend.soot.SootWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.ir.exp.IntLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.exp.InvokeDynamic;
+import com.github.chaoswarzh.intellijtaie.ir.exp.LongLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.exp.Var;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.AssignLiteral;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.FieldStmt;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Invoke;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.New;
+import com.github.chaoswarzh.intellijtaie.ir.stmt.Stmt;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.objectweb.asm.Opcodes.*;
+
+public class AsmFrontendTest {
+
+    /**
+     * Programs (and their main classes) in src/test/resources whose IRs
+     * built by ASM frontend are compared with the ones built by Soot frontend.
+     */
+    private static final Map<String, String> PROGRAMS = Map.of(
+            "src/test/resources/frontend", "FrontendFeatures",
+            "src/test/resources/world", "LazyLoading",
+            "src/test/resources/pta/demand", "DemandPTA",
+            "src/test/resources/pta/taint", "IncrementalTaint");
+
+    @Test
+    void testSameIRAsSoot(@TempDir Path tempDir) {
+        PROGRAMS.forEach((program, mainClass) -> {
+            Path classPath = tempDir.resolve(Path.of(program).getFileName());
+            Tests.compile(program, classPath);
+            List<String> classNames = getClassNames(classPath);
+            Map<String, Set<String>> soot = summarizeIRs(
+                    SootWorldBuilder.class.getName(), classPath, mainClass, classNames);
+            Map<String, Set<String>> asm = summarizeIRs(
+                    AsmWorldBuilder.class.getName(), classPath, mainClass, classNames);
+            assertEquals(soot.keySet(), asm.keySet(), program);
+            soot.forEach((method, summary) ->
+                    assertEquals(summary, asm.get(method), method));
+        });
+    }
+
+    /**
+     * Builds world for the classes in {@code classPath} by given world
+     * builder, and summarizes the IR of each method of the classes
+     * by the frontend-independent information, i.e., signature, invoked
+     * methods, allocated types, accessed fields, and caught exceptions.
+     */
+    private static Map<String, Set<String>> summarizeIRs(
+            String builder, Path classPath, String mainClass,
+            List<String> classNames) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", builder,
+                "-cp", classPath.toString(), "-m", mainClass,
+                "-a", "cg=algorithm:cha",
+        });
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        Map<String, Set<String>> summaries = new TreeMap<>();
+        for (String className : classNames) {
+            JClass jclass = hierarchy.getClass(className);
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                Set<String> summary = new TreeSet<>();
+                if (!method.isAbstract() && !method.isNative()) {
+                    IR ir = method.getIR();
+                    summary.add("params " + ir.getParams().size());
+                    for (Stmt stmt : ir) {
+                        if (stmt instanceof Invoke invoke) {
+                            summary.add(invoke.getInvokeExp() instanceof InvokeDynamic indy
+                                    ? "invokedynamic " + indy.getBootstrapMethodRef()
+                                    + " " + indy.getMethodName()
+                                    : "invoke " + invoke.getMethodRef());
+                        } else if (stmt instanceof New newStmt) {
+                            summary.add("new " + newStmt.getRValue().getType());
+                        } else if (stmt instanceof FieldStmt<?, ?> fieldStmt) {
+                            summary.add("field " + fieldStmt.getFieldRef());
+                        }
+                    }
+                    ir.getExceptionEntries().forEach(entry ->
+                            summary.add("catch " + entry.catchType()));
+                }
+                summaries.put(method.getSignature(), summary);
+            }
+        }
+        return summaries;
+    }
+
+    private static List<String> getClassNames(Path classPath) {
+        try (Stream<Path> paths = Files.list(classPath)) {
+            return paths.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(".class"))
+                    .map(name -> name.substring(0, name.length() - ".class".length()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void testDynamicConstants(@TempDir Path classPath) throws IOException {
+        Files.write(classPath.resolve("Condy.class"), generateCondyClass());
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath.toString(), "-m", "Condy",
+                "-a", "cg=algorithm:cha",
+        });
+        JClass condy = World.get().getClassHierarchy().getClass("Condy");
+        // constants of primitive types are modeled as default values
+        assertTrue(hasLiteral(condy.getDeclaredMethod("intValue").getIR(),
+                IntLiteral.get(0)));
+        assertTrue(hasLiteral(condy.getDeclaredMethod("longValue").getIR(),
+                LongLiteral.get(0)));
+        // constants of reference types are modeled as phantom values
+        IR ir = condy.getDeclaredMethod("stringValue").getIR();
+        Var ret = ir.getReturnVars().get(0);
+        assertEquals("java.lang.String", ret.getType().getName());
+        assertFalse(ir.stmts().anyMatch(s -> s.getDef().orElse(null) == ret));
+    }
+
+    private static boolean hasLiteral(IR ir, Object literal) {
+        return ir.stmts().anyMatch(s -> s instanceof AssignLiteral assign
+                && assign.getRValue().equals(literal));
+    }
+
+    /**
+     * Generates a class which loads dynamically-computed constants
+     * by {@code ldc} instructions, as javac does not emit them
+     * for Java source code.
+     */
+    private static byte[] generateCondyClass() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        cw.visit(V11, ACC_PUBLIC, "Condy", null, "java/lang/Object", null);
+        Handle bsm = new Handle(H_INVOKESTATIC,
+                "java/lang/invoke/ConstantBootstraps", "nullConstant",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;"
+                        + "Ljava/lang/Class;)Ljava/lang/Object;", false);
+        generateCondyMethod(cw, "intValue", "I", IRETURN, bsm);
+        generateCondyMethod(cw, "longValue", "J", LRETURN, bsm);
+        generateCondyMethod(cw, "stringValue", "Ljava/lang/String;", ARETURN, bsm);
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "main",
+                "([Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        mv.visitMethodInsn(INVOKESTATIC, "Condy", "intValue", "()I", false);
+        mv.visitInsn(POP);
+        mv.visitMethodInsn(INVOKESTATIC, "Condy", "longValue", "()J", false);
+        mv.visitInsn(POP2);
+        mv.visitMethodInsn(INVOKESTATIC, "Condy", "stringValue",
+                "()Ljava/lang/String;", false);
+        mv.visitInsn(POP);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void generateCondyMethod(ClassWriter cw, String name,
+                                            String desc, int returnOpcode, Handle bsm) {
+        MethodVisitor mv = cw.visitMethod(ACC_STATIC, name, "()" + desc, null, null);
+        mv.visitCode();
+        mv.visitLdcInsn(new ConstantDynamic(name, desc, bsm));
+        mv.visitInsn(returnOpcode);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassIndexTest {
+
+    @Test
+    void testArchiveIndex(@TempDir Path tempDir) throws IOException {
+        Path jar = createJar(tempDir);
+        File indexDir = tempDir.resolve("index").toFile();
+        assertTrue(indexDir.mkdir());
+        ClassIndex index;
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            index = ClassIndex.ofArchive(zip, "", indexDir);
+        }
+        assertEquals(new ClassIndex.ClassInfo("Circle", "Circle.class",
+                "java.lang.Object", List.of("Shape")), index.get("Circle"));
+        assertEquals(new ClassIndex.ClassInfo("Shape", "Shape.class",
+                "java.lang.Object", List.of()), index.get("Shape"));
+        assertNull(index.get("Missing"));
+        assertEquals(countClassFiles(tempDir.resolve("classes")),
+                index.getClasses().size());
+        // the stored index is loaded by later runs
+        File[] indexFiles = indexDir.listFiles();
+        assertNotNull(indexFiles);
+        assertEquals(1, indexFiles.length);
+        long lastModified = indexFiles[0].lastModified();
+        ClassIndex loaded;
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            loaded = ClassIndex.ofArchive(zip, "", indexDir);
+        }
+        assertEquals(Set.copyOf(index.getClasses()), Set.copyOf(loaded.getClasses()));
+        assertEquals(lastModified, indexFiles[0].lastModified());
+    }
+
+    @Test
+    void testIndexedClassPath(@TempDir Path tempDir) throws IOException {
+        String jar = createJar(tempDir).toString();
+        ClassPath classPath = new ClassPath(List.of(jar), Set.of(jar), false,
+                tempDir.resolve("index").toFile());
+        ClassPath.ClassFile classFile = classPath.find("Square");
+        assertNotNull(classFile);
+        assertTrue(classFile.isApp());
+        assertNull(classPath.find("Missing"));
+        ClassIndex.ClassInfo info = classPath.getClassInfo("Square");
+        assertNotNull(info);
+        assertEquals(List.of("Shape"), info.interfaces());
+        assertNull(classPath.getClassInfo("Missing"));
+    }
+
+    /**
+     * Compiles the test program and packs its classes into a jar.
+     */
+    private static Path createJar(Path tempDir) throws IOException {
+        Path classes = Path.of(Tests.compile("src/test/resources/frontend",
+                tempDir.resolve("classes")));
+        Path jar = tempDir.resolve("program.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.list(classes)) {
+            for (Path file : files.sorted().toList()) {
+                out.putNextEntry(new ZipEntry(file.getFileName().toString()));
+                Files.copy(file, (OutputStream) out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static long countClassFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".class")).count();
+        }
+    }
+}
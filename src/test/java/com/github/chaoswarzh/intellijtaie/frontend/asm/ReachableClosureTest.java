@@ -0,0 +1,106 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.asm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.config.Options;
+import com.github.chaoswarzh.intellijtaie.language.classes.ClassHierarchy;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReachableClosureTest {
+
+    private static final String DIR = "src/test/resources/world/reachable";
+
+    @Test
+    void testReachableMethods(@TempDir Path classPath) {
+        buildWorld(classPath, false);
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        // without --reachable-world, only the main class is loaded eagerly
+        assertFalse(getLoadedClasses().contains("Bone"));
+        Set<String> reachable = ReachableClosure.compute(hierarchy,
+                        List.of(World.get().getMainMethod()))
+                .stream()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+        assertTrue(reachable.containsAll(Set.of(
+                "<ReachableWorld: void main(java.lang.String[])>",
+                "<Dog: void <init>()>",
+                "<Dog: void speak()>",
+                "<Bone: void chew()>",
+                "<Helper: void help()>",
+                "<Helper: void <clinit>()>",
+                "<Counter: int init()>",
+                "<Lambda: void run()>")), reachable.toString());
+        // Cat is never instantiated, thus Cat.speak() is unreachable
+        assertFalse(reachable.contains("<Cat: void speak()>"));
+        assertFalse(reachable.contains("<Fish: void eat()>"));
+        // the lambda body is reachable via the method handle
+        assertTrue(reachable.stream().anyMatch(m -> m.startsWith(
+                "<ReachableWorld: void lambda$main$")));
+    }
+
+    @Test
+    void testReachableWorld(@TempDir Path classPath) {
+        buildWorld(classPath, true);
+        Set<String> loaded = getLoadedClasses();
+        assertTrue(loaded.containsAll(Set.of("ReachableWorld", "Animal",
+                "Dog", "Bone", "Helper", "Counter", "Lambda")), loaded.toString());
+        // the classes that are not referenced by reachable methods
+        // are not loaded
+        assertFalse(loaded.contains("Cat"));
+        assertFalse(loaded.contains("Fish"));
+        assertFalse(loaded.contains("Unused"));
+        // and they are still loaded on demand
+        assertEquals("Cat", World.get().getClassHierarchy()
+                .getClass("Cat").getName());
+    }
+
+    private static void buildWorld(Path classPath, boolean reachableWorld) {
+        Options options = Options.parse(
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile(DIR, classPath),
+                "-m", "ReachableWorld",
+                reachableWorld ? "--reachable-world" : "--reachable-world=false");
+        new AsmWorldBuilder().build(options, List.of());
+    }
+
+    private static Set<String> getLoadedClasses() {
+        return World.get().getClassHierarchy()
+                .allClasses()
+                .map(JClass::getName)
+                .collect(Collectors.toSet());
+    }
+}
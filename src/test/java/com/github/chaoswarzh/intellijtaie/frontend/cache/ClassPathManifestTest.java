@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassPathManifestTest {
+
+    @Test
+    void testDirectoryDigest(@TempDir Path tempDir) throws IOException {
+        File cacheDir = tempDir.resolve("cache").toFile();
+        assertTrue(cacheDir.mkdir());
+        Path classes = Files.createDirectories(tempDir.resolve("classes/p"))
+                .getParent();
+        Path a = Files.writeString(classes.resolve("p/A.class"), "A1");
+        Files.writeString(classes.resolve("B.class"), "B1");
+        ClassPathManifest manifest = ClassPathManifest.load(cacheDir);
+        String digest = manifest.digest(classes.toFile());
+        // touching a file does not change the digest
+        assertTrue(a.toFile().setLastModified(a.toFile().lastModified() + 5000));
+        assertEquals(digest, manifest.digest(classes.toFile()));
+        // changing a file inside the directory changes the digest,
+        // even if the modification time of the directory is unchanged
+        long dirTime = classes.toFile().lastModified();
+        Files.writeString(a, "A2");
+        assertTrue(classes.toFile().setLastModified(dirTime));
+        String changed = manifest.digest(classes.toFile());
+        assertNotEquals(digest, changed);
+        // moving a file changes the digest
+        Files.move(a, classes.resolve("A.class"));
+        assertNotEquals(changed, manifest.digest(classes.toFile()));
+    }
+
+    @Test
+    void testMemorizedDigests(@TempDir Path tempDir) throws IOException {
+        File cacheDir = tempDir.toFile();
+        Path jar = Files.writeString(tempDir.resolve("lib.jar"), "content1");
+        ClassPathManifest manifest = ClassPathManifest.load(cacheDir);
+        String digest = manifest.digest(jar.toFile());
+        manifest.save();
+        assertTrue(new File(cacheDir, "classpath-manifest.txt").exists());
+        // a file with the same size and modification time is not re-hashed,
+        // so the memorized digest is returned by the loaded manifest
+        long time = jar.toFile().lastModified();
+        Files.writeString(jar, "content2");
+        assertTrue(jar.toFile().setLastModified(time));
+        assertEquals(digest, ClassPathManifest.load(cacheDir).digest(jar.toFile()));
+        // otherwise, the file is re-hashed
+        assertTrue(jar.toFile().setLastModified(time + 5000));
+        assertNotEquals(digest, ClassPathManifest.load(cacheDir).digest(jar.toFile()));
+    }
+}
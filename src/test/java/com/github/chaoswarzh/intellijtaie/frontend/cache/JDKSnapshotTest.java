@@ -0,0 +1,89 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraph;
+import com.github.chaoswarzh.intellijtaie.analysis.graph.callgraph.CallGraphBuilder;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JDKSnapshotTest {
+
+    @Test
+    void testSameWorldAsWithoutSnapshot(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        analyze(cp, false);
+        Map<String, String> expectedIRs = WorldCacheFileTest.printAppIRs(World.get());
+        Set<String> expectedMethods = getReachableMethods();
+        assertTrue(expectedMethods.size() > 1);
+        // the first run may build the snapshot, and the second run
+        // must load it
+        for (int i = 0; i < 2; ++i) {
+            analyze(cp, true);
+            File[] snapshots = new File("cache").listFiles((dir, name) ->
+                    name.startsWith("jdk-snapshot-"));
+            assertNotNull(snapshots);
+            assertTrue(snapshots.length > 0);
+            assertEquals(expectedIRs, WorldCacheFileTest.printAppIRs(World.get()));
+            assertEquals(expectedMethods, getReachableMethods());
+        }
+    }
+
+    private static void analyze(String classPath, boolean jdkSnapshot) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", classPath, "-m", "FrontendFeatures",
+                jdkSnapshot ? "--jdk-snapshot" : "--jdk-snapshot=false",
+                "-a", "cg=algorithm:cha-full",
+        });
+    }
+
+    /**
+     * @return the reachable application methods. The reachable JDK methods
+     * are not compared, as the class hierarchy of the world built without
+     * the snapshot contains only the loaded JDK classes, which affects
+     * the resolution of call sites in JDK.
+     */
+    private static Set<String> getReachableMethods() {
+        CallGraph<?, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        return callGraph.reachableMethods()
+                .filter(JMethod::isApplication)
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+    }
+}
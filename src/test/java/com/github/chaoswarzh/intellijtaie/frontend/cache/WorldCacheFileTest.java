@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+import com.github.chaoswarzh.intellijtaie.language.classes.JMethod;
+import com.github.chaoswarzh.intellijtaie.util.collection.Maps;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class WorldCacheFileTest {
+
+    @Test
+    void testRoundTrip(@TempDir Path tempDir) throws Exception {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend",
+                tempDir.resolve("classes")),
+                "-m", "FrontendFeatures", "-a", "cg=algorithm:cha",
+        });
+        Map<String, String> expected = printAppIRs(World.get());
+        assertFalse(expected.isEmpty());
+        File file = tempDir.resolve("world.cache").toFile();
+        WorldCacheFile.save(World.get(), file);
+        World world = WorldCacheFile.load(file);
+        World.set(world);
+        assertEquals(expected, printAppIRs(world));
+    }
+
+    /**
+     * @return the printed IR of each method of application classes,
+     * which covers the statements and the types of the variables.
+     */
+    static Map<String, String> printAppIRs(World world) {
+        Map<String, String> irs = new TreeMap<>();
+        // collect the methods at first, as building IRs may load classes
+        world.getClassHierarchy().applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList()
+                .forEach(m -> irs.put(m.getSignature(), print(m)));
+        return irs;
+    }
+
+    private static String print(JMethod method) {
+        IR ir = method.getIR();
+        StringBuilder builder = new StringBuilder();
+        ir.getVars().forEach(v -> builder.append(v.getType())
+                .append(' ').append(v).append('\n'));
+        ir.forEach(s -> builder.append(s.getIndex()).append(": ")
+                .append(s).append('\n'));
+        ir.getExceptionEntries().forEach(e -> builder.append(e).append('\n'));
+        return builder.toString();
+    }
+
+    @Test
+    void testMapIRSectionInRegions(@TempDir Path tempDir) throws Exception {
+        byte[] content = new byte[32];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) i;
+        }
+        Path file = tempDir.resolve("ir-section");
+        Files.write(file, content);
+        // the IR section starts at offset 4 with size 25
+        List<WorldCacheFile.IndexEntry> entries = List.of(
+                new WorldCacheFile.IndexEntry("a", 0, 10),
+                new WorldCacheFile.IndexEntry("b", 10, 10),
+                new WorldCacheFile.IndexEntry("c", 20, 5));
+        Map<String, MappedIRBuilder.Section> index = Maps.newMap();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            List<ByteBuffer> regions = WorldCacheFile.mapIRSection(
+                    channel, 4, 25, entries, 16, index);
+            assertEquals(2, regions.size());
+            for (WorldCacheFile.IndexEntry entry : entries) {
+                MappedIRBuilder.Section section = index.get(entry.signature());
+                ByteBuffer buffer = regions.get(section.region())
+                        .slice(section.offset(), section.length());
+                assertEquals(entry.length(), buffer.remaining());
+                for (int i = 0; i < entry.length(); ++i) {
+                    assertEquals(4 + entry.offset() + i, buffer.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.frontend.soot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.language.classes.JClass;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SootClassLoaderTest {
+
+    @Test
+    void testDeterministicClassIndexes(@TempDir Path classPath) {
+        String cp = Tests.compile("src/test/resources/frontend", classPath);
+        Map<String, Integer> indexes = buildClassIndexes(cp);
+        World.get().getClassHierarchy().allClasses().forEach(jclass -> {
+            // super class and interfaces are added to class hierarchy
+            // before the class itself
+            JClass superClass = jclass.getSuperClass();
+            if (superClass != null) {
+                assertTrue(superClass.getIndex() < jclass.getIndex(),
+                        jclass.getName());
+            }
+            jclass.getInterfaces().forEach(i ->
+                    assertTrue(i.getIndex() < jclass.getIndex(), jclass.getName()));
+        });
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(indexes, buildClassIndexes(cp));
+        }
+    }
+
+    private static Map<String, Integer> buildClassIndexes(String classPath) {
+        Main.main(new String[]{
+                "-pp", "-cp", classPath, "-m", "FrontendFeatures",
+                "-a", "cg=algorithm:cha",
+        });
+        return World.get().getClassHierarchy().allClasses()
+                .collect(Collectors.toMap(JClass::getName, JClass::getIndex));
+    }
+}
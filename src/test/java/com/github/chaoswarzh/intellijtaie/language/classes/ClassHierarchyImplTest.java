@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IRPrebuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClassHierarchyImplTest {
+
+    private static final int THREADS = 4;
+
+    /**
+     * Loads classes on demand in several threads, while the IRs are
+     * built in background and other threads query the hierarchy.
+     */
+    @Test
+    void testConcurrentLoading(@TempDir Path classPath) throws Exception {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", "cg=algorithm:cha",
+        });
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JClass object = hierarchy.getClass(ClassNames.OBJECT);
+        List<String> names = getClassNames("java", "util");
+        CompletableFuture<Void> prebuilding = IRPrebuilder.start(hierarchy);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS * 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; ++t) {
+                int first = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = first; i < names.size(); i += THREADS) {
+                        assertNotNull(hierarchy.getClass(names.get(i)), names.get(i));
+                    }
+                }));
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 100; ++i) {
+                        hierarchy.allClasses().forEach(c ->
+                                hierarchy.getDirectSubclassesOf(c).forEach(sub ->
+                                        assertSame(c, sub.getSuperClass())));
+                        assertTrue(hierarchy.getAllSubclassesOf(object)
+                                .contains(object));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        prebuilding.join();
+        checkConsistency(hierarchy);
+    }
+
+    private static void checkConsistency(ClassHierarchy hierarchy) {
+        List<JClass> classes = hierarchy.allClasses().toList();
+        assertEquals(classes.size(), hierarchy.allClasses().count());
+        for (int i = 0; i < classes.size(); ++i) {
+            JClass jclass = classes.get(i);
+            assertEquals(i, jclass.getIndex());
+            assertSame(jclass, hierarchy.getObject(i));
+            JClass superClass = jclass.getSuperClass();
+            if (superClass != null && !jclass.isInterface()) {
+                assertTrue(hierarchy.getDirectSubclassesOf(superClass)
+                        .contains(jclass), jclass.getName());
+                assertTrue(hierarchy.isSubclass(superClass, jclass),
+                        jclass.getName());
+            }
+        }
+    }
+
+    /**
+     * @return the names of the classes in the given package of java.base.
+     */
+    private static List<String> getClassNames(String... packageNames) throws IOException {
+        Path dir = FileSystems.getFileSystem(URI.create("jrt:/"))
+                .getPath("modules", "java.base").resolve(String.join("/", packageNames));
+        String prefix = String.join(".", packageNames) + ".";
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(".class"))
+                    .filter(name -> !name.equals("package-info.class"))
+                    .map(name -> prefix + name.substring(0, name.length() - ".class".length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysis;
+import com.github.chaoswarzh.intellijtaie.analysis.pta.PointerAnalysisResult;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IRCacheTest {
+
+    @Test
+    void testKeepPinnedIRs(@TempDir Path classPath) {
+        analyze(classPath, "-a", "cfg", "-a", "live-var", "-kr", "live-var");
+        for (JMethod method : getAppMethods()) {
+            // the IR holding the result of live-var is still pinned
+            assertNull(IRCache.get(method), method.toString());
+            IR ir = method.getIR();
+            assertTrue(ir.hasResult("live-var"));
+            assertFalse(ir.hasResult("cfg"));
+        }
+    }
+
+    @Test
+    void testReleaseClearedIRs(@TempDir Path classPath) {
+        analyze(classPath, "-a", "cfg", "-kr", "live-var");
+        for (JMethod method : getAppMethods()) {
+            // the IR is unpinned after its last result is cleared,
+            // and is kept by the cache
+            IR cached = IRCache.get(method);
+            assertNotNull(cached, method.toString());
+            assertEquals(List.of(), List.copyOf(cached.getKeys()));
+            // the cached IR is pinned again when requested by analyses
+            assertSame(cached, method.getIR());
+            assertNull(IRCache.get(method));
+        }
+    }
+
+    @Test
+    void testKeepIRsOfProgramResults(@TempDir Path classPath) {
+        analyze(classPath, "-a", "pta=cs:ci", "-a", "cfg", "-kr", "pta");
+        PointerAnalysisResult pta = World.get().getResult(PointerAnalysis.ID);
+        JMethod main = World.get().getMainMethod();
+        // the IRs whose elements are kept by the result of pta are still
+        // pinned, although the results of cfg on them have been cleared
+        assertNull(IRCache.get(main));
+        IR ir = main.getIR();
+        assertFalse(ir.hasResult("cfg"));
+        // and its variables are still the ones analyzed by pta
+        assertTrue(ir.getVars().stream().anyMatch(pta.getVars()::contains));
+    }
+
+    @Test
+    void testReleaseIRsOfProgramResults(@TempDir Path classPath) {
+        analyze(classPath, "-a", "pta=cs:ci", "-kr", "live-var");
+        assertFalse(World.get().hasResult(PointerAnalysis.ID));
+        // the IRs used by pta are released after its result is cleared,
+        // including the ones of library methods
+        JMethod objectInit = World.get().getClassHierarchy()
+                .getJREMethod("<java.lang.Object: void <init>()>");
+        for (JMethod method : List.of(World.get().getMainMethod(), objectInit)) {
+            assertNotNull(IRCache.get(method), method.toString());
+        }
+    }
+
+    private static void analyze(Path classPath, String... analyses) {
+        String[] args = {
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "--ir-cache-size", "64",
+        };
+        String[] allArgs = new String[args.length + analyses.length];
+        System.arraycopy(args, 0, allArgs, 0, args.length);
+        System.arraycopy(analyses, 0, allArgs, args.length, analyses.length);
+        Main.main(allArgs);
+    }
+
+    private static List<JMethod> getAppMethods() {
+        List<JMethod> methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract())
+                .toList();
+        assertFalse(methods.isEmpty());
+        return methods;
+    }
+}
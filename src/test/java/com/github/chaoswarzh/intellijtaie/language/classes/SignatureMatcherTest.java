@@ -0,0 +1,67 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class SignatureMatcherTest {
+
+    @Test
+    void testLazilyLoadedClasses(@TempDir Path classPath) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/world", classPath),
+                "-m", "LazyLoading", "-a", "cg=algorithm:cha",
+        });
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        SignatureMatcher matcher = new SignatureMatcher(hierarchy);
+        assertEquals(Set.of("LazyLoading", "LazyA"),
+                getNames(matcher.getClasses("Lazy*")));
+        assertEquals(Set.of("LazyA"), getNames(matcher.getClasses("*A^")));
+        // load classes after the index of class names has been built
+        assertNotNull(hierarchy.getClass("LazyB"));
+        assertNotNull(hierarchy.getClass("LazyC"));
+        assertEquals(Set.of("LazyLoading", "LazyA", "LazyB", "LazyC"),
+                getNames(matcher.getClasses("Lazy*")));
+        assertEquals(Set.of("LazyA", "LazyC"), getNames(matcher.getClasses("*A^")));
+        assertEquals(Set.of("LazyC"), getNames(matcher.getClasses("*C")));
+    }
+
+    private static Set<String> getNames(Set<JClass> classes) {
+        return classes.stream()
+                .map(JClass::getName)
+                .collect(Collectors.toSet());
+    }
+}
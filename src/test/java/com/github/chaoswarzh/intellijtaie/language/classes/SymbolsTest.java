@@ -0,0 +1,95 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.language.classes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.github.chaoswarzh.intellijtaie.Main;
+import com.github.chaoswarzh.intellijtaie.World;
+import com.github.chaoswarzh.intellijtaie.analysis.Tests;
+import com.github.chaoswarzh.intellijtaie.frontend.asm.AsmWorldBuilder;
+import com.github.chaoswarzh.intellijtaie.ir.IR;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SymbolsTest {
+
+    @Test
+    void testIntern() {
+        String s = Symbols.intern(new String("symbol"));
+        assertSame(s, Symbols.intern(new String("symbol")));
+        List<String> symbols = Symbols.intern(
+                Arrays.asList(new String("symbol"), new String("other")));
+        assertSame(s, symbols.get(0));
+        assertSame(symbols.get(1), Symbols.intern(new String("other")));
+        assertNull(Symbols.intern((String) null));
+        assertNull(Symbols.intern((List<String>) null));
+        // the table is cleared together with the world
+        World.reset();
+        assertNotSame(s, Symbols.intern(new String("symbol")));
+    }
+
+    @Test
+    void testInternedNames(@TempDir Path classPath) {
+        Main.main(new String[]{
+                "-pp", "--world-builder", AsmWorldBuilder.class.getName(),
+                "-cp", Tests.compile("src/test/resources/frontend", classPath),
+                "-m", "FrontendFeatures", "-a", "cg=algorithm:cha",
+        });
+        List<JMethod> methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .toList();
+        String init = Symbols.intern("<init>");
+        String thisName = null;
+        for (JMethod method : methods) {
+            assertSame(Symbols.intern(method.getName()), method.getName());
+            assertSame(Symbols.intern(method.getDeclaringClass().getName()),
+                    method.getDeclaringClass().getName());
+            if (method.isConstructor()) {
+                assertSame(init, method.getName());
+            }
+            // signatures are computed lazily but stay consistent
+            assertEquals("<" + method.getDeclaringClass().getName() + ": "
+                    + method.getSubsignature() + ">", method.getSignature());
+            assertSame(method.getSignature(), method.getSignature());
+            if (!method.isAbstract() && !method.isStatic()) {
+                // the names of this variables are shared by all IRs
+                IR ir = method.getIR();
+                if (thisName == null) {
+                    thisName = ir.getThis().getName();
+                }
+                assertSame(thisName, ir.getThis().getName());
+            }
+        }
+    }
+}
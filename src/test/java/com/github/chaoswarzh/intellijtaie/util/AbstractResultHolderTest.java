@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.chaoswarzh.intellijtaie.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AbstractResultHolderTest {
+
+    private static final String RECOMPUTABLE = "recomputable";
+
+    private static final String PERMANENT = "permanent";
+
+    private final AtomicInteger recomputations = new AtomicInteger();
+
+    @AfterEach
+    void clearRecomputers() {
+        ResultRecomputers.clear();
+    }
+
+    @Test
+    void testRecomputeEvictedResults() {
+        registerRecomputer();
+        ResultHolder holder = new Holder();
+        holder.storeResult(RECOMPUTABLE, new StringBuilder("result"));
+        holder.storeResult(PERMANENT, new StringBuilder("result"));
+        Object permanent = holder.getResult(PERMANENT);
+        exhaustMemory();
+        // the evicted result is recomputed on demand and stored again
+        StringBuilder recomputed = holder.getResult(RECOMPUTABLE);
+        assertEquals("result", recomputed.toString());
+        assertEquals(1, recomputations.get());
+        assertSame(recomputed, holder.getResult(RECOMPUTABLE));
+        assertEquals(1, recomputations.get());
+        assertTrue(holder.hasResult(RECOMPUTABLE));
+        // results of other keys are held strongly
+        assertSame(permanent, holder.getResult(PERMANENT));
+    }
+
+    @Test
+    void testKeepClearedResultsCleared() {
+        registerRecomputer();
+        ResultHolder holder = new Holder();
+        holder.storeResult(RECOMPUTABLE, new StringBuilder("result"));
+        holder.clearResult(RECOMPUTABLE);
+        exhaustMemory();
+        assertFalse(holder.hasResult(RECOMPUTABLE));
+        assertNull(holder.getResult(RECOMPUTABLE));
+        assertEquals(0, recomputations.get());
+    }
+
+    @Test
+    void testStrongResultsWithoutRecomputer() {
+        ResultHolder holder = new Holder();
+        StringBuilder result = new StringBuilder("result");
+        holder.storeResult(RECOMPUTABLE, result);
+        // registering the recomputer does not affect stored results
+        registerRecomputer();
+        exhaustMemory();
+        assertSame(result, holder.getResult(RECOMPUTABLE));
+        // but affects the results stored later
+        holder.storeResult(RECOMPUTABLE, new StringBuilder("result"));
+        exhaustMemory();
+        assertNotSame(result, holder.getResult(RECOMPUTABLE));
+        assertEquals(1, recomputations.get());
+    }
+
+    private void registerRecomputer() {
+        ResultRecomputers.register(RECOMPUTABLE, holder -> {
+            recomputations.incrementAndGet();
+            return new StringBuilder("result");
+        });
+    }
+
+    /**
+     * Allocates memory until {@link OutOfMemoryError}, which guarantees
+     * that all softly reachable objects have been reclaimed.
+     */
+    private static void exhaustMemory() {
+        List<long[]> chunks = new ArrayList<>();
+        try {
+            while (true) {
+                chunks.add(new long[1 << 20]);
+            }
+        } catch (OutOfMemoryError e) {
+            chunks.clear();
+        }
+    }
+
+    private static class Holder extends AbstractResultHolder {
+    }
+}
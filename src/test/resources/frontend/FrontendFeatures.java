@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+class FrontendFeatures {
+
+    static int counter;
+
+    static final String NAME = "features";
+
+    public static void main(String[] args) {
+        Shape[] shapes = {new Circle(1.5), new Square(2)};
+        double area = totalArea(shapes);
+        long mix = arithmetic(args.length, 3L, 2.0f);
+        String s = describe(args.length) + area + mix;
+        System.out.println(s);
+        System.out.println(parse(s));
+        int[][] grid = new int[3][4];
+        grid[1][2] = counter++;
+        System.out.println(mapAll(List.of("a", "b"), String::length));
+        Object o = args.length > 0 ? shapes[0] : NAME;
+        if (o instanceof Circle c) {
+            System.out.println(c.radius);
+        }
+        synchronized (FrontendFeatures.class) {
+            counter += grid[1][2];
+        }
+    }
+
+    static double totalArea(Shape[] shapes) {
+        double sum = 0;
+        for (Shape shape : shapes) {
+            sum += shape.area();
+        }
+        return sum;
+    }
+
+    static long arithmetic(int i, long l, float f) {
+        long r = (i << 2) ^ l;
+        r += (long) (f * 3) % 7;
+        return i > 0 ? r : -r;
+    }
+
+    static String describe(int n) {
+        switch (n) {
+            case 0:
+                return "zero";
+            case 1:
+                return "one";
+            case 100:
+                return "hundred";
+            default:
+                return n < 0 ? "negative" : "many";
+        }
+    }
+
+    static int parse(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return -1;
+        } finally {
+            counter++;
+        }
+    }
+
+    static <T, R> List<R> mapAll(List<T> list, Function<T, R> f) {
+        List<R> result = new ArrayList<>();
+        list.forEach(e -> result.add(f.apply(e)));
+        return result;
+    }
+}
+
+interface Shape {
+
+    double area();
+}
+
+class Circle implements Shape {
+
+    final double radius;
+
+    Circle(double radius) {
+        this.radius = radius;
+    }
+
+    @Override
+    public double area() {
+        return Math.PI * radius * radius;
+    }
+}
+
+class Square implements Shape {
+
+    private final int side;
+
+    Square(int side) {
+        this.side = side;
+    }
+
+    @Override
+    public double area() {
+        return side * side;
+    }
+}
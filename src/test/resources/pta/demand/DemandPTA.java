@@ -0,0 +1,78 @@
+class DemandPTA {
+
+    public static void main(String[] args) {
+        fields();
+        arrays();
+        statics();
+        calls();
+    }
+
+    static void fields() {
+        A a1 = new A();
+        A a2 = new A();
+        B b1 = new B();
+        B b2 = new B();
+        a1.f = b1;
+        a2.f = b2;
+        B x = a1.f;
+        B y = a2.f;
+        A a3 = a1;
+        B z = a3.f;
+    }
+
+    static void arrays() {
+        Object[] arr1 = new Object[1];
+        Object[] arr2 = new Object[1];
+        arr1[0] = new A();
+        arr2[0] = new B();
+        Object x = arr1[0];
+        Object y = arr2[0];
+    }
+
+    static B sb;
+
+    static void statics() {
+        sb = new B();
+        B x = sb;
+    }
+
+    static void calls() {
+        A a = id(new A());
+        I i1 = new C();
+        I i2 = new D();
+        Object r1 = i1.get();
+        Object r2 = i2.get();
+        Object s = i1.toString();
+    }
+
+    static A id(A a) {
+        return a;
+    }
+}
+
+class A {
+    B f;
+}
+
+class B {
+}
+
+interface I {
+    Object get();
+}
+
+class C implements I {
+    public Object get() {
+        return new A();
+    }
+
+    public String toString() {
+        return "C";
+    }
+}
+
+class D implements I {
+    public Object get() {
+        return new B();
+    }
+}
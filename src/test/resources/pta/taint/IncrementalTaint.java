@@ -0,0 +1,36 @@
+class IncrementalTaint {
+
+    public static void main(String[] args) {
+        String s1 = source();
+        sink(s1);
+        String s2 = source2();
+        String t = transfer(s2);
+        sink(t);
+        String s3 = source();
+        String c = clean(s3);
+        sink(c);
+        sink2(s1);
+    }
+
+    static String source() {
+        return new String();
+    }
+
+    static String source2() {
+        return new String();
+    }
+
+    static String transfer(String s) {
+        return new String();
+    }
+
+    static String clean(String s) {
+        return s;
+    }
+
+    static void sink(String s) {
+    }
+
+    static void sink2(String s) {
+    }
+}
@@ -0,0 +1,15 @@
+class LazyLoading {
+
+    public static void main(String[] args) {
+        new LazyA();
+    }
+}
+
+class LazyA {
+}
+
+class LazyB {
+}
+
+class LazyC extends LazyA {
+}
@@ -0,0 +1,67 @@
+class ReachableWorld {
+
+    public static void main(String[] args) {
+        Animal animal = new Dog();
+        animal.speak();
+        Helper.help();
+        Runnable r = () -> Lambda.run();
+        r.run();
+    }
+}
+
+interface Animal {
+
+    void speak();
+}
+
+class Dog implements Animal {
+
+    @Override
+    public void speak() {
+        Bone.chew();
+    }
+}
+
+class Cat implements Animal {
+
+    @Override
+    public void speak() {
+        Fish.eat();
+    }
+}
+
+class Helper {
+
+    static int count = Counter.init();
+
+    static void help() {
+    }
+}
+
+class Counter {
+
+    static int init() {
+        return 0;
+    }
+}
+
+class Bone {
+
+    static void chew() {
+    }
+}
+
+class Fish {
+
+    static void eat() {
+    }
+}
+
+class Lambda {
+
+    static void run() {
+    }
+}
+
+class Unused {
+}